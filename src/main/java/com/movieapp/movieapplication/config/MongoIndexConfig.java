@@ -0,0 +1,91 @@
+package com.movieapp.movieapplication.config;
+
+import com.movieapp.movieapplication.model.Movie;
+import com.movieapp.movieapplication.model.RatingTrendBucket;
+import com.movieapp.movieapplication.model.Review;
+import com.movieapp.movieapplication.model.User;
+import com.movieapp.movieapplication.model.WatchHistoryEntry;
+import com.movieapp.movieapplication.service.UserService;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.TextIndexDefinition;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+@Component
+public class MongoIndexConfig {
+
+    private final MongoTemplate mongoTemplate;
+
+    public MongoIndexConfig(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    // Indeksy tworzone w tle po starcie, żeby niedostępna baza nie blokowała uruchomienia aplikacji.
+    // Każdy indeks osobno - błąd jednego (np. duplikaty w danych) nie blokuje pozostałych.
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        try {
+            ensureAll();
+        } catch (DataAccessResourceFailureException e) {
+            // Baza niedostępna - kolejne próby skończyłyby się tak samo
+            System.out.println("Could not ensure MongoDB indexes: " + e.getMessage());
+        }
+    }
+
+    private void ensureAll() {
+        // Najpierw unikalność e-maila i nazwy użytkownika - od nich zależy poprawność rejestracji.
+        // Dopóki nie istnieją, UserService sprawdza zajętość zapytaniem przed insertem.
+        ensure(User.class, new Index().on("email", Sort.Direction.ASC).unique().named(UserService.EMAIL_INDEX));
+        ensure(User.class, new Index().on("username", Sort.Direction.ASC).unique().named(UserService.USERNAME_INDEX));
+
+        // Jedna recenzja na użytkownika i film
+        ensure(Review.class, new Index()
+                .on("userId", Sort.Direction.ASC).on("movieId", Sort.Direction.ASC).unique()
+                .named("userId_movieId_unique"));
+
+        // Indeksy pod stronicowanie kursorem (sortField, _id)
+        ensure(Movie.class, new Index().on("title", Sort.Direction.ASC).on("_id", Sort.Direction.ASC).named("title_id"));
+        ensure(Movie.class, new Index().on("releaseYear", Sort.Direction.ASC).on("_id", Sort.Direction.ASC).named("releaseYear_id"));
+        ensure(Movie.class, new Index().on("duration", Sort.Direction.ASC).on("_id", Sort.Direction.ASC).named("duration_id"));
+
+        // Recenzje filmu od najnowszych (keyset po reviewDate, _id)
+        ensure(Review.class, new Index()
+                .on("movieId", Sort.Direction.ASC).on("reviewDate", Sort.Direction.DESC).on("_id", Sort.Direction.DESC)
+                .named("movieId_reviewDate_id"));
+        // Historia recenzji użytkownika
+        ensure(Review.class, new Index()
+                .on("userId", Sort.Direction.ASC).on("reviewDate", Sort.Direction.DESC).on("_id", Sort.Direction.DESC)
+                .named("userId_reviewDate_id"));
+
+        // Wyszukiwanie w treści recenzji - bez stemmingu, tokeny jak w podświetlaniu wyników
+        ensure(Review.class, new TextIndexDefinition.TextIndexDefinitionBuilder()
+                .onField("reviewText").withDefaultLanguage("none").named("reviewText_text").build());
+
+        // Trend ocen filmu - zakres przedziałów jednej granulacji
+        ensure(RatingTrendBucket.class, new Index()
+                .on("movieId", Sort.Direction.ASC).on("granularity", Sort.Direction.ASC).on("bucketStart", Sort.Direction.ASC)
+                .named("movieId_granularity_bucketStart"));
+
+        // Historia obejrzeń użytkownika od najnowszych
+        ensure(WatchHistoryEntry.class, new Index()
+                .on("userId", Sort.Direction.ASC).on("watchedAt", Sort.Direction.DESC).on("_id", Sort.Direction.DESC)
+                .named("userId_watchedAt_id"));
+    }
+
+    private void ensure(Class<?> entity, IndexDefinition index) {
+        try {
+            mongoTemplate.indexOps(entity).ensureIndex(index);
+        } catch (DataAccessResourceFailureException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            System.out.println("Could not ensure MongoDB index " + index.getIndexOptions().get("name") + ": " + e.getMessage());
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.movieapp.movieapplication.config;
 
 import com.movieapp.movieapplication.JwtUtil;
+import com.movieapp.movieapplication.service.PasswordEncoderCalibrator;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -9,7 +11,7 @@ import org.springframework.security.config.annotation.authentication.configurati
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
@@ -31,9 +33,11 @@ public class SecurityConfig {
         this.jwtUtil = jwtUtil;
     }
 
+    // Algorytm dla nowych haszy i docelowy czas jednego haszu - koszt dobierany przy starcie do sprzętu
     @Bean
-    public BCryptPasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${movieapp.passwords.algorithm:bcrypt}") String algorithm,
+                                           @Value("${movieapp.passwords.target-ms:250}") long targetMillis) {
+        return PasswordEncoderCalibrator.create(algorithm, targetMillis);
     }
 
     @Bean
@@ -46,18 +50,24 @@ public class SecurityConfig {
                 .csrf(csrf -> csrf.disable())
                 .authorizeHttpRequests(auth -> auth
                         // Publiczne endpointy dostępne bez uwierzytelnienia 46 zmiana linijki
-                        .requestMatchers("/api/users/register", "/api/users/login", "/v3/api-docs/swagger-config","/swagger-ui/", "/v3/api-docs/", "/api/movies/export", "/api/movies/export").permitAll()
+                        .requestMatchers("/api/users/register", "/api/users/login", "/api/users/availability", "/v3/api-docs/swagger-config","/swagger-ui/", "/v3/api-docs/", "/api/movies/export", "/api/movies/export").permitAll()
+
+                        // Przeliczanie trendów ocen - przed regułą GET /api/movies/**, bo także status jest tylko dla administratora
+                        .requestMatchers("/api/movies/trends/backfill").hasAuthority("ROLE_ADMIN")
 
                         // Endpoints dla użytkownika z rolą USER
                         .requestMatchers(HttpMethod.GET, "/api/movies/**").hasAuthority("ROLE_USER")
                         .requestMatchers(HttpMethod.POST, "/api/reviews").hasAuthority("ROLE_USER")
                         .requestMatchers(HttpMethod.PUT, "/api/users/{userId}/watched/**", "/api/users/{userId}/favorite/**").hasAnyAuthority("ROLE_ADMIN", "ROLE_USER")
+                        .requestMatchers(HttpMethod.DELETE, "/api/users/{userId}/watched/**", "/api/users/{userId}/favorite/**").hasAnyAuthority("ROLE_ADMIN", "ROLE_USER")
 
                         // Endpoints dla administratora (ROLE_ADMIN)
                         .requestMatchers(HttpMethod.POST, "/api/movies", "/api/categories", "/api/languages").hasAuthority("ROLE_ADMIN")
                         .requestMatchers(HttpMethod.PUT, "/api/movies/**", "/api/categories/**", "/api/languages/**").hasAuthority("ROLE_ADMIN")
                         .requestMatchers(HttpMethod.DELETE, "/api/movies/**", "/api/categories/**", "/api/languages/**").hasAuthority("ROLE_ADMIN")
                         .requestMatchers("/api/users/admin").hasAuthority("ROLE_ADMIN")
+                        .requestMatchers("/api/users/watch-history/migration").hasAuthority("ROLE_ADMIN")
+                        .requestMatchers("/api/users/password-hashing").hasAuthority("ROLE_ADMIN")
                         .requestMatchers("/api/users/get-all").hasAuthority("ROLE_ADMIN")
                         .requestMatchers(HttpMethod.PUT, "/api/users/{id}").hasAuthority("ROLE_ADMIN")
                         .requestMatchers(HttpMethod.DELETE, "/api/users/{id}").hasAuthority("ROLE_ADMIN")
@@ -65,6 +75,7 @@ public class SecurityConfig {
                         // Endpoints recenzji dla administratorów
                         .requestMatchers(HttpMethod.PUT, "/api/reviews/{id}").hasAuthority("ROLE_ADMIN")
                         .requestMatchers(HttpMethod.DELETE, "/api/reviews/{id}").hasAuthority("ROLE_ADMIN")
+                        .requestMatchers(HttpMethod.GET, "/api/reviews/write-behind").hasAuthority("ROLE_ADMIN")
 
 
                         .anyRequest().authenticated()
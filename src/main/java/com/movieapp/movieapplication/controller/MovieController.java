@@ -1,26 +1,78 @@
 package com.movieapp.movieapplication.controller;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.movieapp.movieapplication.model.CursorPage;
+import com.movieapp.movieapplication.model.DistributionStats;
+import com.movieapp.movieapplication.model.FacetPage;
+import com.movieapp.movieapplication.model.ImportJob;
 import com.movieapp.movieapplication.model.Movie;
+import com.movieapp.movieapplication.model.RatingStats;
+import com.movieapp.movieapplication.model.RatingTrendBucket;
+import com.movieapp.movieapplication.model.Review;
+import com.movieapp.movieapplication.model.SearchHit;
+import com.movieapp.movieapplication.model.SearchPage;
+import com.movieapp.movieapplication.model.Suggestion;
+import com.movieapp.movieapplication.model.TrendBackfillJob;
+import com.movieapp.movieapplication.service.MovieDistributionService;
+import com.movieapp.movieapplication.service.MovieExportService;
+import com.movieapp.movieapplication.service.MovieFacetService;
+import com.movieapp.movieapplication.service.MovieImportJobService;
+import com.movieapp.movieapplication.service.MovieLeaderboardService;
+import com.movieapp.movieapplication.service.MovieSearchService;
 import com.movieapp.movieapplication.service.MovieService;
+import com.movieapp.movieapplication.service.MovieSuggestService;
+import com.movieapp.movieapplication.service.MovieTrendingService;
+import com.movieapp.movieapplication.service.RatingTrendBackfillService;
+import com.movieapp.movieapplication.service.RatingTrendService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/movies")
 public class MovieController {
 
     private final MovieService movieService;
+    private final MovieExportService movieExportService;
+    private final MovieImportJobService movieImportJobService;
+    private final MovieSearchService movieSearchService;
+    private final MovieSuggestService movieSuggestService;
+    private final MovieFacetService movieFacetService;
+    private final MovieLeaderboardService movieLeaderboardService;
+    private final MovieTrendingService movieTrendingService;
+    private final RatingTrendService ratingTrendService;
+    private final RatingTrendBackfillService ratingTrendBackfillService;
+    private final MovieDistributionService movieDistributionService;
 
-    public MovieController(MovieService movieService) {
+    @Value("${movieapp.export.timeout-ms:1800000}")
+    private long exportTimeoutMs = 1800000;
+
+    public MovieController(MovieService movieService, MovieExportService movieExportService, MovieImportJobService movieImportJobService,
+                           MovieSearchService movieSearchService, MovieSuggestService movieSuggestService,
+                           MovieFacetService movieFacetService, MovieLeaderboardService movieLeaderboardService,
+                           MovieTrendingService movieTrendingService, RatingTrendService ratingTrendService,
+                           RatingTrendBackfillService ratingTrendBackfillService,
+                           MovieDistributionService movieDistributionService) {
         this.movieService = movieService;
+        this.movieExportService = movieExportService;
+        this.movieImportJobService = movieImportJobService;
+        this.movieSearchService = movieSearchService;
+        this.movieSuggestService = movieSuggestService;
+        this.movieFacetService = movieFacetService;
+        this.movieLeaderboardService = movieLeaderboardService;
+        this.movieTrendingService = movieTrendingService;
+        this.ratingTrendService = ratingTrendService;
+        this.ratingTrendBackfillService = ratingTrendBackfillService;
+        this.movieDistributionService = movieDistributionService;
     }
 
     @GetMapping("/get-all")
@@ -28,6 +80,81 @@ public class MovieController {
         return ResponseEntity.ok(movieService.getAllMovies());
     }
 
+    // Stronicowanie kursorem - stały koszt niezależnie od rozmiaru katalogu
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<Movie>> getMoviesPage(@RequestParam(required = false) String cursor,
+                                                           @RequestParam(required = false) Integer size,
+                                                           @RequestParam(required = false) String sort) {
+        try {
+            return ResponseEntity.ok(movieService.getMoviesPage(cursor, size, sort));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Filtrowanie po gatunkach, języku, roku i czasie trwania - strona wyników i liczniki facetów w jednym wywołaniu
+    @GetMapping("/filter")
+    public ResponseEntity<FacetPage<Movie>> filterMovies(@RequestParam(required = false) List<String> genre,
+                                                         @RequestParam(required = false) List<String> language,
+                                                         @RequestParam(required = false) Integer yearFrom,
+                                                         @RequestParam(required = false) Integer yearTo,
+                                                         @RequestParam(required = false) Integer durationFrom,
+                                                         @RequestParam(required = false) Integer durationTo,
+                                                         @RequestParam(required = false) String cursor,
+                                                         @RequestParam(required = false) Integer size) {
+        try {
+            return ResponseEntity.ok(movieFacetService.filter(genre, language, yearFrom, yearTo, durationFrom, durationTo, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Wyszukiwanie pełnotekstowe po tytule, opisie i reżyserze
+    @GetMapping("/search")
+    public ResponseEntity<SearchPage<SearchHit<Movie>>> searchMovies(@RequestParam("q") String query,
+                                                                     @RequestParam(defaultValue = "0") int page,
+                                                                     @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(movieSearchService.search(query, page, size));
+    }
+
+    // Podpowiedzi tytułów dla autouzupełniania
+    @GetMapping("/suggest")
+    public ResponseEntity<List<Suggestion>> suggestTitles(@RequestParam String prefix,
+                                                          @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(movieSuggestService.suggest(prefix, limit));
+    }
+
+    // Najlepiej oceniane filmy (średnia bayesowska), opcjonalnie w obrębie gatunku i/lub języka
+    @GetMapping("/top")
+    public ResponseEntity<List<SearchHit<Movie>>> getTopRated(@RequestParam(required = false) String genre,
+                                                             @RequestParam(required = false) String language,
+                                                             @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(movieLeaderboardService.top(genre, language, limit));
+    }
+
+    // Przybliżone kwantyle ocen i czasu trwania ocenionych filmów w wycinku (gatunki przez AND, języki przez OR)
+    @GetMapping("/distribution")
+    public ResponseEntity<DistributionStats> getDistribution(@RequestParam(required = false) List<String> genre,
+                                                             @RequestParam(required = false) List<String> language,
+                                                             @RequestParam(required = false) List<Double> quantile) {
+        try {
+            return ResponseEntity.ok(movieDistributionService.distribution(genre, language, quantile));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Filmy "na czasie" w ostatniej godzinie (window=hour) lub dobie (window=day)
+    @GetMapping("/trending")
+    public ResponseEntity<List<SearchHit<Movie>>> getTrending(@RequestParam(defaultValue = "hour") String window,
+                                                             @RequestParam(defaultValue = "10") int limit) {
+        try {
+            return ResponseEntity.ok(movieTrendingService.trending(window, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Movie> getMovieById(@PathVariable String id) {
         return movieService.getMovieById(id)
@@ -35,6 +162,37 @@ public class MovieController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    // Statystyki ocen filmu (liczba, suma, średnia, histogram 1-5)
+    @GetMapping("/{id}/stats")
+    public ResponseEntity<RatingStats> getRatingStats(@PathVariable String id) {
+        return ResponseEntity.ok(movieService.getRatingStats(id));
+    }
+
+    // Średnia ocen i liczba recenzji per dzień (granularity=day) albo tydzień (granularity=week)
+    @GetMapping("/{id}/trend")
+    public ResponseEntity<List<RatingTrendBucket>> getRatingTrend(@PathVariable String id,
+                                                                  @RequestParam(required = false) String granularity,
+                                                                  @RequestParam(required = false) LocalDate from,
+                                                                  @RequestParam(required = false) LocalDate to) {
+        try {
+            return ResponseEntity.ok(ratingTrendService.getTrend(id, granularity, from, to));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Recenzje filmu od najnowszych, stronicowane kursorem
+    @GetMapping("/{id}/reviews")
+    public ResponseEntity<CursorPage<Review>> getMovieReviews(@PathVariable String id,
+                                                              @RequestParam(required = false) String cursor,
+                                                              @RequestParam(required = false) Integer size) {
+        try {
+            return ResponseEntity.ok(movieService.getMovieReviews(id, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @PostMapping
     public ResponseEntity<Movie> addMovie(@RequestBody Movie movie) {
         return ResponseEntity.ok(movieService.addMovie(movie));
@@ -52,26 +210,68 @@ public class MovieController {
     }
 
     @GetMapping("/export")
-    public ResponseEntity<byte[]> exportMovies() throws JsonProcessingException {
-        List<Movie> movies = movieService.getAllMovies();
-        String json = new ObjectMapper().writeValueAsString(movies);
-        byte[] output = json.getBytes(StandardCharsets.UTF_8);
+    public ResponseEntity<StreamingResponseBody> exportMovies(HttpServletRequest request) {
+        // Dokumenty są zapisywane do odpowiedzi w miarę czytania kursora
+        StreamingResponseBody body = movieExportService::writeAllMovies;
+        // Długi limit czasu tylko dla eksportu - pozostałe żądania asynchroniczne zostają przy domyślnym
+        AsyncWebRequest asyncRequest = WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest();
+        if (asyncRequest != null) {
+            asyncRequest.setTimeout(exportTimeoutMs);
+        }
 
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
         headers.setContentDisposition(ContentDisposition.attachment().filename("movies.json").build());
 
-        return new ResponseEntity<>(output, headers, HttpStatus.OK);
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
     }
 
     @PostMapping("/import")
-    public ResponseEntity<String> importMovies(@RequestParam("file") MultipartFile file) throws IOException {
-        System.out.println("git");
-        String json = new String(file.getBytes(), StandardCharsets.UTF_8);
-        List<Movie> movies = new ObjectMapper().readValue(json, new TypeReference<List<Movie>>() {});
-        movieService.saveAll(movies);
+    public ResponseEntity<ImportJob> importMovies(@RequestParam("file") MultipartFile file) throws IOException {
+        // Import działa w tle - zwracamy od razu identyfikator zadania
+        try {
+            return ResponseEntity.accepted().body(movieImportJobService.submit(file));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    @GetMapping("/import")
+    public ResponseEntity<List<ImportJob>> getImportJobs() {
+        return ResponseEntity.ok(movieImportJobService.getJobs());
+    }
+
+    @GetMapping("/import/{jobId}")
+    public ResponseEntity<ImportJob> getImportJob(@PathVariable String jobId) {
+        return movieImportJobService.getJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
 
-        return ResponseEntity.ok("Movies imported successfully");
+    @DeleteMapping("/import/{jobId}")
+    public ResponseEntity<ImportJob> cancelImportJob(@PathVariable String jobId) {
+        return movieImportJobService.cancel(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
     }
 
+    // Przeliczenie trendów z istniejących recenzji w tle; bez restart=true wznawia przerwane zadanie
+    @PostMapping("/trends/backfill")
+    public ResponseEntity<TrendBackfillJob> startTrendBackfill(@RequestParam(defaultValue = "false") boolean restart) {
+        return ResponseEntity.accepted().body(ratingTrendBackfillService.start(restart));
+    }
+
+    @GetMapping("/trends/backfill")
+    public ResponseEntity<TrendBackfillJob> getTrendBackfill() {
+        return ratingTrendBackfillService.getJob()
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/trends/backfill")
+    public ResponseEntity<TrendBackfillJob> cancelTrendBackfill() {
+        return ratingTrendBackfillService.cancel()
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
 }
@@ -1,20 +1,29 @@
 package com.movieapp.movieapplication.controller;
 
+import com.movieapp.movieapplication.model.CursorPage;
 import com.movieapp.movieapplication.model.Review;
+import com.movieapp.movieapplication.model.ReviewSearchHit;
+import com.movieapp.movieapplication.model.WriteBufferStats;
+import com.movieapp.movieapplication.service.ReviewSearchService;
 import com.movieapp.movieapplication.service.ReviewService;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/reviews")
 public class ReviewController {
 
     private final ReviewService reviewService;
+    private final ReviewSearchService reviewSearchService;
 
-    public ReviewController(ReviewService reviewService) {
+    public ReviewController(ReviewService reviewService, ReviewSearchService reviewSearchService) {
         this.reviewService = reviewService;
+        this.reviewSearchService = reviewSearchService;
     }
 
     // Get all reviews
@@ -23,6 +32,19 @@ public class ReviewController {
         return ResponseEntity.ok(reviewService.getAllReviews());
     }
 
+    // Search review text, globally or within one movie; supports "quoted phrases" and -excluded words
+    @GetMapping("/search")
+    public ResponseEntity<CursorPage<ReviewSearchHit>> searchReviews(@RequestParam("q") String query,
+                                                                     @RequestParam(required = false) String movieId,
+                                                                     @RequestParam(required = false) String cursor,
+                                                                     @RequestParam(required = false) Integer size) {
+        try {
+            return ResponseEntity.ok(reviewSearchService.search(query, movieId, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     // Get a single review by ID
     @GetMapping("/{id}")
     public ResponseEntity<Review> getReviewById(@PathVariable String id) {
@@ -31,16 +53,49 @@ public class ReviewController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
-    // Add a new review
+    // Get a user's reviews, newest first, paged with a cursor
+    @GetMapping("/user/{userId}")
+    public ResponseEntity<CursorPage<Review>> getUserReviews(@PathVariable String userId,
+                                                             @RequestParam(required = false) String cursor,
+                                                             @RequestParam(required = false) Integer size,
+                                                             @RequestParam(defaultValue = "true") boolean includeText) {
+        try {
+            return ResponseEntity.ok(reviewService.getUserReviews(userId, cursor, size, includeText));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Add a new review (202 Accepted when it is queued for a background write)
     @PostMapping
     public ResponseEntity<Review> addReview(@RequestBody Review review) {
-        return ResponseEntity.ok(reviewService.addReview(review));
+        try {
+            Review saved = reviewService.addReview(review);
+            if (reviewService.isWriteBehindEnabled()) {
+                return ResponseEntity.accepted().body(saved);
+            }
+            return ResponseEntity.ok(saved);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        } catch (DuplicateKeyException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    // Write-behind buffer metrics: queue depth, flush latency, rejected reviews
+    @GetMapping("/write-behind")
+    public ResponseEntity<WriteBufferStats> getWriteBufferStats() {
+        return ResponseEntity.ok(reviewService.getWriteBufferStats());
     }
 
     // Edit an existing review
     @PutMapping("/{id}")
     public ResponseEntity<Review> updateReview(@PathVariable String id, @RequestBody Review review) {
-        return ResponseEntity.ok(reviewService.updateReview(id, review));
+        try {
+            return ResponseEntity.ok(reviewService.updateReview(id, review));
+        } catch (DuplicateKeyException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
     }
 
     // Delete a review by ID
@@ -1,12 +1,21 @@
 package com.movieapp.movieapplication.controller;
 
+import com.movieapp.movieapplication.model.CursorPage;
+import com.movieapp.movieapplication.model.PasswordHashingStats;
 import com.movieapp.movieapplication.model.User;
+import com.movieapp.movieapplication.model.UserAvailability;
+import com.movieapp.movieapplication.model.UserMovieListChange;
+import com.movieapp.movieapplication.model.WatchHistoryEntry;
+import com.movieapp.movieapplication.model.WatchHistoryMigration;
 import com.movieapp.movieapplication.service.UserService;
+import com.movieapp.movieapplication.service.WatchHistoryMigrationService;
 import com.movieapp.movieapplication.JwtUtil;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/users")
@@ -14,10 +23,12 @@ public class UserController {
 
     private final UserService userService;
     private final JwtUtil jwtUtil;
+    private final WatchHistoryMigrationService watchHistoryMigrationService;
 
-    public UserController(UserService userService, JwtUtil jwtUtil) {
+    public UserController(UserService userService, JwtUtil jwtUtil, WatchHistoryMigrationService watchHistoryMigrationService) {
         this.userService = userService;
         this.jwtUtil = jwtUtil;
+        this.watchHistoryMigrationService = watchHistoryMigrationService;
     }
 
     // Endpoint do rejestracji użytkownika
@@ -28,6 +39,19 @@ public class UserController {
             return ResponseEntity.ok("User registered successfully");
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+        }
+    }
+
+    // Sprawdzenie przed rejestracją, czy nazwa i/lub e-mail są wolne
+    @GetMapping("/availability")
+    public ResponseEntity<UserAvailability> checkAvailability(@RequestParam(required = false) String username,
+                                                              @RequestParam(required = false) String email) {
+        try {
+            return ResponseEntity.ok(userService.checkAvailability(username, email));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         }
     }
 
@@ -42,6 +66,8 @@ public class UserController {
             return ResponseEntity.ok("Token: " + token); // Zwrócenie tokenu
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
         }
     }
 
@@ -70,6 +96,8 @@ public class UserController {
             return ResponseEntity.ok(updatedUser);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(null);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
         }
     }
 
@@ -83,25 +111,80 @@ public class UserController {
         }
     }
 
+    // Dodanie/usunięcie filmu z listy zwraca tylko zmienione pole, nie cały dokument użytkownika
     @PutMapping("/{userId}/favorite/{movieId}")
-    public ResponseEntity<User> addFavoriteMovie(@PathVariable String userId, @PathVariable String movieId) {
+    public ResponseEntity<UserMovieListChange> addFavoriteMovie(@PathVariable String userId, @PathVariable String movieId) {
         try {
-            User updatedUser = userService.addFavoriteMovie(userId, movieId);
-            return ResponseEntity.ok(updatedUser);
+            return ResponseEntity.ok(userService.addFavoriteMovie(userId, movieId));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(null);
         }
     }
+
+    @DeleteMapping("/{userId}/favorite/{movieId}")
+    public ResponseEntity<UserMovieListChange> removeFavoriteMovie(@PathVariable String userId, @PathVariable String movieId) {
+        try {
+            return ResponseEntity.ok(userService.removeFavoriteMovie(userId, movieId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
     @PutMapping("/{userId}/watched/{movieId}")
-    public ResponseEntity<User> addWatchedMovie(@PathVariable String userId, @PathVariable String movieId) {
+    public ResponseEntity<UserMovieListChange> addWatchedMovie(@PathVariable String userId, @PathVariable String movieId) {
         try {
-            User updatedUser = userService.addWatchedMovie(userId, movieId);
-            return ResponseEntity.ok(updatedUser);
+            return ResponseEntity.ok(userService.addWatchedMovie(userId, movieId));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(null);
         }
     }
 
+    // Historia obejrzeń od najnowszych; nextCursor == null oznacza ostatnią stronę
+    @GetMapping("/{userId}/watched")
+    public ResponseEntity<CursorPage<WatchHistoryEntry>> getWatchHistory(@PathVariable String userId,
+                                                                          @RequestParam(required = false) String cursor,
+                                                                          @RequestParam(required = false) Integer size) {
+        try {
+            return ResponseEntity.ok(userService.getWatchHistory(userId, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @DeleteMapping("/{userId}/watched/{movieId}")
+    public ResponseEntity<UserMovieListChange> removeWatchedMovie(@PathVariable String userId, @PathVariable String movieId) {
+        try {
+            return ResponseEntity.ok(userService.removeWatchedMovie(userId, movieId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    // Przeniesienie osadzonych list watchedMovies do osobnej kolekcji historii
+    @PostMapping("/watch-history/migration")
+    public ResponseEntity<WatchHistoryMigration> startWatchHistoryMigration() {
+        return ResponseEntity.accepted().body(watchHistoryMigrationService.start());
+    }
+
+    @GetMapping("/watch-history/migration")
+    public ResponseEntity<WatchHistoryMigration> getWatchHistoryMigration() {
+        return watchHistoryMigrationService.getMigration()
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/watch-history/migration")
+    public ResponseEntity<WatchHistoryMigration> cancelWatchHistoryMigration() {
+        return watchHistoryMigrationService.cancel()
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // Metryki puli haszowania haseł: kolejka, odrzucenia, czas haszowania i czekania
+    @GetMapping("/password-hashing")
+    public ResponseEntity<PasswordHashingStats> getPasswordHashingStats() {
+        return ResponseEntity.ok(userService.getPasswordHashingStats());
+    }
 
     @GetMapping("/admin")
     public String endpointForAdmin(String email, String password) {
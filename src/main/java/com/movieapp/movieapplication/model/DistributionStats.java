@@ -0,0 +1,87 @@
+package com.movieapp.movieapplication.model;
+
+import java.util.List;
+import java.util.Map;
+
+// Przybliżony rozkład ocen i czasu trwania ocenionych filmów w wycinku katalogu (gatunki i języki).
+// Kwantyle mają klucze "p50", "p90", "p99.9"; null, gdy wycinek jest pusty.
+public class DistributionStats {
+    private List<String> genres;
+    private List<String> languages;
+    private long reviewCount;
+    private long movieCount; // Filmy z co najmniej jedną recenzją
+    private Double ratingMean;
+    private Map<String, Double> ratingQuantiles;
+    private Map<String, Double> durationQuantiles;
+
+    public DistributionStats() {
+    }
+
+    public DistributionStats(List<String> genres, List<String> languages, long reviewCount, long movieCount, Double ratingMean,
+                             Map<String, Double> ratingQuantiles, Map<String, Double> durationQuantiles) {
+        this.genres = genres;
+        this.languages = languages;
+        this.reviewCount = reviewCount;
+        this.movieCount = movieCount;
+        this.ratingMean = ratingMean;
+        this.ratingQuantiles = ratingQuantiles;
+        this.durationQuantiles = durationQuantiles;
+    }
+
+    // Gettery i settery
+    public List<String> getGenres() {
+        return genres;
+    }
+
+    public void setGenres(List<String> genres) {
+        this.genres = genres;
+    }
+
+    public List<String> getLanguages() {
+        return languages;
+    }
+
+    public void setLanguages(List<String> languages) {
+        this.languages = languages;
+    }
+
+    public long getReviewCount() {
+        return reviewCount;
+    }
+
+    public void setReviewCount(long reviewCount) {
+        this.reviewCount = reviewCount;
+    }
+
+    public long getMovieCount() {
+        return movieCount;
+    }
+
+    public void setMovieCount(long movieCount) {
+        this.movieCount = movieCount;
+    }
+
+    public Double getRatingMean() {
+        return ratingMean;
+    }
+
+    public void setRatingMean(Double ratingMean) {
+        this.ratingMean = ratingMean;
+    }
+
+    public Map<String, Double> getRatingQuantiles() {
+        return ratingQuantiles;
+    }
+
+    public void setRatingQuantiles(Map<String, Double> ratingQuantiles) {
+        this.ratingQuantiles = ratingQuantiles;
+    }
+
+    public Map<String, Double> getDurationQuantiles() {
+        return durationQuantiles;
+    }
+
+    public void setDurationQuantiles(Map<String, Double> durationQuantiles) {
+        this.durationQuantiles = durationQuantiles;
+    }
+}
@@ -0,0 +1,36 @@
+package com.movieapp.movieapplication.model;
+
+import java.util.List;
+import java.util.Map;
+
+// Strona wyników filtrowania wraz z licznikami facetów (facet -> wartość -> liczba filmów)
+public class FacetPage<T> extends CursorPage<T> {
+    private long total;
+    private Map<String, Map<String, Long>> facets;
+
+    public FacetPage() {
+    }
+
+    public FacetPage(List<T> items, String nextCursor, long total, Map<String, Map<String, Long>> facets) {
+        super(items, nextCursor);
+        this.total = total;
+        this.facets = facets;
+    }
+
+    // Gettery i settery
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public Map<String, Map<String, Long>> getFacets() {
+        return facets;
+    }
+
+    public void setFacets(Map<String, Map<String, Long>> facets) {
+        this.facets = facets;
+    }
+}
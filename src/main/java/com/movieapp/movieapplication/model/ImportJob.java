@@ -0,0 +1,123 @@
+package com.movieapp.movieapplication.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.nio.file.Path;
+import java.time.Instant;
+
+// Stan importu filmów wykonywanego w tle
+public class ImportJob {
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED
+    }
+
+    private final String id;
+    private final String fileName;
+    private final long totalBytes;
+    private final Instant createdAt = Instant.now();
+    private final ImportReport report = new ImportReport();
+    @JsonIgnore
+    private final Path file;
+
+    private volatile Status status = Status.QUEUED;
+    private volatile long bytesRead;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String error;
+
+    public ImportJob(String id, String fileName, long totalBytes, Path file) {
+        this.id = id;
+        this.fileName = fileName;
+        this.totalBytes = totalBytes;
+        this.file = file;
+    }
+
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED || status == Status.CANCELLED;
+    }
+
+    public double getDocsPerSecond() {
+        if (startedAt == null) {
+            return 0;
+        }
+        Instant end = finishedAt != null ? finishedAt : Instant.now();
+        long millis = Math.max(end.toEpochMilli() - startedAt.toEpochMilli(), 1);
+        return report.getDocumentsRead() * 1000.0 / millis;
+    }
+
+    // Szacowany czas do końca na podstawie przeczytanej części pliku
+    public Long getEtaSeconds() {
+        if (status != Status.RUNNING || bytesRead == 0 || totalBytes <= 0) {
+            return null;
+        }
+        long elapsedMillis = Instant.now().toEpochMilli() - startedAt.toEpochMilli();
+        long remainingBytes = Math.max(totalBytes - bytesRead, 0);
+        return elapsedMillis * remainingBytes / bytesRead / 1000;
+    }
+
+    // Gettery i settery
+    public String getId() {
+        return id;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public ImportReport getReport() {
+        return report;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    public void setBytesRead(long bytesRead) {
+        this.bytesRead = bytesRead;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(Instant startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(Instant finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,130 @@
+package com.movieapp.movieapplication.model;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Podsumowanie importu filmów wraz z przepustowością partii.
+// Aktualizowane przez jeden wątek importu, odczytywane przez endpointy statusu - stąd volatile
+public class ImportReport {
+
+    // Raport odrzuceń przechowuje tylko pierwsze wpisy, żeby nie rósł razem z plikiem
+    private static final int MAX_REJECTIONS = 100;
+
+    private volatile long documentsRead;
+    private volatile long documentsWritten;
+    private volatile long failedDocuments;
+    private volatile long rejectedDocuments;
+    private final List<String> rejections = new CopyOnWriteArrayList<>();
+    private volatile int batches;
+    private volatile long elapsedMillis;
+    private volatile double minBatchDocsPerSecond;
+    private volatile double maxBatchDocsPerSecond;
+
+    public ImportReport() {
+    }
+
+    // Rejestracja jednej zapisanej partii
+    public void recordBatch(int written, int failed, long batchMillis) {
+        documentsWritten += written;
+        failedDocuments += failed;
+        batches++;
+        double docsPerSecond = (written + failed) * 1000.0 / Math.max(batchMillis, 1);
+        minBatchDocsPerSecond = batches == 1 ? docsPerSecond : Math.min(minBatchDocsPerSecond, docsPerSecond);
+        maxBatchDocsPerSecond = Math.max(maxBatchDocsPerSecond, docsPerSecond);
+    }
+
+    public void documentRead() {
+        documentsRead++;
+    }
+
+    // Dokument odrzucony przez walidację, nie trafia do bazy
+    public void reject(long position, Movie movie, String reason) {
+        rejectedDocuments++;
+        addRejection(position, movie.getTitle(), reason);
+    }
+
+    // Poprawny składniowo obiekt, którego nie da się odczytać jako filmu (np. tekst w polu liczbowym) - pomijany
+    public void fail(long position, String title, String reason) {
+        failedDocuments++;
+        addRejection(position, title, reason);
+    }
+
+    private void addRejection(long position, String title, String reason) {
+        if (rejections.size() < MAX_REJECTIONS) {
+            rejections.add("#" + position + " '" + title + "': " + reason);
+        }
+    }
+
+    public double getDocsPerSecond() {
+        return documentsRead * 1000.0 / Math.max(elapsedMillis, 1);
+    }
+
+    // Gettery i settery
+    public long getDocumentsRead() {
+        return documentsRead;
+    }
+
+    public void setDocumentsRead(long documentsRead) {
+        this.documentsRead = documentsRead;
+    }
+
+    public long getDocumentsWritten() {
+        return documentsWritten;
+    }
+
+    public void setDocumentsWritten(long documentsWritten) {
+        this.documentsWritten = documentsWritten;
+    }
+
+    public long getFailedDocuments() {
+        return failedDocuments;
+    }
+
+    public void setFailedDocuments(long failedDocuments) {
+        this.failedDocuments = failedDocuments;
+    }
+
+    public long getRejectedDocuments() {
+        return rejectedDocuments;
+    }
+
+    public void setRejectedDocuments(long rejectedDocuments) {
+        this.rejectedDocuments = rejectedDocuments;
+    }
+
+    public List<String> getRejections() {
+        return rejections;
+    }
+
+    public int getBatches() {
+        return batches;
+    }
+
+    public void setBatches(int batches) {
+        this.batches = batches;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public double getMinBatchDocsPerSecond() {
+        return minBatchDocsPerSecond;
+    }
+
+    public void setMinBatchDocsPerSecond(double minBatchDocsPerSecond) {
+        this.minBatchDocsPerSecond = minBatchDocsPerSecond;
+    }
+
+    public double getMaxBatchDocsPerSecond() {
+        return maxBatchDocsPerSecond;
+    }
+
+    public void setMaxBatchDocsPerSecond(double maxBatchDocsPerSecond) {
+        this.maxBatchDocsPerSecond = maxBatchDocsPerSecond;
+    }
+}
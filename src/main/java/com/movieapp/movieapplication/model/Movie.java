@@ -1,6 +1,8 @@
 package com.movieapp.movieapplication.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.List;
@@ -16,6 +18,9 @@ public class Movie {
     private String languageId; // Referencja do ID języka
     private String director;
     private int duration;
+    @Transient
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private RatingStats ratingStats; // Tylko w odpowiedzi ze szczegółami filmu, nie zapisywane w bazie
 
     public Movie(String title, String description, String releaseYear, List<String> genres, String languageId, String director, int duration, List<String> reviewIds) {
         this.title = title;
@@ -93,6 +98,14 @@ public class Movie {
         this.duration = duration;
     }
 
+    public RatingStats getRatingStats() {
+        return ratingStats;
+    }
+
+    public void setRatingStats(RatingStats ratingStats) {
+        this.ratingStats = ratingStats;
+    }
+
 
 
 
@@ -0,0 +1,116 @@
+package com.movieapp.movieapplication.model;
+
+// Migawka metryk puli haszowania haseł: obciążenie, odrzucenia, czas haszowania i czekania w kolejce
+public class PasswordHashingStats {
+    private int workers;
+    private int activeWorkers;
+    private int queueDepth;
+    private int queueCapacity;
+    private long completed;
+    private long rejected;
+    private long timedOut;
+    private double totalHashMillis;
+    private double maxHashMillis;
+    private double totalQueueWaitMillis;
+    private double maxQueueWaitMillis;
+
+    public PasswordHashingStats() {
+    }
+
+    public double getAverageHashMillis() {
+        return completed == 0 ? 0 : totalHashMillis / completed;
+    }
+
+    public double getAverageQueueWaitMillis() {
+        return completed == 0 ? 0 : totalQueueWaitMillis / completed;
+    }
+
+    // Gettery i settery
+    public int getWorkers() {
+        return workers;
+    }
+
+    public void setWorkers(int workers) {
+        this.workers = workers;
+    }
+
+    public int getActiveWorkers() {
+        return activeWorkers;
+    }
+
+    public void setActiveWorkers(int activeWorkers) {
+        this.activeWorkers = activeWorkers;
+    }
+
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public void setQueueDepth(int queueDepth) {
+        this.queueDepth = queueDepth;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public long getCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(long completed) {
+        this.completed = completed;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+
+    public long getTimedOut() {
+        return timedOut;
+    }
+
+    public void setTimedOut(long timedOut) {
+        this.timedOut = timedOut;
+    }
+
+    public double getTotalHashMillis() {
+        return totalHashMillis;
+    }
+
+    public void setTotalHashMillis(double totalHashMillis) {
+        this.totalHashMillis = totalHashMillis;
+    }
+
+    public double getMaxHashMillis() {
+        return maxHashMillis;
+    }
+
+    public void setMaxHashMillis(double maxHashMillis) {
+        this.maxHashMillis = maxHashMillis;
+    }
+
+    public double getTotalQueueWaitMillis() {
+        return totalQueueWaitMillis;
+    }
+
+    public void setTotalQueueWaitMillis(double totalQueueWaitMillis) {
+        this.totalQueueWaitMillis = totalQueueWaitMillis;
+    }
+
+    public double getMaxQueueWaitMillis() {
+        return maxQueueWaitMillis;
+    }
+
+    public void setMaxQueueWaitMillis(double maxQueueWaitMillis) {
+        this.maxQueueWaitMillis = maxQueueWaitMillis;
+    }
+}
@@ -0,0 +1,70 @@
+package com.movieapp.movieapplication.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Zagregowane oceny filmu, aktualizowane przyrostowo ($inc) przy każdej zmianie recenzji
+@Document(collection = "movie_rating_stats")
+public class RatingStats {
+    public static final int MIN_RATING = 1;
+    public static final int MAX_RATING = 5;
+
+    @Id
+    private String movieId;
+    private long count;
+    private long sum;
+    private Map<String, Long> histogram = new LinkedHashMap<>(); // Ocena ("1"-"5") -> liczba recenzji
+
+    public RatingStats() {
+    }
+
+    public RatingStats(String movieId) {
+        this.movieId = movieId;
+    }
+
+    public double getAverage() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    // Gettery i settery
+    public String getMovieId() {
+        return movieId;
+    }
+
+    public void setMovieId(String movieId) {
+        this.movieId = movieId;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public long getSum() {
+        return sum;
+    }
+
+    public void setSum(long sum) {
+        this.sum = sum;
+    }
+
+    // Zawsze pełny histogram 1-5, także dla ocen bez recenzji
+    public Map<String, Long> getHistogram() {
+        Map<String, Long> full = new LinkedHashMap<>();
+        for (int rating = MIN_RATING; rating <= MAX_RATING; rating++) {
+            String key = String.valueOf(rating);
+            full.put(key, histogram == null ? 0L : histogram.getOrDefault(key, 0L));
+        }
+        return full;
+    }
+
+    public void setHistogram(Map<String, Long> histogram) {
+        this.histogram = histogram;
+    }
+}
@@ -0,0 +1,102 @@
+package com.movieapp.movieapplication.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+// Oceny filmu zagregowane w przedziale czasu (dzień albo tydzień), aktualizowane przyrostowo ($inc)
+@Document(collection = "movie_rating_trends")
+public class RatingTrendBucket {
+
+    public enum Granularity {
+        DAY, WEEK;
+
+        // Tygodnie zaczynają się w poniedziałek (ISO)
+        public LocalDate bucketStart(LocalDate date) {
+            return this == DAY ? date : date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        }
+
+        public LocalDate next(LocalDate bucketStart) {
+            return this == DAY ? bucketStart.plusDays(1) : bucketStart.plusWeeks(1);
+        }
+    }
+
+    // movieId|granularity|bucketStart - jeden dokument na przedział, więc upsert nie tworzy duplikatów
+    @Id
+    private String id;
+    private String movieId;
+    private Granularity granularity;
+    private LocalDate bucketStart;
+    private long count;
+    private long sum;
+
+    public RatingTrendBucket() {
+    }
+
+    public RatingTrendBucket(String movieId, Granularity granularity, LocalDate bucketStart) {
+        this.id = id(movieId, granularity, bucketStart);
+        this.movieId = movieId;
+        this.granularity = granularity;
+        this.bucketStart = bucketStart;
+    }
+
+    public static String id(String movieId, Granularity granularity, LocalDate bucketStart) {
+        return movieId + "|" + granularity + "|" + bucketStart;
+    }
+
+    public double getAverage() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    // Gettery i settery
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getMovieId() {
+        return movieId;
+    }
+
+    public void setMovieId(String movieId) {
+        this.movieId = movieId;
+    }
+
+    public Granularity getGranularity() {
+        return granularity;
+    }
+
+    public void setGranularity(Granularity granularity) {
+        this.granularity = granularity;
+    }
+
+    public LocalDate getBucketStart() {
+        return bucketStart;
+    }
+
+    public void setBucketStart(LocalDate bucketStart) {
+        this.bucketStart = bucketStart;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public long getSum() {
+        return sum;
+    }
+
+    public void setSum(long sum) {
+        this.sum = sum;
+    }
+}
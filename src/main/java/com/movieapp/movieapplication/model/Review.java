@@ -1,5 +1,6 @@
 package com.movieapp.movieapplication.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 
@@ -12,7 +13,8 @@ public class Review {
     private String movieId; // ID filmu, którego dotyczy recenzja
     private String userId; // ID użytkownika, który dodał recenzję
     private int rating; // Zakres np. 1-5
-    private String reviewText; // Treść recenzji
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String reviewText; // Treść recenzji (pomijana w widokach list)
     private LocalDateTime reviewDate; // Data recenzji
 
     public Review(String id, String movieId, String userId, int rating, String reviewText, LocalDateTime reviewDate) {
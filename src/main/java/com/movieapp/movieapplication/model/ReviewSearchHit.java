@@ -0,0 +1,25 @@
+package com.movieapp.movieapplication.model;
+
+import java.util.List;
+
+// Wynik wyszukiwania w treści recenzji z fragmentami, w których trafienia są otoczone <em>...</em>
+public class ReviewSearchHit extends SearchHit<Review> {
+    private List<String> highlights;
+
+    public ReviewSearchHit() {
+    }
+
+    public ReviewSearchHit(Review review, double score, List<String> highlights) {
+        super(review, score);
+        this.highlights = highlights;
+    }
+
+    // Gettery i settery
+    public List<String> getHighlights() {
+        return highlights;
+    }
+
+    public void setHighlights(List<String> highlights) {
+        this.highlights = highlights;
+    }
+}
@@ -0,0 +1,32 @@
+package com.movieapp.movieapplication.model;
+
+// Pojedynczy wynik wyszukiwania pełnotekstowego z oceną trafności
+public class SearchHit<T> {
+    private T item;
+    private double score;
+
+    public SearchHit() {
+    }
+
+    public SearchHit(T item, double score) {
+        this.item = item;
+        this.score = score;
+    }
+
+    // Gettery i settery
+    public T getItem() {
+        return item;
+    }
+
+    public void setItem(T item) {
+        this.item = item;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public void setScore(double score) {
+        this.score = score;
+    }
+}
@@ -0,0 +1,54 @@
+package com.movieapp.movieapplication.model;
+
+import java.util.List;
+
+// Strona wyników wyszukiwania (stronicowanie numerem strony, wyniki są już posortowane po trafności)
+public class SearchPage<T> {
+    private long total;
+    private int page;
+    private int size;
+    private List<T> items;
+
+    public SearchPage() {
+    }
+
+    public SearchPage(long total, int page, int size, List<T> items) {
+        this.total = total;
+        this.page = page;
+        this.size = size;
+        this.items = items;
+    }
+
+    // Gettery i settery
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public void setPage(int page) {
+        this.page = page;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+}
@@ -0,0 +1,32 @@
+package com.movieapp.movieapplication.model;
+
+// Podpowiedź tytułu filmu (autouzupełnianie)
+public class Suggestion {
+    private String movieId;
+    private String title;
+
+    public Suggestion() {
+    }
+
+    public Suggestion(String movieId, String title) {
+        this.movieId = movieId;
+        this.title = title;
+    }
+
+    // Gettery i settery
+    public String getMovieId() {
+        return movieId;
+    }
+
+    public void setMovieId(String movieId) {
+        this.movieId = movieId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+}
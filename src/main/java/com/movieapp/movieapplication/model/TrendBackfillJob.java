@@ -0,0 +1,106 @@
+package com.movieapp.movieapplication.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+// Stan przeliczania trendów ocen, zapisywany w bazie, żeby przerwane zadanie można było wznowić
+@Document(collection = "rating_trend_backfill")
+public class TrendBackfillJob {
+
+    public enum Status {
+        RUNNING, COMPLETED, FAILED, CANCELLED
+    }
+
+    @Id
+    private String id;
+    private Status status;
+    private String lastMovieId; // Wszystkie filmy do tego ID (włącznie) są już przeliczone
+    private long processedMovies;
+    private long processedReviews;
+    private Instant startedAt;
+    private Instant updatedAt;
+    private Instant finishedAt;
+    private String error;
+
+    public TrendBackfillJob() {
+    }
+
+    public TrendBackfillJob(String id) {
+        this.id = id;
+    }
+
+    // Gettery i settery
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public String getLastMovieId() {
+        return lastMovieId;
+    }
+
+    public void setLastMovieId(String lastMovieId) {
+        this.lastMovieId = lastMovieId;
+    }
+
+    public long getProcessedMovies() {
+        return processedMovies;
+    }
+
+    public void setProcessedMovies(long processedMovies) {
+        this.processedMovies = processedMovies;
+    }
+
+    public long getProcessedReviews() {
+        return processedReviews;
+    }
+
+    public void setProcessedReviews(long processedReviews) {
+        this.processedReviews = processedReviews;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(Instant startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(Instant finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -16,15 +16,7 @@ public class User {
     private String passwordHash;
     private String role;
     private List<String> favoriteMovies = new ArrayList<>();
-    private List<String> watchedMovies = new ArrayList<>();
-
-    public List<String> getWatchedMovies() {
-        return watchedMovies;
-    }
-
-    public void setWatchedMovies(List<String> watchedMovies) {
-        this.watchedMovies = watchedMovies;
-    }
+    // Obejrzane filmy są w osobnej kolekcji (WatchHistoryEntry), żeby dokument użytkownika nie rósł bez ograniczeń
 
     public List<String> getFavoriteMovies() {
         return favoriteMovies;
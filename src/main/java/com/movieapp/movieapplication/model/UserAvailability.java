@@ -0,0 +1,32 @@
+package com.movieapp.movieapplication.model;
+
+// Wynik sprawdzenia przed rejestracją; null dla pola, o które nie pytano
+public class UserAvailability {
+    private Boolean usernameAvailable;
+    private Boolean emailAvailable;
+
+    public UserAvailability() {
+    }
+
+    public UserAvailability(Boolean usernameAvailable, Boolean emailAvailable) {
+        this.usernameAvailable = usernameAvailable;
+        this.emailAvailable = emailAvailable;
+    }
+
+    // Gettery i settery
+    public Boolean getUsernameAvailable() {
+        return usernameAvailable;
+    }
+
+    public void setUsernameAvailable(Boolean usernameAvailable) {
+        this.usernameAvailable = usernameAvailable;
+    }
+
+    public Boolean getEmailAvailable() {
+        return emailAvailable;
+    }
+
+    public void setEmailAvailable(Boolean emailAvailable) {
+        this.emailAvailable = emailAvailable;
+    }
+}
@@ -0,0 +1,52 @@
+package com.movieapp.movieapplication.model;
+
+// Wynik dodania/usunięcia filmu z listy użytkownika - tylko zmienione pole zamiast całego dokumentu
+public class UserMovieListChange {
+    private String userId;
+    private String list; // favoriteMovies albo watchedMovies
+    private String movieId;
+    private boolean changed; // false, gdy film już był na liście (albo go na niej nie było)
+
+    public UserMovieListChange() {
+    }
+
+    public UserMovieListChange(String userId, String list, String movieId, boolean changed) {
+        this.userId = userId;
+        this.list = list;
+        this.movieId = movieId;
+        this.changed = changed;
+    }
+
+    // Gettery i settery
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getList() {
+        return list;
+    }
+
+    public void setList(String list) {
+        this.list = list;
+    }
+
+    public String getMovieId() {
+        return movieId;
+    }
+
+    public void setMovieId(String movieId) {
+        this.movieId = movieId;
+    }
+
+    public boolean isChanged() {
+        return changed;
+    }
+
+    public void setChanged(boolean changed) {
+        this.changed = changed;
+    }
+}
@@ -0,0 +1,65 @@
+package com.movieapp.movieapplication.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+// Obejrzany film użytkownika - osobny dokument zamiast rosnącej listy w dokumencie użytkownika.
+// ID to userId|movieId, więc para występuje raz, a ponowne obejrzenie tylko przesuwa datę.
+@Document(collection = "watch_history")
+public class WatchHistoryEntry {
+
+    @Id
+    private String id;
+    private String userId;
+    private String movieId;
+    private LocalDateTime watchedAt; // null dla wpisów przeniesionych z dawnej listy - data obejrzenia nieznana
+
+    public WatchHistoryEntry() {
+    }
+
+    public WatchHistoryEntry(String userId, String movieId, LocalDateTime watchedAt) {
+        this.id = id(userId, movieId);
+        this.userId = userId;
+        this.movieId = movieId;
+        this.watchedAt = watchedAt;
+    }
+
+    public static String id(String userId, String movieId) {
+        return userId + "|" + movieId;
+    }
+
+    // Gettery i settery
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getMovieId() {
+        return movieId;
+    }
+
+    public void setMovieId(String movieId) {
+        this.movieId = movieId;
+    }
+
+    public LocalDateTime getWatchedAt() {
+        return watchedAt;
+    }
+
+    public void setWatchedAt(LocalDateTime watchedAt) {
+        this.watchedAt = watchedAt;
+    }
+}
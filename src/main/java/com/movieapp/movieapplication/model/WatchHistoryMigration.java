@@ -0,0 +1,65 @@
+package com.movieapp.movieapplication.model;
+
+import java.time.Instant;
+
+// Stan przenoszenia list watchedMovies do kolekcji watch_history.
+// Trzymany tylko w pamięci - przeniesieni użytkownicy tracą pole watchedMovies, więc ponowne uruchomienie
+// samo zaczyna od użytkowników, których jeszcze nie przeniesiono.
+public class WatchHistoryMigration {
+
+    public enum Status {
+        RUNNING, COMPLETED, FAILED, CANCELLED
+    }
+
+    private volatile Status status = Status.RUNNING;
+    private volatile long migratedUsers;
+    private volatile long migratedEntries;
+    private final Instant startedAt = Instant.now();
+    private volatile Instant finishedAt;
+    private volatile String error;
+
+    // Gettery i settery
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public long getMigratedUsers() {
+        return migratedUsers;
+    }
+
+    public void setMigratedUsers(long migratedUsers) {
+        this.migratedUsers = migratedUsers;
+    }
+
+    public long getMigratedEntries() {
+        return migratedEntries;
+    }
+
+    public void setMigratedEntries(long migratedEntries) {
+        this.migratedEntries = migratedEntries;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(Instant finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
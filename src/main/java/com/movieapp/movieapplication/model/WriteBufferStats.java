@@ -0,0 +1,112 @@
+package com.movieapp.movieapplication.model;
+
+// Migawka metryk bufora zapisu recenzji (write-behind)
+public class WriteBufferStats {
+    private boolean enabled;
+    private int queueDepth;
+    private int capacity;
+    private long accepted;
+    private long rejected;
+    private long flushed;
+    private long failed;
+    private long flushes;
+    private long lastFlushMillis;
+    private long maxFlushMillis;
+    private long totalFlushMillis;
+
+    public WriteBufferStats() {
+    }
+
+    public double getAverageFlushMillis() {
+        return flushes == 0 ? 0 : (double) totalFlushMillis / flushes;
+    }
+
+    // Gettery i settery
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public void setQueueDepth(int queueDepth) {
+        this.queueDepth = queueDepth;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public long getAccepted() {
+        return accepted;
+    }
+
+    public void setAccepted(long accepted) {
+        this.accepted = accepted;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+
+    public long getFlushed() {
+        return flushed;
+    }
+
+    public void setFlushed(long flushed) {
+        this.flushed = flushed;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    public long getFlushes() {
+        return flushes;
+    }
+
+    public void setFlushes(long flushes) {
+        this.flushes = flushes;
+    }
+
+    public long getLastFlushMillis() {
+        return lastFlushMillis;
+    }
+
+    public void setLastFlushMillis(long lastFlushMillis) {
+        this.lastFlushMillis = lastFlushMillis;
+    }
+
+    public long getMaxFlushMillis() {
+        return maxFlushMillis;
+    }
+
+    public void setMaxFlushMillis(long maxFlushMillis) {
+        this.maxFlushMillis = maxFlushMillis;
+    }
+
+    public long getTotalFlushMillis() {
+        return totalFlushMillis;
+    }
+
+    public void setTotalFlushMillis(long totalFlushMillis) {
+        this.totalFlushMillis = totalFlushMillis;
+    }
+}
@@ -3,5 +3,9 @@ package com.movieapp.movieapplication.repository;
 import com.movieapp.movieapplication.model.Movie;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
-public interface MovieRepository extends MongoRepository<Movie, String> {
+import java.util.stream.Stream;
+
+public interface MovieRepository extends MongoRepository<Movie, String>, MovieRepositoryCustom {
+    // Strumień oparty o kursor MongoDB - dokumenty nie są ładowane naraz do pamięci
+    Stream<Movie> streamAllBy();
 }
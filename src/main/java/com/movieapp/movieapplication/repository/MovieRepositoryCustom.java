@@ -0,0 +1,13 @@
+package com.movieapp.movieapplication.repository;
+
+import com.movieapp.movieapplication.model.Movie;
+
+import java.util.List;
+
+public interface MovieRepositoryCustom {
+    // Strona filmów posortowana po (sortField, _id), zaczynająca się za podaną pozycją
+    List<Movie> findPageAfter(String sortField, Object lastValue, String lastId, int limit);
+
+    // Nieuporządkowany zapis zbiorczy: insert dla nowych filmów, upsert dla filmów z ID
+    int bulkUpsert(List<Movie> movies);
+}
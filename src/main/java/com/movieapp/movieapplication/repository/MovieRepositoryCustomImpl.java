@@ -0,0 +1,72 @@
+package com.movieapp.movieapplication.repository;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.movieapp.movieapplication.model.Movie;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+
+public class MovieRepositoryCustomImpl implements MovieRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    public MovieRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public List<Movie> findPageAfter(String sortField, Object lastValue, String lastId, int limit) {
+        Query query = new Query();
+        if (lastId != null) {
+            query.addCriteria(afterCriteria(sortField, lastValue, lastId));
+        }
+        if ("id".equals(sortField)) {
+            query.with(Sort.by(Sort.Direction.ASC, "id"));
+        } else {
+            query.with(Sort.by(Sort.Direction.ASC, sortField, "id"));
+        }
+        query.limit(limit);
+        return mongoTemplate.find(query, Movie.class);
+    }
+
+    // Warunek "za ostatnim elementem" - korzysta z indeksu (sortField, _id) zamiast skip/offset
+    private Criteria afterCriteria(String sortField, Object lastValue, String lastId) {
+        if ("id".equals(sortField)) {
+            return Criteria.where("id").gt(lastId);
+        }
+        Criteria sameValueLaterId = new Criteria().andOperator(
+                Criteria.where(sortField).is(lastValue),
+                Criteria.where("id").gt(lastId));
+        // null sortuje się w MongoDB przed każdą inną wartością
+        Criteria laterValue = lastValue == null
+                ? Criteria.where(sortField).ne(null)
+                : Criteria.where(sortField).gt(lastValue);
+        return new Criteria().orOperator(laterValue, sameValueLaterId);
+    }
+
+    @Override
+    public int bulkUpsert(List<Movie> movies) {
+        if (movies.isEmpty()) {
+            return 0;
+        }
+        BulkOperations operations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Movie.class);
+        for (Movie movie : movies) {
+            if (movie.getId() == null) {
+                // ID nadawane po stronie aplikacji, żeby zapisane filmy można było od razu zaindeksować
+                movie.setId(new ObjectId().toHexString());
+                operations.insert(movie);
+            } else {
+                operations.replaceOne(Query.query(Criteria.where("id").is(movie.getId())), movie,
+                        FindAndReplaceOptions.options().upsert());
+            }
+        }
+        BulkWriteResult result = operations.execute();
+        return result.getInsertedCount() + result.getUpserts().size() + result.getMatchedCount();
+    }
+}
@@ -0,0 +1,12 @@
+package com.movieapp.movieapplication.repository;
+
+import com.movieapp.movieapplication.model.RatingStats;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.stream.Stream;
+
+public interface RatingStatsRepository extends MongoRepository<RatingStats, String>, RatingStatsRepositoryCustom {
+
+    // Strumieniowe czytanie wszystkich agregatów (kursor MongoDB) - bez ładowania kolekcji do pamięci
+    Stream<RatingStats> streamAllBy();
+}
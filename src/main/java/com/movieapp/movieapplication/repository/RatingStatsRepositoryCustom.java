@@ -0,0 +1,20 @@
+package com.movieapp.movieapplication.repository;
+
+import com.movieapp.movieapplication.model.Review;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface RatingStatsRepositoryCustom {
+
+    // Atomowa zmiana agregatu o jedną recenzję: sign = 1 dodaje, sign = -1 odejmuje
+    void applyRating(String movieId, int rating, int sign);
+
+    // Dodanie partii recenzji - jeden upsert na film w jednym nieuporządkowanym bulku
+    void applyRatings(List<Review> reviews);
+
+    // Przeliczenie od zera agregatów podanych filmów z ich recenzji; zwraca liczbę przeczytanych recenzji.
+    // Idempotentne - ponowne przeliczenie tych samych filmów daje ten sam wynik.
+    // Nadpisuje agregaty, więc wołający musi wstrzymać przyrosty tych filmów na czas przeliczenia
+    long rebuild(Collection<String> movieIds);
+}
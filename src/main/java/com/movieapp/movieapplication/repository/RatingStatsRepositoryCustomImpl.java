@@ -0,0 +1,104 @@
+package com.movieapp.movieapplication.repository;
+
+import com.movieapp.movieapplication.model.RatingStats;
+import com.movieapp.movieapplication.model.Review;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+public class RatingStatsRepositoryCustomImpl implements RatingStatsRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    public RatingStatsRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void applyRating(String movieId, int rating, int sign) {
+        RatingStats delta = new RatingStats(movieId);
+        add(delta, rating, sign);
+        mongoTemplate.upsert(byMovie(movieId), toUpdate(delta), RatingStats.class);
+    }
+
+    @Override
+    public void applyRatings(List<Review> reviews) {
+        // Najpierw sumujemy przyrosty per film, żeby wysłać jeden upsert na film
+        Map<String, RatingStats> deltas = new LinkedHashMap<>();
+        for (Review review : reviews) {
+            add(deltas.computeIfAbsent(review.getMovieId(), RatingStats::new), review.getRating(), 1);
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+        BulkOperations operations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, RatingStats.class);
+        deltas.forEach((movieId, delta) -> operations.upsert(byMovie(movieId), toUpdate(delta)));
+        operations.execute();
+    }
+
+    @Override
+    public long rebuild(Collection<String> movieIds) {
+        if (movieIds.isEmpty()) {
+            return 0;
+        }
+        Query query = new Query(Criteria.where("movieId").in(movieIds));
+        query.fields().include("movieId").include("rating");
+        Map<String, RatingStats> stats = new LinkedHashMap<>();
+        long reviews = 0;
+        try (Stream<Review> stream = mongoTemplate.stream(query, Review.class)) {
+            Iterator<Review> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                Review review = iterator.next();
+                add(stats.computeIfAbsent(review.getMovieId(), RatingStats::new), review.getRating(), 1);
+                reviews++;
+            }
+        }
+
+        BulkOperations operations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, RatingStats.class);
+        // Filmy, które nie mają już żadnej recenzji
+        operations.remove(Query.query(Criteria.where("_id").in(movieIds).nin(stats.keySet())));
+        // $set zamiast $inc - przeliczenie zastępuje wartości, więc ponowienie paczki niczego nie dubluje
+        stats.values().forEach(movieStats -> operations.upsert(byMovie(movieStats.getMovieId()), new Update()
+                .set("count", movieStats.getCount())
+                .set("sum", movieStats.getSum())
+                .set("histogram", movieStats.getHistogram())));
+        operations.execute();
+        return reviews;
+    }
+
+    private static Query byMovie(String movieId) {
+        return Query.query(Criteria.where("_id").is(movieId));
+    }
+
+    private static void add(RatingStats delta, int rating, int sign) {
+        delta.setCount(delta.getCount() + sign);
+        delta.setSum(delta.getSum() + (long) sign * rating);
+        // Oceny spoza skali liczą się do średniej, ale nie do histogramu
+        if (rating >= RatingStats.MIN_RATING && rating <= RatingStats.MAX_RATING) {
+            Map<String, Long> histogram = delta.getHistogram();
+            histogram.merge(String.valueOf(rating), (long) sign, Long::sum);
+            delta.setHistogram(histogram);
+        }
+    }
+
+    private static Update toUpdate(RatingStats delta) {
+        Update update = new Update()
+                .inc("count", delta.getCount())
+                .inc("sum", delta.getSum());
+        delta.getHistogram().forEach((rating, count) -> {
+            if (count != 0) {
+                update.inc("histogram." + rating, count);
+            }
+        });
+        return update;
+    }
+}
@@ -0,0 +1,7 @@
+package com.movieapp.movieapplication.repository;
+
+import com.movieapp.movieapplication.model.RatingTrendBucket;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface RatingTrendRepository extends MongoRepository<RatingTrendBucket, String>, RatingTrendRepositoryCustom {
+}
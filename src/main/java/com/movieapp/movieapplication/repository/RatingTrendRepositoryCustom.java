@@ -0,0 +1,26 @@
+package com.movieapp.movieapplication.repository;
+
+import com.movieapp.movieapplication.model.RatingTrendBucket;
+import com.movieapp.movieapplication.model.Review;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface RatingTrendRepositoryCustom {
+
+    // Przedziały jednego filmu z zakresu [from, to], rosnąco - indeks (movieId, granularity, bucketStart)
+    List<RatingTrendBucket> findBuckets(String movieId, RatingTrendBucket.Granularity granularity, LocalDate from, LocalDate to);
+
+    // Atomowa zmiana przedziału dziennego i tygodniowego o jedną recenzję: sign = 1 dodaje, sign = -1 odejmuje
+    void applyRating(String movieId, LocalDateTime reviewDate, int rating, int sign);
+
+    // Dodanie partii recenzji - jeden upsert na przedział w jednym nieuporządkowanym bulku
+    void applyRatings(List<Review> reviews);
+
+    // Przeliczenie od zera wszystkich przedziałów podanych filmów z ich recenzji; zwraca liczbę przeczytanych recenzji.
+    // Idempotentne - ponowne przeliczenie tych samych filmów daje ten sam wynik.
+    // Nadpisuje przedziały, więc wołający musi wstrzymać przyrosty tych filmów na czas przeliczenia
+    long rebuild(Collection<String> movieIds);
+}
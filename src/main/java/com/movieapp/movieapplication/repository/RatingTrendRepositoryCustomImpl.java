@@ -0,0 +1,119 @@
+package com.movieapp.movieapplication.repository;
+
+import com.movieapp.movieapplication.model.RatingTrendBucket;
+import com.movieapp.movieapplication.model.Review;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+public class RatingTrendRepositoryCustomImpl implements RatingTrendRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    public RatingTrendRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public List<RatingTrendBucket> findBuckets(String movieId, RatingTrendBucket.Granularity granularity, LocalDate from, LocalDate to) {
+        Query query = new Query(Criteria.where("movieId").is(movieId)
+                .and("granularity").is(granularity)
+                .and("bucketStart").gte(from).lte(to));
+        query.with(Sort.by(Sort.Direction.ASC, "bucketStart"));
+        return mongoTemplate.find(query, RatingTrendBucket.class);
+    }
+
+    @Override
+    public void applyRating(String movieId, LocalDateTime reviewDate, int rating, int sign) {
+        Map<String, RatingTrendBucket> deltas = new LinkedHashMap<>();
+        add(deltas, movieId, reviewDate, rating, sign);
+        upsert(deltas);
+    }
+
+    @Override
+    public void applyRatings(List<Review> reviews) {
+        // Najpierw sumujemy przyrosty per przedział, żeby wysłać jeden upsert na przedział
+        Map<String, RatingTrendBucket> deltas = new LinkedHashMap<>();
+        for (Review review : reviews) {
+            add(deltas, review.getMovieId(), review.getReviewDate(), review.getRating(), 1);
+        }
+        upsert(deltas);
+    }
+
+    @Override
+    public long rebuild(Collection<String> movieIds) {
+        if (movieIds.isEmpty()) {
+            return 0;
+        }
+        Query query = new Query(Criteria.where("movieId").in(movieIds));
+        query.fields().include("movieId").include("rating").include("reviewDate");
+        Map<String, RatingTrendBucket> buckets = new LinkedHashMap<>();
+        long reviews = 0;
+        try (Stream<Review> stream = mongoTemplate.stream(query, Review.class)) {
+            Iterator<Review> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                Review review = iterator.next();
+                add(buckets, review.getMovieId(), review.getReviewDate(), review.getRating(), 1);
+                reviews++;
+            }
+        }
+
+        BulkOperations operations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, RatingTrendBucket.class);
+        // Przedziały, w których nie ma już żadnej recenzji
+        operations.remove(Query.query(Criteria.where("movieId").in(movieIds).and("_id").nin(buckets.keySet())));
+        // $set zamiast $inc - przeliczenie zastępuje wartości, więc ponowienie paczki niczego nie dubluje.
+        // Wołający trzyma blokadę wyłączną filmów (RatingAggregateLocks), więc między odczytem a zapisem nie ma przyrostów
+        buckets.values().forEach(bucket -> operations.upsert(byId(bucket.getId()), new Update()
+                .set("count", bucket.getCount())
+                .set("sum", bucket.getSum())
+                .setOnInsert("movieId", bucket.getMovieId())
+                .setOnInsert("granularity", bucket.getGranularity())
+                .setOnInsert("bucketStart", bucket.getBucketStart())));
+        operations.execute();
+        return reviews;
+    }
+
+    private static Query byId(String id) {
+        return Query.query(Criteria.where("_id").is(id));
+    }
+
+    // Recenzje bez daty nie trafiają do trendów
+    private static void add(Map<String, RatingTrendBucket> deltas, String movieId, LocalDateTime reviewDate, int rating, int sign) {
+        if (movieId == null || reviewDate == null) {
+            return;
+        }
+        for (RatingTrendBucket.Granularity granularity : RatingTrendBucket.Granularity.values()) {
+            LocalDate start = granularity.bucketStart(reviewDate.toLocalDate());
+            RatingTrendBucket delta = deltas.computeIfAbsent(RatingTrendBucket.id(movieId, granularity, start),
+                    id -> new RatingTrendBucket(movieId, granularity, start));
+            delta.setCount(delta.getCount() + sign);
+            delta.setSum(delta.getSum() + (long) sign * rating);
+        }
+    }
+
+    private void upsert(Map<String, RatingTrendBucket> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        BulkOperations operations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, RatingTrendBucket.class);
+        deltas.values().forEach(delta -> operations.upsert(byId(delta.getId()), new Update()
+                .inc("count", delta.getCount())
+                .inc("sum", delta.getSum())
+                .setOnInsert("movieId", delta.getMovieId())
+                .setOnInsert("granularity", delta.getGranularity())
+                .setOnInsert("bucketStart", delta.getBucketStart())));
+        operations.execute();
+    }
+}
@@ -3,5 +3,7 @@ package com.movieapp.movieapplication.repository;
 import com.movieapp.movieapplication.model.Review;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
-public interface ReviewRepository extends MongoRepository<Review, String> {
+public interface ReviewRepository extends MongoRepository<Review, String>, ReviewRepositoryCustom {
+    // Zapytanie pokryte unikalnym indeksem (userId, movieId)
+    boolean existsByUserIdAndMovieId(String userId, String movieId);
 }
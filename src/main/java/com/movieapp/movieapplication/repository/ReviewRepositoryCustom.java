@@ -0,0 +1,34 @@
+package com.movieapp.movieapplication.repository;
+
+import com.movieapp.movieapplication.model.Review;
+import com.movieapp.movieapplication.model.SearchHit;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface ReviewRepositoryCustom {
+
+    // Recenzje filmu od najnowszych, zaczynając za recenzją (lastDate, lastId); lastId == null oznacza pierwszą stronę
+    List<Review> findByMovieIdAfter(String movieId, LocalDateTime lastDate, String lastId, int limit);
+
+    // Historia recenzji użytkownika od najnowszych; includeText == false pomija treść recenzji (widoki list)
+    List<Review> findByUserIdAfter(String userId, LocalDateTime lastDate, String lastId, int limit, boolean includeText);
+
+    // Atomowe usunięcie recenzji; zwraca usunięty dokument albo null, gdy recenzji już nie było
+    Review findAndRemoveById(String id);
+
+    // Atomowe zastąpienie recenzji o tym samym ID; zwraca poprzednią wersję albo null, gdy recenzji nie ma
+    Review findAndReplace(Review review);
+
+    // Zapis partii jednym nieuporządkowanym bulk insertem; zwraca recenzje, które faktycznie zostały zapisane.
+    // Recenzja o już istniejącym _id liczy się jako zapisana - ponowienie partii jest bezpieczne
+    List<Review> insertUnordered(List<Review> reviews);
+
+    // Strumień samych par (userId, movieId) wszystkich recenzji - bez treści, do budowy filtrów w pamięci
+    Stream<Review> streamUserMovieKeys();
+
+    // Wyszukiwanie w treści recenzji po indeksie tekstowym, od najlepiej dopasowanych; movieId == null oznacza wszystkie filmy.
+    // text w składni $text MongoDB: słowa, frazy w cudzysłowie, wykluczenia z "-"
+    List<SearchHit<Review>> searchText(String text, String movieId, int skip, int limit);
+}
@@ -0,0 +1,151 @@
+package com.movieapp.movieapplication.repository;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.movieapp.movieapplication.model.Review;
+import com.movieapp.movieapplication.model.SearchHit;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+public class ReviewRepositoryCustomImpl implements ReviewRepositoryCustom {
+
+    private static final String SCORE_FIELD = "score";
+    private static final int DUPLICATE_KEY_CODE = 11000;
+
+    private final MongoTemplate mongoTemplate;
+
+    public ReviewRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public List<Review> findByMovieIdAfter(String movieId, LocalDateTime lastDate, String lastId, int limit) {
+        return findNewestAfter("movieId", movieId, lastDate, lastId, limit, true);
+    }
+
+    @Override
+    public List<Review> findByUserIdAfter(String userId, LocalDateTime lastDate, String lastId, int limit, boolean includeText) {
+        return findNewestAfter("userId", userId, lastDate, lastId, limit, includeText);
+    }
+
+    // Keyset po indeksie (ownerField, reviewDate desc, _id desc) - koszt strony nie zależy od jej numeru
+    private List<Review> findNewestAfter(String ownerField, String ownerId, LocalDateTime lastDate, String lastId, int limit,
+                                         boolean includeText) {
+        Query query = new Query(Criteria.where(ownerField).is(ownerId));
+        if (lastId != null) {
+            query.addCriteria(olderCriteria(lastDate, lastId));
+        }
+        query.with(Sort.by(Sort.Direction.DESC, "reviewDate", "id"));
+        query.limit(limit);
+        if (!includeText) {
+            query.fields().exclude("reviewText");
+        }
+        return mongoTemplate.find(query, Review.class);
+    }
+
+    // null sortuje się w MongoDB przed każdą inną wartością, więc przy sortowaniu malejącym trafia na koniec
+    private Criteria olderCriteria(LocalDateTime lastDate, String lastId) {
+        if (lastDate == null) {
+            return new Criteria().andOperator(
+                    Criteria.where("reviewDate").is(null),
+                    Criteria.where("id").lt(lastId));
+        }
+        return new Criteria().orOperator(
+                Criteria.where("reviewDate").lt(lastDate),
+                new Criteria().andOperator(Criteria.where("reviewDate").is(lastDate), Criteria.where("id").lt(lastId)),
+                Criteria.where("reviewDate").is(null));
+    }
+
+    @Override
+    public Review findAndRemoveById(String id) {
+        return mongoTemplate.findAndRemove(byId(id), Review.class);
+    }
+
+    @Override
+    public Review findAndReplace(Review review) {
+        // Domyślne opcje zwracają dokument sprzed zamiany i nie tworzą nowego
+        return mongoTemplate.findAndReplace(byId(review.getId()), review);
+    }
+
+    private static Query byId(String id) {
+        return Query.query(Criteria.where("_id").is(id));
+    }
+
+    @Override
+    public List<Review> insertUnordered(List<Review> reviews) {
+        if (reviews.isEmpty()) {
+            return List.of();
+        }
+        BulkOperations operations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Review.class);
+        operations.insert(reviews);
+        try {
+            operations.execute();
+            return reviews;
+        } catch (BulkOperationException e) {
+            // Zapis nieuporządkowany - pozostałe dokumenty partii zostały zapisane
+            Set<Integer> failedIndexes = e.getErrors().stream()
+                    .map(BulkWriteError::getIndex)
+                    .collect(Collectors.toSet());
+            Set<String> alreadyWritten = findWrittenDuplicates(reviews, e.getErrors());
+            return IntStream.range(0, reviews.size())
+                    .filter(index -> !failedIndexes.contains(index) || alreadyWritten.contains(reviews.get(index).getId()))
+                    .mapToObj(reviews::get)
+                    .toList();
+        }
+    }
+
+    // Duplikat klucza może oznaczać, że recenzję zapisała już wcześniejsza próba tej partii (ID nadajemy przed zapisem),
+    // albo konflikt z inną recenzją (np. ta sama para użytkownik-film). Treść komunikatu serwera nie jest stabilna,
+    // więc rozstrzygamy odczytem: recenzja o tym _id istnieje w bazie - została zapisana
+    private Set<String> findWrittenDuplicates(List<Review> reviews, List<BulkWriteError> errors) {
+        List<String> duplicateIds = errors.stream()
+                .filter(error -> error.getCode() == DUPLICATE_KEY_CODE)
+                .map(error -> reviews.get(error.getIndex()).getId())
+                .toList();
+        if (duplicateIds.isEmpty()) {
+            return Set.of();
+        }
+        Query query = Query.query(Criteria.where("_id").in(duplicateIds));
+        query.fields().include("_id");
+        return mongoTemplate.find(query, Review.class).stream()
+                .map(Review::getId)
+                .collect(Collectors.toSet());
+    }
+
+    @Override
+    public Stream<Review> streamUserMovieKeys() {
+        Query query = new Query();
+        query.fields().include("userId").include("movieId");
+        return mongoTemplate.stream(query, Review.class);
+    }
+
+    @Override
+    public List<SearchHit<Review>> searchText(String text, String movieId, int skip, int limit) {
+        // Język "none" jak w indeksie: bez stemmingu i stop-słów, żeby trafienia zgadzały się z podświetlaniem
+        Query query = TextQuery.queryText(TextCriteria.forLanguage("none").matching(text))
+                .sortByScore()
+                .includeScore(SCORE_FIELD);
+        if (movieId != null) {
+            query.addCriteria(Criteria.where("movieId").is(movieId));
+        }
+        query.skip(skip).limit(limit);
+        List<Document> documents = mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(Review.class));
+        return documents.stream()
+                .map(document -> new SearchHit<>(mongoTemplate.getConverter().read(Review.class, document),
+                        ((Number) document.get(SCORE_FIELD)).doubleValue()))
+                .toList();
+    }
+}
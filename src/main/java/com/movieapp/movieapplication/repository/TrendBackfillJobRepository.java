@@ -0,0 +1,7 @@
+package com.movieapp.movieapplication.repository;
+
+import com.movieapp.movieapplication.model.TrendBackfillJob;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface TrendBackfillJobRepository extends MongoRepository<TrendBackfillJob, String> {
+}
@@ -0,0 +1,47 @@
+package com.movieapp.movieapplication.repository;
+
+import com.movieapp.movieapplication.model.User;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface UserRepositoryCustom {
+
+    enum ListUpdate {
+        NOT_FOUND, UNCHANGED, CHANGED
+    }
+
+    // Sam adres e-mail, bez ładowania list filmów użytkownika
+    Optional<String> findEmailById(String userId);
+
+    // Atomowe $addToSet / $pull na liście ID filmów (favoriteMovies) - bez odczytu i zapisu całego dokumentu
+    ListUpdate addToList(String userId, String field, String movieId);
+
+    ListUpdate removeFromList(String userId, String field, String movieId);
+
+    // $set pól profilu zamiast zapisu całego dokumentu, który usunąłby pola nieobecne w modelu; null, gdy brak użytkownika
+    User updateProfile(String userId, String username, String email, String role, String passwordHash);
+
+    // Dawne listy watchedMovies osadzone w dokumentach (userId -> ID filmów), w kolejności ID, po użytkowniku lastUserId
+    Map<String, List<String>> findEmbeddedWatchedAfter(String lastUserId, int limit);
+
+    // Aktualne osadzone listy podanych użytkowników; pomija użytkowników już bez listy
+    Map<String, List<String>> findEmbeddedWatched(Collection<String> userIds);
+
+    void unsetEmbeddedWatched(Collection<String> userIds);
+
+    // $pull z osadzonej listy watchedMovies, dopóki użytkownik nie został przeniesiony; true, gdy film był na liście
+    boolean pullEmbeddedWatched(String userId, String movieId);
+
+    // Same nazwy i e-maile - do budowy filtra zajętych wartości
+    Stream<User> streamUsernamesAndEmails();
+
+    // Podmiana haszu tylko, jeśli w bazie jest nadal expectedHash - nie nadpisuje równoległej zmiany hasła
+    boolean replacePasswordHash(String userId, String expectedHash, String newHash);
+
+    // true, gdy w kolekcji istnieją wszystkie podane indeksy unikalne
+    boolean hasUniqueIndexes(String... indexNames);
+}
@@ -0,0 +1,135 @@
+package com.movieapp.movieapplication.repository;
+
+import com.mongodb.client.result.UpdateResult;
+import com.movieapp.movieapplication.model.User;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    // Pole usunięte z modelu User - czytane i kasowane tylko przez migrację historii obejrzeń
+    private static final String EMBEDDED_WATCHED = "watchedMovies";
+
+    private final MongoTemplate mongoTemplate;
+
+    public UserRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Optional<String> findEmailById(String userId) {
+        Query query = byId(userId);
+        query.fields().include("email");
+        return Optional.ofNullable(mongoTemplate.findOne(query, User.class)).map(User::getEmail);
+    }
+
+    @Override
+    public ListUpdate addToList(String userId, String field, String movieId) {
+        return toListUpdate(mongoTemplate.updateFirst(byId(userId), new Update().addToSet(field, movieId), User.class));
+    }
+
+    @Override
+    public ListUpdate removeFromList(String userId, String field, String movieId) {
+        return toListUpdate(mongoTemplate.updateFirst(byId(userId), new Update().pull(field, movieId), User.class));
+    }
+
+    @Override
+    public User updateProfile(String userId, String username, String email, String role, String passwordHash) {
+        Update update = new Update().set("username", username).set("email", email).set("role", role);
+        if (passwordHash != null) {
+            update.set("passwordHash", passwordHash);
+        }
+        return mongoTemplate.findAndModify(byId(userId), update, FindAndModifyOptions.options().returnNew(true), User.class);
+    }
+
+    @Override
+    public Map<String, List<String>> findEmbeddedWatchedAfter(String lastUserId, int limit) {
+        Query query = new Query(Criteria.where(EMBEDDED_WATCHED).exists(true));
+        if (lastUserId != null) {
+            query.addCriteria(Criteria.where("_id").gt(lastUserId));
+        }
+        query.with(Sort.by(Sort.Direction.ASC, "_id"));
+        query.limit(limit);
+        return findEmbeddedWatched(query);
+    }
+
+    @Override
+    public Map<String, List<String>> findEmbeddedWatched(Collection<String> userIds) {
+        if (userIds.isEmpty()) {
+            return Map.of();
+        }
+        return findEmbeddedWatched(new Query(Criteria.where("_id").in(userIds).and(EMBEDDED_WATCHED).exists(true)));
+    }
+
+    private Map<String, List<String>> findEmbeddedWatched(Query query) {
+        query.fields().include(EMBEDDED_WATCHED);
+        Map<String, List<String>> result = new LinkedHashMap<>();
+        for (Document document : mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(User.class))) {
+            List<String> movieIds = document.getList(EMBEDDED_WATCHED, String.class);
+            result.put(String.valueOf(document.get("_id")), movieIds == null ? List.of() : movieIds);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean pullEmbeddedWatched(String userId, String movieId) {
+        Query query = byId(userId).addCriteria(Criteria.where(EMBEDDED_WATCHED).exists(true));
+        return mongoTemplate.updateFirst(query, new Update().pull(EMBEDDED_WATCHED, movieId), User.class).getModifiedCount() > 0;
+    }
+
+    @Override
+    public void unsetEmbeddedWatched(Collection<String> userIds) {
+        if (!userIds.isEmpty()) {
+            mongoTemplate.updateMulti(Query.query(Criteria.where("_id").in(userIds)), new Update().unset(EMBEDDED_WATCHED), User.class);
+        }
+    }
+
+    @Override
+    public Stream<User> streamUsernamesAndEmails() {
+        Query query = new Query();
+        query.fields().include("username").include("email");
+        return mongoTemplate.stream(query, User.class);
+    }
+
+    @Override
+    public boolean replacePasswordHash(String userId, String expectedHash, String newHash) {
+        Query query = Query.query(Criteria.where("_id").is(userId).and("passwordHash").is(expectedHash));
+        return mongoTemplate.updateFirst(query, new Update().set("passwordHash", newHash), User.class).getModifiedCount() > 0;
+    }
+
+    @Override
+    public boolean hasUniqueIndexes(String... indexNames) {
+        Set<String> unique = mongoTemplate.indexOps(User.class).getIndexInfo().stream()
+                .filter(IndexInfo::isUnique)
+                .map(IndexInfo::getName)
+                .collect(Collectors.toSet());
+        return unique.containsAll(List.of(indexNames));
+    }
+
+    private static Query byId(String userId) {
+        return Query.query(Criteria.where("_id").is(userId));
+    }
+
+    // modifiedCount == 0 przy istniejącym użytkowniku oznacza, że film już był na liście (albo go nie było przy $pull)
+    private static ListUpdate toListUpdate(UpdateResult result) {
+        if (result.getMatchedCount() == 0) {
+            return ListUpdate.NOT_FOUND;
+        }
+        return result.getModifiedCount() > 0 ? ListUpdate.CHANGED : ListUpdate.UNCHANGED;
+    }
+}
@@ -0,0 +1,9 @@
+package com.movieapp.movieapplication.repository;
+
+import com.movieapp.movieapplication.model.WatchHistoryEntry;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface WatchHistoryRepository extends MongoRepository<WatchHistoryEntry, String>, WatchHistoryRepositoryCustom {
+
+    long deleteByUserId(String userId);
+}
@@ -0,0 +1,25 @@
+package com.movieapp.movieapplication.repository;
+
+import com.movieapp.movieapplication.model.WatchHistoryEntry;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+public interface WatchHistoryRepositoryCustom {
+
+    // Upsert pary (użytkownik, film) z nową datą obejrzenia; true, gdy film nie był jeszcze w historii
+    boolean recordWatch(String userId, String movieId, LocalDateTime watchedAt);
+
+    boolean removeWatch(String userId, String movieId);
+
+    // Historia od najnowszych, strona po (lastDate, lastId); lastId == null oznacza pierwszą stronę
+    List<WatchHistoryEntry> findByUserIdAfter(String userId, LocalDateTime lastDate, String lastId, int limit);
+
+    // Przeniesienie list z dokumentów użytkowników (userId -> ID filmów). Tylko $setOnInsert,
+    // więc ponowienie jest bezpieczne i nie nadpisuje obejrzeń zapisanych w międzyczasie. Zwraca liczbę nowych wpisów.
+    long importWatched(Map<String, List<String>> movieIdsByUser);
+
+    // Usuwa wpisy przeniesione z list (bez daty obejrzenia) dla podanych par; obejrzenia zapisane przez recordWatch zostają
+    long removeImported(Map<String, List<String>> movieIdsByUser);
+}
@@ -0,0 +1,97 @@
+package com.movieapp.movieapplication.repository;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.movieapp.movieapplication.model.WatchHistoryEntry;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class WatchHistoryRepositoryCustomImpl implements WatchHistoryRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    public WatchHistoryRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public boolean recordWatch(String userId, String movieId, LocalDateTime watchedAt) {
+        Update update = new Update()
+                .set("watchedAt", watchedAt)
+                .setOnInsert("userId", userId)
+                .setOnInsert("movieId", movieId);
+        return mongoTemplate.upsert(byId(userId, movieId), update, WatchHistoryEntry.class).getUpsertedId() != null;
+    }
+
+    @Override
+    public boolean removeWatch(String userId, String movieId) {
+        return mongoTemplate.remove(byId(userId, movieId), WatchHistoryEntry.class).getDeletedCount() > 0;
+    }
+
+    // Keyset po indeksie (userId, watchedAt desc, _id desc) - koszt strony nie zależy od jej numeru
+    @Override
+    public List<WatchHistoryEntry> findByUserIdAfter(String userId, LocalDateTime lastDate, String lastId, int limit) {
+        Query query = new Query(Criteria.where("userId").is(userId));
+        if (lastId != null) {
+            query.addCriteria(olderCriteria(lastDate, lastId));
+        }
+        query.with(Sort.by(Sort.Direction.DESC, "watchedAt", "id"));
+        query.limit(limit);
+        return mongoTemplate.find(query, WatchHistoryEntry.class);
+    }
+
+    // null sortuje się w MongoDB przed każdą inną wartością, więc przy sortowaniu malejącym trafia na koniec
+    private Criteria olderCriteria(LocalDateTime lastDate, String lastId) {
+        if (lastDate == null) {
+            return new Criteria().andOperator(
+                    Criteria.where("watchedAt").is(null),
+                    Criteria.where("id").lt(lastId));
+        }
+        return new Criteria().orOperator(
+                Criteria.where("watchedAt").lt(lastDate),
+                new Criteria().andOperator(Criteria.where("watchedAt").is(lastDate), Criteria.where("id").lt(lastId)),
+                Criteria.where("watchedAt").is(null));
+    }
+
+    @Override
+    public long importWatched(Map<String, List<String>> movieIdsByUser) {
+        BulkOperations operations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, WatchHistoryEntry.class);
+        int count = 0;
+        for (Map.Entry<String, List<String>> user : movieIdsByUser.entrySet()) {
+            for (String movieId : user.getValue()) {
+                operations.upsert(byId(user.getKey(), movieId), new Update()
+                        .setOnInsert("userId", user.getKey())
+                        .setOnInsert("movieId", movieId));
+                count++;
+            }
+        }
+        if (count == 0) {
+            return 0;
+        }
+        BulkWriteResult result = operations.execute();
+        return result.getUpserts().size();
+    }
+
+    @Override
+    public long removeImported(Map<String, List<String>> movieIdsByUser) {
+        List<String> ids = new ArrayList<>();
+        movieIdsByUser.forEach((userId, movieIds) -> movieIds.forEach(movieId -> ids.add(WatchHistoryEntry.id(userId, movieId))));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        Query query = Query.query(Criteria.where("_id").in(ids).and("watchedAt").is(null));
+        return mongoTemplate.remove(query, WatchHistoryEntry.class).getDeletedCount();
+    }
+
+    private static Query byId(String userId, String movieId) {
+        return Query.query(Criteria.where("_id").is(WatchHistoryEntry.id(userId, movieId)));
+    }
+}
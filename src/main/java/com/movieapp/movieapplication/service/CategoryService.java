@@ -2,42 +2,120 @@ package com.movieapp.movieapplication.service;
 
 import com.movieapp.movieapplication.model.Category;
 import com.movieapp.movieapplication.repository.CategoryRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Service
 public class CategoryService {
 
     private final CategoryRepository categoryRepository;
 
+    // Niezmienna migawka wszystkich kategorii - odczyty bez blokad i bez zapytań do bazy,
+    // zapisy podmieniają całą mapę
+    private volatile Map<String, Category> snapshot;
+    private final Object snapshotLock = new Object();
+
     public CategoryService(CategoryRepository categoryRepository) {
         this.categoryRepository = categoryRepository;
     }
 
     public List<Category> getAllCategories() {
-        return categoryRepository.findAll();
+        return List.copyOf(snapshot().values());
     }
 
     public Optional<Category> getCategoryById(String id) {
-        return categoryRepository.findById(id);
+        return Optional.ofNullable(snapshot().get(id));
+    }
+
+    public List<Category> getCategoriesByIds(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<String, Category> categories = snapshot();
+        return ids.stream()
+                .map(categories::get)
+                .filter(Objects::nonNull)
+                .toList();
     }
 
     public Category addCategory(Category category) {
         // Dodanie kategorii z ustawionym id (opcjonalnie można generować własne id)
-        return categoryRepository.save(category);
+        Category saved = categoryRepository.save(category);
+        applyToSnapshot(categories -> categories.put(saved.getId(), saved));
+        return saved;
     }
 
     public void deleteCategory(String id) {
         categoryRepository.deleteById(id);
+        applyToSnapshot(categories -> categories.remove(id));
     }
 
     public Category updateCategory(String id, Category category) {
-        return categoryRepository.findById(id).map(existingCategory -> {
+        Category saved = categoryRepository.findById(id).map(existingCategory -> {
             existingCategory.setName(category.getName());
             existingCategory.setDescription(category.getDescription());
             return categoryRepository.save(existingCategory);
         }).orElseThrow(() -> new RuntimeException("Category not found with id: " + id));
+        applyToSnapshot(categories -> categories.put(id, saved));
+        return saved;
+    }
+
+    // Pełne przeładowanie migawki z bazy
+    public void refresh() {
+        synchronized (snapshotLock) {
+            Map<String, Category> categories = new LinkedHashMap<>();
+            categoryRepository.findAll().forEach(category -> categories.put(category.getId(), category));
+            snapshot = Collections.unmodifiableMap(categories);
+        }
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        reconcile();
+    }
+
+    // Okresowe uzgodnienie z bazą na wypadek zmian wykonanych poza aplikacją
+    @Scheduled(fixedDelayString = "${movieapp.reference-data.refresh-interval-ms:300000}",
+            initialDelayString = "${movieapp.reference-data.refresh-interval-ms:300000}")
+    public void reconcile() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            System.out.println("Could not refresh categories: " + e.getMessage());
+        }
+    }
+
+    private Map<String, Category> snapshot() {
+        Map<String, Category> current = snapshot;
+        if (current == null) {
+            refresh();
+            current = snapshot;
+        }
+        return current;
+    }
+
+    // Kopia-przy-zapisie; jeśli migawka nie została jeszcze wczytana, zostanie wczytana przy pierwszym odczycie
+    private void applyToSnapshot(Consumer<Map<String, Category>> change) {
+        synchronized (snapshotLock) {
+            if (snapshot == null) {
+                return;
+            }
+            Map<String, Category> categories = new LinkedHashMap<>(snapshot);
+            change.accept(categories);
+            snapshot = Collections.unmodifiableMap(categories);
+        }
     }
 }
@@ -0,0 +1,33 @@
+package com.movieapp.movieapplication.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Kodowanie nieprzezroczystych tokenów kontynuacji dla stronicowania keyset
+public final class CursorCodec {
+
+    private static final String SEPARATOR = "|";
+
+    private CursorCodec() {
+    }
+
+    // Ostatnia część może zawierać separator, pozostałe (np. ID) nie
+    public static String encode(String... parts) {
+        String raw = String.join(SEPARATOR, parts);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String[] decode(String cursor, int expectedParts) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor.", e);
+        }
+        String[] parts = raw.split("\\|", expectedParts);
+        if (parts.length != expectedParts) {
+            throw new IllegalArgumentException("Invalid cursor.");
+        }
+        return parts;
+    }
+}
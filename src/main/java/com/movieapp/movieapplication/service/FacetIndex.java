@@ -0,0 +1,320 @@
+package com.movieapp.movieapplication.service;
+
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Indeks facetowy na bitmapach (Roaring).
+// Każdy film dostaje gęsty numer porządkowy, a każda wartość facetu bitmapę numerów filmów,
+// więc filtrowanie i liczniki to operacje AND/OR/cardinality na skompresowanych bitmapach.
+// Numery są tylko rosnące i nie są używane ponownie: kursor stronicowania to ostatni zwrócony numer, więc nowy film
+// w zwolnionym numerze przed kursorem zostałby pominięty, a za kursorem przesunąłby kolejność w trakcie przeglądania.
+public class FacetIndex {
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> ordinalByKey = new HashMap<>();
+    private final RoaringBitmap live = new RoaringBitmap();
+    private final Map<String, RoaringBitmap> genres = new HashMap<>();
+    private final Map<String, RoaringBitmap> languages = new HashMap<>();
+    private final TreeMap<Integer, RoaringBitmap> years = new TreeMap<>();
+    private final TreeMap<Integer, RoaringBitmap> durations = new TreeMap<>();
+    private Doc[] docs = new Doc[1024];
+    private int maxOrdinal;
+
+    public void put(String key, Collection<String> genreIds, String languageId, Integer year, Integer duration) {
+        lock.writeLock().lock();
+        try {
+            Integer existing = ordinalByKey.get(key);
+            int ordinal;
+            if (existing != null) {
+                ordinal = existing;
+                unindex(ordinal);
+            } else {
+                ordinal = allocate();
+                ordinalByKey.put(key, ordinal);
+                live.add(ordinal);
+            }
+            Doc doc = new Doc(key, genreIds == null ? List.of() : List.copyOf(new LinkedHashSet<>(genreIds)),
+                    languageId, year, duration);
+            docs[ordinal] = doc;
+            doc.genres.forEach(genre -> bitmap(genres, genre).add(ordinal));
+            if (languageId != null) {
+                bitmap(languages, languageId).add(ordinal);
+            }
+            if (year != null) {
+                bitmap(years, year).add(ordinal);
+            }
+            if (duration != null) {
+                bitmap(durations, duration).add(ordinal);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean remove(String key) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinalByKey.remove(key);
+            if (ordinal == null) {
+                return false;
+            }
+            unindex(ordinal);
+            docs[ordinal] = null;
+            live.remove(ordinal);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            ordinalByKey.clear();
+            live.clear();
+            genres.clear();
+            languages.clear();
+            years.clear();
+            durations.clear();
+            docs = new Doc[1024];
+            maxOrdinal = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinalByKey.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Gatunki łączone przez AND (film ma mieć wszystkie wybrane), języki przez OR, rok i czas trwania to przedziały.
+    // Liczniki facetów jednokrotnego wyboru (język, rok, czas trwania) pomijają własny filtr,
+    // żeby pokazywać ile filmów dałaby zmiana wyboru; liczniki gatunków liczone są na wyniku.
+    public Result query(Query query, int afterOrdinal, int limit, int durationBucket) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap genreFilter = genreFilter(query.genres);
+            RoaringBitmap languageFilter = query.languages.isEmpty() ? null : union(query.languages.stream()
+                    .map(languages::get).filter(bitmap -> bitmap != null).toList());
+            RoaringBitmap yearFilter = rangeFilter(years, query.yearFrom, query.yearTo);
+            RoaringBitmap durationFilter = rangeFilter(durations, query.durationFrom, query.durationTo);
+
+            RoaringBitmap result = intersect(live, genreFilter, languageFilter, yearFilter, durationFilter);
+
+            Map<String, Map<String, Long>> facets = new LinkedHashMap<>();
+            facets.put("genres", counts(genres, result));
+            facets.put("languages", counts(languages, intersect(live, genreFilter, yearFilter, durationFilter)));
+            facets.put("releaseYears", counts(years, intersect(live, genreFilter, languageFilter, durationFilter)));
+            facets.put("durations", durationCounts(intersect(live, genreFilter, languageFilter, yearFilter), durationBucket));
+
+            List<String> keys = new ArrayList<>(limit);
+            int lastOrdinal = -1;
+            boolean hasMore = false;
+            PeekableIntIterator iterator = result.getIntIterator();
+            if (afterOrdinal >= 0) {
+                iterator.advanceIfNeeded(afterOrdinal + 1);
+            }
+            while (iterator.hasNext()) {
+                int ordinal = iterator.next();
+                if (keys.size() == limit) {
+                    hasMore = true;
+                    break;
+                }
+                keys.add(docs[ordinal].key);
+                lastOrdinal = ordinal;
+            }
+            return new Result(result.getLongCardinality(), keys, hasMore ? lastOrdinal : -1, facets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private RoaringBitmap genreFilter(Set<String> selected) {
+        if (selected.isEmpty()) {
+            return null;
+        }
+        List<RoaringBitmap> bitmaps = new ArrayList<>(selected.size());
+        for (String genre : selected) {
+            RoaringBitmap bitmap = genres.get(genre);
+            if (bitmap == null) {
+                return new RoaringBitmap();
+            }
+            bitmaps.add(bitmap);
+        }
+        return FastAggregation.and(bitmaps.iterator());
+    }
+
+    private static RoaringBitmap rangeFilter(TreeMap<Integer, RoaringBitmap> values, Integer from, Integer to) {
+        if (from == null && to == null) {
+            return null;
+        }
+        NavigableMap<Integer, RoaringBitmap> range = values.subMap(
+                from == null ? Integer.MIN_VALUE : from, true, to == null ? Integer.MAX_VALUE : to, true);
+        return union(range.values());
+    }
+
+    private static RoaringBitmap union(Collection<RoaringBitmap> bitmaps) {
+        return bitmaps.isEmpty() ? new RoaringBitmap() : FastAggregation.or(bitmaps.iterator());
+    }
+
+    // null oznacza brak filtra dla danego facetu
+    private static RoaringBitmap intersect(RoaringBitmap base, RoaringBitmap... filters) {
+        RoaringBitmap result = base;
+        for (RoaringBitmap filter : filters) {
+            if (filter != null) {
+                result = RoaringBitmap.and(result, filter);
+            }
+        }
+        return result == base ? base.clone() : result;
+    }
+
+    private static <K> Map<String, Long> counts(Map<K, RoaringBitmap> values, RoaringBitmap filter) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        values.forEach((value, bitmap) -> {
+            long count = RoaringBitmap.andCardinality(bitmap, filter);
+            if (count > 0) {
+                counts.put(String.valueOf(value), count);
+            }
+        });
+        return counts;
+    }
+
+    // Czas trwania ma zbyt wiele wartości, więc liczniki grupujemy w przedziały po durationBucket minut
+    private Map<String, Long> durationCounts(RoaringBitmap filter, int bucket) {
+        Map<Integer, Long> byBucket = new TreeMap<>();
+        durations.forEach((duration, bitmap) -> {
+            long count = RoaringBitmap.andCardinality(bitmap, filter);
+            if (count > 0) {
+                byBucket.merge(Math.floorDiv(duration, bucket) * bucket, count, Long::sum);
+            }
+        });
+        Map<String, Long> counts = new LinkedHashMap<>();
+        byBucket.forEach((start, count) -> counts.put(start + "-" + (start + bucket - 1), count));
+        return counts;
+    }
+
+    private int allocate() {
+        int ordinal = maxOrdinal++;
+        if (ordinal >= docs.length) {
+            docs = Arrays.copyOf(docs, docs.length * 2);
+        }
+        return ordinal;
+    }
+
+    private void unindex(int ordinal) {
+        Doc doc = docs[ordinal];
+        if (doc == null) {
+            return;
+        }
+        doc.genres.forEach(genre -> clearBit(genres, genre, ordinal));
+        if (doc.languageId != null) {
+            clearBit(languages, doc.languageId, ordinal);
+        }
+        if (doc.year != null) {
+            clearBit(years, doc.year, ordinal);
+        }
+        if (doc.duration != null) {
+            clearBit(durations, doc.duration, ordinal);
+        }
+    }
+
+    private static <K> RoaringBitmap bitmap(Map<K, RoaringBitmap> values, K value) {
+        return values.computeIfAbsent(value, v -> new RoaringBitmap());
+    }
+
+    // Puste bitmapy są usuwane, żeby nie zostawały w licznikach ani w przedziałach
+    private static <K> void clearBit(Map<K, RoaringBitmap> values, K value, int ordinal) {
+        RoaringBitmap bitmap = values.get(value);
+        if (bitmap != null) {
+            bitmap.remove(ordinal);
+            if (bitmap.isEmpty()) {
+                values.remove(value);
+            }
+        }
+    }
+
+    private static class Doc {
+        private final String key;
+        private final List<String> genres;
+        private final String languageId;
+        private final Integer year;
+        private final Integer duration;
+
+        Doc(String key, List<String> genres, String languageId, Integer year, Integer duration) {
+            this.key = key;
+            this.genres = genres;
+            this.languageId = languageId;
+            this.year = year;
+            this.duration = duration;
+        }
+    }
+
+    public static class Query {
+        private final Set<String> genres;
+        private final Set<String> languages;
+        private final Integer yearFrom;
+        private final Integer yearTo;
+        private final Integer durationFrom;
+        private final Integer durationTo;
+
+        public Query(Collection<String> genres, Collection<String> languages,
+                     Integer yearFrom, Integer yearTo, Integer durationFrom, Integer durationTo) {
+            this.genres = genres == null ? Set.of() : Set.copyOf(genres);
+            this.languages = languages == null ? Set.of() : Set.copyOf(languages);
+            this.yearFrom = yearFrom;
+            this.yearTo = yearTo;
+            this.durationFrom = durationFrom;
+            this.durationTo = durationTo;
+        }
+    }
+
+    public static class Result {
+        private final long total;
+        private final List<String> keys;
+        private final int lastOrdinal;
+        private final Map<String, Map<String, Long>> facets;
+
+        public Result(long total, List<String> keys, int lastOrdinal, Map<String, Map<String, Long>> facets) {
+            this.total = total;
+            this.keys = keys;
+            this.lastOrdinal = lastOrdinal;
+            this.facets = facets;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        public List<String> getKeys() {
+            return keys;
+        }
+
+        // -1 gdy nie ma następnej strony
+        public int getLastOrdinal() {
+            return lastOrdinal;
+        }
+
+        public Map<String, Map<String, Long>> getFacets() {
+            return facets;
+        }
+    }
+}
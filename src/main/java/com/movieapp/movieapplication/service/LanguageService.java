@@ -2,41 +2,102 @@ package com.movieapp.movieapplication.service;
 
 import com.movieapp.movieapplication.model.Language;
 import com.movieapp.movieapplication.repository.LanguageRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Service
 public class LanguageService {
 
     private final LanguageRepository languageRepository;
 
+    // Niezmienna migawka wszystkich języków, podmieniana w całości przy zapisie (jak w CategoryService)
+    private volatile Map<String, Language> snapshot;
+    private final Object snapshotLock = new Object();
+
     public LanguageService(LanguageRepository languageRepository) {
         this.languageRepository = languageRepository;
     }
 
     public List<Language> getAllLanguages() {
-        return languageRepository.findAll();
+        return List.copyOf(snapshot().values());
     }
 
     public Optional<Language> getLanguageById(String id) {
-        return languageRepository.findById(id);
+        return Optional.ofNullable(snapshot().get(id));
     }
 
     public Language addLanguage(Language language) {
-        return languageRepository.save(language);
+        Language saved = languageRepository.save(language);
+        applyToSnapshot(languages -> languages.put(saved.getId(), saved));
+        return saved;
     }
 
     public void deleteLanguage(String id) {
         languageRepository.deleteById(id);
+        applyToSnapshot(languages -> languages.remove(id));
     }
 
     public Language updateLanguage(String id, Language language) {
-        return languageRepository.findById(id).map(existingLanguage -> {
+        Language saved = languageRepository.findById(id).map(existingLanguage -> {
             existingLanguage.setName(language.getName());
             existingLanguage.setCode(language.getCode());
             return languageRepository.save(existingLanguage);
         }).orElseThrow(() -> new RuntimeException("Language not found with id: " + id));
+        applyToSnapshot(languages -> languages.put(id, saved));
+        return saved;
+    }
+
+    public void refresh() {
+        synchronized (snapshotLock) {
+            Map<String, Language> languages = new LinkedHashMap<>();
+            languageRepository.findAll().forEach(language -> languages.put(language.getId(), language));
+            snapshot = Collections.unmodifiableMap(languages);
+        }
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        reconcile();
+    }
+
+    @Scheduled(fixedDelayString = "${movieapp.reference-data.refresh-interval-ms:300000}",
+            initialDelayString = "${movieapp.reference-data.refresh-interval-ms:300000}")
+    public void reconcile() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            System.out.println("Could not refresh languages: " + e.getMessage());
+        }
+    }
+
+    private Map<String, Language> snapshot() {
+        Map<String, Language> current = snapshot;
+        if (current == null) {
+            refresh();
+            current = snapshot;
+        }
+        return current;
+    }
+
+    private void applyToSnapshot(Consumer<Map<String, Language>> change) {
+        synchronized (snapshotLock) {
+            if (snapshot == null) {
+                return;
+            }
+            Map<String, Language> languages = new LinkedHashMap<>(snapshot);
+            change.accept(languages);
+            snapshot = Collections.unmodifiableMap(languages);
+        }
     }
 }
@@ -0,0 +1,25 @@
+package com.movieapp.movieapplication.service;
+
+// Publikowane przy aktywności użytkowników wokół filmu (recenzja, ulubione, obejrzenie) - zasila ranking "na czasie"
+public class MovieActivityEvent {
+
+    public enum Type {
+        REVIEW, FAVORITE, WATCH
+    }
+
+    private final String movieId;
+    private final Type type;
+
+    public MovieActivityEvent(String movieId, Type type) {
+        this.movieId = movieId;
+        this.type = type;
+    }
+
+    public String getMovieId() {
+        return movieId;
+    }
+
+    public Type getType() {
+        return type;
+    }
+}
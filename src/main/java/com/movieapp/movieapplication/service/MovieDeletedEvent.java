@@ -0,0 +1,14 @@
+package com.movieapp.movieapplication.service;
+
+// Publikowane po usunięciu filmu
+public class MovieDeletedEvent {
+    private final String movieId;
+
+    public MovieDeletedEvent(String movieId) {
+        this.movieId = movieId;
+    }
+
+    public String getMovieId() {
+        return movieId;
+    }
+}
@@ -0,0 +1,349 @@
+package com.movieapp.movieapplication.service;
+
+import com.movieapp.movieapplication.model.DistributionStats;
+import com.movieapp.movieapplication.model.Movie;
+import com.movieapp.movieapplication.model.RatingStats;
+import com.movieapp.movieapplication.repository.MovieRepository;
+import com.movieapp.movieapplication.repository.RatingStatsRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Przybliżone rozkłady ocen i czasu trwania ocenionych filmów per wycinek katalogu, bez skanowania recenzji.
+// Komórka to para (język, zbiór gatunków filmu), więc każda recenzja trafia do dokładnie jednej komórki,
+// a dowolny wycinek (gatunki przez AND, języki przez OR - jak w filtrze facetowym) to scalenie pasujących komórek
+// bez podwójnego liczenia. Komórka trzyma szkice kwantyli (QuantileSketch) osobno dla dodanych i usuniętych elementów,
+// bo szkic nie obsługuje usuwania, a rangi można odejmować.
+// Pamięć: komórka to najwyżej 4 szkice po ~3k wartości float (dla k = 200 ok. 10 KB, bez usunięć ok. 5 KB),
+// a liczba komórek to liczba różnych kombinacji (język, gatunki) w katalogu; do tego ~150 B stanu na film.
+@Service
+public class MovieDistributionService {
+
+    static final List<Double> DEFAULT_QUANTILES = List.of(0.1, 0.25, 0.5, 0.75, 0.9, 0.99);
+    private static final int MAX_QUANTILES = 20;
+
+    private final MovieRepository movieRepository;
+    private final RatingStatsRepository ratingStatsRepository;
+    private final RatingAggregateLocks aggregateLocks;
+    // Filmy zmienione przez eventy w czasie budowy po starcie - ich wartości ze strumienia mogą być nieaktualne
+    private final SnapshotTracker movieChanges = new SnapshotTracker();
+    private final SnapshotTracker ratingChanges = new SnapshotTracker();
+    private final Map<String, MovieState> movies = new ConcurrentHashMap<>();
+    private final Map<String, Cell> cells = new ConcurrentHashMap<>();
+
+    // Większe k to mniejszy błąd (~1.7/k rangi) kosztem pamięci liniowej w k
+    @Value("${movieapp.distribution.sketch-k:200}")
+    private int sketchK = 200;
+
+    public MovieDistributionService(MovieRepository movieRepository, RatingStatsRepository ratingStatsRepository,
+                                    RatingAggregateLocks aggregateLocks) {
+        this.movieRepository = movieRepository;
+        this.ratingStatsRepository = ratingStatsRepository;
+        this.aggregateLocks = aggregateLocks;
+    }
+
+    public DistributionStats distribution(List<String> genres, List<String> languages, List<Double> quantiles) {
+        List<Double> qs = quantiles == null || quantiles.isEmpty() ? DEFAULT_QUANTILES : quantiles;
+        if (qs.size() > MAX_QUANTILES) {
+            throw new IllegalArgumentException("At most " + MAX_QUANTILES + " quantiles can be requested.");
+        }
+        for (Double q : qs) {
+            if (q == null || !(q >= 0 && q <= 1)) {
+                throw new IllegalArgumentException("Quantiles must be between 0 and 1.");
+            }
+        }
+        Set<String> genreFilter = normalize(genres);
+        Set<String> languageFilter = normalize(languages);
+
+        Totals totals = new Totals(sketchK);
+        for (Cell cell : cells.values()) {
+            if (cell.genres.containsAll(genreFilter) && (languageFilter.isEmpty() || languageFilter.contains(cell.languageId))) {
+                cell.mergeInto(totals);
+            }
+        }
+        double[] q = qs.stream().mapToDouble(Double::doubleValue).toArray();
+        return new DistributionStats(List.copyOf(genreFilter), List.copyOf(languageFilter),
+                Math.max(totals.reviews, 0), Math.max(totals.movies, 0),
+                totals.reviews > 0 ? (double) totals.ratingSum / totals.reviews : null,
+                quantileMap(qs, QuantileSketch.quantiles(totals.ratingsAdded, totals.ratingsRemoved, q)),
+                quantileMap(qs, QuantileSketch.quantiles(totals.durationsAdded, totals.durationsRemoved, q)));
+    }
+
+    @EventListener
+    public void onReviewRating(ReviewRatingEvent event) {
+        movies.compute(event.getMovieId(), (id, current) -> {
+            ratingChanges.touch(id);
+            MovieState state = current == null ? MovieState.EMPTY : current;
+            MovieState next = state.withRating(event.getRating(), event.getSign());
+            Cell cell = cell(next);
+            cell.addRating(event.getRating(), event.getSign());
+            // Film wchodzi do rozkładu czasu trwania z pierwszą recenzją i wypada po usunięciu ostatniej
+            if (state.reviewCount <= 0 && next.reviewCount > 0) {
+                cell.addMovie(next.duration, 1);
+            } else if (state.reviewCount > 0 && next.reviewCount <= 0) {
+                cell.addMovie(next.duration, -1);
+            }
+            return next;
+        });
+    }
+
+    @EventListener
+    public void onMoviesSaved(MoviesSavedEvent event) {
+        event.getMovies().stream()
+                .filter(movie -> movie.getId() != null)
+                .forEach(movie -> replace(movie.getId(), state -> {
+                    movieChanges.touch(movie.getId());
+                    return state.withFacets(movie);
+                }));
+    }
+
+    @EventListener
+    public void onMovieDeleted(MovieDeletedEvent event) {
+        movies.compute(event.getMovieId(), (id, state) -> {
+            // Nieaktualny film ani jego oceny ze strumienia nie mogą go przywrócić
+            movieChanges.touch(id);
+            ratingChanges.touch(id);
+            if (state != null) {
+                apply(state, -1);
+            }
+            return null;
+        });
+    }
+
+    // Wczytanie po starcie: facety filmów, potem histogramy ocen z agregatów - oba strumieniowo z kursora.
+    // Jak w MovieLeaderboardService: wartość ze strumienia nie nadpisuje filmu zmienionego w tym czasie przez event,
+    // a filmy ze zmienionymi ocenami są na koniec czytane ponownie pod barierą zapisów recenzji
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        long start = System.currentTimeMillis();
+        movieChanges.start();
+        ratingChanges.start();
+        try (Stream<Movie> movieStream = movieRepository.streamAllBy();
+             Stream<RatingStats> stats = ratingStatsRepository.streamAllBy()) {
+            movieStream.forEach(movie -> replace(movie.getId(), state -> movieChanges.isTouched(movie.getId())
+                    ? state : state.withFacets(movie)));
+            movieChanges.finish();
+            stats.forEach(stat -> replace(stat.getMovieId(), state -> ratingChanges.isTouched(stat.getMovieId())
+                    ? state : state.withStats(stat)));
+            reloadChangedStats();
+            System.out.println("Movie distribution sketches built: " + cells.size() + " slices in "
+                    + (System.currentTimeMillis() - start) + " ms");
+        } catch (RuntimeException e) {
+            System.out.println("Could not build movie distribution sketches: " + e.getMessage());
+        } finally {
+            movieChanges.finish();
+            ratingChanges.finish();
+        }
+    }
+
+    private void reloadChangedStats() {
+        RatingAggregateLocks.Lease barrier = aggregateLocks.exclusiveAll();
+        try {
+            Set<String> changed = ratingChanges.finish();
+            if (changed.isEmpty()) {
+                return;
+            }
+            Map<String, RatingStats> fresh = ratingStatsRepository.findAllById(changed).stream()
+                    .collect(Collectors.toMap(RatingStats::getMovieId, Function.identity()));
+            for (String movieId : changed) {
+                RatingStats stat = fresh.getOrDefault(movieId, new RatingStats(movieId));
+                // Usunięty film nie wraca do rozkładów
+                movies.computeIfPresent(movieId, (id, state) -> move(state, state.withStats(stat)));
+            }
+        } finally {
+            barrier.close();
+        }
+    }
+
+    // Zmiana facetów lub pełnych statystyk filmu przenosi cały jego wkład między komórkami
+    private void replace(String movieId, UnaryOperator<MovieState> change) {
+        movies.compute(movieId, (id, current) -> {
+            MovieState state = current == null ? MovieState.EMPTY : current;
+            return move(state, change.apply(state));
+        });
+    }
+
+    private MovieState move(MovieState state, MovieState next) {
+        if (!next.sameContribution(state)) {
+            apply(state, -1);
+            apply(next, 1);
+        }
+        return next;
+    }
+
+    private void apply(MovieState state, int sign) {
+        if (state.reviewCount <= 0) {
+            return;
+        }
+        Cell cell = cell(state);
+        state.ratings.forEach((rating, count) -> cell.addRating(rating, sign * count));
+        cell.addMovie(state.duration, sign);
+    }
+
+    private Cell cell(MovieState state) {
+        return cells.computeIfAbsent(state.cellKey, key -> new Cell(state.genres, state.languageId, sketchK));
+    }
+
+    private static Set<String> normalize(List<String> values) {
+        Set<String> result = new TreeSet<>();
+        if (values != null) {
+            values.stream().filter(value -> value != null && !value.isBlank()).forEach(result::add);
+        }
+        return result;
+    }
+
+    private static Map<String, Double> quantileMap(List<Double> qs, double[] values) {
+        Map<String, Double> result = new LinkedHashMap<>();
+        for (int i = 0; i < values.length; i++) {
+            String key = "p" + BigDecimal.valueOf(qs.get(i)).movePointRight(2).stripTrailingZeros().toPlainString();
+            result.put(key, Double.isNaN(values[i]) ? null : values[i]);
+        }
+        return result;
+    }
+
+    // Niezmienny stan filmu: komórka, czas trwania i liczba recenzji per ocena
+    private static final class MovieState {
+        static final MovieState EMPTY = new MovieState(Set.of(), null, null, Map.of(), 0);
+
+        private final Set<String> genres;
+        private final String languageId;
+        private final Integer duration; // null gdy nieznany
+        private final Map<Integer, Long> ratings;
+        private final long reviewCount;
+        private final String cellKey;
+
+        MovieState(Set<String> genres, String languageId, Integer duration, Map<Integer, Long> ratings, long reviewCount) {
+            this.genres = genres;
+            this.languageId = languageId;
+            this.duration = duration;
+            this.ratings = ratings;
+            this.reviewCount = reviewCount;
+            this.cellKey = (languageId == null ? "" : languageId) + "|" + String.join(",", genres);
+        }
+
+        MovieState withFacets(Movie movie) {
+            Integer duration = movie.getDuration() > 0 ? movie.getDuration() : null;
+            return new MovieState(normalize(movie.getGenres()), movie.getLanguageId(), duration, ratings, reviewCount);
+        }
+
+        MovieState withStats(RatingStats stats) {
+            Map<Integer, Long> histogram = new HashMap<>();
+            stats.getHistogram().forEach((rating, count) -> {
+                if (count != 0) {
+                    histogram.put(Integer.valueOf(rating), count);
+                }
+            });
+            return new MovieState(genres, languageId, duration, Map.copyOf(histogram), stats.getCount());
+        }
+
+        MovieState withRating(int rating, int sign) {
+            Map<Integer, Long> next = new HashMap<>(ratings);
+            next.merge(rating, (long) sign, Long::sum);
+            next.values().removeIf(count -> count == 0);
+            return new MovieState(genres, languageId, duration, Map.copyOf(next), reviewCount + sign);
+        }
+
+        boolean sameContribution(MovieState other) {
+            return cellKey.equals(other.cellKey) && Objects.equals(duration, other.duration)
+                    && reviewCount == other.reviewCount && ratings.equals(other.ratings);
+        }
+    }
+
+    // Szkice jednej komórki; removed* powstają dopiero przy pierwszym usunięciu
+    private static final class Cell {
+        private final Set<String> genres;
+        private final String languageId;
+        private final int k;
+        private final QuantileSketch ratingsAdded;
+        private final QuantileSketch durationsAdded;
+        private QuantileSketch ratingsRemoved;
+        private QuantileSketch durationsRemoved;
+        private long reviews;
+        private long ratingSum;
+        private long movies;
+
+        Cell(Set<String> genres, String languageId, int k) {
+            this.genres = genres;
+            this.languageId = languageId;
+            this.k = k;
+            this.ratingsAdded = new QuantileSketch(k);
+            this.durationsAdded = new QuantileSketch(k);
+        }
+
+        synchronized void addRating(int rating, long weight) {
+            reviews += weight;
+            ratingSum += weight * rating;
+            if (weight > 0) {
+                ratingsAdded.add(rating, weight);
+            } else if (weight < 0) {
+                if (ratingsRemoved == null) {
+                    ratingsRemoved = new QuantileSketch(k);
+                }
+                ratingsRemoved.add(rating, -weight);
+            }
+        }
+
+        synchronized void addMovie(Integer duration, int sign) {
+            movies += sign;
+            if (duration == null) {
+                return;
+            }
+            if (sign > 0) {
+                durationsAdded.add(duration);
+            } else {
+                if (durationsRemoved == null) {
+                    durationsRemoved = new QuantileSketch(k);
+                }
+                durationsRemoved.add(duration);
+            }
+        }
+
+        synchronized void mergeInto(Totals totals) {
+            totals.reviews += reviews;
+            totals.ratingSum += ratingSum;
+            totals.movies += movies;
+            totals.ratingsAdded.merge(ratingsAdded);
+            totals.durationsAdded.merge(durationsAdded);
+            if (ratingsRemoved != null) {
+                totals.ratingsRemoved.merge(ratingsRemoved);
+            }
+            if (durationsRemoved != null) {
+                totals.durationsRemoved.merge(durationsRemoved);
+            }
+        }
+    }
+
+    private static final class Totals {
+        private final QuantileSketch ratingsAdded;
+        private final QuantileSketch ratingsRemoved;
+        private final QuantileSketch durationsAdded;
+        private final QuantileSketch durationsRemoved;
+        private long reviews;
+        private long ratingSum;
+        private long movies;
+
+        Totals(int k) {
+            ratingsAdded = new QuantileSketch(k);
+            ratingsRemoved = new QuantileSketch(k);
+            durationsAdded = new QuantileSketch(k);
+            durationsRemoved = new QuantileSketch(k);
+        }
+    }
+}
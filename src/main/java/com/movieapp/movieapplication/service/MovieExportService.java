@@ -0,0 +1,47 @@
+package com.movieapp.movieapplication.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.movieapp.movieapplication.model.Movie;
+import com.movieapp.movieapplication.repository.MovieRepository;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Service
+public class MovieExportService {
+
+    // Co ile dokumentów wypychamy bufor generatora do klienta
+    private static final int FLUSH_EVERY = 500;
+
+    private final MovieRepository movieRepository;
+    private final ObjectMapper objectMapper;
+
+    public MovieExportService(MovieRepository movieRepository, ObjectMapper objectMapper) {
+        this.movieRepository = movieRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    // Zapis katalogu jako tablicy JSON bezpośrednio z kursora do strumienia wyjściowego
+    public long writeAllMovies(OutputStream outputStream) throws IOException {
+        long count = 0;
+        try (Stream<Movie> movies = movieRepository.streamAllBy();
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            // Strumieniem odpowiedzi zarządza kontener, generator go nie zamyka
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartArray();
+            Iterator<Movie> iterator = movies.iterator();
+            while (iterator.hasNext()) {
+                generator.writeObject(iterator.next());
+                if (++count % FLUSH_EVERY == 0) {
+                    generator.flush();
+                }
+            }
+            generator.writeEndArray();
+        }
+        return count;
+    }
+}
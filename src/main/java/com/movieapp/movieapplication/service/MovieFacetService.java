@@ -0,0 +1,146 @@
+package com.movieapp.movieapplication.service;
+
+import com.movieapp.movieapplication.model.FacetPage;
+import com.movieapp.movieapplication.model.Movie;
+import com.movieapp.movieapplication.repository.MovieRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Service
+public class MovieFacetService {
+
+    private static final String CURSOR_KIND = "facet";
+
+    private final MovieRepository movieRepository;
+    private final FacetIndex index = new FacetIndex();
+    // Filmy zmienione przez eventy w czasie budowy po starcie - dokument ze strumienia mógł zostać przeczytany wcześniej.
+    // touch()/isTouched() razem z zapisem do indeksu idą pod indexLock, jak w MovieSearchService
+    private final SnapshotTracker changes = new SnapshotTracker();
+    private final Object indexLock = new Object();
+
+    @Value("${movieapp.pagination.default-page-size:20}")
+    private int defaultPageSize = 20;
+
+    @Value("${movieapp.pagination.max-page-size:100}")
+    private int maxPageSize = 100;
+
+    @Value("${movieapp.facets.duration-bucket-minutes:30}")
+    private int durationBucketMinutes = 30;
+
+    public MovieFacetService(MovieRepository movieRepository) {
+        this.movieRepository = movieRepository;
+    }
+
+    public FacetPage<Movie> filter(List<String> genres, List<String> languages, Integer yearFrom, Integer yearTo,
+                                   Integer durationFrom, Integer durationTo, String cursor, Integer size) {
+        if (yearFrom != null && yearTo != null && yearFrom > yearTo) {
+            throw new IllegalArgumentException("yearFrom must not be greater than yearTo.");
+        }
+        if (durationFrom != null && durationTo != null && durationFrom > durationTo) {
+            throw new IllegalArgumentException("durationFrom must not be greater than durationTo.");
+        }
+        int pageSize = size == null ? defaultPageSize : Math.min(Math.max(size, 1), maxPageSize);
+        int afterOrdinal = -1;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = CursorCodec.decode(cursor, 2);
+            if (!CURSOR_KIND.equals(parts[0])) {
+                throw new IllegalArgumentException("Invalid cursor.");
+            }
+            try {
+                afterOrdinal = Integer.parseInt(parts[1]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor.", e);
+            }
+        }
+
+        FacetIndex.Result result = index.query(new FacetIndex.Query(genres, languages, yearFrom, yearTo, durationFrom, durationTo),
+                afterOrdinal, pageSize, Math.max(durationBucketMinutes, 1));
+        String nextCursor = result.getLastOrdinal() < 0 ? null
+                : CursorCodec.encode(CURSOR_KIND, String.valueOf(result.getLastOrdinal()));
+
+        // Indeks trzyma tylko ID - dokumenty strony pobieramy jednym zapytaniem, zachowując kolejność z indeksu
+        List<Movie> items = List.of();
+        if (!result.getKeys().isEmpty()) {
+            Map<String, Movie> movies = movieRepository.findAllById(result.getKeys()).stream()
+                    .collect(Collectors.toMap(Movie::getId, Function.identity()));
+            items = result.getKeys().stream().filter(movies::containsKey).map(movies::get).toList();
+        }
+        return new FacetPage<>(items, nextCursor, result.getTotal(), result.getFacets());
+    }
+
+    public void index(Movie movie) {
+        if (movie.getId() == null) {
+            return;
+        }
+        synchronized (indexLock) {
+            changes.touch(movie.getId());
+            put(movie);
+        }
+    }
+
+    // Dokument ze strumienia przy starcie nie nadpisuje filmu zmienionego lub usuniętego w tym czasie przez event
+    private void indexFromSnapshot(Movie movie) {
+        if (movie.getId() == null) {
+            return;
+        }
+        synchronized (indexLock) {
+            if (!changes.isTouched(movie.getId())) {
+                put(movie);
+            }
+        }
+    }
+
+    private void put(Movie movie) {
+        index.put(movie.getId(), movie.getGenres(), movie.getLanguageId(), parseYear(movie.getReleaseYear()), movie.getDuration());
+    }
+
+    // releaseYear jest tekstem - filmy z niepoprawnym rokiem nie trafiają do facetu roku
+    static Integer parseYear(String releaseYear) {
+        if (releaseYear == null) {
+            return null;
+        }
+        try {
+            return Integer.parseInt(releaseYear.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @EventListener
+    public void onMoviesSaved(MoviesSavedEvent event) {
+        event.getMovies().forEach(this::index);
+    }
+
+    @EventListener
+    public void onMovieDeleted(MovieDeletedEvent event) {
+        synchronized (indexLock) {
+            changes.touch(event.getMovieId());
+            index.remove(event.getMovieId());
+        }
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        long start = System.currentTimeMillis();
+        changes.start();
+        try (Stream<Movie> movies = movieRepository.streamAllBy()) {
+            movies.forEach(this::indexFromSnapshot);
+            System.out.println("Movie facet index built: " + index.size() + " movies in "
+                    + (System.currentTimeMillis() - start) + " ms");
+        } catch (RuntimeException e) {
+            System.out.println("Could not build movie facet index: " + e.getMessage());
+        } finally {
+            changes.finish();
+        }
+    }
+}
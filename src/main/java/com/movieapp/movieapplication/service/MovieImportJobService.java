@@ -0,0 +1,199 @@
+package com.movieapp.movieapplication.service;
+
+import com.movieapp.movieapplication.model.ImportJob;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Service
+public class MovieImportJobService {
+
+    // Zakończone zadania są widoczne w statusie jeszcze przez ten czas
+    private static final Duration FINISHED_JOB_RETENTION = Duration.ofHours(1);
+
+    private final MovieImportService movieImportService;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+    private final Map<String, Future<?>> futures = new ConcurrentHashMap<>();
+
+    public MovieImportJobService(MovieImportService movieImportService,
+                                 @Value("${movieapp.import.workers:2}") int workers,
+                                 @Value("${movieapp.import.queue-capacity:10}") int queueCapacity) {
+        this.movieImportService = movieImportService;
+        AtomicInteger threadNumber = new AtomicInteger();
+        // Ograniczona pula i kolejka - przy przepełnieniu zgłaszamy odmowę zamiast blokować wątki Tomcata
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "movie-import-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // Upload jest kopiowany do pliku tymczasowego, bo MultipartFile znika po zakończeniu żądania
+    public ImportJob submit(MultipartFile file) throws IOException {
+        evictFinishedJobs();
+        Path tempFile = Files.createTempFile("movie-import-", ".json");
+        try {
+            file.transferTo(tempFile);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), file.getOriginalFilename(), Files.size(tempFile), tempFile);
+        jobs.put(job.getId(), job);
+        // Zadanie rejestrujemy przed przekazaniem do puli: szybki import usuwa wpis w run(), a anulowanie
+        // tuż po zgłoszeniu musi znaleźć zadanie do przerwania
+        FutureTask<Void> task = new FutureTask<>(() -> run(job), null);
+        futures.put(job.getId(), task);
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            futures.remove(job.getId());
+            jobs.remove(job.getId());
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+        return job;
+    }
+
+    public Optional<ImportJob> getJob(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    public List<ImportJob> getJobs() {
+        return jobs.values().stream()
+                .sorted(Comparator.comparing(ImportJob::getCreatedAt).reversed())
+                .toList();
+    }
+
+    public Optional<ImportJob> cancel(String id) {
+        ImportJob job = jobs.get(id);
+        if (job == null) {
+            return Optional.empty();
+        }
+        boolean wasQueued;
+        synchronized (job) {
+            if (job.isFinished()) {
+                return Optional.of(job);
+            }
+            wasQueued = job.getStatus() == ImportJob.Status.QUEUED;
+            job.setStatus(ImportJob.Status.CANCELLED);
+            job.setFinishedAt(Instant.now());
+        }
+        Future<?> future = futures.remove(id);
+        if (future != null) {
+            future.cancel(true);
+        }
+        if (wasQueued) {
+            deleteQuietly(job.getFile());
+        }
+        return Optional.of(job);
+    }
+
+    void run(ImportJob job) {
+        synchronized (job) {
+            if (job.getStatus() != ImportJob.Status.QUEUED) {
+                return;
+            }
+            job.setStatus(ImportJob.Status.RUNNING);
+            job.setStartedAt(Instant.now());
+        }
+        ImportJob.Status result;
+        String error = null;
+        try (InputStream inputStream = new CountingInputStream(Files.newInputStream(job.getFile()), job)) {
+            movieImportService.importMovies(inputStream, job.getReport());
+            result = ImportJob.Status.COMPLETED;
+        } catch (CancellationException e) {
+            result = ImportJob.Status.CANCELLED;
+        } catch (Exception e) {
+            result = Thread.currentThread().isInterrupted() ? ImportJob.Status.CANCELLED : ImportJob.Status.FAILED;
+            error = e.getMessage();
+        } finally {
+            futures.remove(job.getId());
+            deleteQuietly(job.getFile());
+        }
+        synchronized (job) {
+            if (job.getStatus() == ImportJob.Status.RUNNING) {
+                job.setStatus(result);
+                job.setError(error);
+                job.setFinishedAt(Instant.now());
+            }
+        }
+        System.out.println("Import job " + job.getId() + " finished with status " + job.getStatus());
+    }
+
+    private void evictFinishedJobs() {
+        Instant threshold = Instant.now().minus(FINISHED_JOB_RETENTION);
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt() != null && job.getFinishedAt().isBefore(threshold));
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            System.out.println("Could not delete import file " + file + ": " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // Liczy przeczytane bajty pliku na potrzeby szacowania ETA
+    private static class CountingInputStream extends FilterInputStream {
+
+        private final ImportJob job;
+        private long count;
+
+        CountingInputStream(InputStream in, ImportJob job) {
+            super(in);
+            this.job = job;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+            if (value >= 0) {
+                job.setBytesRead(++count);
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count += read;
+                job.setBytesRead(count);
+            }
+            return read;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.movieapp.movieapplication.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.bulk.BulkWriteError;
+import com.movieapp.movieapplication.model.Category;
+import com.movieapp.movieapplication.model.ImportReport;
+import com.movieapp.movieapplication.model.Language;
+import com.movieapp.movieapplication.model.Movie;
+import com.movieapp.movieapplication.repository.MovieRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+@Service
+public class MovieImportService {
+
+    private final MovieRepository movieRepository;
+    private final CategoryService categoryService;
+    private final LanguageService languageService;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Szczytowe zużycie pamięci zależy od rozmiaru partii, a nie od rozmiaru pliku
+    @Value("${movieapp.import.batch-size:1000}")
+    private int batchSize = 1000;
+
+    public MovieImportService(MovieRepository movieRepository, CategoryService categoryService,
+                              LanguageService languageService, ObjectMapper objectMapper,
+                              ApplicationEventPublisher eventPublisher) {
+        this.movieRepository = movieRepository;
+        this.categoryService = categoryService;
+        this.languageService = languageService;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+    }
+
+    // Parsowanie tablicy JSON token po tokenie i zapis partiami.
+    // Wiersz, którego nie da się odczytać jako filmu, jest pomijany i liczony jako nieudany; uszkodzona składnia JSON
+    // przerywa import - partie zapisane wcześniej zostają w bazie (upsert po ID, więc ponowny import ich nie dubluje)
+    public ImportReport importMovies(InputStream inputStream) throws IOException {
+        return importMovies(inputStream, new ImportReport());
+    }
+
+    // Wariant dla zadań w tle - postęp jest widoczny na bieżąco w przekazanym raporcie,
+    // a przerwanie wątku anuluje import pomiędzy dokumentami
+    public ImportReport importMovies(InputStream inputStream, ImportReport report) throws IOException {
+        long start = System.currentTimeMillis();
+        // Zbiory poprawnych ID wczytywane raz na cały import - walidacja wiersza to dwa odczyty z HashSet
+        Set<String> categoryIds = categoryService.getAllCategories().stream().map(Category::getId).collect(Collectors.toSet());
+        Set<String> languageIds = languageService.getAllLanguages().stream().map(Language::getId).collect(Collectors.toSet());
+        try (JsonParser parser = objectMapper.getFactory().createParser(inputStream)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Expected a JSON array of movies.");
+            }
+            List<Movie> batch = new ArrayList<>(batchSize);
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                // Obcięty plik (brak "]") albo element, który nie jest obiektem - nie kończymy po cichu jak po całej tablicy
+                if (token != JsonToken.START_OBJECT) {
+                    throw new IllegalArgumentException(token == null
+                            ? "Unexpected end of movie array after " + report.getDocumentsRead() + " movies."
+                            : "Expected a movie object at position " + (report.getDocumentsRead() + 1) + ".");
+                }
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new CancellationException("Import cancelled.");
+                }
+                // Najpierw drzewo: błąd składni przerywa import, ale błąd mapowania dotyczy tylko tego wiersza
+                JsonNode node = objectMapper.readTree(parser);
+                report.documentRead();
+                Movie movie;
+                try {
+                    movie = objectMapper.treeToValue(node, Movie.class);
+                } catch (JsonProcessingException | IllegalArgumentException e) {
+                    String reason = e instanceof JsonProcessingException processing ? processing.getOriginalMessage() : e.getMessage();
+                    report.fail(report.getDocumentsRead(), node.path("title").asText(""), "Malformed movie: " + reason);
+                    continue;
+                }
+                String problem = MovieReferenceValidator.findMissingReferences(movie, categoryIds,
+                        languageIds.contains(movie.getLanguageId()));
+                if (problem != null) {
+                    report.reject(report.getDocumentsRead(), movie, problem);
+                    continue;
+                }
+                batch.add(movie);
+                if (batch.size() >= batchSize) {
+                    writeBatch(batch, report, start);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            writeBatch(batch, report, start);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed movie JSON: " + e.getOriginalMessage(), e);
+        }
+        report.setElapsedMillis(System.currentTimeMillis() - start);
+        return report;
+    }
+
+    private void writeBatch(List<Movie> batch, ImportReport report, long start) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        long batchStart = System.currentTimeMillis();
+        List<Movie> written = batch;
+        try {
+            movieRepository.bulkUpsert(batch);
+        } catch (BulkOperationException e) {
+            // Zapis nieuporządkowany - pozostałe dokumenty partii zostały zapisane
+            Set<Integer> failedIndexes = e.getErrors().stream().map(BulkWriteError::getIndex).collect(Collectors.toSet());
+            written = IntStream.range(0, batch.size())
+                    .filter(index -> !failedIndexes.contains(index))
+                    .mapToObj(batch::get)
+                    .toList();
+        }
+        int failed = batch.size() - written.size();
+        eventPublisher.publishEvent(new MoviesSavedEvent(written));
+        long batchMillis = System.currentTimeMillis() - batchStart;
+        report.recordBatch(batch.size() - failed, failed, batchMillis);
+        report.setElapsedMillis(System.currentTimeMillis() - start);
+        System.out.println("Imported batch " + report.getBatches() + ": " + batch.size() + " movies in "
+                + batchMillis + " ms (" + (batch.size() * 1000L / Math.max(batchMillis, 1)) + " docs/s)");
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+}
@@ -0,0 +1,273 @@
+package com.movieapp.movieapplication.service;
+
+import com.movieapp.movieapplication.model.Movie;
+import com.movieapp.movieapplication.model.RatingStats;
+import com.movieapp.movieapplication.model.SearchHit;
+import com.movieapp.movieapplication.repository.MovieRepository;
+import com.movieapp.movieapplication.repository.RatingStatsRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Ranking najlepiej ocenianych filmów wg średniej bayesowskiej: (C * m + suma) / (C + liczba ocen),
+// gdzie m to średnia a priori, a C minimalna liczba głosów. Dla każdego facetu (wszystkie, gatunek, język,
+// gatunek + język) trzymamy posortowany zbiór współbieżny, aktualizowany przy każdej zmianie oceny,
+// więc odczyt top-N to przejście N pierwszych elementów.
+@Service
+public class MovieLeaderboardService {
+
+    public static final int MAX_LIMIT = 100;
+    private static final String ALL = "*";
+
+    private final MovieRepository movieRepository;
+    private final RatingStatsRepository ratingStatsRepository;
+    private final RatingAggregateLocks aggregateLocks;
+    // Filmy zmienione przez eventy w czasie budowy po starcie - ich wartości ze strumienia mogą być nieaktualne
+    private final SnapshotTracker movieChanges = new SnapshotTracker();
+    private final SnapshotTracker ratingChanges = new SnapshotTracker();
+    private final Map<String, Rank> ranks = new ConcurrentHashMap<>();
+    private final Map<String, ConcurrentSkipListSet<Entry>> boards = new ConcurrentHashMap<>();
+
+    // Stała średnia a priori - zmiana średniej globalnej wymagałaby przeliczenia całego rankingu
+    @Value("${movieapp.leaderboard.prior-mean:3.0}")
+    private double priorMean = 3.0;
+
+    @Value("${movieapp.leaderboard.min-votes:10}")
+    private double minVotes = 10;
+
+    public MovieLeaderboardService(MovieRepository movieRepository, RatingStatsRepository ratingStatsRepository,
+                                   RatingAggregateLocks aggregateLocks) {
+        this.movieRepository = movieRepository;
+        this.ratingStatsRepository = ratingStatsRepository;
+        this.aggregateLocks = aggregateLocks;
+    }
+
+    public List<SearchHit<Movie>> top(String genreId, String languageId, int limit) {
+        int size = Math.min(Math.max(limit, 1), MAX_LIMIT);
+        ConcurrentSkipListSet<Entry> board = boards.get(boardKey(blankToNull(genreId), blankToNull(languageId)));
+        if (board == null) {
+            return List.of();
+        }
+        List<Entry> entries = board.stream().limit(size).toList();
+        if (entries.isEmpty()) {
+            return List.of();
+        }
+        Map<String, Movie> movies = movieRepository.findAllById(entries.stream().map(Entry::getMovieId).toList()).stream()
+                .collect(Collectors.toMap(Movie::getId, Function.identity()));
+        return entries.stream()
+                .filter(entry -> movies.containsKey(entry.getMovieId()))
+                .map(entry -> new SearchHit<>(movies.get(entry.getMovieId()), entry.getScore()))
+                .toList();
+    }
+
+    double score(long count, long sum) {
+        return (minVotes * priorMean + sum) / (minVotes + count);
+    }
+
+    @EventListener
+    public void onReviewRating(ReviewRatingEvent event) {
+        update(event.getMovieId(), rank -> {
+            ratingChanges.touch(event.getMovieId());
+            return rank.withStats(rank.count + event.getSign(), rank.sum + (long) event.getSign() * event.getRating());
+        });
+    }
+
+    @EventListener
+    public void onMoviesSaved(MoviesSavedEvent event) {
+        event.getMovies().stream()
+                .filter(movie -> movie.getId() != null)
+                .forEach(movie -> update(movie.getId(), rank -> {
+                    movieChanges.touch(movie.getId());
+                    return rank.withFacets(movie.getGenres(), movie.getLanguageId());
+                }));
+    }
+
+    @EventListener
+    public void onMovieDeleted(MovieDeletedEvent event) {
+        ranks.compute(event.getMovieId(), (id, current) -> {
+            // Nieaktualny film ani jego oceny ze strumienia nie mogą go przywrócić
+            movieChanges.touch(id);
+            ratingChanges.touch(id);
+            if (current != null) {
+                unlink(current);
+            }
+            return null;
+        });
+    }
+
+    // Wczytanie po starcie: najpierw facety filmów, potem agregaty ocen - oba strumieniowo z kursora.
+    // Wartość ze strumienia nie nadpisuje filmu zmienionego w tym czasie przez event. Filmy, którym event zmienił oceny,
+    // są na koniec czytane ponownie pod barierą zapisów recenzji, więc ich stan jest zgodny z bazą, a kolejne eventy
+    // dotyczą już tylko zapisów po tym odczycie.
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        long start = System.currentTimeMillis();
+        movieChanges.start();
+        ratingChanges.start();
+        try (Stream<Movie> movies = movieRepository.streamAllBy();
+             Stream<RatingStats> stats = ratingStatsRepository.streamAllBy()) {
+            movies.forEach(movie -> update(movie.getId(), rank -> movieChanges.isTouched(movie.getId())
+                    ? rank : rank.withFacets(movie.getGenres(), movie.getLanguageId())));
+            movieChanges.finish();
+            stats.forEach(stat -> update(stat.getMovieId(), rank -> ratingChanges.isTouched(stat.getMovieId())
+                    ? rank : rank.withStats(stat.getCount(), stat.getSum())));
+            reloadChangedStats();
+            System.out.println("Movie leaderboard built: " + boards.getOrDefault(ALL, new ConcurrentSkipListSet<>()).size()
+                    + " rated movies in " + (System.currentTimeMillis() - start) + " ms");
+        } catch (RuntimeException e) {
+            System.out.println("Could not build movie leaderboard: " + e.getMessage());
+        } finally {
+            movieChanges.finish();
+            ratingChanges.finish();
+        }
+    }
+
+    private void reloadChangedStats() {
+        RatingAggregateLocks.Lease barrier = aggregateLocks.exclusiveAll();
+        try {
+            Set<String> changed = ratingChanges.finish();
+            if (changed.isEmpty()) {
+                return;
+            }
+            Map<String, RatingStats> fresh = ratingStatsRepository.findAllById(changed).stream()
+                    .collect(Collectors.toMap(RatingStats::getMovieId, Function.identity()));
+            for (String movieId : changed) {
+                RatingStats stat = fresh.getOrDefault(movieId, new RatingStats(movieId));
+                // Usunięty film nie wraca do rankingu
+                ranks.computeIfPresent(movieId, (id, current) -> relink(id, current, current.withStats(stat.getCount(), stat.getSum())));
+            }
+        } finally {
+            barrier.close();
+        }
+    }
+
+    // Zmiana jednego filmu - compute blokuje tylko ten klucz, więc różne filmy aktualizują się równolegle
+    private void update(String movieId, UnaryOperator<Rank> change) {
+        ranks.compute(movieId, (id, current) -> relink(id, current, change.apply(current == null ? Rank.EMPTY : current)));
+    }
+
+    private Rank relink(String movieId, Rank current, Rank next) {
+        if (current != null) {
+            unlink(current);
+        }
+        Entry entry = next.count > 0 ? new Entry(movieId, score(next.count, next.sum), next.count) : null;
+        if (entry != null) {
+            for (String key : boardKeys(next)) {
+                boards.computeIfAbsent(key, k -> new ConcurrentSkipListSet<>(Entry.RANKING)).add(entry);
+            }
+        }
+        return next.withEntry(entry);
+    }
+
+    private void unlink(Rank rank) {
+        if (rank.entry == null) {
+            return;
+        }
+        for (String key : boardKeys(rank)) {
+            ConcurrentSkipListSet<Entry> board = boards.get(key);
+            if (board != null) {
+                board.remove(rank.entry);
+            }
+        }
+    }
+
+    private static List<String> boardKeys(Rank rank) {
+        List<String> keys = new ArrayList<>();
+        keys.add(ALL);
+        if (rank.languageId != null) {
+            keys.add(boardKey(null, rank.languageId));
+        }
+        for (String genreId : rank.genres) {
+            keys.add(boardKey(genreId, null));
+            if (rank.languageId != null) {
+                keys.add(boardKey(genreId, rank.languageId));
+            }
+        }
+        return keys;
+    }
+
+    private static String boardKey(String genreId, String languageId) {
+        if (genreId == null && languageId == null) {
+            return ALL;
+        }
+        return "g:" + (genreId == null ? "" : genreId) + "|l:" + (languageId == null ? "" : languageId);
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+
+    // Niezmienny stan filmu w rankingu; entry to jego aktualna pozycja w zbiorach (null gdy brak ocen)
+    private static final class Rank {
+        static final Rank EMPTY = new Rank(List.of(), null, 0, 0, null);
+
+        private final List<String> genres;
+        private final String languageId;
+        private final long count;
+        private final long sum;
+        private final Entry entry;
+
+        Rank(List<String> genres, String languageId, long count, long sum, Entry entry) {
+            this.genres = genres;
+            this.languageId = languageId;
+            this.count = count;
+            this.sum = sum;
+            this.entry = entry;
+        }
+
+        Rank withFacets(List<String> genres, String languageId) {
+            return new Rank(genres == null ? List.of() : genres.stream().distinct().toList(), languageId, count, sum, entry);
+        }
+
+        Rank withStats(long count, long sum) {
+            return new Rank(genres, languageId, count, sum, entry);
+        }
+
+        Rank withEntry(Entry entry) {
+            return new Rank(genres, languageId, count, sum, entry);
+        }
+    }
+
+    static final class Entry {
+        static final Comparator<Entry> RANKING = Comparator.comparingDouble(Entry::getScore).reversed()
+                .thenComparing(Comparator.comparingLong(Entry::getCount).reversed())
+                .thenComparing(Entry::getMovieId);
+
+        private final String movieId;
+        private final double score;
+        private final long count;
+
+        Entry(String movieId, double score, long count) {
+            this.movieId = movieId;
+            this.score = score;
+            this.count = count;
+        }
+
+        String getMovieId() {
+            return movieId;
+        }
+
+        double getScore() {
+            return score;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.movieapp.movieapplication.service;
+
+import com.movieapp.movieapplication.model.Movie;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+// Wspólna walidacja odwołań filmu do kategorii i języka - ten sam format błędu przy dodawaniu, edycji i imporcie.
+// Wołający decyduje, skąd bierze znane ID: MovieService pyta bazę o kategorie filmu, import ma zbiór wszystkich ID w pamięci
+final class MovieReferenceValidator {
+
+    private MovieReferenceValidator() {
+    }
+
+    // Wszystkie brakujące odwołania naraz, np. "Category not found: A, B; Language not found: XX"; null oznacza poprawny film
+    static String findMissingReferences(Movie movie, Set<String> knownCategoryIds, boolean languageExists) {
+        List<String> missingGenres = genreIds(movie).stream()
+                .filter(categoryId -> !knownCategoryIds.contains(categoryId))
+                .distinct()
+                .toList();
+        if (missingGenres.isEmpty() && languageExists) {
+            return null;
+        }
+        List<String> errors = new ArrayList<>();
+        if (!missingGenres.isEmpty()) {
+            errors.add("Category not found: " + String.join(", ", missingGenres));
+        }
+        if (!languageExists) {
+            errors.add("Language not found: " + movie.getLanguageId());
+        }
+        return String.join("; ", errors);
+    }
+
+    static List<String> genreIds(Movie movie) {
+        return movie.getGenres() == null ? List.of() : movie.getGenres();
+    }
+}
@@ -0,0 +1,130 @@
+package com.movieapp.movieapplication.service;
+
+import com.movieapp.movieapplication.model.Movie;
+import com.movieapp.movieapplication.model.SearchHit;
+import com.movieapp.movieapplication.model.SearchPage;
+import com.movieapp.movieapplication.repository.MovieRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Service
+public class MovieSearchService {
+
+    // Wagi pól - trafienie w tytule liczy się bardziej niż w opisie
+    private static final float TITLE_WEIGHT = 3f;
+    private static final float DIRECTOR_WEIGHT = 2f;
+    private static final float DESCRIPTION_WEIGHT = 1f;
+
+    private final MovieRepository movieRepository;
+    private final TextIndex index = new TextIndex();
+    // Filmy zmienione przez eventy w czasie budowy po starcie - dokument ze strumienia mógł zostać przeczytany wcześniej.
+    // touch()/isTouched() razem z zapisem do indeksu idą pod indexLock (tokenizacja jest poza nim)
+    private final SnapshotTracker changes = new SnapshotTracker();
+    private final Object indexLock = new Object();
+
+    @Value("${movieapp.pagination.max-page-size:100}")
+    private int maxPageSize = 100;
+
+    public MovieSearchService(MovieRepository movieRepository) {
+        this.movieRepository = movieRepository;
+    }
+
+    public SearchPage<SearchHit<Movie>> search(String query, int page, int size) {
+        int pageSize = Math.min(Math.max(size, 1), maxPageSize);
+        int pageNumber = Math.max(page, 0);
+        // Iloczyn w long - duży numer strony nie może przepełnić int; strona za ostatnim dokumentem indeksu jest po prostu pusta
+        int offset = (int) Math.min((long) pageNumber * pageSize, index.size());
+        TextIndex.Result result = index.search(TextTokenizer.tokenize(query), offset, pageSize);
+        if (result.getHits().isEmpty()) {
+            return new SearchPage<>(result.getTotal(), pageNumber, pageSize, List.of());
+        }
+
+        // Indeks trzyma tylko ID - dokumenty strony pobieramy jednym zapytaniem
+        List<String> ids = result.getHits().stream().map(TextIndex.Hit::getKey).toList();
+        Map<String, Movie> movies = movieRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Movie::getId, Function.identity()));
+        List<SearchHit<Movie>> hits = result.getHits().stream()
+                .filter(hit -> movies.containsKey(hit.getKey()))
+                .map(hit -> new SearchHit<>(movies.get(hit.getKey()), hit.getScore()))
+                .toList();
+        return new SearchPage<>(result.getTotal(), pageNumber, pageSize, hits);
+    }
+
+    public void index(Movie movie) {
+        if (movie.getId() == null) {
+            return;
+        }
+        Map<String, Float> terms = terms(movie);
+        synchronized (indexLock) {
+            changes.touch(movie.getId());
+            index.put(movie.getId(), terms);
+        }
+    }
+
+    // Dokument ze strumienia przy starcie nie nadpisuje filmu zmienionego lub usuniętego w tym czasie przez event
+    private void indexFromSnapshot(Movie movie) {
+        if (movie.getId() == null) {
+            return;
+        }
+        Map<String, Float> terms = terms(movie);
+        synchronized (indexLock) {
+            if (!changes.isTouched(movie.getId())) {
+                index.put(movie.getId(), terms);
+            }
+        }
+    }
+
+    private Map<String, Float> terms(Movie movie) {
+        Map<String, Float> terms = new HashMap<>();
+        addField(terms, movie.getTitle(), TITLE_WEIGHT);
+        addField(terms, movie.getDirector(), DIRECTOR_WEIGHT);
+        addField(terms, movie.getDescription(), DESCRIPTION_WEIGHT);
+        return terms;
+    }
+
+    private void addField(Map<String, Float> terms, String text, float weight) {
+        for (String token : TextTokenizer.tokenize(text)) {
+            terms.merge(token, weight, Float::sum);
+        }
+    }
+
+    @EventListener
+    public void onMoviesSaved(MoviesSavedEvent event) {
+        event.getMovies().forEach(this::index);
+    }
+
+    @EventListener
+    public void onMovieDeleted(MovieDeletedEvent event) {
+        synchronized (indexLock) {
+            changes.touch(event.getMovieId());
+            index.remove(event.getMovieId());
+        }
+    }
+
+    // Budowa indeksu po starcie - strumieniowo z kursora, bez ładowania katalogu do listy
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        long start = System.currentTimeMillis();
+        changes.start();
+        try (Stream<Movie> movies = movieRepository.streamAllBy()) {
+            movies.forEach(this::indexFromSnapshot);
+            System.out.println("Movie search index built: " + index.size() + " movies in "
+                    + (System.currentTimeMillis() - start) + " ms");
+        } catch (RuntimeException e) {
+            System.out.println("Could not build movie search index: " + e.getMessage());
+        } finally {
+            changes.finish();
+        }
+    }
+}
@@ -1,27 +1,46 @@
 package com.movieapp.movieapplication.service;
 
 import com.movieapp.movieapplication.model.Category;
+import com.movieapp.movieapplication.model.CursorPage;
 import com.movieapp.movieapplication.model.Movie;
+import com.movieapp.movieapplication.model.RatingStats;
 import com.movieapp.movieapplication.model.Review;
 import com.movieapp.movieapplication.repository.MovieRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 public class MovieService {
 
+    // Pola, po których można stronicować kursorem (każde ma indeks złożony z _id)
+    private static final Set<String> PAGE_SORT_FIELDS = Set.of("id", "title", "releaseYear", "duration");
+
+    @Value("${movieapp.pagination.default-page-size:20}")
+    private int defaultPageSize = 20;
+
+    @Value("${movieapp.pagination.max-page-size:100}")
+    private int maxPageSize = 100;
+
     private final MovieRepository movieRepository;
     private final CategoryService categoryService; // Serwis dla kategorii
     private final LanguageService languageService; // Serwis dla języków
     private final ReviewService reviewService; // Serwis dla recenzji
+    private final ApplicationEventPublisher eventPublisher; // Powiadamia indeksy w pamięci o zmianach filmów
 
-    public MovieService(MovieRepository movieRepository, CategoryService categoryService, LanguageService languageService, ReviewService reviewService) {
+    public MovieService(MovieRepository movieRepository, CategoryService categoryService, LanguageService languageService, ReviewService reviewService,
+                        ApplicationEventPublisher eventPublisher) {
         this.movieRepository = movieRepository;
         this.categoryService = categoryService;
         this.languageService = languageService;
         this.reviewService = reviewService;
+        this.eventPublisher = eventPublisher;
     }
 
 
@@ -29,60 +48,129 @@ public class MovieService {
         return movieRepository.findAll();
     }
 
-    public Optional<Movie> getMovieById(String id) {
-        return movieRepository.findById(id);
+    public CursorPage<Movie> getMoviesPage(String cursor, Integer size, String sort) {
+        String sortField = sort == null || sort.isBlank() ? "id" : sort;
+        if (!PAGE_SORT_FIELDS.contains(sortField)) {
+            throw new IllegalArgumentException("Unsupported sort field: " + sortField);
+        }
+        int pageSize = size == null ? defaultPageSize : Math.min(Math.max(size, 1), maxPageSize);
+
+        Object lastValue = null;
+        String lastId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = CursorCodec.decode(cursor, 3);
+            if (!sortField.equals(parts[0])) {
+                throw new IllegalArgumentException("Cursor was issued for sort field: " + parts[0]);
+            }
+            lastId = parts[1];
+            lastValue = decodeSortValue(sortField, parts[2]);
+        }
+
+        // Pobieramy o jeden element więcej, żeby wiedzieć czy istnieje kolejna strona
+        List<Movie> movies = movieRepository.findPageAfter(sortField, lastValue, lastId, pageSize + 1);
+        if (movies.size() <= pageSize) {
+            return new CursorPage<>(movies, null);
+        }
+        List<Movie> page = movies.subList(0, pageSize);
+        Movie last = page.get(pageSize - 1);
+        String nextCursor = CursorCodec.encode(sortField, last.getId(), encodeSortValue(sortField, last));
+        return new CursorPage<>(List.copyOf(page), nextCursor);
     }
 
-    public Movie addMovie(Movie movie) {
-        // Walidacja ID kategorii i konwersja na obiekty Category
-        List<Category> categories = movie.getGenres().stream()
-                .map(categoryId -> categoryService.getCategoryById(categoryId)
-                        .orElseThrow(() -> new RuntimeException("Category not found: " + categoryId)))
-                .toList();
+    private String encodeSortValue(String sortField, Movie movie) {
+        Object value = switch (sortField) {
+            case "title" -> movie.getTitle();
+            case "releaseYear" -> movie.getReleaseYear();
+            case "duration" -> movie.getDuration();
+            default -> movie.getId();
+        };
+        return value == null ? "n" : "v" + value;
+    }
+
+    private Object decodeSortValue(String sortField, String encoded) {
+        if (encoded.startsWith("n")) {
+            return null;
+        }
+        // Pusta lub nieznana część kursora to błąd klienta, a nie wyjątek z substring()
+        if (!encoded.startsWith("v")) {
+            throw new IllegalArgumentException("Invalid cursor.");
+        }
+        String value = encoded.substring(1);
+        if ("duration".equals(sortField)) {
+            try {
+                return Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor.", e);
+            }
+        }
+        return value;
+    }
+
+    // Szczegóły filmu razem z agregatem ocen - jeden odczyt po kluczu zamiast skanu recenzji
+    public Optional<Movie> getMovieById(String id) {
+        return movieRepository.findById(id).map(movie -> {
+            movie.setRatingStats(reviewService.getRatingStats(id));
+            return movie;
+        });
+    }
 
-        // Walidacja ID języka
-        languageService.getLanguageById(movie.getLanguageId())
-                .orElseThrow(() -> new RuntimeException("Language not found: " + movie.getLanguageId()));
+    public RatingStats getRatingStats(String movieId) {
+        return reviewService.getRatingStats(movieId);
+    }
 
+    public CursorPage<Review> getMovieReviews(String movieId, String cursor, Integer size) {
+        return reviewService.getMovieReviews(movieId, cursor, size);
+    }
 
+    public Movie addMovie(Movie movie) {
+        // Walidacja ID kategorii i języka
+        movie.setGenres(validateReferences(movie));
 
-        // Zamiana kategorii i recenzji na listy ID
-        movie.setGenres(categories.stream().map(Category::getId).toList());
+        Movie saved = movieRepository.save(movie);
+        eventPublisher.publishEvent(new MoviesSavedEvent(List.of(saved)));
+        return saved;
+    }
 
-        return movieRepository.save(movie);
+    // Sprawdza wszystkie kategorie jednym zapytaniem i zgłasza wszystkie brakujące ID naraz
+    private List<String> validateReferences(Movie movie) {
+        List<String> genreIds = MovieReferenceValidator.genreIds(movie);
+        Set<String> foundIds = categoryService.getCategoriesByIds(new HashSet<>(genreIds)).stream()
+                .map(Category::getId)
+                .collect(Collectors.toSet());
+        boolean languageExists = languageService.getLanguageById(movie.getLanguageId()).isPresent();
+        String problem = MovieReferenceValidator.findMissingReferences(movie, foundIds, languageExists);
+        if (problem != null) {
+            throw new RuntimeException(problem);
+        }
+        return genreIds;
     }
 
     public void deleteMovie(String id) {
         movieRepository.deleteById(id);
+        eventPublisher.publishEvent(new MovieDeletedEvent(id));
     }
 
     public Movie updateMovie(String id, Movie movie) {
-        return movieRepository.findById(id).map(existingMovie -> {
-            // Walidacja i aktualizacja ID kategorii
-            List<Category> categories = movie.getGenres().stream()
-                    .map(categoryId -> categoryService.getCategoryById(categoryId)
-                            .orElseThrow(() -> new RuntimeException("Category not found: " + categoryId)))
-                    .toList();
-
-            // Walidacja i aktualizacja ID języka
-            languageService.getLanguageById(movie.getLanguageId())
-                    .orElseThrow(() -> new RuntimeException("Language not found: " + movie.getLanguageId()));
-
-
+        Movie saved = movieRepository.findById(id).map(existingMovie -> {
+            // Walidacja ID kategorii i języka
+            List<String> genreIds = validateReferences(movie);
 
             // Aktualizacja pól filmu
             existingMovie.setTitle(movie.getTitle());
             existingMovie.setDescription(movie.getDescription());
             existingMovie.setReleaseYear(movie.getReleaseYear());
-            existingMovie.setGenres(categories.stream().map(Category::getId).toList());
+            existingMovie.setGenres(genreIds);
             existingMovie.setLanguageId(movie.getLanguageId());
             existingMovie.setDirector(movie.getDirector());
             existingMovie.setDuration(movie.getDuration());
 
             return movieRepository.save(existingMovie);
         }).orElseThrow(() -> new RuntimeException("Movie not found with id: " + id));
+        eventPublisher.publishEvent(new MoviesSavedEvent(List.of(saved)));
+        return saved;
     }
     public void saveAll(List<Movie> movies) {
-        movieRepository.saveAll(movies);
+        List<Movie> saved = movieRepository.saveAll(movies);
+        eventPublisher.publishEvent(new MoviesSavedEvent(saved == null ? movies : saved));
     }
 }
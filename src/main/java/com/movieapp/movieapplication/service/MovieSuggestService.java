@@ -0,0 +1,107 @@
+package com.movieapp.movieapplication.service;
+
+import com.movieapp.movieapplication.model.Movie;
+import com.movieapp.movieapplication.model.Suggestion;
+import com.movieapp.movieapplication.repository.MovieRepository;
+import org.bson.Document;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+@Service
+public class MovieSuggestService {
+
+    private static final int MAX_LIMIT = 20;
+
+    private final MovieRepository movieRepository;
+    private final MongoTemplate mongoTemplate;
+    private final SuggestIndex index = new SuggestIndex();
+    // Przebudowa po starcie i okresowa nie mogą się nakładać - druga zaczęłaby nowy stan obok trwającej,
+    // a zapisy z czasu nakładania trafiłyby tylko do porzuconego
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    // Popularność filmu = liczba użytkowników, którzy dodali go do ulubionych (liczona przy przebudowie)
+    private volatile Map<String, Long> popularity = Map.of();
+
+    public MovieSuggestService(MovieRepository movieRepository, MongoTemplate mongoTemplate) {
+        this.movieRepository = movieRepository;
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    public List<Suggestion> suggest(String prefix, int limit) {
+        return index.suggest(prefix, Math.min(limit, MAX_LIMIT)).stream()
+                .map(entry -> new Suggestion(entry.getId(), entry.getTitle()))
+                .toList();
+    }
+
+    @EventListener
+    public void onMoviesSaved(MoviesSavedEvent event) {
+        for (Movie movie : event.getMovies()) {
+            if (movie.getId() != null) {
+                index.put(movie.getId(), movie.getTitle(), popularity.getOrDefault(movie.getId(), 0L));
+            }
+        }
+    }
+
+    @EventListener
+    public void onMovieDeleted(MovieDeletedEvent event) {
+        index.remove(event.getMovieId());
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        rebuild();
+    }
+
+    // Okresowa przebudowa: scala zmiany z części delta i odświeża wagi popularności
+    @Scheduled(fixedDelayString = "${movieapp.suggest.rebuild-interval-ms:600000}",
+            initialDelayString = "${movieapp.suggest.rebuild-interval-ms:600000}")
+    public void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            System.out.println("Movie suggest index rebuild skipped: previous rebuild still running");
+            return;
+        }
+        long start = System.currentTimeMillis();
+        index.beginRebuild();
+        try {
+            Map<String, Long> weights = loadPopularity();
+            try (Stream<Movie> movies = movieRepository.streamAllBy()) {
+                index.completeRebuild(() -> movies
+                        .filter(movie -> movie.getTitle() != null && !movie.getTitle().isBlank())
+                        .map(movie -> new SuggestIndex.Entry(movie.getId(), movie.getTitle(), weights.getOrDefault(movie.getId(), 0L)))
+                        .iterator());
+            }
+            popularity = weights;
+            System.out.println("Movie suggest index rebuilt: " + index.size() + " titles, "
+                    + index.memoryBytes() / 1024 + " KB in "
+                    + (System.currentTimeMillis() - start) + " ms");
+        } catch (RuntimeException e) {
+            index.abortRebuild();
+            System.out.println("Could not rebuild movie suggest index: " + e.getMessage());
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    Map<String, Long> loadPopularity() {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.unwind("favoriteMovies"),
+                Aggregation.group("favoriteMovies").count().as("count"));
+        Map<String, Long> weights = new HashMap<>();
+        try (Stream<Document> counts = mongoTemplate.aggregateStream(aggregation, "users", Document.class)) {
+            counts.forEach(document -> weights.put(String.valueOf(document.get("_id")), ((Number) document.get("count")).longValue()));
+        }
+        return weights;
+    }
+}
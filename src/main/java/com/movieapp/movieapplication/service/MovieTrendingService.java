@@ -0,0 +1,164 @@
+package com.movieapp.movieapplication.service;
+
+import com.movieapp.movieapplication.model.Movie;
+import com.movieapp.movieapplication.model.SearchHit;
+import com.movieapp.movieapplication.repository.MovieRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Filmy "na czasie": ważona liczba recenzji, dodań do ulubionych i obejrzeń w ostatniej godzinie i dobie.
+// Zdarzenia trafiają do liczników w przesuwnym oknie, a okresowe wyliczenie top-k przygotowuje gotowe listy,
+// więc odczyt rankingu to zwrócenie migawki.
+@Service
+public class MovieTrendingService {
+
+    public static final int MAX_LIMIT = 100;
+
+    // Recenzja mówi o zainteresowaniu więcej niż samo obejrzenie
+    private static final long REVIEW_WEIGHT = 3;
+    private static final long FAVORITE_WEIGHT = 2;
+    private static final long WATCH_WEIGHT = 1;
+
+    public enum Window {
+        HOUR(Duration.ofHours(1), 60),
+        DAY(Duration.ofDays(1), 24);
+
+        private final long millis;
+        private final int buckets;
+
+        Window(Duration length, int buckets) {
+            this.millis = length.toMillis();
+            this.buckets = buckets;
+        }
+    }
+
+    private final MovieRepository movieRepository;
+    private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+    private volatile Map<Window, List<SearchHit<Movie>>> snapshot = Map.of(Window.HOUR, List.of(), Window.DAY, List.of());
+
+    public MovieTrendingService(MovieRepository movieRepository) {
+        this.movieRepository = movieRepository;
+    }
+
+    public List<SearchHit<Movie>> trending(String window, int limit) {
+        Window selected;
+        try {
+            selected = window == null ? Window.HOUR : Window.valueOf(window.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unsupported trending window: " + window);
+        }
+        List<SearchHit<Movie>> ranking = snapshot.get(selected);
+        int size = Math.min(Math.max(limit, 1), MAX_LIMIT);
+        return ranking.size() <= size ? ranking : ranking.subList(0, size);
+    }
+
+    @EventListener
+    public void onMovieActivity(MovieActivityEvent event) {
+        record(event.getMovieId(), event.getType(), System.currentTimeMillis());
+    }
+
+    void record(String movieId, MovieActivityEvent.Type type, long nowMillis) {
+        if (movieId == null) {
+            return;
+        }
+        long weight = switch (type) {
+            case REVIEW -> REVIEW_WEIGHT;
+            case FAVORITE -> FAVORITE_WEIGHT;
+            case WATCH -> WATCH_WEIGHT;
+        };
+        Counters movieCounters = counters.computeIfAbsent(movieId, id -> new Counters());
+        movieCounters.hour.add(nowMillis, weight);
+        movieCounters.day.add(nowMillis, weight);
+    }
+
+    @Scheduled(fixedDelayString = "${movieapp.trending.refresh-interval-ms:30000}",
+            initialDelayString = "${movieapp.trending.refresh-interval-ms:30000}")
+    public void refresh() {
+        try {
+            refresh(System.currentTimeMillis());
+        } catch (RuntimeException e) {
+            System.out.println("Could not refresh trending movies: " + e.getMessage());
+        }
+    }
+
+    // Top-k dla obu okien jednym przejściem po licznikach; filmy bez aktywności w dobie są usuwane
+    void refresh(long nowMillis) {
+        PriorityQueue<Score> hourTop = new PriorityQueue<>(Score.ASCENDING);
+        PriorityQueue<Score> dayTop = new PriorityQueue<>(Score.ASCENDING);
+        counters.forEach((movieId, movieCounters) -> {
+            long day = movieCounters.day.sum(nowMillis);
+            if (day == 0) {
+                counters.remove(movieId, movieCounters);
+                return;
+            }
+            offer(dayTop, new Score(movieId, day));
+            long hour = movieCounters.hour.sum(nowMillis);
+            if (hour > 0) {
+                offer(hourTop, new Score(movieId, hour));
+            }
+        });
+        List<Score> hourRanking = sorted(hourTop);
+        List<Score> dayRanking = sorted(dayTop);
+
+        // Jedno zapytanie o dokumenty obu list - odczyt rankingu nie dotyka już bazy
+        List<String> ids = new ArrayList<>();
+        hourRanking.forEach(score -> ids.add(score.movieId));
+        dayRanking.forEach(score -> ids.add(score.movieId));
+        Map<String, Movie> movies = ids.isEmpty() ? Map.of() : movieRepository.findAllById(ids.stream().distinct().toList()).stream()
+                .collect(Collectors.toMap(Movie::getId, Function.identity()));
+        snapshot = Map.of(Window.HOUR, resolve(hourRanking, movies), Window.DAY, resolve(dayRanking, movies));
+    }
+
+    private static void offer(PriorityQueue<Score> top, Score score) {
+        if (top.size() < MAX_LIMIT) {
+            top.add(score);
+        } else if (Score.ASCENDING.compare(top.peek(), score) < 0) {
+            top.poll();
+            top.add(score);
+        }
+    }
+
+    private static List<Score> sorted(PriorityQueue<Score> top) {
+        List<Score> ranking = new ArrayList<>(top);
+        ranking.sort(Score.ASCENDING.reversed());
+        return ranking;
+    }
+
+    private static List<SearchHit<Movie>> resolve(List<Score> ranking, Map<String, Movie> movies) {
+        return ranking.stream()
+                .filter(score -> movies.containsKey(score.movieId))
+                .map(score -> new SearchHit<>(movies.get(score.movieId), score.value))
+                .toList();
+    }
+
+    private static final class Counters {
+        private final SlidingWindowCounter hour = new SlidingWindowCounter(Window.HOUR.millis, Window.HOUR.buckets);
+        private final SlidingWindowCounter day = new SlidingWindowCounter(Window.DAY.millis, Window.DAY.buckets);
+    }
+
+    private static final class Score {
+        // Przy remisie wyżej film o mniejszym ID, żeby kolejność była stabilna
+        static final Comparator<Score> ASCENDING = Comparator.<Score>comparingLong(score -> score.value)
+                .thenComparing(score -> score.movieId, Comparator.reverseOrder());
+
+        private final String movieId;
+        private final long value;
+
+        Score(String movieId, long value) {
+            this.movieId = movieId;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.movieapp.movieapplication.service;
+
+import com.movieapp.movieapplication.model.Movie;
+
+import java.util.List;
+
+// Publikowane po zapisaniu filmów (dodanie, edycja, zapis zbiorczy, import) - aktualizuje indeksy w pamięci
+public class MoviesSavedEvent {
+    private final List<Movie> movies;
+
+    public MoviesSavedEvent(List<Movie> movies) {
+        this.movies = movies;
+    }
+
+    public List<Movie> getMovies() {
+        return movies;
+    }
+}
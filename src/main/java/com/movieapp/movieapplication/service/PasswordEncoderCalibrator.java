@@ -0,0 +1,98 @@
+package com.movieapp.movieapplication.service;
+
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Koder haseł z kosztem dobranym do sprzętu: przy starcie mierzymy czas haszu przy minimalnych parametrach
+// i skalujemy je tak, żeby jeden hasz trwał mniej więcej targetMillis. Parametry nie schodzą poniżej minimum,
+// więc wolna maszyna nie osłabia haseł - wtedy hasz po prostu trwa dłużej niż cel.
+// Hasze mają prefiks algorytmu ({bcrypt}, {argon2}, {pbkdf2-sha256}); stare hasze BCrypt bez prefiksu nadal pasują.
+public final class PasswordEncoderCalibrator {
+
+    public static final String BCRYPT = "bcrypt";
+    public static final String ARGON2 = "argon2";
+    public static final String PBKDF2 = "pbkdf2-sha256";
+
+    private static final int MIN_BCRYPT_STRENGTH = 10;
+    private static final int MAX_BCRYPT_STRENGTH = 16;
+    private static final int MIN_PBKDF2_ITERATIONS = 310_000;
+    private static final int MAX_PBKDF2_ITERATIONS = 10_000_000;
+    private static final int MIN_ARGON2_ITERATIONS = 2;
+    private static final int MAX_ARGON2_ITERATIONS = 64;
+    private static final int ARGON2_MEMORY_KB = 1 << 14;
+    private static final int SAMPLES = 3;
+
+    private PasswordEncoderCalibrator() {
+    }
+
+    public static DelegatingPasswordEncoder create(String algorithm, long targetMillis) {
+        long start = System.currentTimeMillis();
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put(BCRYPT, new BCryptPasswordEncoder(MIN_BCRYPT_STRENGTH));
+        encoders.put(ARGON2, argon2(MIN_ARGON2_ITERATIONS));
+        encoders.put(PBKDF2, new Pbkdf2Sha256PasswordEncoder(MIN_PBKDF2_ITERATIONS));
+        PasswordEncoder baseline = encoders.get(algorithm);
+        if (baseline == null) {
+            throw new IllegalArgumentException("Unsupported password hashing algorithm: " + algorithm);
+        }
+
+        // Pozostałe algorytmy tylko weryfikują stare hasze - ich parametry są zapisane w haszu
+        double baselineMillis = measureMillis(baseline);
+        double scale = targetMillis / Math.max(baselineMillis, 0.001);
+        String parameters;
+        switch (algorithm) {
+            case BCRYPT -> {
+                // Każdy stopień kosztu podwaja czas
+                int strength = clamp(MIN_BCRYPT_STRENGTH + (int) Math.floor(Math.log(scale) / Math.log(2)),
+                        MIN_BCRYPT_STRENGTH, MAX_BCRYPT_STRENGTH);
+                encoders.put(BCRYPT, new BCryptPasswordEncoder(strength));
+                parameters = "strength " + strength;
+            }
+            case ARGON2 -> {
+                int iterations = clamp((int) Math.round(MIN_ARGON2_ITERATIONS * scale), MIN_ARGON2_ITERATIONS, MAX_ARGON2_ITERATIONS);
+                encoders.put(ARGON2, argon2(iterations));
+                parameters = "memory " + ARGON2_MEMORY_KB + " KB, iterations " + iterations;
+            }
+            default -> {
+                int iterations = (int) Math.min(Math.max(Math.round(MIN_PBKDF2_ITERATIONS * scale), MIN_PBKDF2_ITERATIONS),
+                        MAX_PBKDF2_ITERATIONS);
+                encoders.put(PBKDF2, new Pbkdf2Sha256PasswordEncoder(iterations));
+                parameters = "iterations " + iterations;
+            }
+        }
+
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(algorithm, encoders);
+        encoder.setDefaultPasswordEncoderForMatches(encoders.get(BCRYPT));
+        System.out.println("Password hashing calibrated: " + algorithm + " (" + parameters + "), baseline "
+                + Math.round(baselineMillis) + " ms, target " + targetMillis + " ms, took "
+                + (System.currentTimeMillis() - start) + " ms");
+        return encoder;
+    }
+
+    private static Argon2PasswordEncoder argon2(int iterations) {
+        return new Argon2PasswordEncoder(16, 32, 1, ARGON2_MEMORY_KB, iterations);
+    }
+
+    // Mediana kilku pomiarów po rozgrzewce JIT
+    static double measureMillis(PasswordEncoder encoder) {
+        encoder.encode("calibration");
+        double[] samples = new double[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            encoder.encode("calibration");
+            samples[i] = (System.nanoTime() - start) / 1_000_000.0;
+        }
+        Arrays.sort(samples);
+        return samples[SAMPLES / 2];
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.min(Math.max(value, min), max);
+    }
+}
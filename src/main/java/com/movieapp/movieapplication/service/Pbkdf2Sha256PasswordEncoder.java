@@ -0,0 +1,97 @@
+package com.movieapp.movieapplication.service;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+// PBKDF2-HMAC-SHA256 z liczbą iteracji zapisaną w haszu: "iteracje$sól$hasz" (Base64).
+// Pbkdf2PasswordEncoder ze Spring Security bierze iteracje z konfiguracji, więc hasz przestałby pasować
+// po zmianie kalibracji; tu każdy hasz weryfikuje się własnymi parametrami.
+public class Pbkdf2Sha256PasswordEncoder implements PasswordEncoder {
+
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+
+    private final SecureRandom random = new SecureRandom();
+    private final int iterations;
+
+    public Pbkdf2Sha256PasswordEncoder(int iterations) {
+        if (iterations < 1) {
+            throw new IllegalArgumentException("Iterations must be positive.");
+        }
+        this.iterations = iterations;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        Base64.Encoder base64 = Base64.getEncoder().withoutPadding();
+        return iterations + "$" + base64.encodeToString(salt) + "$" + base64.encodeToString(hash(rawPassword, salt, iterations));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        Parsed parsed = parse(encodedPassword);
+        return parsed != null && MessageDigest.isEqual(parsed.hash, hash(rawPassword, parsed.salt, parsed.iterations));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        Parsed parsed = parse(encodedPassword);
+        return parsed == null || parsed.iterations < iterations;
+    }
+
+    private static byte[] hash(CharSequence rawPassword, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(rawPassword.toString().toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("PBKDF2 is not available.", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    // null dla haszu w nieznanym formacie - taki hasz nigdy nie pasuje
+    private static Parsed parse(String encodedPassword) {
+        if (encodedPassword == null) {
+            return null;
+        }
+        String[] parts = encodedPassword.split("\\$");
+        if (parts.length != 3) {
+            return null;
+        }
+        try {
+            int iterations = Integer.parseInt(parts[0]);
+            if (iterations < 1) {
+                return null;
+            }
+            return new Parsed(iterations, Base64.getDecoder().decode(parts[1]), Base64.getDecoder().decode(parts[2]));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static class Parsed {
+        private final int iterations;
+        private final byte[] salt;
+        private final byte[] hash;
+
+        Parsed(int iterations, byte[] salt, byte[] hash) {
+            this.iterations = iterations;
+            this.salt = salt;
+            this.hash = hash;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.movieapp.movieapplication.service;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Szkic kwantyli w stylu KLL: poziom h przechowuje próbki o wadze 2^h. Przepełniony poziom jest sortowany,
+// a co druga próbka (losowe przesunięcie) przechodzi poziom wyżej z podwójną wagą.
+// Pojemność poziomów maleje geometrycznie (k, 2k/3, 4k/9, ...) od najwyższego w dół, więc szkic trzyma
+// około 3k wartości float niezależnie od liczby dodanych elementów (plus 2 na każdy z ~log2(n/k) poziomów).
+// Błąd rangi to około 1.7/k wszystkich elementów (dla k = 200 mniej niż 1%).
+// Szkice można scalać - wynik ma takie same gwarancje jak szkic zbudowany z połączonych danych.
+// Klasa nie jest bezpieczna wątkowo.
+public class QuantileSketch {
+
+    private static final double LEVEL_RATIO = 2.0 / 3.0;
+    private static final int MIN_LEVEL_CAPACITY = 2;
+
+    private final int k;
+    private float[][] levels = {new float[MIN_LEVEL_CAPACITY]};
+    private int[] sizes = new int[1];
+    private long count;
+
+    public QuantileSketch(int k) {
+        if (k < 8) {
+            throw new IllegalArgumentException("Sketch parameter k must be at least 8.");
+        }
+        this.k = k;
+    }
+
+    public void add(double value) {
+        add(value, 1);
+    }
+
+    // Element o wadze weight trafia na poziomy odpowiadające bitom wagi - bez powtarzania go weight razy
+    public void add(double value, long weight) {
+        if (weight <= 0) {
+            return;
+        }
+        count += weight;
+        for (int level = 0; weight != 0; level++, weight >>>= 1) {
+            if ((weight & 1) != 0) {
+                append(level, (float) value);
+            }
+        }
+        compress();
+    }
+
+    public void merge(QuantileSketch other) {
+        for (int level = 0; level < other.sizes.length; level++) {
+            for (int i = 0; i < other.sizes[level]; i++) {
+                append(level, other.levels[level][i]);
+            }
+        }
+        count += other.count;
+        compress();
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    // Liczba przechowywanych próbek - miara zajętej pamięci
+    public int getRetained() {
+        int retained = 0;
+        for (int size : sizes) {
+            retained += size;
+        }
+        return retained;
+    }
+
+    public double quantile(double q) {
+        return quantiles(this, null, new double[]{q})[0];
+    }
+
+    // Kwantyle różnicy dwóch szkiców: removed zawiera elementy usunięte z added (np. skasowane recenzje).
+    // Rangi są addytywne, więc wystarcza odjąć wagi próbek removed; błąd to suma błędów obu szkiców.
+    // NaN, gdy nie zostały żadne elementy.
+    public static double[] quantiles(QuantileSketch added, QuantileSketch removed, double[] qs) {
+        int size = added.getRetained() + (removed == null ? 0 : removed.getRetained());
+        long[] packed = new long[size];
+        float[] values = new float[size];
+        long[] weights = new long[size];
+        int next = added.collect(values, weights, 0, 1);
+        if (removed != null) {
+            removed.collect(values, weights, next, -1);
+        }
+        // Sortowanie indeksów po wartości: wartość w starszych bitach, indeks w młodszych
+        for (int i = 0; i < size; i++) {
+            packed[i] = ((long) sortableBits(values[i]) << 32) | i;
+        }
+        Arrays.sort(packed);
+
+        long total = added.count - (removed == null ? 0 : removed.count);
+        double[] result = new double[qs.length];
+        for (int j = 0; j < qs.length; j++) {
+            if (total <= 0 || size == 0) {
+                result[j] = Double.NaN;
+                continue;
+            }
+            long rank = Math.max(1, (long) Math.ceil(qs[j] * total));
+            long cumulative = 0;
+            int index = (int) packed[size - 1];
+            for (long entry : packed) {
+                cumulative += weights[(int) entry];
+                if (cumulative >= rank) {
+                    index = (int) entry;
+                    break;
+                }
+            }
+            result[j] = values[index];
+        }
+        return result;
+    }
+
+    private int collect(float[] values, long[] weights, int offset, int sign) {
+        for (int level = 0; level < sizes.length; level++) {
+            for (int i = 0; i < sizes[level]; i++) {
+                values[offset] = levels[level][i];
+                weights[offset] = sign * (1L << level);
+                offset++;
+            }
+        }
+        return offset;
+    }
+
+    // Bity float przekształcone tak, żeby porównanie int (ze znakiem) zgadzało się z porządkiem liczb
+    private static int sortableBits(float value) {
+        int bits = Float.floatToIntBits(value);
+        return bits >= 0 ? bits : bits ^ Integer.MAX_VALUE;
+    }
+
+    private int capacity(int level) {
+        int depth = sizes.length - 1 - level;
+        return Math.max(MIN_LEVEL_CAPACITY, (int) Math.ceil(k * Math.pow(LEVEL_RATIO, depth)));
+    }
+
+    private void append(int level, float value) {
+        if (level >= levels.length) {
+            levels = Arrays.copyOf(levels, level + 1);
+            sizes = Arrays.copyOf(sizes, level + 1);
+            for (int i = 0; i <= level; i++) {
+                if (levels[i] == null) {
+                    levels[i] = new float[MIN_LEVEL_CAPACITY];
+                }
+            }
+        }
+        if (sizes[level] == levels[level].length) {
+            levels[level] = Arrays.copyOf(levels[level], levels[level].length * 2);
+        }
+        levels[level][sizes[level]++] = value;
+    }
+
+    // Kompaktujemy najniższy przepełniony poziom, aż wszystkie zmieszczą się w pojemności
+    private void compress() {
+        for (int level = 0; level < sizes.length; level++) {
+            if (sizes[level] > capacity(level)) {
+                compact(level);
+                level = -1;
+            }
+        }
+    }
+
+    private void compact(int level) {
+        float[] items = levels[level];
+        int size = sizes[level];
+        Arrays.sort(items, 0, size);
+        // Przy nieparzystej liczbie najmniejsza próbka zostaje na swoim poziomie
+        int keep = size % 2;
+        int offset = ThreadLocalRandom.current().nextInt(2);
+        for (int i = keep + offset; i < size; i += 2) {
+            append(level + 1, items[i]);
+        }
+        sizes[level] = keep;
+        // Bufor rozdęty przez scalanie jest zmniejszany, żeby pamięć zależała od pojemności poziomu, a nie od historii
+        if (levels[level].length > 4 * Math.max(capacity(level), MIN_LEVEL_CAPACITY)) {
+            levels[level] = Arrays.copyOf(levels[level], Math.max(capacity(level), MIN_LEVEL_CAPACITY));
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.movieapp.movieapplication.service;
+
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.concurrent.locks.StampedLock;
+
+// Koordynacja przyrostowych zmian agregatów ocen (movie_rating_stats, rating_trends) z ich przeliczaniem od zera.
+// Zapis recenzji trzyma blokadę współdzieloną filmu od zapisu recenzji do ostatniego $inc agregatów, a przeliczenie
+// paczki filmów - wyłączną. Przeliczenie widzi więc każdą recenzję razem z jej przyrostem albo żadnego z nich,
+// i nie nadpisuje przyrostu recenzji, której nie przeczytało, ani nie liczy jej drugi raz.
+// Eventy ReviewRatingEvent są publikowane pod tą samą blokadą współdzieloną co zapis.
+// Blokady są w pasach (film -> pas po hashu), zakładane rosnąco, żeby paczki nie blokowały się nawzajem.
+// StampedLock nie jest związany z wątkiem - recenzję z bufora write-behind zwalnia wątek zapisujący partię.
+@Service
+public class RatingAggregateLocks {
+
+    private static final int STRIPES = 1024;
+
+    private final StampedLock[] stripes = new StampedLock[STRIPES];
+
+    public RatingAggregateLocks() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new StampedLock();
+        }
+    }
+
+    public Lease shared(Collection<String> movieIds) {
+        return acquire(movieIds, false);
+    }
+
+    public Lease exclusive(Collection<String> movieIds) {
+        return acquire(movieIds, true);
+    }
+
+    // Bariera dla wszystkich filmów: czeka na koniec zapisów w toku (razem z ich eventami) i wstrzymuje nowe.
+    // Do krótkiego uzgodnienia stanu w pamięci z bazą, np. po zbudowaniu rankingu przy starcie
+    public Lease exclusiveAll() {
+        int[] indexes = new int[STRIPES];
+        long[] stamps = new long[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            indexes[i] = i;
+            stamps[i] = stripes[i].writeLock();
+        }
+        return new Lease(indexes, stamps, true);
+    }
+
+    private Lease acquire(Collection<String> movieIds, boolean exclusive) {
+        int[] indexes = movieIds.stream()
+                .mapToInt(movieId -> Math.floorMod(String.valueOf(movieId).hashCode(), STRIPES))
+                .distinct()
+                .sorted()
+                .toArray();
+        long[] stamps = new long[indexes.length];
+        for (int i = 0; i < indexes.length; i++) {
+            StampedLock lock = stripes[indexes[i]];
+            stamps[i] = exclusive ? lock.writeLock() : lock.readLock();
+        }
+        return new Lease(indexes, stamps, exclusive);
+    }
+
+    // Założone blokady; close() zwalnia je raz, także z innego wątku niż ten, który je założył
+    public class Lease implements AutoCloseable {
+        private final int[] indexes;
+        private final long[] stamps;
+        private final boolean exclusive;
+        private boolean closed;
+
+        private Lease(int[] indexes, long[] stamps, boolean exclusive) {
+            this.indexes = indexes;
+            this.stamps = stamps;
+            this.exclusive = exclusive;
+        }
+
+        @Override
+        public synchronized void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            for (int i = indexes.length - 1; i >= 0; i--) {
+                StampedLock lock = stripes[indexes[i]];
+                if (exclusive) {
+                    lock.unlockWrite(stamps[i]);
+                } else {
+                    lock.unlockRead(stamps[i]);
+                }
+            }
+        }
+    }
+}
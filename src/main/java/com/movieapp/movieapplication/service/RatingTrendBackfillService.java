@@ -0,0 +1,191 @@
+package com.movieapp.movieapplication.service;
+
+import com.movieapp.movieapplication.model.Movie;
+import com.movieapp.movieapplication.model.TrendBackfillJob;
+import com.movieapp.movieapplication.repository.MovieRepository;
+import com.movieapp.movieapplication.repository.RatingStatsRepository;
+import com.movieapp.movieapplication.repository.RatingTrendRepository;
+import com.movieapp.movieapplication.repository.TrendBackfillJobRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Przeliczenie trendów ocen i agregatów movie_rating_stats z istniejących recenzji.
+// Filmy są czytane paczkami w kolejności ID i przeliczane równolegle; po każdej ukończonej paczce zapisujemy
+// checkpoint (ostatnie ID ciągłego prefiksu ukończonych paczek), więc przerwane zadanie wznawia się od tego miejsca.
+// Przeliczenie paczki jest idempotentne, więc ponowienie paczek ukończonych za checkpointem jest bezpieczne.
+@Service
+public class RatingTrendBackfillService {
+
+    static final String JOB_ID = "rating-trends";
+
+    private final MovieRepository movieRepository;
+    private final RatingTrendRepository ratingTrendRepository;
+    private final RatingStatsRepository ratingStatsRepository;
+    private final TrendBackfillJobRepository jobRepository;
+    private final RatingAggregateLocks aggregateLocks;
+    private final ExecutorService coordinator;
+    private final ExecutorService workers;
+    private final int parallelism;
+    private final int chunkSize;
+
+    private volatile TrendBackfillJob current;
+    private volatile boolean cancelRequested;
+
+    public RatingTrendBackfillService(MovieRepository movieRepository, RatingTrendRepository ratingTrendRepository,
+                                      RatingStatsRepository ratingStatsRepository, TrendBackfillJobRepository jobRepository,
+                                      RatingAggregateLocks aggregateLocks,
+                                      @Value("${movieapp.trends.backfill.workers:4}") int parallelism,
+                                      @Value("${movieapp.trends.backfill.chunk-size:200}") int chunkSize) {
+        this.movieRepository = movieRepository;
+        this.ratingTrendRepository = ratingTrendRepository;
+        this.ratingStatsRepository = ratingStatsRepository;
+        this.jobRepository = jobRepository;
+        this.aggregateLocks = aggregateLocks;
+        this.parallelism = parallelism;
+        this.chunkSize = chunkSize;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.coordinator = Executors.newSingleThreadExecutor(runnable -> daemon(runnable, "trend-backfill"));
+        this.workers = Executors.newFixedThreadPool(parallelism,
+                runnable -> daemon(runnable, "trend-backfill-" + threadNumber.incrementAndGet()));
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    // Wznawia przerwane zadanie od checkpointu; restart == true (albo zakończone poprzednie) zaczyna od pierwszego filmu
+    public synchronized TrendBackfillJob start(boolean restart) {
+        if (current != null && current.getStatus() == TrendBackfillJob.Status.RUNNING) {
+            return current;
+        }
+        TrendBackfillJob job = restart ? null : jobRepository.findById(JOB_ID)
+                .filter(saved -> saved.getStatus() != TrendBackfillJob.Status.COMPLETED)
+                .orElse(null);
+        if (job == null) {
+            job = new TrendBackfillJob(JOB_ID);
+            job.setStartedAt(Instant.now());
+        }
+        job.setStatus(TrendBackfillJob.Status.RUNNING);
+        job.setError(null);
+        job.setFinishedAt(null);
+        job.setUpdatedAt(Instant.now());
+        jobRepository.save(job);
+        cancelRequested = false;
+        current = job;
+        TrendBackfillJob started = job;
+        coordinator.submit(() -> run(started));
+        return job;
+    }
+
+    public Optional<TrendBackfillJob> getJob() {
+        TrendBackfillJob job = current;
+        return job != null ? Optional.of(job) : jobRepository.findById(JOB_ID);
+    }
+
+    // Zatrzymanie po ukończeniu paczek w toku; checkpoint pozwala później wznowić zadanie
+    public Optional<TrendBackfillJob> cancel() {
+        TrendBackfillJob job = current;
+        if (job != null && job.getStatus() == TrendBackfillJob.Status.RUNNING) {
+            cancelRequested = true;
+        }
+        return getJob();
+    }
+
+    void run(TrendBackfillJob job) {
+        Deque<Chunk> inFlight = new ArrayDeque<>();
+        String lastId = job.getLastMovieId();
+        try {
+            while (!cancelRequested) {
+                List<String> movieIds = movieRepository.findPageAfter("id", null, lastId, chunkSize).stream()
+                        .map(Movie::getId)
+                        .toList();
+                if (movieIds.isEmpty()) {
+                    break;
+                }
+                lastId = movieIds.get(movieIds.size() - 1);
+                inFlight.addLast(new Chunk(lastId, movieIds.size(), workers.submit(() -> rebuild(movieIds))));
+                // Najwyżej dwie paczki na wątek w toku - czytanie filmów nie wyprzedza przeliczania
+                while (inFlight.size() >= parallelism * 2 || (!inFlight.isEmpty() && inFlight.peekFirst().result.isDone())) {
+                    complete(job, inFlight.pollFirst());
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                complete(job, inFlight.pollFirst());
+            }
+            finish(job, cancelRequested ? TrendBackfillJob.Status.CANCELLED : TrendBackfillJob.Status.COMPLETED, null);
+        } catch (Exception e) {
+            // Paczki w toku kończą się same; checkpoint wskazuje ostatni ciągły prefiks
+            inFlight.forEach(chunk -> chunk.result.cancel(false));
+            Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+            finish(job, TrendBackfillJob.Status.FAILED, cause.getMessage());
+        }
+        System.out.println("Trend backfill finished with status " + job.getStatus() + " after " + job.getProcessedMovies() + " movies");
+    }
+
+    // Oba przeliczenia czytają te same recenzje; liczymy je raz.
+    // Blokada wyłączna wstrzymuje na czas paczki zapisy recenzji jej filmów, więc $set nie zgubi równoległego $inc
+    private long rebuild(List<String> movieIds) {
+        RatingAggregateLocks.Lease lease = aggregateLocks.exclusive(movieIds);
+        try {
+            long reviews = ratingTrendRepository.rebuild(movieIds);
+            ratingStatsRepository.rebuild(movieIds);
+            return reviews;
+        } finally {
+            lease.close();
+        }
+    }
+
+    private void complete(TrendBackfillJob job, Chunk chunk) throws ExecutionException, InterruptedException {
+        long reviews = chunk.result.get();
+        job.setLastMovieId(chunk.lastMovieId);
+        job.setProcessedMovies(job.getProcessedMovies() + chunk.movies);
+        job.setProcessedReviews(job.getProcessedReviews() + reviews);
+        job.setUpdatedAt(Instant.now());
+        jobRepository.save(job);
+    }
+
+    private void finish(TrendBackfillJob job, TrendBackfillJob.Status status, String error) {
+        job.setStatus(status);
+        job.setError(error);
+        job.setFinishedAt(Instant.now());
+        job.setUpdatedAt(job.getFinishedAt());
+        try {
+            jobRepository.save(job);
+        } catch (RuntimeException e) {
+            System.out.println("Could not save trend backfill state: " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        cancelRequested = true;
+        coordinator.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    private static class Chunk {
+        private final String lastMovieId;
+        private final int movies;
+        private final Future<Long> result;
+
+        Chunk(String lastMovieId, int movies, Future<Long> result) {
+            this.lastMovieId = lastMovieId;
+            this.movies = movies;
+            this.result = result;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.movieapp.movieapplication.service;
+
+import com.movieapp.movieapplication.model.RatingTrendBucket;
+import com.movieapp.movieapplication.repository.RatingTrendRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Locale;
+
+// Trend ocen filmu w czasie: średnia i liczba recenzji per dzień albo tydzień.
+// Czyta gotowe przedziały z movie_rating_trends, aktualizowane przy zapisie recenzji w ReviewService.
+@Service
+public class RatingTrendService {
+
+    private final RatingTrendRepository ratingTrendRepository;
+
+    // Zakres zapytania jest ograniczony, żeby odczyt zawsze dotyczył najwyżej kilkuset przedziałów
+    @Value("${movieapp.trends.max-buckets:400}")
+    private int maxBuckets = 400;
+
+    @Value("${movieapp.trends.default-days:90}")
+    private int defaultDays = 90;
+
+    @Value("${movieapp.trends.default-weeks:52}")
+    private int defaultWeeks = 52;
+
+    public RatingTrendService(RatingTrendRepository ratingTrendRepository) {
+        this.ratingTrendRepository = ratingTrendRepository;
+    }
+
+    // Zwraca tylko przedziały z recenzjami; brak przedziału oznacza zero recenzji w tym okresie
+    public List<RatingTrendBucket> getTrend(String movieId, String granularity, LocalDate from, LocalDate to) {
+        RatingTrendBucket.Granularity unit = parseGranularity(granularity);
+        LocalDate end = unit.bucketStart(to != null ? to : LocalDate.now());
+        LocalDate start = from != null ? unit.bucketStart(from)
+                : unit == RatingTrendBucket.Granularity.DAY ? end.minusDays(defaultDays - 1) : end.minusWeeks(defaultWeeks - 1);
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("Trend range start must not be after its end.");
+        }
+        long buckets = (unit == RatingTrendBucket.Granularity.DAY ? ChronoUnit.DAYS : ChronoUnit.WEEKS).between(start, end) + 1;
+        if (buckets > maxBuckets) {
+            throw new IllegalArgumentException("Trend range must not exceed " + maxBuckets + " buckets.");
+        }
+        return ratingTrendRepository.findBuckets(movieId, unit, start, end);
+    }
+
+    private static RatingTrendBucket.Granularity parseGranularity(String granularity) {
+        if (granularity == null || granularity.isBlank()) {
+            return RatingTrendBucket.Granularity.DAY;
+        }
+        try {
+            return RatingTrendBucket.Granularity.valueOf(granularity.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown trend granularity: " + granularity, e);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.movieapp.movieapplication.service;
+
+import java.util.function.Consumer;
+
+// Filtr Blooma budowany w tle z danych w bazie, używany jako szybkie "na pewno nie ma" przed zapytaniem do MongoDB.
+// Dopóki filtr nie jest zbudowany, mightContain() zwraca true, więc każde sprawdzenie idzie do bazy.
+// Przebudowa wypełnia nowy filtr obok starego; wartości zapisane w trakcie trafiają do obu, więc żadna nie ginie.
+public class RebuildableBloomFilter {
+
+    private final String name;
+
+    // null dopóki filtr nie zostanie zbudowany
+    private volatile BloomFilter filter;
+    // Filtr budowany w tle; zapisy z czasu przebudowy trafiają do obu
+    private volatile BloomFilter building;
+
+    public RebuildableBloomFilter(String name) {
+        this.name = name;
+    }
+
+    public boolean mightContain(String key) {
+        BloomFilter current = filter;
+        return current == null || current.mightContain(key);
+    }
+
+    public void put(String key) {
+        BloomFilter current = filter;
+        if (current != null) {
+            current.put(key);
+        }
+        BloomFilter next = building;
+        if (next != null) {
+            next.put(key);
+        }
+    }
+
+    // source przekazuje do podanego konsumenta wszystkie klucze z bazy (np. strumieniem z kursora)
+    public synchronized void rebuild(long expectedInsertions, double falsePositiveRate, Consumer<Consumer<String>> source) {
+        long start = System.currentTimeMillis();
+        BloomFilter next = new BloomFilter(expectedInsertions, falsePositiveRate);
+        building = next;
+        try {
+            source.accept(next::put);
+            filter = next;
+        } finally {
+            building = null;
+        }
+        System.out.println(name + " filter built: " + next.getBitCount() / 8 / 1024 + " KB, "
+                + next.getHashCount() + " hashes in " + (System.currentTimeMillis() - start) + " ms");
+    }
+}
@@ -0,0 +1,66 @@
+package com.movieapp.movieapplication.service;
+
+import com.movieapp.movieapplication.model.Review;
+import com.movieapp.movieapplication.repository.ReviewRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.util.stream.Stream;
+
+// Wstępne wykrywanie powtórnych recenzji (ten sam użytkownik i film) bez zapytania do bazy.
+// Filtr Blooma par (userId, movieId) odpowiada "na pewno nowa" albo "może istnieć" - tylko w drugim
+// przypadku sprawdzamy MongoDB. Gwarancję daje i tak unikalny indeks (userId, movieId).
+@Service
+public class ReviewDuplicateGuard {
+
+    private final ReviewRepository reviewRepository;
+
+    private final RebuildableBloomFilter filter = new RebuildableBloomFilter("Review duplicate");
+
+    @Value("${movieapp.reviews.bloom.expected-insertions:1000000}")
+    private long expectedInsertions = 1_000_000;
+
+    @Value("${movieapp.reviews.bloom.false-positive-rate:0.01}")
+    private double falsePositiveRate = 0.01;
+
+    public ReviewDuplicateGuard(ReviewRepository reviewRepository) {
+        this.reviewRepository = reviewRepository;
+    }
+
+    public boolean isDuplicate(String userId, String movieId) {
+        if (!filter.mightContain(key(userId, movieId))) {
+            return false;
+        }
+        return reviewRepository.existsByUserIdAndMovieId(userId, movieId);
+    }
+
+    public void record(String userId, String movieId) {
+        filter.put(key(userId, movieId));
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            System.out.println("Could not build review duplicate filter: " + e.getMessage());
+        }
+    }
+
+    // Rozmiar z zapasem na wzrost, żeby odsetek fałszywych trafień nie rósł do następnego startu
+    public void rebuild() {
+        filter.rebuild(Math.max(expectedInsertions, reviewRepository.count() * 2), falsePositiveRate, keys -> {
+            try (Stream<Review> reviews = reviewRepository.streamUserMovieKeys()) {
+                reviews.forEach(review -> keys.accept(key(review.getUserId(), review.getMovieId())));
+            }
+        });
+    }
+
+    private static String key(String userId, String movieId) {
+        return userId + '\u0000' + movieId;
+    }
+}
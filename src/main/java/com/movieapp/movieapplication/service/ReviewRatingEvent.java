@@ -0,0 +1,27 @@
+package com.movieapp.movieapplication.service;
+
+// Publikowane gdy ocena trafia do agregatów filmu lub z nich wypada (sign = 1 dodanie, sign = -1 odjęcie).
+// Edycja zmieniająca ocenę lub film to para zdarzeń: odjęcie starej oceny i dodanie nowej.
+public class ReviewRatingEvent {
+    private final String movieId;
+    private final int rating;
+    private final int sign;
+
+    public ReviewRatingEvent(String movieId, int rating, int sign) {
+        this.movieId = movieId;
+        this.rating = rating;
+        this.sign = sign;
+    }
+
+    public String getMovieId() {
+        return movieId;
+    }
+
+    public int getRating() {
+        return rating;
+    }
+
+    public int getSign() {
+        return sign;
+    }
+}
@@ -0,0 +1,79 @@
+package com.movieapp.movieapplication.service;
+
+import com.movieapp.movieapplication.model.CursorPage;
+import com.movieapp.movieapplication.model.Review;
+import com.movieapp.movieapplication.model.ReviewSearchHit;
+import com.movieapp.movieapplication.model.SearchHit;
+import com.movieapp.movieapplication.repository.ReviewRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+// Wyszukiwanie w treści recenzji - globalnie albo w obrębie filmu.
+// Indeks tekstowy MongoDB aktualizuje się przy każdym zapisie recenzji, a podświetlanie liczymy tylko dla zwróconej strony.
+@Service
+public class ReviewSearchService {
+
+    private static final String CURSOR_KIND = "review-search";
+    private static final int MAX_FRAGMENTS = 3;
+    private static final int FRAGMENT_LENGTH = 160;
+
+    private final ReviewRepository reviewRepository;
+
+    @Value("${movieapp.pagination.default-page-size:20}")
+    private int defaultPageSize = 20;
+
+    @Value("${movieapp.pagination.max-page-size:100}")
+    private int maxPageSize = 100;
+
+    // Ranking po trafności nie ma stabilnego klucza do stronicowania keyset, więc głębokość wyników jest ograniczona
+    @Value("${movieapp.reviews.search.max-results:1000}")
+    private int maxResults = 1000;
+
+    public ReviewSearchService(ReviewRepository reviewRepository) {
+        this.reviewRepository = reviewRepository;
+    }
+
+    public CursorPage<ReviewSearchHit> search(String query, String movieId, String cursor, Integer size) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Search query must not be empty.");
+        }
+        List<List<String>> phrases = TextHighlighter.parseQuery(query);
+        if (phrases.isEmpty()) {
+            throw new IllegalArgumentException("Search query must contain at least one word.");
+        }
+        int pageSize = size == null ? defaultPageSize : Math.min(Math.max(size, 1), maxPageSize);
+        int offset = 0;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = CursorCodec.decode(cursor, 2);
+            if (!CURSOR_KIND.equals(parts[0])) {
+                throw new IllegalArgumentException("Invalid cursor.");
+            }
+            try {
+                offset = Integer.parseInt(parts[1]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor.", e);
+            }
+            // Takiego przesunięcia nie wydajemy - ujemne poszłoby do $skip i skończyło się błędem bazy
+            if (offset < 0) {
+                throw new IllegalArgumentException("Invalid cursor.");
+            }
+        }
+        int limit = Math.min(pageSize, maxResults - offset);
+        if (limit <= 0) {
+            return new CursorPage<>(List.of(), null);
+        }
+
+        // Pobieramy o jeden element więcej, żeby wiedzieć czy istnieje kolejna strona
+        String scope = movieId == null || movieId.isBlank() ? null : movieId;
+        List<SearchHit<Review>> hits = reviewRepository.searchText(query, scope, offset, limit + 1);
+        boolean hasMore = hits.size() > limit && offset + limit < maxResults;
+        List<ReviewSearchHit> items = hits.stream()
+                .limit(limit)
+                .map(hit -> new ReviewSearchHit(hit.getItem(), hit.getScore(),
+                        TextHighlighter.highlight(hit.getItem().getReviewText(), phrases, MAX_FRAGMENTS, FRAGMENT_LENGTH)))
+                .toList();
+        return new CursorPage<>(items, hasMore ? CursorCodec.encode(CURSOR_KIND, String.valueOf(offset + limit)) : null);
+    }
+}
@@ -1,19 +1,111 @@
 package com.movieapp.movieapplication.service;
 
+import com.movieapp.movieapplication.model.CursorPage;
+import com.movieapp.movieapplication.model.RatingStats;
 import com.movieapp.movieapplication.model.Review;
+import com.movieapp.movieapplication.model.WriteBufferStats;
+import com.movieapp.movieapplication.repository.RatingStatsRepository;
+import com.movieapp.movieapplication.repository.RatingTrendRepository;
 import com.movieapp.movieapplication.repository.ReviewRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
 
 @Service
 public class ReviewService {
 
+    static final String DUPLICATE_REVIEW_MESSAGE = "User has already reviewed this movie.";
+
     private final ReviewRepository reviewRepository;
+    private final RatingStatsRepository ratingStatsRepository; // Agregaty ocen per film
+    private final RatingTrendRepository ratingTrendRepository; // Agregaty ocen per film i dzień/tydzień
+    private final ApplicationEventPublisher eventPublisher; // Powiadamia rankingi w pamięci o zmianach ocen
+    private final ReviewDuplicateGuard duplicateGuard; // Jedna recenzja na użytkownika i film
+    private final RatingAggregateLocks aggregateLocks; // Przyrosty agregatów kontra ich przeliczanie od zera
+
+    @Value("${movieapp.pagination.default-page-size:20}")
+    private int defaultPageSize = 20;
+
+    @Value("${movieapp.pagination.max-page-size:100}")
+    private int maxPageSize = 100;
+
+    // Tryb write-behind: recenzje trafiają do kolejki i są zapisywane partiami w tle
+    @Value("${movieapp.reviews.write-behind.enabled:false}")
+    private boolean writeBehindEnabled = false;
+
+    @Value("${movieapp.reviews.write-behind.capacity:10000}")
+    private int writeBehindCapacity = 10000;
+
+    @Value("${movieapp.reviews.write-behind.batch-size:500}")
+    private int writeBehindBatchSize = 500;
 
-    public ReviewService(ReviewRepository reviewRepository) {
+    @Value("${movieapp.reviews.write-behind.flush-interval-ms:200}")
+    private long writeBehindFlushIntervalMillis = 200;
+
+    @Value("${movieapp.reviews.write-behind.offer-timeout-ms:50}")
+    private long writeBehindOfferTimeoutMillis = 50;
+
+    @Value("${movieapp.reviews.write-behind.shutdown-timeout-ms:30000}")
+    private long writeBehindShutdownTimeoutMillis = 30000;
+
+    private ReviewWriteBuffer writeBuffer;
+
+    // Pary "userId|movieId" recenzji czekających w buforze - jeszcze ich nie ma w bazie, więc strażnik duplikatów ich nie widzi.
+    // Każda trzyma blokadę współdzieloną swojego filmu aż do końca zapisu partii razem z agregatami
+    private final Map<String, RatingAggregateLocks.Lease> pendingReviews = new ConcurrentHashMap<>();
+
+    public ReviewService(ReviewRepository reviewRepository, RatingStatsRepository ratingStatsRepository,
+                         RatingTrendRepository ratingTrendRepository, ApplicationEventPublisher eventPublisher,
+                         ReviewDuplicateGuard duplicateGuard, RatingAggregateLocks aggregateLocks) {
         this.reviewRepository = reviewRepository;
+        this.ratingStatsRepository = ratingStatsRepository;
+        this.ratingTrendRepository = ratingTrendRepository;
+        this.eventPublisher = eventPublisher;
+        this.duplicateGuard = duplicateGuard;
+        this.aggregateLocks = aggregateLocks;
+    }
+
+    @PostConstruct
+    public void startWriteBehind() {
+        if (writeBehindEnabled) {
+            writeBuffer = new ReviewWriteBuffer(writeBehindCapacity, writeBehindBatchSize, writeBehindFlushIntervalMillis,
+                    writeBehindOfferTimeoutMillis, this::saveBatch, this::releasePending);
+            writeBuffer.start();
+        }
+    }
+
+    // Zapis recenzji czekających w kolejce przy zamykaniu aplikacji
+    @PreDestroy
+    public void stopWriteBehind() {
+        if (writeBuffer != null) {
+            writeBuffer.close(writeBehindShutdownTimeoutMillis);
+        }
+    }
+
+    public boolean isWriteBehindEnabled() {
+        return writeBuffer != null;
+    }
+
+    public WriteBufferStats getWriteBufferStats() {
+        if (writeBuffer == null) {
+            return new WriteBufferStats();
+        }
+        return writeBuffer.getStats();
     }
 
     public List<Review> getAllReviews() {
@@ -24,22 +116,216 @@ public class ReviewService {
         return reviewRepository.findById(id);
     }
 
+    // Recenzje filmu od najnowszych, stronicowane kursorem (reviewDate, id)
+    public CursorPage<Review> getMovieReviews(String movieId, String cursor, Integer size) {
+        int pageSize = pageSize(size);
+        String[] after = decodeCursor(cursor);
+        // Pobieramy o jeden element więcej, żeby wiedzieć czy istnieje kolejna strona
+        List<Review> reviews = reviewRepository.findByMovieIdAfter(movieId, decodeDate(after[1]), after[0], pageSize + 1);
+        return toPage(reviews, pageSize);
+    }
+
+    // Historia recenzji użytkownika - bez treści recenzji, gdy includeText == false
+    public CursorPage<Review> getUserReviews(String userId, String cursor, Integer size, boolean includeText) {
+        int pageSize = pageSize(size);
+        String[] after = decodeCursor(cursor);
+        List<Review> reviews = reviewRepository.findByUserIdAfter(userId, decodeDate(after[1]), after[0], pageSize + 1, includeText);
+        return toPage(reviews, pageSize);
+    }
+
+    private int pageSize(Integer size) {
+        return size == null ? defaultPageSize : Math.min(Math.max(size, 1), maxPageSize);
+    }
+
+    // {lastId, zakodowana data}; dla pierwszej strony {null, "n"}
+    private String[] decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return new String[]{null, "n"};
+        }
+        return CursorCodec.decode(cursor, 2);
+    }
+
+    private CursorPage<Review> toPage(List<Review> reviews, int pageSize) {
+        if (reviews.size() <= pageSize) {
+            return new CursorPage<>(reviews, null);
+        }
+        List<Review> page = reviews.subList(0, pageSize);
+        Review last = page.get(pageSize - 1);
+        String date = last.getReviewDate() == null ? "n" : "v" + last.getReviewDate();
+        return new CursorPage<>(List.copyOf(page), CursorCodec.encode(last.getId(), date));
+    }
+
+    private LocalDateTime decodeDate(String encoded) {
+        if (encoded.startsWith("n")) {
+            return null;
+        }
+        if (!encoded.startsWith("v")) {
+            throw new IllegalArgumentException("Invalid cursor.");
+        }
+        try {
+            return LocalDateTime.parse(encoded.substring(1));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor.", e);
+        }
+    }
+
+    // Agregat jest zawsze dostępny - film bez recenzji ma zerowe statystyki
+    public RatingStats getRatingStats(String movieId) {
+        return ratingStatsRepository.findById(movieId).orElseGet(() -> new RatingStats(movieId));
+    }
+
+    // W trybie write-behind recenzja dostaje ID od razu, a zapis następuje w tle;
+    // przy pełnej kolejce rzuca RejectedExecutionException.
+    // Druga recenzja tego samego filmu przez tego samego użytkownika kończy się DuplicateKeyException.
     public Review addReview(Review review) {
-        return reviewRepository.save(review);
+        if (writeBuffer != null) {
+            return enqueueReview(review);
+        }
+        if (duplicateGuard.isDuplicate(review.getUserId(), review.getMovieId())) {
+            throw new DuplicateKeyException(DUPLICATE_REVIEW_MESSAGE);
+        }
+        Review saved;
+        RatingAggregateLocks.Lease lease = aggregateLocks.shared(Arrays.asList(review.getMovieId()));
+        try {
+            try {
+                saved = reviewRepository.save(review);
+            } catch (DuplicateKeyException e) {
+                // Równoległy zapis tej samej pary zatrzymany przez unikalny indeks
+                throw new DuplicateKeyException(DUPLICATE_REVIEW_MESSAGE, e);
+            }
+            applyRating(saved.getMovieId(), saved.getRating(), 1);
+            ratingTrendRepository.applyRating(saved.getMovieId(), saved.getReviewDate(), saved.getRating(), 1);
+        } finally {
+            lease.close();
+        }
+        duplicateGuard.record(saved.getUserId(), saved.getMovieId());
+        eventPublisher.publishEvent(new MovieActivityEvent(saved.getMovieId(), MovieActivityEvent.Type.REVIEW));
+        return saved;
+    }
+
+    // Para jest rezerwowana przed sprawdzeniem bazy, więc druga recenzja czekająca na zapis nie przejdzie
+    // i nie zostanie potem po cichu odrzucona przez unikalny indeks
+    private Review enqueueReview(Review review) {
+        String key = pendingKey(review);
+        RatingAggregateLocks.Lease lease = aggregateLocks.shared(Arrays.asList(review.getMovieId()));
+        if (pendingReviews.putIfAbsent(key, lease) != null) {
+            lease.close();
+            throw new DuplicateKeyException(DUPLICATE_REVIEW_MESSAGE);
+        }
+        try {
+            if (duplicateGuard.isDuplicate(review.getUserId(), review.getMovieId())) {
+                throw new DuplicateKeyException(DUPLICATE_REVIEW_MESSAGE);
+            }
+            if (review.getId() == null) {
+                review.setId(new ObjectId().toHexString());
+            }
+            if (!writeBuffer.offer(review)) {
+                throw new RejectedExecutionException("Review write buffer is full.");
+            }
+        } catch (RuntimeException e) {
+            pendingReviews.remove(key);
+            lease.close();
+            throw e;
+        }
+        duplicateGuard.record(review.getUserId(), review.getMovieId());
+        return review;
+    }
+
+    // Po zapisie partii o duplikatach decyduje już baza, a agregaty zawierają już jej przyrosty
+    private void releasePending(List<Review> reviews) {
+        reviews.forEach(review -> {
+            RatingAggregateLocks.Lease lease = pendingReviews.remove(pendingKey(review));
+            if (lease != null) {
+                lease.close();
+            }
+        });
+    }
+
+    private static String pendingKey(Review review) {
+        return review.getUserId() + "|" + review.getMovieId();
     }
 
     public void deleteReview(String id) {
-        reviewRepository.deleteById(id);
+        // Odczyt tylko wskazuje film do zablokowania - o zmianie agregatu decyduje dokument zwrócony przez usunięcie
+        Optional<Review> existing = reviewRepository.findById(id);
+        if (existing.isEmpty()) {
+            return;
+        }
+        RatingAggregateLocks.Lease lease = aggregateLocks.shared(Arrays.asList(existing.get().getMovieId()));
+        try {
+            // Usunięcie zwraca starą ocenę; przy dwóch równoległych usunięciach tylko jedno dostaje dokument i zmienia agregat
+            Review removed = reviewRepository.findAndRemoveById(id);
+            if (removed != null) {
+                applyRating(removed.getMovieId(), removed.getRating(), -1);
+                ratingTrendRepository.applyRating(removed.getMovieId(), removed.getReviewDate(), removed.getRating(), -1);
+            }
+        } finally {
+            lease.close();
+        }
     }
 
     public Review updateReview(String id, Review review) {
-        return reviewRepository.findById(id).map(existingReview -> {
-            existingReview.setMovieId(review.getMovieId());
-            existingReview.setUserId(review.getUserId());
-            existingReview.setRating(review.getRating());
-            existingReview.setReviewText(review.getReviewText());
-            existingReview.setReviewDate(review.getReviewDate());
-            return reviewRepository.save(existingReview);
-        }).orElseThrow(() -> new RuntimeException("Review not found with id: " + id));
+        Review updated = new Review(id, review.getMovieId(), review.getUserId(), review.getRating(), review.getReviewText(),
+                review.getReviewDate());
+        // Odczyt tylko wskazuje filmy do zablokowania - przyrosty liczymy z dokumentu zwróconego przez zamianę
+        Review existing = reviewRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Review not found with id: " + id));
+        RatingAggregateLocks.Lease lease = aggregateLocks.shared(Arrays.asList(existing.getMovieId(), updated.getMovieId()));
+        try {
+            Review previous;
+            try {
+                // Zamiana zwraca dokument, który faktycznie zastąpiła - przy równoległych zmianach każda odejmuje swoją poprzedniczkę
+                previous = reviewRepository.findAndReplace(updated);
+            } catch (DuplicateKeyException e) {
+                throw new DuplicateKeyException(DUPLICATE_REVIEW_MESSAGE, e);
+            }
+            if (previous == null) {
+                throw new RuntimeException("Review not found with id: " + id);
+            }
+            duplicateGuard.record(updated.getUserId(), updated.getMovieId());
+            boolean ratingChanged = !Objects.equals(previous.getMovieId(), updated.getMovieId()) || previous.getRating() != updated.getRating();
+            if (ratingChanged) {
+                applyRating(previous.getMovieId(), previous.getRating(), -1);
+                applyRating(updated.getMovieId(), updated.getRating(), 1);
+            }
+            // Zmiana dnia recenzji przenosi ją do innego przedziału trendu
+            if (ratingChanged || !Objects.equals(day(previous.getReviewDate()), day(updated.getReviewDate()))) {
+                ratingTrendRepository.applyRating(previous.getMovieId(), previous.getReviewDate(), previous.getRating(), -1);
+                ratingTrendRepository.applyRating(updated.getMovieId(), updated.getReviewDate(), updated.getRating(), 1);
+            }
+        } finally {
+            lease.close();
+        }
+        return updated;
+    }
+
+    // Zapis partii z bufora: jeden bulk insert recenzji i jeden bulk upsert agregatów.
+    // Etapy są zapamiętywane w partii - ponowienie po błędzie agregatów nie wstawia recenzji drugi raz.
+    // Blokady filmów trzymają recenzje partii (pendingReviews) przez wszystkie próby
+    void saveBatch(ReviewWriteBuffer.Batch batch) {
+        if (batch.getWritten() == null) {
+            List<Review> reviews = batch.getReviews();
+            List<Review> written = reviewRepository.insertUnordered(reviews);
+            if (written.size() < reviews.size()) {
+                System.out.println("Review batch: " + (reviews.size() - written.size()) + " of " + reviews.size() + " reviews rejected");
+            }
+            batch.setWritten(written);
+        }
+        List<Review> written = batch.getWritten();
+        batch.stage("stats", () -> ratingStatsRepository.applyRatings(written));
+        batch.stage("trends", () -> ratingTrendRepository.applyRatings(written));
+        batch.stage("events", () -> written.forEach(review -> {
+            eventPublisher.publishEvent(new ReviewRatingEvent(review.getMovieId(), review.getRating(), 1));
+            eventPublisher.publishEvent(new MovieActivityEvent(review.getMovieId(), MovieActivityEvent.Type.REVIEW));
+        }));
+    }
+
+    private static LocalDate day(LocalDateTime date) {
+        return date == null ? null : date.toLocalDate();
+    }
+
+    private void applyRating(String movieId, int rating, int sign) {
+        ratingStatsRepository.applyRating(movieId, rating, sign);
+        eventPublisher.publishEvent(new ReviewRatingEvent(movieId, rating, sign));
     }
 }
@@ -0,0 +1,231 @@
+package com.movieapp.movieapplication.service;
+
+import com.movieapp.movieapplication.model.Review;
+import com.movieapp.movieapplication.model.WriteBufferStats;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// Bufor zapisu recenzji (write-behind): żądanie tylko wstawia recenzję do ograniczonej kolejki,
+// a jeden wątek w tle zapisuje je partiami - gdy uzbiera się batchSize recenzji albo minie flushInterval.
+// Pełna kolejka to sygnał przeciążenia: offer() czeka chwilę, a potem odrzuca recenzję.
+// Nieudany zapis partii jest ponawiany z rosnącym odstępem; ponowienie zaczyna od etapu, który się nie udał.
+public class ReviewWriteBuffer {
+
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long RETRY_BACKOFF_MILLIS = 100;
+
+    private final BlockingQueue<Review> queue;
+    private final int capacity;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final long offerTimeoutMillis;
+    private final Consumer<Batch> sink;
+    private final Consumer<List<Review>> completion;
+    private final Thread flusher;
+    private volatile boolean closed;
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong flushed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong totalFlushMillis = new AtomicLong();
+    private volatile long lastFlushMillis;
+    private volatile long maxFlushMillis;
+
+    public ReviewWriteBuffer(int capacity, int batchSize, long flushIntervalMillis, long offerTimeoutMillis,
+                             Consumer<Batch> sink) {
+        this(capacity, batchSize, flushIntervalMillis, offerTimeoutMillis, sink, reviews -> {
+        });
+    }
+
+    // completion dostaje każdą partię po zakończeniu zapisu - udanym albo ostatecznie nieudanym
+    public ReviewWriteBuffer(int capacity, int batchSize, long flushIntervalMillis, long offerTimeoutMillis,
+                             Consumer<Batch> sink, Consumer<List<Review>> completion) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.sink = sink;
+        this.completion = completion;
+        this.flusher = new Thread(this::runFlusher, "review-write-behind");
+        this.flusher.setDaemon(true);
+    }
+
+    public void start() {
+        flusher.start();
+    }
+
+    // false gdy kolejka była pełna przez cały offerTimeout (albo bufor jest zamknięty)
+    public boolean offer(Review review) {
+        if (closed) {
+            rejected.incrementAndGet();
+            return false;
+        }
+        try {
+            if (queue.offer(review, offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                accepted.incrementAndGet();
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        rejected.incrementAndGet();
+        return false;
+    }
+
+    // Zamknięcie przy wyłączaniu aplikacji: nowe recenzje są odrzucane, a kolejka zapisywana do końca
+    public void close(long timeoutMillis) {
+        closed = true;
+        // Bez przerywania wątku - przerwanie mogłoby zerwać trwający zapis partii
+        try {
+            flusher.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!flusher.isAlive()) {
+            // Recenzje wstawione równolegle z zamykaniem
+            drain(new ArrayList<>(batchSize));
+        }
+        if (!queue.isEmpty()) {
+            System.out.println("Review write-behind buffer closed with " + queue.size() + " unsaved reviews");
+        }
+    }
+
+    public WriteBufferStats getStats() {
+        WriteBufferStats stats = new WriteBufferStats();
+        stats.setEnabled(true);
+        stats.setQueueDepth(queue.size());
+        stats.setCapacity(capacity);
+        stats.setAccepted(accepted.get());
+        stats.setRejected(rejected.get());
+        stats.setFlushed(flushed.get());
+        stats.setFailed(failed.get());
+        stats.setFlushes(flushes.get());
+        stats.setLastFlushMillis(lastFlushMillis);
+        stats.setMaxFlushMillis(maxFlushMillis);
+        stats.setTotalFlushMillis(totalFlushMillis.get());
+        return stats;
+    }
+
+    private void runFlusher() {
+        List<Review> batch = new ArrayList<>(batchSize);
+        while (!closed) {
+            try {
+                Review first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // Krótkie dobieranie do pełnej partii, ale nie dłużej niż flushInterval od pierwszej recenzji
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    Review next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                flush(batch);
+                return;
+            }
+            flush(batch);
+        }
+        drain(batch);
+    }
+
+    private void drain(List<Review> batch) {
+        while (queue.drainTo(batch, batchSize) > 0 || !batch.isEmpty()) {
+            flush(batch);
+        }
+    }
+
+    private void flush(List<Review> reviews) {
+        if (reviews.isEmpty()) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        Batch batch = new Batch(List.copyOf(reviews));
+        for (int attempt = 1; ; attempt++) {
+            try {
+                sink.accept(batch);
+                flushed.addAndGet(reviews.size());
+                break;
+            } catch (RuntimeException e) {
+                if (attempt >= MAX_ATTEMPTS || !backoff(attempt)) {
+                    failed.addAndGet(reviews.size());
+                    System.out.println("Could not flush " + reviews.size() + " reviews: " + e.getMessage());
+                    break;
+                }
+            }
+        }
+        completion.accept(batch.getReviews());
+        long millis = System.currentTimeMillis() - start;
+        flushes.incrementAndGet();
+        totalFlushMillis.addAndGet(millis);
+        lastFlushMillis = millis;
+        maxFlushMillis = Math.max(maxFlushMillis, millis);
+        reviews.clear();
+    }
+
+    // 100 ms, 200 ms, ...; false gdy wątek został przerwany
+    private static boolean backoff(int attempt) {
+        try {
+            Thread.sleep(RETRY_BACKOFF_MILLIS << (attempt - 1));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // Partia w trakcie zapisu. Zapamiętuje ukończone etapy, więc ponowienie po błędzie nie powtarza
+    // już wykonanych zapisów (np. przyrostów agregatów) i nie gubi wyniku wstawienia recenzji.
+    public static class Batch {
+        private final List<Review> reviews;
+        private final Set<String> completedStages = new HashSet<>();
+        private List<Review> written;
+
+        public Batch(List<Review> reviews) {
+            this.reviews = reviews;
+        }
+
+        public List<Review> getReviews() {
+            return reviews;
+        }
+
+        // Recenzje faktycznie zapisane przez pierwszy etap; null dopóki się nie udał
+        public List<Review> getWritten() {
+            return written;
+        }
+
+        public void setWritten(List<Review> written) {
+            this.written = written;
+        }
+
+        // Wykonuje etap, chyba że udał się już w poprzedniej próbie
+        public void stage(String name, Runnable action) {
+            if (completedStages.contains(name)) {
+                return;
+            }
+            action.run();
+            completedStages.add(name);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.movieapp.movieapplication.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Licznik w przesuwnym oknie czasowym: pierścień kubełków po bucketMillis, każdy z numerem epoki.
+// Zapis to LongAdder bez blokad, więc wiele wątków zwiększających licznik popularnego filmu nie rywalizuje
+// o jedną komórkę. Kubełek jest zerowany przy pierwszym zapisie w nowej epoce; dodania równoległe z tym
+// zerowaniem mogą zginąć, co przy rankingu przybliżonym jest akceptowalne.
+public class SlidingWindowCounter {
+
+    private final long bucketMillis;
+    private final LongAdder[] counts;
+    private final AtomicLongArray epochs;
+
+    public SlidingWindowCounter(long windowMillis, int buckets) {
+        this.bucketMillis = Math.max(windowMillis / buckets, 1);
+        this.counts = new LongAdder[buckets];
+        this.epochs = new AtomicLongArray(buckets);
+        for (int i = 0; i < buckets; i++) {
+            counts[i] = new LongAdder();
+            epochs.set(i, -1);
+        }
+    }
+
+    public void add(long nowMillis, long amount) {
+        long epoch = nowMillis / bucketMillis;
+        int slot = (int) (epoch % counts.length);
+        long seen = epochs.get(slot);
+        if (seen < epoch && epochs.compareAndSet(slot, seen, epoch)) {
+            counts[slot].reset();
+        }
+        if (epochs.get(slot) == epoch) {
+            counts[slot].add(amount);
+        }
+    }
+
+    // Suma z kubełków należących do okna kończącego się w nowMillis
+    public long sum(long nowMillis) {
+        long epoch = nowMillis / bucketMillis;
+        long oldest = epoch - counts.length + 1;
+        long total = 0;
+        for (int slot = 0; slot < counts.length; slot++) {
+            long bucketEpoch = epochs.get(slot);
+            if (bucketEpoch >= oldest && bucketEpoch <= epoch) {
+                total += counts[slot].sum();
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,37 @@
+package com.movieapp.movieapplication.service;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Zapamiętuje klucze zmienione przez eventy w czasie budowy stanu w pamięci ze strumienia z bazy.
+// Wartość ze strumienia mogła zostać przeczytana przed tą zmianą, więc nie wolno nią nadpisać klucza,
+// który event już zmienił. touch() i isTouched() dla jednego klucza muszą być wołane pod tą samą blokadą
+// (np. w compute() mapy stanu), żeby decyzja o pominięciu wartości ze strumienia była spójna z eventem.
+public class SnapshotTracker {
+
+    // null poza budową - wtedy touch() niczego nie zapamiętuje
+    private volatile Set<String> touched;
+
+    public void start() {
+        touched = ConcurrentHashMap.newKeySet();
+    }
+
+    public void touch(String key) {
+        Set<String> current = touched;
+        if (current != null) {
+            current.add(key);
+        }
+    }
+
+    public boolean isTouched(String key) {
+        Set<String> current = touched;
+        return current != null && current.contains(key);
+    }
+
+    // Kończy śledzenie i zwraca klucze zmienione w czasie budowy
+    public Set<String> finish() {
+        Set<String> current = touched;
+        touched = null;
+        return current == null ? Set.of() : current;
+    }
+}
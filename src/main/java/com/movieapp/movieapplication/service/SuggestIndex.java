@@ -0,0 +1,499 @@
+package com.movieapp.movieapplication.service;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// Indeks prefiksowy tytułów do podpowiedzi.
+// Część bazowa to posortowane, niezmienne tablice bajtów (UTF-8, tytuły kodowane przyrostowo) z drzewem
+// przedziałowym maksimów wag, więc top-k dla dowolnego prefiksu kosztuje O(k log n) niezależnie od liczby
+// pasujących tytułów.
+// Zmiany od ostatniej przebudowy trafiają do małej części delta, scalanej przy zapytaniu.
+public class SuggestIndex {
+
+    private volatile State state = new State(Segment.EMPTY);
+
+    public static String normalize(String title) {
+        return String.join(" ", TextTokenizer.normalize(title).trim().split("\\s+"));
+    }
+
+    public void put(String id, String title, long weight) {
+        State current = state;
+        current.remove(id);
+        if (title != null && !title.isBlank()) {
+            current.add(new Entry(id, title, normalize(title), weight));
+        }
+        State next = current.next;
+        if (next != null) {
+            // Trwa przebudowa - zmiana musi trafić także do nowego stanu
+            next.remove(id);
+            if (title != null && !title.isBlank()) {
+                next.add(new Entry(id, title, normalize(title), weight));
+            }
+        }
+    }
+
+    public void remove(String id) {
+        State current = state;
+        current.remove(id);
+        if (current.next != null) {
+            current.next.remove(id);
+        }
+    }
+
+    // Przebudowa części bazowej. beginRebuild() trzeba wywołać przed otwarciem kursora ze źródłem danych,
+    // żeby zapisy wykonane w trakcie czytania trafiły także do nowego stanu.
+    public synchronized void beginRebuild() {
+        State current = state;
+        if (current.next == null) {
+            current.next = new State(Segment.EMPTY);
+        }
+    }
+
+    public synchronized void completeRebuild(Iterable<Entry> entries) {
+        beginRebuild();
+        State next = state.next;
+        next.base = Segment.build(entries);
+        state = next;
+    }
+
+    public synchronized void abortRebuild() {
+        state.next = null;
+    }
+
+    public int size() {
+        State current = state;
+        return current.base.size() - current.stale.size() + current.delta.size();
+    }
+
+    // Przybliżony rozmiar tablic części bazowej w bajtach (bez małej części delta)
+    public long memoryBytes() {
+        return state.base.memoryBytes();
+    }
+
+    public List<Entry> suggest(String prefix, int limit) {
+        String normalizedPrefix = normalize(prefix);
+        if (normalizedPrefix.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        State current = state;
+        List<Entry> candidates = new ArrayList<>(current.base.top(normalizedPrefix, limit, current.stale));
+        // Delta jest mała, więc wystarcza przejście po pasującym zakresie
+        current.delta.subMap(normalizedPrefix, true, normalizedPrefix + Character.MAX_VALUE, false)
+                .values().forEach(candidates::add);
+        candidates.sort(Entry.RANKING);
+        return candidates.size() <= limit ? candidates : List.copyOf(candidates.subList(0, limit));
+    }
+
+    public static class Entry {
+        static final Comparator<Entry> RANKING = Comparator.comparingLong(Entry::getWeight).reversed()
+                .thenComparing(Entry::getNormalized)
+                .thenComparing(Entry::getId);
+
+        private final String id;
+        private final String title;
+        private final String normalized;
+        private final long weight;
+
+        public Entry(String id, String title, long weight) {
+            this(id, title, normalize(title), weight);
+        }
+
+        Entry(String id, String title, String normalized, long weight) {
+            this.id = id;
+            this.title = title;
+            this.normalized = normalized;
+            this.weight = weight;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public String getNormalized() {
+            return normalized;
+        }
+
+        public long getWeight() {
+            return weight;
+        }
+    }
+
+    private static class State {
+        private volatile Segment base;
+        // Klucz: znormalizowany tytuł + \0 + ID, żeby tytuły mogły się powtarzać
+        private final ConcurrentSkipListMap<String, Entry> delta = new ConcurrentSkipListMap<>();
+        private final Map<String, String> deltaKeyById = new ConcurrentHashMap<>();
+        // ID z części bazowej, które zostały zmienione lub usunięte
+        private final Set<String> stale = ConcurrentHashMap.newKeySet();
+        private volatile State next;
+
+        State(Segment base) {
+            this.base = base;
+        }
+
+        synchronized void add(Entry entry) {
+            String key = entry.normalized + '\u0000' + entry.id;
+            delta.put(key, entry);
+            deltaKeyById.put(entry.id, key);
+        }
+
+        synchronized void remove(String id) {
+            stale.add(id);
+            String key = deltaKeyById.remove(id);
+            if (key != null) {
+                delta.remove(key);
+            }
+        }
+    }
+
+    // Niezmienna, zwarta część bazowa posortowana bajtowo po znormalizowanym tytule.
+    // Trzymamy tylko tytuły - klucz znormalizowany jest z nich liczony przy wyszukiwaniu binarnym (kilkadziesiąt
+    // tytułów na zapytanie), więc żaden tytuł nie jest zapisany dwa razy
+    static class Segment {
+        static final Segment EMPTY = build(List.of());
+
+        private final FrontCodedStrings titles;
+        private final FrontCodedStrings ids;
+        private final long[] weights;
+        // Drzewo przedziałowe bez liści (liść leaves + i to element i): indeks elementu o największej wadze w poddrzewie
+        private final int[] tree;
+        private final int leaves;
+
+        private Segment(FrontCodedStrings titles, FrontCodedStrings ids, long[] weights) {
+            this.titles = titles;
+            this.ids = ids;
+            this.weights = weights;
+            // Wersja iteracyjna drzewa działa dla dowolnego n, bez dopełniania do potęgi dwójki
+            this.leaves = Math.max(weights.length, 1);
+            this.tree = new int[leaves];
+            Arrays.fill(tree, -1);
+            for (int node = leaves - 1; node > 0; node--) {
+                tree[node] = better(node(2 * node), node(2 * node + 1));
+            }
+        }
+
+        // Wpisy trafiają od razu do zwartych buforów zamiast do listy obiektów, a sortowana jest tablica ich numerów
+        static Segment build(Iterable<Entry> entries) {
+            ByteStrings.Builder keyBuilder = new ByteStrings.Builder();
+            ByteStrings.Builder titleBuilder = new ByteStrings.Builder();
+            ByteStrings.Builder idBuilder = new ByteStrings.Builder();
+            long[] weights = new long[16];
+            int count = 0;
+            for (Entry entry : entries) {
+                if (count == weights.length) {
+                    weights = Arrays.copyOf(weights, count * 2);
+                }
+                keyBuilder.add(entry.normalized);
+                titleBuilder.add(entry.title);
+                idBuilder.add(packId(entry.id));
+                weights[count++] = entry.weight;
+            }
+            ByteStrings keys = keyBuilder.build();
+            ByteStrings unsortedTitles = titleBuilder.build();
+            ByteStrings unsortedIds = idBuilder.build();
+
+            // Sortowanie bajtowe UTF-8, zgodne z porównaniem używanym przy wyszukiwaniu binarnym
+            int[] order = sortedOrder(keys, count);
+            FrontCodedStrings.Builder titles = new FrontCodedStrings.Builder();
+            FrontCodedStrings.Builder ids = new FrontCodedStrings.Builder();
+            long[] sortedWeights = new long[count];
+            for (int i = 0; i < count; i++) {
+                titles.add(unsortedTitles.bytes(order[i]));
+                ids.add(unsortedIds.bytes(order[i]));
+                sortedWeights[i] = weights[order[i]];
+            }
+            return new Segment(titles.build(), ids.build(), sortedWeights);
+        }
+
+        // Stabilne sortowanie przez scalanie numerów wpisów po kluczu - bez pudełkowania do Integer
+        private static int[] sortedOrder(ByteStrings keys, int count) {
+            int[] order = new int[count];
+            for (int i = 0; i < count; i++) {
+                order[i] = i;
+            }
+            int[] buffer = new int[count];
+            for (int width = 1; width < count; width <<= 1) {
+                for (int lo = 0; lo < count; lo += 2 * width) {
+                    int mid = Math.min(lo + width, count);
+                    int hi = Math.min(lo + 2 * width, count);
+                    int i = lo;
+                    int j = mid;
+                    int k = lo;
+                    while (i < mid && j < hi) {
+                        buffer[k++] = keys.compare(order[j], order[i]) < 0 ? order[j++] : order[i++];
+                    }
+                    while (i < mid) {
+                        buffer[k++] = order[i++];
+                    }
+                    while (j < hi) {
+                        buffer[k++] = order[j++];
+                    }
+                }
+                int[] swap = order;
+                order = buffer;
+                buffer = swap;
+            }
+            return order;
+        }
+
+        // ObjectId (24 małe znaki szesnastkowe) zapisujemy jako znacznik 0 i 12 bajtów, pozostałe ID jako UTF-8
+        private static byte[] packId(String id) {
+            if (id.length() == 24 && id.chars().allMatch(c -> (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) {
+                byte[] packed = new byte[13];
+                System.arraycopy(HexFormat.of().parseHex(id), 0, packed, 1, 12);
+                return packed;
+            }
+            return id.getBytes(StandardCharsets.UTF_8);
+        }
+
+        private static String unpackId(byte[] bytes) {
+            if (bytes.length == 13 && bytes[0] == 0) {
+                return HexFormat.of().formatHex(bytes, 1, 13);
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        int size() {
+            return weights.length;
+        }
+
+        long memoryBytes() {
+            return titles.memoryBytes() + ids.memoryBytes() + 8L * weights.length + 4L * tree.length;
+        }
+
+        private int node(int node) {
+            return node >= leaves ? node - leaves : tree[node];
+        }
+
+        // Przy równej wadze wygrywa wcześniejszy (alfabetycznie) tytuł
+        private int better(int a, int b) {
+            if (a < 0) {
+                return b;
+            }
+            if (b < 0) {
+                return a;
+            }
+            if (weights[a] != weights[b]) {
+                return weights[a] > weights[b] ? a : b;
+            }
+            return Math.min(a, b);
+        }
+
+        private int rangeMax(int from, int to) {
+            int best = -1;
+            for (int lo = from + leaves, hi = to + leaves; lo < hi; lo >>= 1, hi >>= 1) {
+                if ((lo & 1) == 1) {
+                    best = better(best, node(lo++));
+                }
+                if ((hi & 1) == 1) {
+                    best = better(best, node(--hi));
+                }
+            }
+            return best;
+        }
+
+        List<Entry> top(String prefix, int limit, Set<String> stale) {
+            byte[] prefixBytes = prefix.getBytes(StandardCharsets.UTF_8);
+            int from = lowerBound(prefixBytes, false);
+            int to = lowerBound(prefixBytes, true);
+            if (from >= to) {
+                return List.of();
+            }
+            // Kolejka przedziałów uporządkowana po najlepszym elemencie w przedziale
+            PriorityQueue<int[]> ranges = new PriorityQueue<>((a, b) -> better(a[0], b[0]) == a[0] ? -1 : 1);
+            ranges.add(new int[]{rangeMax(from, to), from, to});
+            List<Entry> result = new ArrayList<>(limit);
+            while (!ranges.isEmpty() && result.size() < limit) {
+                int[] range = ranges.poll();
+                int best = range[0];
+                String id = unpackId(ids.bytes(best));
+                if (!stale.contains(id)) {
+                    String title = titles.get(best);
+                    result.add(new Entry(id, title, normalize(title), weights[best]));
+                }
+                if (range[1] < best) {
+                    ranges.add(new int[]{rangeMax(range[1], best), range[1], best});
+                }
+                if (best + 1 < range[2]) {
+                    ranges.add(new int[]{rangeMax(best + 1, range[2]), best + 1, range[2]});
+                }
+            }
+            return result;
+        }
+
+        // Pierwsza pozycja, której klucz jest >= prefiks (after == false) lub > wszystkich kluczy z prefiksem
+        private int lowerBound(byte[] prefix, boolean after) {
+            int lo = 0;
+            int hi = weights.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                int cmp = comparePrefix(normalize(titles.get(mid)).getBytes(StandardCharsets.UTF_8), prefix);
+                if (cmp < 0 || (after && cmp == 0)) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        // 0 gdy klucz zaczyna się od prefiksu, w przeciwnym razie porządek bajtowy (zgodny z porządkiem znaków UTF-8)
+        private static int comparePrefix(byte[] key, byte[] prefix) {
+            int common = Math.min(key.length, prefix.length);
+            int cmp = Arrays.compareUnsigned(key, 0, common, prefix, 0, common);
+            if (cmp != 0) {
+                return cmp;
+            }
+            return key.length >= prefix.length ? 0 : -1;
+        }
+    }
+
+    // Napisy zapisane przyrostowo (front coding): w bloku po BLOCK_SIZE pierwszy jest zapisany w całości, kolejne
+    // jako długość wspólnego prefiksu z poprzednim i pozostałe bajty. Sąsiednie tytuły w porządku alfabetycznym
+    // mają zwykle wspólny początek; odczyt jednego napisu dekoduje najwyżej BLOCK_SIZE wpisów
+    static class FrontCodedStrings {
+        private static final int BLOCK_SIZE = 16;
+
+        private final byte[] data;
+        private final int[] blockOffsets;
+        private final int maxLength;
+
+        private FrontCodedStrings(byte[] data, int[] blockOffsets, int maxLength) {
+            this.data = data;
+            this.blockOffsets = blockOffsets;
+            this.maxLength = maxLength;
+        }
+
+        String get(int index) {
+            return new String(bytes(index), StandardCharsets.UTF_8);
+        }
+
+        byte[] bytes(int index) {
+            byte[] value = new byte[maxLength];
+            int length = 0;
+            int[] position = {blockOffsets[index / BLOCK_SIZE]};
+            for (int i = index - index % BLOCK_SIZE; i <= index; i++) {
+                int shared = readVarint(position);
+                int suffix = readVarint(position);
+                System.arraycopy(data, position[0], value, shared, suffix);
+                position[0] += suffix;
+                length = shared + suffix;
+            }
+            return Arrays.copyOf(value, length);
+        }
+
+        long memoryBytes() {
+            return data.length + 4L * blockOffsets.length;
+        }
+
+        private int readVarint(int[] position) {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = data[position[0]++];
+                value |= (b & 0x7f) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+
+        static class Builder {
+            private final ByteArrayOutputStream data = new ByteArrayOutputStream();
+            private int[] blockOffsets = new int[16];
+            private byte[] previous = new byte[0];
+            private int count;
+            private int maxLength;
+
+            void add(byte[] value) {
+                int shared = 0;
+                if (count % BLOCK_SIZE == 0) {
+                    int block = count / BLOCK_SIZE;
+                    if (block == blockOffsets.length) {
+                        blockOffsets = Arrays.copyOf(blockOffsets, block * 2);
+                    }
+                    blockOffsets[block] = data.size();
+                } else {
+                    int limit = Math.min(previous.length, value.length);
+                    while (shared < limit && previous[shared] == value[shared]) {
+                        shared++;
+                    }
+                }
+                writeVarint(shared);
+                writeVarint(value.length - shared);
+                data.write(value, shared, value.length - shared);
+                previous = value;
+                maxLength = Math.max(maxLength, value.length);
+                count++;
+            }
+
+            private void writeVarint(int value) {
+                while ((value & ~0x7f) != 0) {
+                    data.write((value & 0x7f) | 0x80);
+                    value >>>= 7;
+                }
+                data.write(value);
+            }
+
+            FrontCodedStrings build() {
+                int blocks = (count + BLOCK_SIZE - 1) / BLOCK_SIZE;
+                return new FrontCodedStrings(data.toByteArray(), Arrays.copyOf(blockOffsets, blocks), maxLength);
+            }
+        }
+    }
+
+    // Lista napisów w jednym buforze UTF-8 z tablicą przesunięć - bufor roboczy przebudowy, zamiast listy obiektów
+    static class ByteStrings {
+        private final byte[] data;
+        private final int[] offsets;
+
+        private ByteStrings(byte[] data, int[] offsets) {
+            this.data = data;
+            this.offsets = offsets;
+        }
+
+        byte[] bytes(int index) {
+            return Arrays.copyOfRange(data, offsets[index], offsets[index + 1]);
+        }
+
+        // Porządek bajtowy (zgodny z porządkiem znaków UTF-8)
+        int compare(int a, int b) {
+            return Arrays.compareUnsigned(data, offsets[a], offsets[a + 1], data, offsets[b], offsets[b + 1]);
+        }
+
+        static class Builder {
+            private final ByteArrayOutputStream data = new ByteArrayOutputStream();
+            private int[] offsets = new int[16];
+            private int count;
+
+            void add(String value) {
+                add(value.getBytes(StandardCharsets.UTF_8));
+            }
+
+            void add(byte[] bytes) {
+                if (count + 2 > offsets.length) {
+                    offsets = Arrays.copyOf(offsets, offsets.length * 2);
+                }
+                data.writeBytes(bytes);
+                offsets[++count] = data.size();
+            }
+
+            ByteStrings build() {
+                return new ByteStrings(data.toByteArray(), Arrays.copyOf(offsets, count + 1));
+            }
+        }
+    }
+}
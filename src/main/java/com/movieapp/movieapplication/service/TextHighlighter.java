@@ -0,0 +1,142 @@
+package com.movieapp.movieapplication.service;
+
+import org.springframework.web.util.HtmlUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Podświetlanie trafień w tekście: fragmenty wokół dopasowanych słów i fraz, trafienia w <em>...</em>.
+// Dopasowanie na tokenach jak w TextTokenizer (małe litery, bez diakrytyków), więc "Łódź" pasuje do "lodz".
+public final class TextHighlighter {
+
+    // Fraza w cudzysłowie albo pojedyncze słowo, opcjonalnie wykluczone przez "-" (składnia $text MongoDB)
+    private static final Pattern QUERY_PARTS = Pattern.compile("(-?)\"([^\"]*)\"|(-?)(\\S+)");
+
+    private TextHighlighter() {
+    }
+
+    // Każdy element to fraza jako lista tokenów; pojedyncze słowo to fraza jednotokenowa. Wykluczenia są pomijane.
+    public static List<List<String>> parseQuery(String query) {
+        List<List<String>> phrases = new ArrayList<>();
+        if (query == null) {
+            return phrases;
+        }
+        Matcher matcher = QUERY_PARTS.matcher(query);
+        while (matcher.find()) {
+            boolean quoted = matcher.group(2) != null;
+            boolean negated = !(quoted ? matcher.group(1) : matcher.group(3)).isEmpty();
+            List<String> tokens = TextTokenizer.tokenize(quoted ? matcher.group(2) : matcher.group(4));
+            if (!negated && !tokens.isEmpty()) {
+                phrases.add(tokens);
+            }
+        }
+        return phrases;
+    }
+
+    public static List<String> highlight(String text, List<List<String>> phrases, int maxFragments, int fragmentLength) {
+        if (text == null || text.isEmpty()) {
+            return List.of();
+        }
+        List<int[]> spans = findSpans(text, phrases);
+        if (spans.isEmpty()) {
+            // Bez dopasowania (np. zmieniona treść) - początek tekstu jako podgląd
+            return List.of(fragment(text, 0, Math.min(text.length(), fragmentLength), List.of()));
+        }
+        List<String> fragments = new ArrayList<>();
+        int next = 0;
+        while (next < spans.size() && fragments.size() < maxFragments) {
+            int[] first = spans.get(next);
+            int context = Math.max((fragmentLength - (first[1] - first[0])) / 2, 0);
+            int start = wordStart(text, Math.max(first[0] - context, 0));
+            int end = wordEnd(text, Math.min(Math.max(first[1] + context, start + fragmentLength), text.length()));
+            List<int[]> inside = new ArrayList<>();
+            while (next < spans.size() && spans.get(next)[1] <= end) {
+                inside.add(spans.get(next++));
+            }
+            fragments.add(fragment(text, start, end, inside));
+        }
+        return fragments;
+    }
+
+    // Przedziały [start, end) w oryginalnym tekście pokryte przez dopasowane frazy, posortowane i scalone
+    static List<int[]> findSpans(String text, List<List<String>> phrases) {
+        List<String> tokens = new ArrayList<>();
+        List<int[]> offsets = new ArrayList<>();
+        StringBuilder token = new StringBuilder();
+        int tokenStart = -1;
+        for (int i = 0; i <= text.length(); ) {
+            int codePoint = i < text.length() ? text.codePointAt(i) : ' ';
+            int width = i < text.length() ? Character.charCount(codePoint) : 1;
+            boolean wordChar = Character.isLetterOrDigit(codePoint) || Character.getType(codePoint) == Character.NON_SPACING_MARK;
+            if (wordChar && i < text.length()) {
+                if (tokenStart < 0) {
+                    tokenStart = i;
+                }
+                token.append(TextTokenizer.normalize(new String(Character.toChars(codePoint))));
+            } else if (tokenStart >= 0) {
+                tokens.add(token.toString());
+                offsets.add(new int[]{tokenStart, i});
+                token.setLength(0);
+                tokenStart = -1;
+            }
+            i += width;
+        }
+
+        List<int[]> spans = new ArrayList<>();
+        for (int position = 0; position < tokens.size(); position++) {
+            for (List<String> phrase : phrases) {
+                if (position + phrase.size() <= tokens.size() && tokens.subList(position, position + phrase.size()).equals(phrase)) {
+                    spans.add(new int[]{offsets.get(position)[0], offsets.get(position + phrase.size() - 1)[1]});
+                }
+            }
+        }
+        spans.sort((a, b) -> a[0] != b[0] ? Integer.compare(a[0], b[0]) : Integer.compare(b[1], a[1]));
+        List<int[]> merged = new ArrayList<>();
+        for (int[] span : spans) {
+            int[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && span[0] <= last[1]) {
+                last[1] = Math.max(last[1], span[1]);
+            } else {
+                merged.add(span.clone());
+            }
+        }
+        return merged;
+    }
+
+    private static String fragment(String text, int start, int end, List<int[]> spans) {
+        StringBuilder result = new StringBuilder();
+        if (start > 0) {
+            result.append("…");
+        }
+        int position = start;
+        for (int[] span : spans) {
+            result.append(HtmlUtils.htmlEscape(text.substring(position, span[0]), "UTF-8"))
+                    .append("<em>").append(HtmlUtils.htmlEscape(text.substring(span[0], span[1]), "UTF-8")).append("</em>");
+            position = span[1];
+        }
+        result.append(HtmlUtils.htmlEscape(text.substring(position, end), "UTF-8"));
+        if (end < text.length()) {
+            result.append("…");
+        }
+        return result.toString();
+    }
+
+    // Granice fragmentu przesuwamy do spacji, żeby nie ucinać słów
+    private static int wordStart(String text, int index) {
+        int start = index;
+        while (start > 0 && !Character.isWhitespace(text.charAt(start - 1)) && index - start < 20) {
+            start--;
+        }
+        return start;
+    }
+
+    private static int wordEnd(String text, int index) {
+        int end = index;
+        while (end < text.length() && !Character.isWhitespace(text.charAt(end)) && end - index < 20) {
+            end++;
+        }
+        return end;
+    }
+}
@@ -0,0 +1,294 @@
+package com.movieapp.movieapplication.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Odwrócony indeks w pamięci z rankingiem BM25.
+// Dokumenty dostają rosnące numery wewnętrzne, więc listy wystąpień są zawsze posortowane;
+// usunięcie/edycja oznacza stary numer jako skasowany, a kompaktowanie co jakiś czas je usuwa.
+public class TextIndex {
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final int MIN_DELETED_FOR_COMPACTION = 1024;
+    // Malejąco po wyniku, przy równym wyniku po kluczu - kolejność nie może zależeć od offset + limit,
+    // inaczej dokument z remisem na granicy strony trafiłby na dwie strony albo na żadną
+    private static final Comparator<Hit> RANKING = Comparator.comparingDouble(Hit::getScore).reversed()
+            .thenComparing(Hit::getKey);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<String, Integer> docByKey = new HashMap<>();
+    private final BitSet deleted = new BitSet();
+    private String[] keys = new String[1024];
+    private float[] lengths = new float[1024];
+    private int maxDoc;
+    private int liveDocs;
+    private double totalLength;
+
+    // termFrequencies: term -> (ważona) liczba wystąpień w dokumencie
+    public void put(String key, Map<String, Float> termFrequencies) {
+        lock.writeLock().lock();
+        try {
+            if (removeInternal(key)) {
+                maybeCompact();
+            }
+            int doc = maxDoc++;
+            ensureCapacity(maxDoc);
+            float length = 0;
+            for (Map.Entry<String, Float> entry : termFrequencies.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), term -> new Postings()).add(doc, entry.getValue());
+                length += entry.getValue();
+            }
+            keys[doc] = key;
+            lengths[doc] = length;
+            docByKey.put(key, doc);
+            liveDocs++;
+            totalLength += length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean remove(String key) {
+        lock.writeLock().lock();
+        try {
+            boolean removed = removeInternal(key);
+            if (removed) {
+                maybeCompact();
+            }
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            docByKey.clear();
+            deleted.clear();
+            keys = new String[1024];
+            lengths = new float[1024];
+            maxDoc = 0;
+            liveDocs = 0;
+            totalLength = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveDocs;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Wyszukiwanie dokumentów zawierających wszystkie termy, posortowanych malejąco po BM25
+    public Result search(List<String> terms, int offset, int limit) {
+        List<String> distinctTerms = new ArrayList<>(new LinkedHashSet<>(terms));
+        if (distinctTerms.isEmpty() || limit <= 0) {
+            return new Result(0, List.of());
+        }
+        lock.readLock().lock();
+        try {
+            Postings[] lists = new Postings[distinctTerms.size()];
+            for (int i = 0; i < lists.length; i++) {
+                lists[i] = postings.get(distinctTerms.get(i));
+                if (lists[i] == null) {
+                    return new Result(0, List.of());
+                }
+            }
+            // Przecięcie zaczynamy od najkrótszej listy
+            Arrays.sort(lists, Comparator.comparingInt(list -> list.size));
+            float[] idf = new float[lists.length];
+            for (int i = 0; i < lists.length; i++) {
+                int df = Math.min(lists[i].size, liveDocs);
+                idf[i] = (float) Math.log(1 + (liveDocs - df + 0.5) / (df + 0.5));
+            }
+            float averageLength = liveDocs == 0 ? 1 : (float) (totalLength / liveDocs);
+
+            int wanted = offset + limit;
+            // Na szczycie kopca najgorszy z zachowanych trafień
+            PriorityQueue<Hit> top = new PriorityQueue<>(RANKING.reversed());
+            int[] cursors = new int[lists.length];
+            int total = 0;
+            Postings first = lists[0];
+            candidates:
+            for (int j = 0; j < first.size; j++) {
+                int doc = first.docs[j];
+                if (deleted.get(doc)) {
+                    continue;
+                }
+                float norm = K1 * (1 - B + B * lengths[doc] / averageLength);
+                float score = idf[0] * bm25(first.frequencies[j], norm);
+                for (int i = 1; i < lists.length; i++) {
+                    Postings list = lists[i];
+                    int found = Arrays.binarySearch(list.docs, cursors[i], list.size, doc);
+                    if (found < 0) {
+                        cursors[i] = -found - 1;
+                        if (cursors[i] >= list.size) {
+                            break candidates;
+                        }
+                        continue candidates;
+                    }
+                    cursors[i] = found + 1;
+                    score += idf[i] * bm25(list.frequencies[found], norm);
+                }
+                total++;
+                if (top.size() < wanted) {
+                    top.add(new Hit(keys[doc], score));
+                } else {
+                    Hit worst = top.peek();
+                    if (worst.getScore() < score || (worst.getScore() == score && keys[doc].compareTo(worst.getKey()) < 0)) {
+                        top.poll();
+                        top.add(new Hit(keys[doc], score));
+                    }
+                }
+            }
+            List<Hit> ranked = new ArrayList<>(top);
+            ranked.sort(RANKING);
+            List<Hit> page = offset >= ranked.size() ? List.of() : ranked.subList(offset, ranked.size());
+            return new Result(total, List.copyOf(page));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static float bm25(float frequency, float norm) {
+        return frequency * (K1 + 1) / (frequency + norm);
+    }
+
+    private boolean removeInternal(String key) {
+        Integer doc = docByKey.remove(key);
+        if (doc == null) {
+            return false;
+        }
+        deleted.set(doc);
+        keys[doc] = null;
+        liveDocs--;
+        totalLength -= lengths[doc];
+        return true;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > keys.length) {
+            int newLength = Math.max(capacity, keys.length * 2);
+            keys = Arrays.copyOf(keys, newLength);
+            lengths = Arrays.copyOf(lengths, newLength);
+        }
+    }
+
+    private void maybeCompact() {
+        int deletedDocs = maxDoc - liveDocs;
+        if (deletedDocs >= MIN_DELETED_FOR_COMPACTION && deletedDocs > liveDocs / 4) {
+            compact();
+        }
+    }
+
+    // Przenumerowanie dokumentów bez skasowanych pozycji
+    private void compact() {
+        int[] remap = new int[maxDoc];
+        int next = 0;
+        for (int doc = 0; doc < maxDoc; doc++) {
+            if (deleted.get(doc)) {
+                remap[doc] = -1;
+            } else {
+                remap[doc] = next;
+                keys[next] = keys[doc];
+                lengths[next] = lengths[doc];
+                docByKey.put(keys[next], next);
+                next++;
+            }
+        }
+        Arrays.fill(keys, next, maxDoc, null);
+        Iterator<Postings> iterator = postings.values().iterator();
+        while (iterator.hasNext()) {
+            Postings list = iterator.next();
+            list.remap(remap);
+            if (list.size == 0) {
+                iterator.remove();
+            }
+        }
+        maxDoc = next;
+        deleted.clear();
+    }
+
+    private static class Postings {
+        private int[] docs = new int[4];
+        private float[] frequencies = new float[4];
+        private int size;
+
+        void add(int doc, float frequency) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            docs[size] = doc;
+            frequencies[size] = frequency;
+            size++;
+        }
+
+        void remap(int[] remap) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                int doc = remap[docs[i]];
+                if (doc >= 0) {
+                    docs[kept] = doc;
+                    frequencies[kept] = frequencies[i];
+                    kept++;
+                }
+            }
+            size = kept;
+        }
+    }
+
+    public static class Hit {
+        private final String key;
+        private final float score;
+
+        public Hit(String key, float score) {
+            this.key = key;
+            this.score = score;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public float getScore() {
+            return score;
+        }
+    }
+
+    public static class Result {
+        private final int total;
+        private final List<Hit> hits;
+
+        public Result(int total, List<Hit> hits) {
+            this.total = total;
+            this.hits = hits;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        public List<Hit> getHits() {
+            return hits;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.movieapp.movieapplication.service;
+
+import com.movieapp.movieapplication.model.User;
+import com.movieapp.movieapplication.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.util.stream.Stream;
+
+// Sprawdzanie zajętości nazwy użytkownika i e-maila bez zapytania do bazy w typowym przypadku.
+// Filtr Blooma zajętych wartości odpowiada "na pewno wolne" albo "może zajęte" - tylko w drugim
+// przypadku pytamy MongoDB. Przy rejestracji gwarancję dają unikalne indeksy, nie ten filtr.
+@Service
+public class UserAvailabilityGuard {
+
+    private final UserRepository userRepository;
+
+    private final RebuildableBloomFilter filter = new RebuildableBloomFilter("User availability");
+
+    @Value("${movieapp.users.bloom.expected-insertions:100000}")
+    private long expectedInsertions = 100_000;
+
+    @Value("${movieapp.users.bloom.false-positive-rate:0.01}")
+    private double falsePositiveRate = 0.01;
+
+    public UserAvailabilityGuard(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    public boolean isUsernameTaken(String username) {
+        if (!filter.mightContain(usernameKey(username))) {
+            return false;
+        }
+        return userRepository.existsByUsername(username);
+    }
+
+    public boolean isEmailTaken(String email) {
+        if (!filter.mightContain(emailKey(email))) {
+            return false;
+        }
+        return userRepository.existsByEmail(email);
+    }
+
+    // Stare wartości po zmianie zostają w filtrze - to tylko dodatkowe fałszywe trafienia sprawdzane w bazie
+    public void record(String username, String email) {
+        if (username != null) {
+            filter.put(usernameKey(username));
+        }
+        if (email != null) {
+            filter.put(emailKey(email));
+        }
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            System.out.println("Could not build user availability filter: " + e.getMessage());
+        }
+    }
+
+    // Dwa klucze na użytkownika; rozmiar z zapasem na wzrost do następnego startu
+    public void rebuild() {
+        filter.rebuild(Math.max(expectedInsertions, userRepository.count() * 4), falsePositiveRate, keys -> {
+            try (Stream<User> users = userRepository.streamUsernamesAndEmails()) {
+                users.forEach(user -> {
+                    if (user.getUsername() != null) {
+                        keys.accept(usernameKey(user.getUsername()));
+                    }
+                    if (user.getEmail() != null) {
+                        keys.accept(emailKey(user.getEmail()));
+                    }
+                });
+            }
+        });
+    }
+
+    private static String usernameKey(String username) {
+        return "u\u0000" + username;
+    }
+
+    private static String emailKey(String email) {
+        return "e\u0000" + email;
+    }
+}
@@ -1,46 +1,122 @@
 package com.movieapp.movieapplication.service;
 
+import com.movieapp.movieapplication.model.CursorPage;
 import com.movieapp.movieapplication.model.Movie;
+import com.movieapp.movieapplication.model.PasswordHashingStats;
 import com.movieapp.movieapplication.model.User;
+import com.movieapp.movieapplication.model.UserAvailability;
+import com.movieapp.movieapplication.model.UserMovieListChange;
+import com.movieapp.movieapplication.model.WatchHistoryEntry;
 import com.movieapp.movieapplication.repository.MovieRepository;
 import com.movieapp.movieapplication.repository.UserRepository;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import com.movieapp.movieapplication.repository.UserRepositoryCustom;
+import com.movieapp.movieapplication.repository.WatchHistoryRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Optional;
 
 @Service
 public class UserService {
 
+    // Nazwy unikalnych indeksów - po nich rozpoznajemy, które pole spowodowało DuplicateKeyException
+    public static final String EMAIL_INDEX = "email_unique";
+    public static final String USERNAME_INDEX = "username_unique";
+
+    private static final String FAVORITE_MOVIES = "favoriteMovies";
+    private static final String WATCHED_MOVIES = "watchedMovies";
+
     private final UserRepository userRepository;
-    private final BCryptPasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashing; // BCrypt na osobnej, ograniczonej puli
     private final EmailService emailService;
     private final MovieRepository movieRepository;
+    private final ApplicationEventPublisher eventPublisher; // Aktywność użytkowników dla rankingu "na czasie"
+    private final WatchHistoryRepository watchHistoryRepository;
+    private final UserAvailabilityGuard availabilityGuard;
+    // Indeksy unikalne powstają w tle po starcie i mogą się nie udać - do ich potwierdzenia sprawdzamy zajętość zapytaniem
+    private volatile boolean uniqueIndexesConfirmed;
+
+    @Value("${movieapp.pagination.default-page-size:20}")
+    private int defaultPageSize = 20;
 
-    public UserService(UserRepository userRepository, BCryptPasswordEncoder passwordEncoder, EmailService emailService, MovieRepository movieRepository) {
+    @Value("${movieapp.pagination.max-page-size:100}")
+    private int maxPageSize = 100;
+
+    public UserService(UserRepository userRepository, PasswordHashingService passwordHashing, EmailService emailService, MovieRepository movieRepository,
+                       ApplicationEventPublisher eventPublisher, WatchHistoryRepository watchHistoryRepository,
+                       UserAvailabilityGuard availabilityGuard) {
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHashing = passwordHashing;
         this.emailService = emailService;
         this.movieRepository = movieRepository;
+        this.eventPublisher = eventPublisher;
+        this.watchHistoryRepository = watchHistoryRepository;
+        this.availabilityGuard = availabilityGuard;
     }
 
 
+    // Jeden insert - unikalność sprawdzają indeksy, więc dwie równoczesne rejestracje nie przejdą obie
     public User registerUser(String username, String email, String password) {
-        if (userRepository.findByEmail(email).isPresent()) {
-            throw new IllegalArgumentException("Email is already in use.");
-        }
-        if (userRepository.findByUsername(username).isPresent()) {
-            throw new IllegalArgumentException("Username is already in use.");
+        if (!uniqueIndexesExist()) {
+            if (userRepository.existsByEmail(email)) {
+                throw new IllegalArgumentException("Email is already in use.");
+            }
+            if (userRepository.existsByUsername(username)) {
+                throw new IllegalArgumentException("Username is already in use.");
+            }
         }
 
         User user = new User();
         user.setUsername(username);
         user.setEmail(email);
-        user.setPasswordHash(passwordEncoder.encode(password));
+        user.setPasswordHash(passwordHashing.encode(password));
         user.setRole("ROLE_USER");
 
-        return userRepository.save(user);
+        User saved;
+        try {
+            saved = userRepository.insert(user);
+        } catch (DuplicateKeyException e) {
+            throw duplicateUser(e);
+        }
+        availabilityGuard.record(username, email);
+        return saved;
+    }
+
+    // Po pierwszym potwierdzeniu wynik zostaje zapamiętany - kolejne rejestracje to już tylko insert
+    private boolean uniqueIndexesExist() {
+        if (!uniqueIndexesConfirmed) {
+            try {
+                uniqueIndexesConfirmed = userRepository.hasUniqueIndexes(EMAIL_INDEX, USERNAME_INDEX);
+            } catch (RuntimeException e) {
+                return false;
+            }
+        }
+        return uniqueIndexesConfirmed;
+    }
+
+    private static IllegalArgumentException duplicateUser(DuplicateKeyException e) {
+        String message = e.getMessage() == null ? "" : e.getMessage();
+        if (message.contains(USERNAME_INDEX)) {
+            return new IllegalArgumentException("Username is already in use.", e);
+        }
+        return new IllegalArgumentException("Email is already in use.", e);
+    }
+
+    // Podpowiedź dla formularza rejestracji; null dla niepodanego pola
+    public UserAvailability checkAvailability(String username, String email) {
+        boolean hasUsername = username != null && !username.isBlank();
+        boolean hasEmail = email != null && !email.isBlank();
+        if (!hasUsername && !hasEmail) {
+            throw new IllegalArgumentException("Username or email is required.");
+        }
+        return new UserAvailability(
+                hasUsername ? !availabilityGuard.isUsernameTaken(username) : null,
+                hasEmail ? !availabilityGuard.isEmailTaken(email) : null);
     }
 
     public User loginUser(String email, String password) {
@@ -50,13 +126,35 @@ public class UserService {
         }
 
         User user = userOptional.get();
-        if (!passwordEncoder.matches(password, user.getPasswordHash())) {
+        if (!passwordHashing.matches(password, user.getPasswordHash())) {
             throw new IllegalArgumentException("Invalid email or password.");
         }
 
+        rehashIfNeeded(user, password);
         return user;
     }
 
+    // Po udanym logowaniu znamy hasło, więc hasz ze starym algorytmem lub kosztem przeliczamy na bieżące parametry.
+    // Błąd przeliczenia (np. pełna pula) nie psuje logowania - spróbujemy przy następnym.
+    private void rehashIfNeeded(User user, String password) {
+        String oldHash = user.getPasswordHash();
+        if (!passwordHashing.upgradeEncoding(oldHash)) {
+            return;
+        }
+        try {
+            String newHash = passwordHashing.encode(password);
+            if (userRepository.replacePasswordHash(user.getId(), oldHash, newHash)) {
+                user.setPasswordHash(newHash);
+            }
+        } catch (RuntimeException e) {
+            System.out.println("Could not rehash password for user " + user.getId() + ": " + e.getMessage());
+        }
+    }
+
+    public PasswordHashingStats getPasswordHashingStats() {
+        return passwordHashing.getStats();
+    }
+
     public List<User> getAllUsers() {
 
         return userRepository.findAll();
@@ -66,57 +164,127 @@ public class UserService {
         return userRepository.findById(id);
     }
 
+    // Aktualizacja przez $set - zapis całego dokumentu skasowałby listę watchedMovies jeszcze nieprzeniesionych użytkowników
     public User updateUser(String id, User user) {
-        return userRepository.findById(id).map(existingUser -> {
-            existingUser.setUsername(user.getUsername());
-            existingUser.setEmail(user.getEmail());
-            existingUser.setRole(user.getRole());
-            // Jeśli hasło jest zmieniane, zakoduj je:
-            if (user.getPasswordHash() != null && !user.getPasswordHash().isEmpty()) {
-                existingUser.setPasswordHash(passwordEncoder.encode(user.getPasswordHash()));
-            }
-            return userRepository.save(existingUser);
-        }).orElseThrow(() -> new IllegalArgumentException("User not found with id: " + id));
+        String passwordHash = null;
+        // Jeśli hasło jest zmieniane, zakoduj je:
+        if (user.getPasswordHash() != null && !user.getPasswordHash().isEmpty()) {
+            passwordHash = passwordHashing.encode(user.getPasswordHash());
+        }
+        User updated;
+        try {
+            updated = userRepository.updateProfile(id, user.getUsername(), user.getEmail(), user.getRole(), passwordHash);
+        } catch (DuplicateKeyException e) {
+            throw duplicateUser(e);
+        }
+        if (updated == null) {
+            throw new IllegalArgumentException("User not found with id: " + id);
+        }
+        availabilityGuard.record(updated.getUsername(), updated.getEmail());
+        return updated;
     }
 
 
     public void deleteUser(String id) {
         if (userRepository.existsById(id)) {
             userRepository.deleteById(id);
+            watchHistoryRepository.deleteByUserId(id);
         } else {
             throw new IllegalArgumentException("User not found with id: " + id);
         }
     }
 
-    public User addFavoriteMovie(String userId, String movieId) {
-        User user = userRepository.findById(userId)
+    // $addToSet po stronie bazy - bez wczytywania list użytkownika i bez gubienia równoległych zmian
+    public UserMovieListChange addFavoriteMovie(String userId, String movieId) {
+        String email = userRepository.findEmailById(userId)
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
         Movie movie = movieRepository.findById(movieId)
                 .orElseThrow(() -> new IllegalArgumentException("Movie not found"));
 
-        if (!user.getFavoriteMovies().contains(movieId)) {
-            user.getFavoriteMovies().add(movieId);
-            userRepository.save(user);
+        UserRepositoryCustom.ListUpdate result = userRepository.addToList(userId, FAVORITE_MOVIES, movieId);
+        if (result == UserRepositoryCustom.ListUpdate.NOT_FOUND) {
+            throw new IllegalArgumentException("User not found");
+        }
+        if (result == UserRepositoryCustom.ListUpdate.CHANGED) {
+            eventPublisher.publishEvent(new MovieActivityEvent(movieId, MovieActivityEvent.Type.FAVORITE));
         }
         // Dodajemy wysyłanie e-maila po dodaniu filmu do ulubionych
-        emailService.sendEmail(user.getEmail(), "Dodano do ulubionych", "Film " + movie.getTitle() + " został dodany do Twoich ulubionych.");
+        emailService.sendEmail(email, "Dodano do ulubionych", "Film " + movie.getTitle() + " został dodany do Twoich ulubionych.");
 
-        return user;
+        return new UserMovieListChange(userId, FAVORITE_MOVIES, movieId, result == UserRepositoryCustom.ListUpdate.CHANGED);
     }
 
-    public User addWatchedMovie(String userId, String movieId) {
-        User user = userRepository.findById(userId)
+    public UserMovieListChange addWatchedMovie(String userId, String movieId) {
+        String email = userRepository.findEmailById(userId)
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
         Movie movie = movieRepository.findById(movieId)
                 .orElseThrow(()-> new IllegalArgumentException("Movie not found"));
-        emailService.sendEmail(user.getEmail(), "Dodano do ulubionych", "Film " + movie.getTitle() + " został dodany do Twoich ulubionych.");
-        if (!user.getWatchedMovies().contains(movieId)) {
-            user.getWatchedMovies().add(movieId);
-            userRepository.save(user);
+        emailService.sendEmail(email, "Dodano do ulubionych", "Film " + movie.getTitle() + " został dodany do Twoich ulubionych.");
+        // Powtórne obejrzenie przesuwa film na początek historii
+        boolean added = watchHistoryRepository.recordWatch(userId, movieId, LocalDateTime.now());
+        // Każde obejrzenie liczy się do popularności, także powtórne
+        eventPublisher.publishEvent(new MovieActivityEvent(movieId, MovieActivityEvent.Type.WATCH));
+        emailService.sendEmail(email, "Dodano do ulubionych", "Film " + movie.getTitle() + " został dodany do Twoich ulubionych.");
+        return new UserMovieListChange(userId, WATCHED_MOVIES, movieId, added);
+    }
+
+    // Historia obejrzeń od najnowszych, stronicowana kursorem jak recenzje użytkownika
+    public CursorPage<WatchHistoryEntry> getWatchHistory(String userId, String cursor, Integer size) {
+        int pageSize = size == null ? defaultPageSize : Math.min(Math.max(size, 1), maxPageSize);
+        String lastId = null;
+        LocalDateTime lastDate = null;
+        if (cursor != null && !cursor.isBlank()) {
+            // {zakodowana data, lastId} - ID wpisu zawiera separator, więc idzie na końcu
+            String[] after = CursorCodec.decode(cursor, 2);
+            lastDate = decodeDate(after[0]);
+            lastId = after[1];
         }
-        emailService.sendEmail(user.getEmail(), "Dodano do ulubionych", "Film " + movie.getTitle() + " został dodany do Twoich ulubionych.");
-        return user;
+        List<WatchHistoryEntry> entries = watchHistoryRepository.findByUserIdAfter(userId, lastDate, lastId, pageSize + 1);
+        if (entries.size() <= pageSize) {
+            return new CursorPage<>(entries, null);
+        }
+        List<WatchHistoryEntry> page = entries.subList(0, pageSize);
+        WatchHistoryEntry last = page.get(pageSize - 1);
+        String date = last.getWatchedAt() == null ? "n" : "v" + last.getWatchedAt();
+        return new CursorPage<>(List.copyOf(page), CursorCodec.encode(date, last.getId()));
     }
 
+    private LocalDateTime decodeDate(String encoded) {
+        if (encoded.startsWith("n")) {
+            return null;
+        }
+        if (!encoded.startsWith("v")) {
+            throw new IllegalArgumentException("Invalid cursor.");
+        }
+        try {
+            return LocalDateTime.parse(encoded.substring(1));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor.", e);
+        }
+    }
+
+    // Usunięcie nie wymaga istnienia filmu - można usunąć z listy film już skasowany z katalogu
+    public UserMovieListChange removeFavoriteMovie(String userId, String movieId) {
+        return removeFromList(userId, FAVORITE_MOVIES, movieId);
+    }
 
-}
\ No newline at end of file
+    public UserMovieListChange removeWatchedMovie(String userId, String movieId) {
+        // Nieprzeniesiony użytkownik ma film jeszcze w osadzonej liście - bez $pull migracja zaimportowałaby go z powrotem.
+        // Najpierw lista, potem historia. Paczkę przeczytaną przed $pull migracja sprawdza po imporcie z aktualną listą
+        // i usuwa wpis, którego tam już nie ma (WatchHistoryMigrationService.migrate)
+        boolean pulled = userRepository.pullEmbeddedWatched(userId, movieId);
+        boolean removed = watchHistoryRepository.removeWatch(userId, movieId) || pulled;
+        if (!removed && !userRepository.existsById(userId)) {
+            throw new IllegalArgumentException("User not found");
+        }
+        return new UserMovieListChange(userId, WATCHED_MOVIES, movieId, removed);
+    }
+
+    private UserMovieListChange removeFromList(String userId, String field, String movieId) {
+        UserRepositoryCustom.ListUpdate result = userRepository.removeFromList(userId, field, movieId);
+        if (result == UserRepositoryCustom.ListUpdate.NOT_FOUND) {
+            throw new IllegalArgumentException("User not found");
+        }
+        return new UserMovieListChange(userId, field, movieId, result == UserRepositoryCustom.ListUpdate.CHANGED);
+    }
+}
@@ -0,0 +1,165 @@
+package com.movieapp.movieapplication.service;
+
+import com.movieapp.movieapplication.model.WatchHistoryMigration;
+import com.movieapp.movieapplication.repository.UserRepository;
+import com.movieapp.movieapplication.repository.WatchHistoryRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Przeniesienie osadzonych list watchedMovies do kolekcji watch_history.
+// Użytkownicy są czytani paczkami w kolejności ID, a paczki przenoszone równolegle: najpierw wpisy historii,
+// potem $unset listy w dokumencie użytkownika. Przerwana paczka zostawia listę na miejscu i zostanie powtórzona
+// przy następnym uruchomieniu, a powtórny import wpisów niczego nie dubluje.
+// Paczka mogła zostać przeczytana przed usunięciem filmu przez użytkownika (removeWatchedMovie robi $pull z listy),
+// więc po imporcie listy są czytane ponownie, a wpisy filmów, których już w nich nie ma, usuwane przed $unset.
+@Service
+public class WatchHistoryMigrationService {
+
+    private final UserRepository userRepository;
+    private final WatchHistoryRepository watchHistoryRepository;
+    private final ExecutorService coordinator;
+    private final ExecutorService workers;
+    private final int parallelism;
+    private final int batchSize;
+
+    private volatile WatchHistoryMigration current;
+    private volatile boolean cancelRequested;
+
+    public WatchHistoryMigrationService(UserRepository userRepository, WatchHistoryRepository watchHistoryRepository,
+                                        @Value("${movieapp.users.watch-history.migration.workers:4}") int parallelism,
+                                        @Value("${movieapp.users.watch-history.migration.batch-size:100}") int batchSize) {
+        this.userRepository = userRepository;
+        this.watchHistoryRepository = watchHistoryRepository;
+        this.parallelism = parallelism;
+        this.batchSize = batchSize;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.coordinator = Executors.newSingleThreadExecutor(runnable -> daemon(runnable, "watch-history-migration"));
+        this.workers = Executors.newFixedThreadPool(parallelism,
+                runnable -> daemon(runnable, "watch-history-migration-" + threadNumber.incrementAndGet()));
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    public synchronized WatchHistoryMigration start() {
+        if (current != null && current.getStatus() == WatchHistoryMigration.Status.RUNNING) {
+            return current;
+        }
+        WatchHistoryMigration migration = new WatchHistoryMigration();
+        cancelRequested = false;
+        current = migration;
+        coordinator.submit(() -> run(migration));
+        return migration;
+    }
+
+    public Optional<WatchHistoryMigration> getMigration() {
+        return Optional.ofNullable(current);
+    }
+
+    // Zatrzymanie po ukończeniu paczek w toku
+    public Optional<WatchHistoryMigration> cancel() {
+        WatchHistoryMigration migration = current;
+        if (migration != null && migration.getStatus() == WatchHistoryMigration.Status.RUNNING) {
+            cancelRequested = true;
+        }
+        return getMigration();
+    }
+
+    void run(WatchHistoryMigration migration) {
+        Deque<Batch> inFlight = new ArrayDeque<>();
+        String lastUserId = null;
+        try {
+            while (!cancelRequested) {
+                Map<String, List<String>> batch = userRepository.findEmbeddedWatchedAfter(lastUserId, batchSize);
+                if (batch.isEmpty()) {
+                    break;
+                }
+                for (String userId : batch.keySet()) {
+                    lastUserId = userId;
+                }
+                inFlight.addLast(new Batch(batch.size(), workers.submit(() -> migrate(batch))));
+                // Najwyżej dwie paczki na wątek w toku - czytanie użytkowników nie wyprzedza zapisu
+                while (inFlight.size() >= parallelism * 2 || (!inFlight.isEmpty() && inFlight.peekFirst().result.isDone())) {
+                    complete(migration, inFlight.pollFirst());
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                complete(migration, inFlight.pollFirst());
+            }
+            finish(migration, cancelRequested ? WatchHistoryMigration.Status.CANCELLED : WatchHistoryMigration.Status.COMPLETED, null);
+        } catch (Exception e) {
+            inFlight.forEach(batch -> batch.result.cancel(false));
+            Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+            finish(migration, WatchHistoryMigration.Status.FAILED, cause.getMessage());
+        }
+        System.out.println("Watch history migration finished with status " + migration.getStatus()
+                + " after " + migration.getMigratedUsers() + " users");
+    }
+
+    // Kolejność ma znaczenie: lista znika z dokumentu dopiero po zapisaniu wszystkich jej wpisów
+    private long migrate(Map<String, List<String>> batch) {
+        long entries = watchHistoryRepository.importWatched(batch);
+        Map<String, List<String>> current = userRepository.findEmbeddedWatched(batch.keySet());
+        Map<String, List<String>> removed = new LinkedHashMap<>();
+        batch.forEach((userId, movieIds) -> {
+            Set<String> kept = new HashSet<>(current.getOrDefault(userId, List.of()));
+            List<String> gone = movieIds.stream().filter(movieId -> !kept.contains(movieId)).toList();
+            if (!gone.isEmpty()) {
+                removed.put(userId, gone);
+            }
+        });
+        if (!removed.isEmpty()) {
+            watchHistoryRepository.removeImported(removed);
+        }
+        userRepository.unsetEmbeddedWatched(batch.keySet());
+        return entries;
+    }
+
+    private void complete(WatchHistoryMigration migration, Batch batch) throws ExecutionException, InterruptedException {
+        long entries = batch.result.get();
+        migration.setMigratedUsers(migration.getMigratedUsers() + batch.users);
+        migration.setMigratedEntries(migration.getMigratedEntries() + entries);
+    }
+
+    private void finish(WatchHistoryMigration migration, WatchHistoryMigration.Status status, String error) {
+        migration.setError(error);
+        migration.setFinishedAt(Instant.now());
+        migration.setStatus(status);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        cancelRequested = true;
+        coordinator.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    private static class Batch {
+        private final int users;
+        private final Future<Long> result;
+
+        Batch(int users, Future<Long> result) {
+            this.users = users;
+            this.result = result;
+        }
+    }
+}
@@ -1,10 +1,31 @@
 package com.movieapp.movieapplication.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.movieapp.movieapplication.model.CursorPage;
+import com.movieapp.movieapplication.model.DistributionStats;
+import com.movieapp.movieapplication.model.FacetPage;
+import com.movieapp.movieapplication.model.ImportJob;
 import com.movieapp.movieapplication.model.Language;
 import com.movieapp.movieapplication.model.Movie;
+import com.movieapp.movieapplication.model.RatingStats;
+import com.movieapp.movieapplication.model.RatingTrendBucket;
+import com.movieapp.movieapplication.model.Review;
+import com.movieapp.movieapplication.model.SearchHit;
+import com.movieapp.movieapplication.model.SearchPage;
+import com.movieapp.movieapplication.model.Suggestion;
+import com.movieapp.movieapplication.model.TrendBackfillJob;
 import com.movieapp.movieapplication.service.LanguageService;
+import com.movieapp.movieapplication.service.MovieDistributionService;
+import com.movieapp.movieapplication.service.MovieExportService;
+import com.movieapp.movieapplication.service.MovieFacetService;
+import com.movieapp.movieapplication.service.MovieImportJobService;
+import com.movieapp.movieapplication.service.MovieLeaderboardService;
+import com.movieapp.movieapplication.service.MovieSearchService;
 import com.movieapp.movieapplication.service.MovieService;
+import com.movieapp.movieapplication.service.MovieSuggestService;
+import com.movieapp.movieapplication.service.MovieTrendingService;
+import com.movieapp.movieapplication.service.RatingTrendBackfillService;
+import com.movieapp.movieapplication.service.RatingTrendService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,15 +33,21 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.security.test.context.support.WithMockUser;
 
+import java.io.OutputStream;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 import com.movieapp.movieapplication.model.Category;
 import com.movieapp.movieapplication.service.CategoryService;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -44,6 +71,36 @@ public class MovieControllerTest {
     @MockBean
     private MovieService movieService;
 
+    @MockBean
+    private MovieExportService movieExportService;
+
+    @MockBean
+    private MovieImportJobService movieImportJobService;
+
+    @MockBean
+    private MovieSearchService movieSearchService;
+
+    @MockBean
+    private MovieSuggestService movieSuggestService;
+
+    @MockBean
+    private MovieFacetService movieFacetService;
+
+    @MockBean
+    private MovieLeaderboardService movieLeaderboardService;
+
+    @MockBean
+    private MovieTrendingService movieTrendingService;
+
+    @MockBean
+    private RatingTrendService ratingTrendService;
+
+    @MockBean
+    private RatingTrendBackfillService ratingTrendBackfillService;
+
+    @MockBean
+    private MovieDistributionService movieDistributionService;
+
     private Movie testMovie;
 
     @BeforeEach
@@ -82,6 +139,27 @@ public class MovieControllerTest {
                 .andExpect(jsonPath("$[0].title").value("Test Movie"));
     }
 
+    @Test
+    @WithMockUser(username = "user", roles = {"USER"})
+    void testGetMoviesPage() throws Exception {
+        when(movieService.getMoviesPage(null, 1, "title")).thenReturn(new CursorPage<>(List.of(testMovie), "next"));
+
+        mockMvc.perform(get("/api/movies/page").param("size", "1").param("sort", "title"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].title").value("Test Movie"))
+                .andExpect(jsonPath("$.nextCursor").value("next"))
+                .andExpect(jsonPath("$.hasMore").value(true));
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = {"USER"})
+    void testGetMoviesPage_InvalidSort() throws Exception {
+        when(movieService.getMoviesPage(null, null, "bogus")).thenThrow(new IllegalArgumentException("Unsupported sort field: bogus"));
+
+        mockMvc.perform(get("/api/movies/page").param("sort", "bogus"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @WithMockUser(username = "admin", roles = {"ADMIN"})
     void testAddMovie() throws Exception {
@@ -127,4 +205,257 @@ public class MovieControllerTest {
                 .andExpect(jsonPath("$.description").value("Updated Description"));
     }
 
-}
\ No newline at end of file
+    @Test
+    void testExportMovies() throws Exception {
+        when(movieExportService.writeAllMovies(any(OutputStream.class))).thenAnswer(invocation -> {
+            OutputStream output = invocation.getArgument(0);
+            output.write("[{\"title\":\"Test Movie\"}]".getBytes());
+            return 1L;
+        });
+
+        var result = mockMvc.perform(get("/api/movies/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertEquals(1800000, result.getRequest().getAsyncContext().getTimeout());
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"movies.json\""))
+                .andExpect(jsonPath("$[0].title").value("Test Movie"));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void testImportMovies() throws Exception {
+        ImportJob job = new ImportJob("job-1", "movies.json", 100, null);
+        when(movieImportJobService.submit(any())).thenReturn(job);
+        MockMultipartFile file = new MockMultipartFile("file", "movies.json", "application/json",
+                objectMapper.writeValueAsBytes(List.of(testMovie)));
+
+        mockMvc.perform(multipart("/api/movies/import").file(file))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.id").value("job-1"))
+                .andExpect(jsonPath("$.status").value("QUEUED"));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void testImportMovies_Saturated() throws Exception {
+        when(movieImportJobService.submit(any())).thenThrow(new RejectedExecutionException());
+        MockMultipartFile file = new MockMultipartFile("file", "movies.json", "application/json", "[]".getBytes());
+
+        mockMvc.perform(multipart("/api/movies/import").file(file))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = {"USER"})
+    void testGetImportJob() throws Exception {
+        ImportJob job = new ImportJob("job-1", "movies.json", 100, null);
+        job.getReport().documentRead();
+        when(movieImportJobService.getJob("job-1")).thenReturn(Optional.of(job));
+        when(movieImportJobService.getJob("missing")).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/movies/import/job-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.report.documentsRead").value(1));
+        mockMvc.perform(get("/api/movies/import/missing"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void testCancelImportJob() throws Exception {
+        ImportJob job = new ImportJob("job-1", "movies.json", 100, null);
+        job.setStatus(ImportJob.Status.CANCELLED);
+        when(movieImportJobService.cancel("job-1")).thenReturn(Optional.of(job));
+
+        mockMvc.perform(delete("/api/movies/import/job-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("CANCELLED"));
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = {"USER"})
+    void testSearchMovies() throws Exception {
+        when(movieSearchService.search("test", 0, 20))
+                .thenReturn(new SearchPage<>(1, 0, 20, List.of(new SearchHit<>(testMovie, 1.5))));
+
+        mockMvc.perform(get("/api/movies/search").param("q", "test"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(1))
+                .andExpect(jsonPath("$.items[0].item.title").value("Test Movie"))
+                .andExpect(jsonPath("$.items[0].score").value(1.5));
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = {"USER"})
+    void testSuggestTitles() throws Exception {
+        when(movieSuggestService.suggest("tes", 5)).thenReturn(List.of(new Suggestion("123", "Test Movie")));
+
+        mockMvc.perform(get("/api/movies/suggest").param("prefix", "tes").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].movieId").value("123"))
+                .andExpect(jsonPath("$[0].title").value("Test Movie"));
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = {"USER"})
+    void testFilterMovies() throws Exception {
+        when(movieFacetService.filter(List.of("1", "2"), null, 1990, null, null, null, null, null))
+                .thenReturn(new FacetPage<>(List.of(testMovie), null, 1, Map.of("genres", Map.of("1", 1L))));
+
+        mockMvc.perform(get("/api/movies/filter").param("genre", "1", "2").param("yearFrom", "1990"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(1))
+                .andExpect(jsonPath("$.items[0].title").value("Test Movie"))
+                .andExpect(jsonPath("$.facets.genres['1']").value(1));
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = {"USER"})
+    void testFilterMovies_InvalidRange() throws Exception {
+        when(movieFacetService.filter(null, null, 2010, 2000, null, null, null, null))
+                .thenThrow(new IllegalArgumentException("yearFrom must not be greater than yearTo."));
+
+        mockMvc.perform(get("/api/movies/filter").param("yearFrom", "2010").param("yearTo", "2000"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = {"USER"})
+    void testGetRatingStats() throws Exception {
+        RatingStats stats = new RatingStats("123");
+        stats.setCount(2);
+        stats.setSum(7);
+        stats.setHistogram(Map.of("3", 1L, "4", 1L));
+        when(movieService.getRatingStats("123")).thenReturn(stats);
+
+        mockMvc.perform(get("/api/movies/123/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(2))
+                .andExpect(jsonPath("$.average").value(3.5))
+                .andExpect(jsonPath("$.histogram['5']").value(0));
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = {"USER"})
+    void testGetMovieReviews() throws Exception {
+        Review review = new Review("r1", "123", "user1", 5, "Great", null);
+        when(movieService.getMovieReviews("123", null, 10)).thenReturn(new CursorPage<>(List.of(review), "next"));
+
+        mockMvc.perform(get("/api/movies/123/reviews").param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value("r1"))
+                .andExpect(jsonPath("$.nextCursor").value("next"))
+                .andExpect(jsonPath("$.hasMore").value(true));
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = {"USER"})
+    void testGetMovieReviews_InvalidCursor() throws Exception {
+        when(movieService.getMovieReviews("123", "bad", null)).thenThrow(new IllegalArgumentException("Invalid cursor."));
+
+        mockMvc.perform(get("/api/movies/123/reviews").param("cursor", "bad"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = {"USER"})
+    void testGetTopRated() throws Exception {
+        when(movieLeaderboardService.top("1", null, 5)).thenReturn(List.of(new SearchHit<>(testMovie, 4.2)));
+
+        mockMvc.perform(get("/api/movies/top").param("genre", "1").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].item.title").value("Test Movie"))
+                .andExpect(jsonPath("$[0].score").value(4.2));
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = {"USER"})
+    void testGetTrending() throws Exception {
+        when(movieTrendingService.trending("day", 10)).thenReturn(List.of(new SearchHit<>(testMovie, 12)));
+
+        mockMvc.perform(get("/api/movies/trending").param("window", "day"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].item.title").value("Test Movie"))
+                .andExpect(jsonPath("$[0].score").value(12.0));
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = {"USER"})
+    void testGetTrending_UnsupportedWindow() throws Exception {
+        when(movieTrendingService.trending("week", 10)).thenThrow(new IllegalArgumentException("Unsupported trending window: week"));
+
+        mockMvc.perform(get("/api/movies/trending").param("window", "week"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = {"USER"})
+    void testGetRatingTrend() throws Exception {
+        RatingTrendBucket bucket = new RatingTrendBucket("123", RatingTrendBucket.Granularity.WEEK, LocalDate.of(2024, 5, 6));
+        bucket.setCount(4);
+        bucket.setSum(18);
+        when(ratingTrendService.getTrend("123", "week", LocalDate.of(2024, 5, 1), null)).thenReturn(List.of(bucket));
+
+        mockMvc.perform(get("/api/movies/123/trend").param("granularity", "week").param("from", "2024-05-01"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].bucketStart").value("2024-05-06"))
+                .andExpect(jsonPath("$[0].count").value(4))
+                .andExpect(jsonPath("$[0].average").value(4.5));
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = {"USER"})
+    void testGetRatingTrend_InvalidRange() throws Exception {
+        when(ratingTrendService.getTrend("123", "month", null, null)).thenThrow(new IllegalArgumentException("Unknown trend granularity: month"));
+
+        mockMvc.perform(get("/api/movies/123/trend").param("granularity", "month"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void testStartTrendBackfill() throws Exception {
+        TrendBackfillJob job = new TrendBackfillJob("rating-trends");
+        job.setStatus(TrendBackfillJob.Status.RUNNING);
+        when(ratingTrendBackfillService.start(true)).thenReturn(job);
+
+        mockMvc.perform(post("/api/movies/trends/backfill").param("restart", "true"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.status").value("RUNNING"));
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = {"USER"})
+    void testGetTrendBackfill_ForbiddenForUser() throws Exception {
+        mockMvc.perform(get("/api/movies/trends/backfill"))
+                .andExpect(status().isForbidden());
+        verifyNoInteractions(ratingTrendBackfillService);
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = {"USER"})
+    void testGetDistribution() throws Exception {
+        DistributionStats stats = new DistributionStats(List.of("Action"), List.of("EN"), 120, 8, 3.9,
+                Map.of("p50", 4.0), Map.of("p90", 142.0));
+        when(movieDistributionService.distribution(List.of("Action"), List.of("EN"), List.of(0.5, 0.9))).thenReturn(stats);
+
+        mockMvc.perform(get("/api/movies/distribution").param("genre", "Action").param("language", "EN")
+                        .param("quantile", "0.5", "0.9"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reviewCount").value(120))
+                .andExpect(jsonPath("$.ratingQuantiles.p50").value(4.0))
+                .andExpect(jsonPath("$.durationQuantiles.p90").value(142.0));
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = {"USER"})
+    void testGetDistribution_InvalidQuantile() throws Exception {
+        when(movieDistributionService.distribution(null, null, List.of(1.5))).thenThrow(new IllegalArgumentException("Quantiles must be between 0 and 1."));
+
+        mockMvc.perform(get("/api/movies/distribution").param("quantile", "1.5"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -1,12 +1,17 @@
 package com.movieapp.movieapplication.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.movieapp.movieapplication.model.CursorPage;
 import com.movieapp.movieapplication.model.Review;
+import com.movieapp.movieapplication.model.ReviewSearchHit;
+import com.movieapp.movieapplication.model.WriteBufferStats;
+import com.movieapp.movieapplication.service.ReviewSearchService;
 import com.movieapp.movieapplication.service.ReviewService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
@@ -14,6 +19,7 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -24,6 +30,9 @@ class ReviewControllerTest {
     @Mock
     private ReviewService reviewService;
 
+    @Mock
+    private ReviewSearchService reviewSearchService;
+
     private MockMvc mockMvc;
 
     private ObjectMapper objectMapper;
@@ -31,7 +40,7 @@ class ReviewControllerTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        ReviewController reviewController = new ReviewController(reviewService);
+        ReviewController reviewController = new ReviewController(reviewService, reviewSearchService);
         mockMvc = MockMvcBuilders.standaloneSetup(reviewController).build();
         objectMapper = new ObjectMapper();
         objectMapper.registerModule(new com.fasterxml.jackson.datatype.jsr310.JavaTimeModule()); // Rejestracja modułu
@@ -122,4 +131,92 @@ class ReviewControllerTest {
 
         verify(reviewService, times(1)).deleteReview(reviewId);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testGetUserReviews() throws Exception {
+        Review review = new Review("1", "movie1", "user1", 5, null, LocalDateTime.now());
+        when(reviewService.getUserReviews("user1", null, 10, false)).thenReturn(new CursorPage<>(List.of(review), null));
+
+        mockMvc.perform(get("/api/reviews/user/user1").param("size", "10").param("includeText", "false"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].movieId").value("movie1"))
+                .andExpect(jsonPath("$.items[0].reviewText").doesNotExist())
+                .andExpect(jsonPath("$.hasMore").value(false));
+    }
+
+    @Test
+    void testGetUserReviews_InvalidCursor() throws Exception {
+        when(reviewService.getUserReviews("user1", "bad", null, true)).thenThrow(new IllegalArgumentException("Invalid cursor."));
+
+        mockMvc.perform(get("/api/reviews/user/user1").param("cursor", "bad"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testSearchReviews() throws Exception {
+        Review review = new Review("1", "movie1", "user1", 5, "Great movie!", LocalDateTime.now());
+        ReviewSearchHit hit = new ReviewSearchHit(review, 1.5, List.of("<em>Great</em> movie!"));
+        when(reviewSearchService.search("great", "movie1", null, 10)).thenReturn(new CursorPage<>(List.of(hit), "next"));
+
+        mockMvc.perform(get("/api/reviews/search").param("q", "great").param("movieId", "movie1").param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].item.id").value("1"))
+                .andExpect(jsonPath("$.items[0].highlights[0]").value("<em>Great</em> movie!"))
+                .andExpect(jsonPath("$.nextCursor").value("next"));
+    }
+
+    @Test
+    void testSearchReviews_EmptyQuery() throws Exception {
+        when(reviewSearchService.search(" ", null, null, null)).thenThrow(new IllegalArgumentException("Search query must not be empty."));
+
+        mockMvc.perform(get("/api/reviews/search").param("q", " "))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testAddReview_WriteBehindAccepted() throws Exception {
+        Review review = new Review("1", "movie1", "user1", 5, "Great movie!", null);
+        when(reviewService.addReview(any(Review.class))).thenReturn(review);
+        when(reviewService.isWriteBehindEnabled()).thenReturn(true);
+
+        mockMvc.perform(post("/api/reviews")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(review)))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.id").value("1"));
+    }
+
+    @Test
+    void testAddReview_BufferFull() throws Exception {
+        Review review = new Review(null, "movie1", "user1", 5, "Great movie!", null);
+        when(reviewService.addReview(any(Review.class))).thenThrow(new RejectedExecutionException("Review write buffer is full."));
+
+        mockMvc.perform(post("/api/reviews")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(review)))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    void testGetWriteBufferStats() throws Exception {
+        WriteBufferStats stats = new WriteBufferStats();
+        stats.setEnabled(true);
+        stats.setQueueDepth(7);
+        when(reviewService.getWriteBufferStats()).thenReturn(stats);
+
+        mockMvc.perform(get("/api/reviews/write-behind"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.queueDepth").value(7));
+    }
+
+    @Test
+    void testAddReview_Duplicate() throws Exception {
+        Review review = new Review(null, "movie1", "user1", 5, "Again", null);
+        when(reviewService.addReview(any(Review.class))).thenThrow(new DuplicateKeyException("User has already reviewed this movie."));
+
+        mockMvc.perform(post("/api/reviews")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(review)))
+                .andExpect(status().isConflict());
+    }
+}
@@ -2,8 +2,13 @@ package com.movieapp.movieapplication.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.movieapp.movieapplication.JwtUtil;
+import com.movieapp.movieapplication.model.CursorPage;
 import com.movieapp.movieapplication.model.User;
+import com.movieapp.movieapplication.model.UserAvailability;
+import com.movieapp.movieapplication.model.UserMovieListChange;
+import com.movieapp.movieapplication.model.WatchHistoryEntry;
 import com.movieapp.movieapplication.service.UserService;
+import com.movieapp.movieapplication.service.WatchHistoryMigrationService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
@@ -13,6 +18,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.Optional;
 
 import static org.mockito.Mockito.*;
@@ -27,6 +33,9 @@ class UserControllerTest {
     @Mock
     private JwtUtil jwtUtil;
 
+    @Mock
+    private WatchHistoryMigrationService watchHistoryMigrationService;
+
     private MockMvc mockMvc;
 
     private ObjectMapper objectMapper;
@@ -37,7 +46,7 @@ class UserControllerTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this); // Bez close()
-        userController = new UserController(userService, jwtUtil);
+        userController = new UserController(userService, jwtUtil, watchHistoryMigrationService);
         mockMvc = MockMvcBuilders.standaloneSetup(userController).build();
         objectMapper = new ObjectMapper(); // Ręczna inicjalizacja
     }
@@ -200,4 +209,62 @@ class UserControllerTest {
 
         verify(userService, times(1)).deleteUser(userId);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testAddFavoriteMovie_ReturnsOnlyChangedList() throws Exception {
+        when(userService.addFavoriteMovie("u1", "m1")).thenReturn(new UserMovieListChange("u1", "favoriteMovies", "m1", true));
+
+        mockMvc.perform(put("/api/users/u1/favorite/m1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.list").value("favoriteMovies"))
+                .andExpect(jsonPath("$.changed").value(true))
+                .andExpect(jsonPath("$.email").doesNotExist());
+    }
+
+    @Test
+    void testRemoveWatchedMovie_UserNotFound() throws Exception {
+        when(userService.removeWatchedMovie("u1", "m1")).thenThrow(new IllegalArgumentException("User not found"));
+
+        mockMvc.perform(delete("/api/users/u1/watched/m1"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testGetWatchHistory_ReturnsPage() throws Exception {
+        when(userService.getWatchHistory("u1", "c1", 10))
+                .thenReturn(new CursorPage<>(List.of(new WatchHistoryEntry("u1", "m1", null)), "c2"));
+
+        mockMvc.perform(get("/api/users/u1/watched").param("cursor", "c1").param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].movieId").value("m1"))
+                .andExpect(jsonPath("$.nextCursor").value("c2"));
+    }
+
+    @Test
+    void testGetWatchHistory_InvalidCursor() throws Exception {
+        when(userService.getWatchHistory("u1", "bad", null)).thenThrow(new IllegalArgumentException("Invalid cursor."));
+
+        mockMvc.perform(get("/api/users/u1/watched").param("cursor", "bad"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testCheckAvailability() throws Exception {
+        when(userService.checkAvailability("testuser", null)).thenReturn(new UserAvailability(false, null));
+
+        mockMvc.perform(get("/api/users/availability").param("username", "testuser"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.usernameAvailable").value(false));
+    }
+
+    @Test
+    void testLogin_PasswordHashingOverloaded() throws Exception {
+        when(userService.loginUser("test@example.com", "password"))
+                .thenThrow(new RejectedExecutionException("Password hashing is overloaded."));
+
+        mockMvc.perform(post("/api/users/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"test@example.com\",\"password\":\"password\"}"))
+                .andExpect(status().isServiceUnavailable());
+    }
+}
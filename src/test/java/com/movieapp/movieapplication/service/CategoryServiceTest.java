@@ -48,7 +48,7 @@ class CategoryServiceTest {
         // Given
         String categoryId = "1";
         Category category = new Category(categoryId, "Action", "Action movies");
-        when(categoryRepository.findById(categoryId)).thenReturn(Optional.of(category));
+        when(categoryRepository.findAll()).thenReturn(List.of(category));
 
         // When
         Optional<Category> result = categoryService.getCategoryById(categoryId);
@@ -56,21 +56,48 @@ class CategoryServiceTest {
         // Then
         assertEquals(true, result.isPresent());
         assertEquals("Action", result.get().getName());
-        verify(categoryRepository, times(1)).findById(categoryId);
+        verify(categoryRepository, times(1)).findAll();
+        verify(categoryRepository, never()).findById(categoryId);
     }
 
     @Test
     void testGetCategoryById_NotFound() {
         // Given
         String categoryId = "1";
-        when(categoryRepository.findById(categoryId)).thenReturn(Optional.empty());
+        when(categoryRepository.findAll()).thenReturn(List.of());
 
         // When
         Optional<Category> result = categoryService.getCategoryById(categoryId);
 
         // Then
         assertEquals(false, result.isPresent());
-        verify(categoryRepository, times(1)).findById(categoryId);
+        verify(categoryRepository, never()).findById(categoryId);
+    }
+
+    @Test
+    void testGetCategoriesByIds() {
+        // Given
+        Category category1 = new Category("1", "Action", "Action movies");
+        Category category2 = new Category("2", "Drama", "Drama movies");
+        when(categoryRepository.findAll()).thenReturn(List.of(category1, category2));
+
+        // When
+        List<Category> result = categoryService.getCategoriesByIds(List.of("1", "2", "3"));
+
+        // Then
+        assertEquals(2, result.size());
+        verify(categoryRepository, times(1)).findAll();
+        verify(categoryRepository, never()).findById(anyString());
+    }
+
+    @Test
+    void testGetCategoriesByIds_Empty() {
+        // When
+        List<Category> result = categoryService.getCategoriesByIds(List.of());
+
+        // Then
+        assertEquals(0, result.size());
+        verifyNoInteractions(categoryRepository);
     }
 
     @Test
@@ -151,4 +178,49 @@ class CategoryServiceTest {
         verify(categoryRepository, times(1)).findAll();
     }
 
-}
\ No newline at end of file
+    @Test
+    void testSnapshot_ReadsWithoutRepositoryAfterLoad() {
+        // Given
+        when(categoryRepository.findAll()).thenReturn(List.of(new Category("1", "Action", "Action movies")));
+
+        // When
+        categoryService.getAllCategories();
+        categoryService.getCategoryById("1");
+        categoryService.getCategoriesByIds(List.of("1"));
+
+        // Then
+        verify(categoryRepository, times(1)).findAll();
+    }
+
+    @Test
+    void testSnapshot_UpdatedByWrites() {
+        // Given
+        Category action = new Category("1", "Action", "Action movies");
+        Category drama = new Category("2", "Drama", "Drama movies");
+        when(categoryRepository.findAll()).thenReturn(List.of(action));
+        when(categoryRepository.save(drama)).thenReturn(drama);
+        categoryService.refresh();
+
+        // When
+        categoryService.addCategory(drama);
+        categoryService.deleteCategory("1");
+
+        // Then
+        assertEquals(List.of(drama), categoryService.getAllCategories());
+        verify(categoryRepository, times(1)).findAll();
+    }
+
+    @Test
+    void testReconcile_KeepsSnapshotWhenRepositoryFails() {
+        // Given
+        Category action = new Category("1", "Action", "Action movies");
+        when(categoryRepository.findAll()).thenReturn(List.of(action)).thenThrow(new RuntimeException("timeout"));
+        categoryService.refresh();
+
+        // When
+        categoryService.reconcile();
+
+        // Then
+        assertEquals(true, categoryService.getCategoryById("1").isPresent());
+    }
+}
@@ -0,0 +1,99 @@
+package com.movieapp.movieapplication.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FacetIndexTest {
+
+    private FacetIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new FacetIndex();
+        index.put("1", List.of("drama", "crime"), "en", 1994, 142);
+        index.put("2", List.of("drama"), "pl", 1999, 95);
+        index.put("3", List.of("comedy"), "en", 2004, 88);
+        index.put("4", List.of("drama", "crime"), "pl", 2010, 125);
+    }
+
+    private FacetIndex.Result query(List<String> genres, List<String> languages, Integer yearFrom, Integer yearTo) {
+        return index.query(new FacetIndex.Query(genres, languages, yearFrom, yearTo, null, null), -1, 10, 30);
+    }
+
+    @Test
+    void testQuery_CombinesFacets() {
+        FacetIndex.Result result = query(List.of("drama", "crime"), List.of("pl"), null, null);
+
+        assertEquals(1, result.getTotal());
+        assertEquals(List.of("4"), result.getKeys());
+    }
+
+    @Test
+    void testQuery_YearRangeAndLanguageUnion() {
+        FacetIndex.Result result = query(null, List.of("en", "pl"), 1995, 2005);
+
+        assertEquals(List.of("2", "3"), result.getKeys());
+    }
+
+    @Test
+    void testFacetCounts_ExcludeOwnSingleSelectFilter() {
+        FacetIndex.Result result = query(List.of("drama"), List.of("pl"), null, null);
+        Map<String, Map<String, Long>> facets = result.getFacets();
+
+        // Liczniki języków ignorują wybrany język, gatunków - liczone na wyniku
+        assertEquals(Map.of("en", 1L, "pl", 2L), facets.get("languages"));
+        assertEquals(Map.of("drama", 2L, "crime", 1L), facets.get("genres"));
+        assertEquals(Map.of("90-119", 1L, "120-149", 1L), facets.get("durations"));
+    }
+
+    @Test
+    void testUpdateAndRemove() {
+        index.put("2", List.of("comedy"), "en", 1999, 95);
+        index.remove("3");
+
+        FacetIndex.Result result = query(List.of("comedy"), null, null, null);
+
+        assertEquals(List.of("2"), result.getKeys());
+        assertEquals(2L, query(null, null, null, null).getFacets().get("genres").get("drama"));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void testRemovedOrdinalIsNotReused() {
+        index.remove("1");
+        index.put("5", List.of("horror"), "en", 1980, 100);
+
+        assertEquals(List.of("2", "3", "4", "5"), query(null, null, null, null).getKeys());
+    }
+
+    @Test
+    void testPagingSurvivesRemoveAndInsert() {
+        FacetIndex.Query all = new FacetIndex.Query(null, null, null, null, null, null);
+
+        FacetIndex.Result first = index.query(all, -1, 2, 30);
+        // Zmiany między stronami: nowy film trafia na koniec, zamiast w zwolniony numer przed kursorem
+        index.remove("1");
+        index.put("5", List.of("horror"), "en", 1980, 100);
+        FacetIndex.Result second = index.query(all, first.getLastOrdinal(), 10, 30);
+
+        assertEquals(List.of("1", "2"), first.getKeys());
+        assertEquals(List.of("3", "4", "5"), second.getKeys());
+    }
+
+    @Test
+    void testPagingAfterOrdinal() {
+        FacetIndex.Query all = new FacetIndex.Query(null, null, null, null, null, null);
+
+        FacetIndex.Result first = index.query(all, -1, 3, 30);
+        FacetIndex.Result second = index.query(all, first.getLastOrdinal(), 3, 30);
+
+        assertEquals(List.of("1", "2", "3"), first.getKeys());
+        assertEquals(List.of("4"), second.getKeys());
+        assertEquals(-1, second.getLastOrdinal());
+    }
+}
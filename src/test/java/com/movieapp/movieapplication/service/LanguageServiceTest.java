@@ -42,23 +42,24 @@ class LanguageServiceTest {
     @Test
     void testGetLanguageById_Found() {
         Language language = new Language("1", "English", "EN");
-        when(languageRepository.findById("1")).thenReturn(Optional.of(language));
+        when(languageRepository.findAll()).thenReturn(List.of(language));
 
         Optional<Language> result = languageService.getLanguageById("1");
 
         assertEquals(true, result.isPresent());
         assertEquals("English", result.get().getName());
-        verify(languageRepository, times(1)).findById("1");
+        verify(languageRepository, times(1)).findAll();
+        verify(languageRepository, never()).findById("1");
     }
 
     @Test
     void testGetLanguageById_NotFound() {
-        when(languageRepository.findById("1")).thenReturn(Optional.empty());
+        when(languageRepository.findAll()).thenReturn(List.of());
 
         Optional<Language> result = languageService.getLanguageById("1");
 
         assertEquals(false, result.isPresent());
-        verify(languageRepository, times(1)).findById("1");
+        verify(languageRepository, never()).findById("1");
     }
 
     @Test
@@ -99,4 +100,18 @@ class LanguageServiceTest {
         verify(languageRepository, times(1)).save(existingLanguage);
     }
 
-}
\ No newline at end of file
+    @Test
+    void testSnapshot_UpdatedByWrites() {
+        Language english = new Language("1", "English", "EN");
+        when(languageRepository.findAll()).thenReturn(List.of(english));
+        when(languageRepository.findById("1")).thenReturn(Optional.of(english));
+        when(languageRepository.save(any(Language.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        languageService.refresh();
+
+        languageService.updateLanguage("1", new Language("1", "Polish", "PL"));
+
+        assertEquals("PL", languageService.getLanguageById("1").get().getCode());
+        verify(languageRepository, times(1)).findAll();
+    }
+
+}
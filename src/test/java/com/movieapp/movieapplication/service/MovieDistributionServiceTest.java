@@ -0,0 +1,152 @@
+package com.movieapp.movieapplication.service;
+
+import com.movieapp.movieapplication.model.DistributionStats;
+import com.movieapp.movieapplication.model.Movie;
+import com.movieapp.movieapplication.model.RatingStats;
+import com.movieapp.movieapplication.repository.MovieRepository;
+import com.movieapp.movieapplication.repository.RatingStatsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.when;
+
+class MovieDistributionServiceTest {
+
+    @Mock
+    private MovieRepository movieRepository;
+
+    @Mock
+    private RatingStatsRepository ratingStatsRepository;
+
+    private MovieDistributionService distributionService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        distributionService = new MovieDistributionService(movieRepository, ratingStatsRepository, new RatingAggregateLocks());
+        distributionService.onMoviesSaved(new MoviesSavedEvent(List.of(
+                movie("1", List.of("Action", "Drama"), "EN", 120),
+                movie("2", List.of("Action"), "PL", 90),
+                movie("3", List.of("Comedy"), "EN", 100))));
+    }
+
+    private Movie movie(String id, List<String> genres, String languageId, int duration) {
+        Movie movie = new Movie();
+        movie.setId(id);
+        movie.setGenres(genres);
+        movie.setLanguageId(languageId);
+        movie.setDuration(duration);
+        return movie;
+    }
+
+    private void rate(String movieId, int rating, int times) {
+        for (int i = 0; i < times; i++) {
+            distributionService.onReviewRating(new ReviewRatingEvent(movieId, rating, 1));
+        }
+    }
+
+    private RatingStats stats(String movieId, Map<String, Long> histogram) {
+        RatingStats stats = new RatingStats(movieId);
+        stats.setHistogram(histogram);
+        histogram.forEach((rating, count) -> {
+            stats.setCount(stats.getCount() + count);
+            stats.setSum(stats.getSum() + Long.parseLong(rating) * count);
+        });
+        return stats;
+    }
+
+    @Test
+    void testBuildOnStartup_KeepsRatingsChangedDuringBuild() {
+        when(movieRepository.streamAllBy()).thenReturn(Stream.of(
+                movie("1", List.of("Action", "Drama"), "EN", 120),
+                movie("2", List.of("Action"), "PL", 90)));
+        // Agregat filmu 1 przeczytany przed nową recenzją, a zastosowany już po jej evencie
+        when(ratingStatsRepository.streamAllBy()).thenReturn(Stream.of(stats("2", Map.of("2", 1L)), stats("1", Map.of("5", 1L)))
+                .peek(stat -> {
+                    if (stat.getMovieId().equals("2")) {
+                        distributionService.onReviewRating(new ReviewRatingEvent("1", 4, 1));
+                    }
+                }));
+        when(ratingStatsRepository.findAllById(Set.of("1"))).thenReturn(List.of(stats("1", Map.of("5", 1L, "4", 1L))));
+
+        distributionService.buildOnStartup();
+
+        assertEquals(2, distributionService.distribution(null, List.of("EN"), null).getReviewCount());
+        assertEquals(3, distributionService.distribution(null, null, null).getReviewCount());
+    }
+
+    @Test
+    void testBuildOnStartup_DeletedMovieIsNotRestored() {
+        when(movieRepository.streamAllBy()).thenReturn(Stream.of(movie("2", List.of("Action"), "PL", 90))
+                .peek(movie -> distributionService.onMovieDeleted(new MovieDeletedEvent("1"))));
+        when(ratingStatsRepository.streamAllBy()).thenReturn(Stream.of(stats("1", Map.of("5", 1L)), stats("2", Map.of("2", 1L))));
+
+        distributionService.buildOnStartup();
+
+        assertEquals(0, distributionService.distribution(null, List.of("EN"), null).getReviewCount());
+        assertEquals(1, distributionService.distribution(null, null, null).getReviewCount());
+    }
+
+    @Test
+    void testDistribution_MergesMatchingSlicesWithoutDoubleCounting() {
+        rate("1", 5, 3);
+        rate("2", 2, 1);
+        rate("3", 1, 2);
+
+        DistributionStats action = distributionService.distribution(List.of("Action"), null, List.of(0.5, 0.9));
+
+        // Film 1 ma dwa gatunki, ale jego recenzje liczą się raz
+        assertEquals(4, action.getReviewCount());
+        assertEquals(2, action.getMovieCount());
+        assertEquals(5.0, action.getRatingQuantiles().get("p50"));
+        assertEquals(120.0, action.getDurationQuantiles().get("p90"));
+        assertEquals(17.0 / 4, action.getRatingMean(), 1e-9);
+
+        DistributionStats actionDramaOrComedyInEnglish = distributionService.distribution(List.of("Action", "Drama"), List.of("EN"), null);
+        assertEquals(3, actionDramaOrComedyInEnglish.getReviewCount());
+
+        DistributionStats all = distributionService.distribution(null, null, List.of(0.5));
+        assertEquals(6, all.getReviewCount());
+        assertEquals(3, all.getMovieCount());
+    }
+
+    @Test
+    void testDistribution_RemovalsAndMovieChanges() {
+        rate("2", 2, 2);
+        distributionService.onReviewRating(new ReviewRatingEvent("2", 2, -1));
+        distributionService.onReviewRating(new ReviewRatingEvent("2", 2, -1));
+
+        DistributionStats polish = distributionService.distribution(null, List.of("PL"), List.of(0.5));
+        assertEquals(0, polish.getReviewCount());
+        assertEquals(0, polish.getMovieCount());
+        assertNull(polish.getRatingQuantiles().get("p50"));
+
+        // Zmiana języka filmu przenosi jego recenzje do innego wycinka
+        rate("3", 4, 2);
+        distributionService.onMoviesSaved(new MoviesSavedEvent(List.of(movie("3", List.of("Comedy"), "PL", 100))));
+
+        assertEquals(0, distributionService.distribution(List.of("Comedy"), List.of("EN"), null).getReviewCount());
+        DistributionStats polishComedy = distributionService.distribution(List.of("Comedy"), List.of("PL"), List.of(0.999));
+        assertEquals(2, polishComedy.getReviewCount());
+        assertEquals(4.0, polishComedy.getRatingQuantiles().get("p99.9"));
+
+        distributionService.onMovieDeleted(new MovieDeletedEvent("3"));
+        assertEquals(0, distributionService.distribution(null, null, null).getReviewCount());
+    }
+
+    @Test
+    void testDistribution_RejectsInvalidQuantiles() {
+        assertThrows(IllegalArgumentException.class, () -> distributionService.distribution(null, null, List.of(1.5)));
+        assertThrows(IllegalArgumentException.class, () -> distributionService.distribution(null, null, List.of(-0.1)));
+    }
+}
@@ -0,0 +1,62 @@
+package com.movieapp.movieapplication.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.movieapp.movieapplication.model.Movie;
+import com.movieapp.movieapplication.repository.MovieRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+class MovieExportServiceTest {
+
+    @Mock
+    private MovieRepository movieRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private MovieExportService movieExportService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        movieExportService = new MovieExportService(movieRepository, objectMapper);
+    }
+
+    @Test
+    void testWriteAllMovies() throws Exception {
+        Movie movie1 = new Movie("Title1", "Description1", "2023", List.of("Action"), "EN", "Director1", 120, List.of());
+        Movie movie2 = new Movie("Title2", "Description2", "2022", List.of("Drama"), "EN", "Director2", 90, List.of());
+        boolean[] closed = {false};
+        when(movieRepository.streamAllBy()).thenReturn(Stream.of(movie1, movie2).onClose(() -> closed[0] = true));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long count = movieExportService.writeAllMovies(output);
+
+        JsonNode json = objectMapper.readTree(output.toByteArray());
+        assertEquals(2, count);
+        assertEquals(2, json.size());
+        assertEquals("Title2", json.get(1).get("title").asText());
+        assertTrue(closed[0]);
+        verify(movieRepository, never()).findAll();
+    }
+
+    @Test
+    void testWriteAllMovies_Empty() throws Exception {
+        when(movieRepository.streamAllBy()).thenReturn(Stream.empty());
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        movieExportService.writeAllMovies(output);
+
+        assertEquals("[]", output.toString());
+    }
+}
@@ -0,0 +1,115 @@
+package com.movieapp.movieapplication.service;
+
+import com.movieapp.movieapplication.model.FacetPage;
+import com.movieapp.movieapplication.model.Movie;
+import com.movieapp.movieapplication.repository.MovieRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class MovieFacetServiceTest {
+
+    @Mock
+    private MovieRepository movieRepository;
+
+    private MovieFacetService movieFacetService;
+
+    private Movie first;
+    private Movie second;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        movieFacetService = new MovieFacetService(movieRepository);
+        first = movie("1", List.of("drama"), "en", "1994", 142);
+        second = movie("2", List.of("comedy"), "pl", "2004", 88);
+    }
+
+    private Movie movie(String id, List<String> genres, String languageId, String releaseYear, int duration) {
+        Movie movie = new Movie();
+        movie.setId(id);
+        movie.setGenres(genres);
+        movie.setLanguageId(languageId);
+        movie.setReleaseYear(releaseYear);
+        movie.setDuration(duration);
+        return movie;
+    }
+
+    @Test
+    void testBuildOnStartupAndFilter() {
+        when(movieRepository.streamAllBy()).thenReturn(Stream.of(first, second));
+        when(movieRepository.findAllById(List.of("2"))).thenReturn(List.of(second));
+
+        movieFacetService.buildOnStartup();
+        FacetPage<Movie> page = movieFacetService.filter(null, List.of("pl"), 2000, null, null, null, null, 10);
+
+        assertEquals(1, page.getTotal());
+        assertEquals("2", page.getItems().get(0).getId());
+        assertFalse(page.isHasMore());
+        assertEquals(1L, page.getFacets().get("releaseYears").get("2004"));
+        verify(movieRepository, never()).findAll();
+    }
+
+    @Test
+    void testBuildOnStartup_KeepsMoviesChangedDuringBuild() {
+        Movie edited = movie("2", List.of("drama"), "en", "2004", 88);
+        // Film 1 usunięty, zanim strumień do niego doszedł, film 2 przeczytany przed zmianą gatunku
+        when(movieRepository.streamAllBy()).thenReturn(Stream.of(second, first)
+                .peek(movie -> {
+                    if (movie.getId().equals("2")) {
+                        movieFacetService.onMovieDeleted(new MovieDeletedEvent("1"));
+                        movieFacetService.onMoviesSaved(new MoviesSavedEvent(List.of(edited)));
+                    }
+                }));
+        when(movieRepository.findAllById(List.of("2"))).thenReturn(List.of(edited));
+
+        movieFacetService.buildOnStartup();
+        FacetPage<Movie> page = movieFacetService.filter(null, null, null, null, null, null, null, 10);
+
+        assertEquals(1, page.getTotal());
+        assertEquals("2", page.getItems().get(0).getId());
+        assertEquals(Map.of("drama", 1L), page.getFacets().get("genres"));
+    }
+
+    @Test
+    void testFilter_PagesWithCursor() {
+        movieFacetService.onMoviesSaved(new MoviesSavedEvent(List.of(first, second)));
+        when(movieRepository.findAllById(List.of("1"))).thenReturn(List.of(first));
+        when(movieRepository.findAllById(List.of("2"))).thenReturn(List.of(second));
+
+        FacetPage<Movie> firstPage = movieFacetService.filter(null, null, null, null, null, null, null, 1);
+        FacetPage<Movie> secondPage = movieFacetService.filter(null, null, null, null, null, null, firstPage.getNextCursor(), 1);
+
+        assertEquals("1", firstPage.getItems().get(0).getId());
+        assertEquals("2", secondPage.getItems().get(0).getId());
+        assertNull(secondPage.getNextCursor());
+    }
+
+    @Test
+    void testFilter_DeletedMovieIsRemoved() {
+        movieFacetService.onMoviesSaved(new MoviesSavedEvent(List.of(first, second)));
+        movieFacetService.onMovieDeleted(new MovieDeletedEvent("1"));
+
+        FacetPage<Movie> page = movieFacetService.filter(List.of("drama"), null, null, null, null, null, null, 10);
+
+        assertEquals(0, page.getTotal());
+        assertTrue(page.getItems().isEmpty());
+        verify(movieRepository, never()).findAllById(any());
+    }
+
+    @Test
+    void testFilter_InvalidRange() {
+        assertThrows(IllegalArgumentException.class,
+                () -> movieFacetService.filter(null, null, 2010, 2000, null, null, null, 10));
+        assertThrows(IllegalArgumentException.class,
+                () -> movieFacetService.filter(null, null, null, null, null, null, "bm90LWEtY3Vyc29y", 10));
+    }
+}
@@ -0,0 +1,174 @@
+package com.movieapp.movieapplication.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.movieapp.movieapplication.model.ImportJob;
+import com.movieapp.movieapplication.model.ImportReport;
+import com.movieapp.movieapplication.model.Language;
+import com.movieapp.movieapplication.repository.MovieRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class MovieImportJobServiceTest {
+
+    @Mock
+    private MovieImportService movieImportService;
+
+    private MovieImportJobService movieImportJobService;
+
+    private final CountDownLatch started = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        movieImportJobService = new MovieImportJobService(movieImportService, 1, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        movieImportJobService.shutdown();
+    }
+
+    private MockMultipartFile file() {
+        return new MockMultipartFile("file", "movies.json", "application/json", "[{\"title\":\"A\"}]".getBytes());
+    }
+
+    private void awaitFinished(ImportJob job) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!job.isFinished() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    // Import blokujący do momentu przerwania wątku
+    private void blockUntilInterrupted() throws Exception {
+        when(movieImportService.importMovies(any(InputStream.class), any(ImportReport.class))).thenAnswer(invocation -> {
+            started.countDown();
+            Thread.sleep(10_000);
+            return invocation.getArgument(1);
+        });
+    }
+
+    @Test
+    void testSubmit_CompletesInBackground() throws Exception {
+        when(movieImportService.importMovies(any(InputStream.class), any(ImportReport.class))).thenAnswer(invocation -> {
+            InputStream inputStream = invocation.getArgument(0);
+            inputStream.readAllBytes();
+            ImportReport report = invocation.getArgument(1);
+            report.documentRead();
+            report.recordBatch(1, 0, 1);
+            return report;
+        });
+
+        ImportJob job = movieImportJobService.submit(file());
+        awaitFinished(job);
+
+        assertEquals(ImportJob.Status.COMPLETED, job.getStatus());
+        assertEquals(1, job.getReport().getDocumentsWritten());
+        assertEquals(job.getTotalBytes(), job.getBytesRead());
+        assertFalse(Files.exists(job.getFile()));
+        assertTrue(movieImportJobService.getJob(job.getId()).isPresent());
+    }
+
+    @Test
+    void testSubmit_FastJobDoesNotLeakFuture() throws Exception {
+        when(movieImportService.importMovies(any(InputStream.class), any(ImportReport.class)))
+                .thenAnswer(invocation -> invocation.getArgument(1));
+
+        for (int i = 0; i < 20; i++) {
+            awaitFinished(movieImportJobService.submit(file()));
+        }
+
+        // Wpis dodany po zakończeniu zadania nie byłby już nigdy usunięty
+        assertTrue(((Map<?, ?>) ReflectionTestUtils.getField(movieImportJobService, "futures")).isEmpty());
+    }
+
+    @Test
+    void testSubmit_MalformedRowsCountAsFailedRows() throws Exception {
+        MovieRepository movieRepository = mock(MovieRepository.class);
+        CategoryService categoryService = mock(CategoryService.class);
+        LanguageService languageService = mock(LanguageService.class);
+        when(languageService.getAllLanguages()).thenReturn(List.of(new Language("EN", "English", "en")));
+        when(movieRepository.bulkUpsert(anyList())).thenAnswer(invocation -> ((List<?>) invocation.getArgument(0)).size());
+        MovieImportService importService = new MovieImportService(movieRepository, categoryService, languageService,
+                new ObjectMapper(), mock(ApplicationEventPublisher.class));
+        MovieImportJobService jobService = new MovieImportJobService(importService, 1, 1);
+        try {
+            ImportJob job = jobService.submit(new MockMultipartFile("file", "movies.json", "application/json",
+                    "[{\"title\":\"A\",\"languageId\":\"EN\"},{\"title\":\"B\",\"duration\":\"long\"},{\"title\":\"C\",\"languageId\":\"EN\"}]"
+                            .getBytes()));
+            awaitFinished(job);
+
+            // Wiersz, którego nie da się odczytać, nie przerywa całego zadania
+            assertEquals(ImportJob.Status.COMPLETED, job.getStatus());
+            assertEquals(2, job.getReport().getDocumentsWritten());
+            assertEquals(1, job.getReport().getFailedDocuments());
+        } finally {
+            jobService.shutdown();
+        }
+    }
+
+    @Test
+    void testSubmit_RecordsFailure() throws Exception {
+        when(movieImportService.importMovies(any(InputStream.class), any(ImportReport.class)))
+                .thenThrow(new IllegalArgumentException("Expected a JSON array of movies."));
+
+        ImportJob job = movieImportJobService.submit(file());
+        awaitFinished(job);
+
+        assertEquals(ImportJob.Status.FAILED, job.getStatus());
+        assertEquals("Expected a JSON array of movies.", job.getError());
+    }
+
+    @Test
+    void testCancel_RunningJob() throws Exception {
+        blockUntilInterrupted();
+
+        ImportJob job = movieImportJobService.submit(file());
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        movieImportJobService.cancel(job.getId());
+        awaitFinished(job);
+
+        assertEquals(ImportJob.Status.CANCELLED, job.getStatus());
+        assertNull(job.getEtaSeconds());
+    }
+
+    @Test
+    void testSubmit_RejectsWhenQueueFull() throws Exception {
+        blockUntilInterrupted();
+
+        movieImportJobService.submit(file());
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        ImportJob queued = movieImportJobService.submit(file());
+
+        assertThrows(RejectedExecutionException.class, () -> movieImportJobService.submit(file()));
+        assertEquals(2, movieImportJobService.getJobs().size());
+
+        movieImportJobService.cancel(queued.getId());
+        assertEquals(ImportJob.Status.CANCELLED, queued.getStatus());
+        assertFalse(Files.exists(queued.getFile()));
+    }
+
+    @Test
+    void testCancel_UnknownJob() {
+        assertTrue(movieImportJobService.cancel("missing").isEmpty());
+    }
+}
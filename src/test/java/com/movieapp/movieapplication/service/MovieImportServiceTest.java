@@ -0,0 +1,161 @@
+package com.movieapp.movieapplication.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.bulk.BulkWriteError;
+import com.movieapp.movieapplication.model.Category;
+import com.movieapp.movieapplication.model.ImportReport;
+import com.movieapp.movieapplication.model.Language;
+import com.movieapp.movieapplication.model.Movie;
+import com.movieapp.movieapplication.repository.MovieRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.BulkOperationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+class MovieImportServiceTest {
+
+    @Mock
+    private MovieRepository movieRepository;
+
+    @Mock
+    private CategoryService categoryService;
+
+    @Mock
+    private LanguageService languageService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private MovieImportService movieImportService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        movieImportService = new MovieImportService(movieRepository, categoryService, languageService, new ObjectMapper(), eventPublisher);
+        movieImportService.setBatchSize(2);
+        when(categoryService.getAllCategories()).thenReturn(List.of(new Category("Action", "Action", "Action movies")));
+        when(languageService.getAllLanguages()).thenReturn(List.of(new Language("EN", "English", "en")));
+    }
+
+    private String movie(String title) {
+        return "{\"title\":\"" + title + "\",\"genres\":[\"Action\"],\"languageId\":\"EN\"}";
+    }
+
+    private InputStream json(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testImportMovies_WritesInBatches() throws Exception {
+        when(movieRepository.bulkUpsert(anyList())).thenAnswer(invocation -> ((List<?>) invocation.getArgument(0)).size());
+
+        ImportReport report = movieImportService.importMovies(json(
+                "[" + movie("A") + "," + movie("B") + "," + movie("C") + "," + movie("D") + ",{\"id\":\"5\",\"title\":\"E\",\"languageId\":\"EN\"}]"));
+
+        assertEquals(5, report.getDocumentsRead());
+        assertEquals(5, report.getDocumentsWritten());
+        assertEquals(3, report.getBatches());
+        verify(movieRepository, times(3)).bulkUpsert(anyList());
+        verify(movieRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void testImportMovies_CountsBulkWriteErrors() throws Exception {
+        BulkOperationException exception = mock(BulkOperationException.class);
+        BulkWriteError error = mock(BulkWriteError.class);
+        when(error.getIndex()).thenReturn(1);
+        when(exception.getErrors()).thenReturn(List.of(error));
+        when(movieRepository.bulkUpsert(anyList())).thenThrow(exception);
+
+        ImportReport report = movieImportService.importMovies(json("[" + movie("A") + "," + movie("B") + "]"));
+
+        assertEquals(1, report.getDocumentsWritten());
+        assertEquals(1, report.getFailedDocuments());
+        verify(eventPublisher).publishEvent(argThat((Object event) ->
+                event instanceof MoviesSavedEvent saved && saved.getMovies().size() == 1
+                        && "A".equals(saved.getMovies().get(0).getTitle())));
+    }
+
+    @Test
+    void testImportMovies_RejectsNonArray() {
+        assertThrows(IllegalArgumentException.class,
+                () -> movieImportService.importMovies(json("{\"title\":\"A\"}")));
+        verify(movieRepository, never()).bulkUpsert(anyList());
+    }
+
+    @Test
+    void testImportMovies_RejectsMalformedJson() {
+        assertThrows(IllegalArgumentException.class,
+                () -> movieImportService.importMovies(json("[{\"title\":\"A\"},{\"title\":")));
+    }
+
+    @Test
+    void testImportMovies_RejectsTruncatedArray() {
+        when(movieRepository.bulkUpsert(anyList())).thenAnswer(invocation -> ((List<?>) invocation.getArgument(0)).size());
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> movieImportService.importMovies(json("[" + movie("A") + "," + movie("B") + "," + movie("C"))));
+
+        assertTrue(exception.getMessage().startsWith("Malformed movie JSON"));
+    }
+
+    @Test
+    void testImportMovies_RejectsNonObjectElement() {
+        when(movieRepository.bulkUpsert(anyList())).thenAnswer(invocation -> ((List<?>) invocation.getArgument(0)).size());
+
+        // Wcześniej import kończył się po cichu na pierwszym elemencie, który nie był obiektem
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> movieImportService.importMovies(json("[" + movie("A") + ",42," + movie("B") + "]")));
+
+        assertEquals("Expected a movie object at position 2.", exception.getMessage());
+    }
+
+    @Test
+    void testImportMovies_SkipsMalformedRows() throws Exception {
+        when(movieRepository.bulkUpsert(anyList())).thenAnswer(invocation -> ((List<?>) invocation.getArgument(0)).size());
+
+        ImportReport report = movieImportService.importMovies(json("[" + movie("A") + ","
+                + "{\"title\":\"B\",\"duration\":\"long\",\"languageId\":\"EN\"}," + movie("C") + "]"));
+
+        assertEquals(3, report.getDocumentsRead());
+        assertEquals(2, report.getDocumentsWritten());
+        assertEquals(1, report.getFailedDocuments());
+        assertTrue(report.getRejections().get(0).startsWith("#2 'B': Malformed movie:"));
+    }
+
+    @Test
+    void testImportMovies_Empty() throws Exception {
+        ImportReport report = movieImportService.importMovies(json("[]"));
+
+        assertEquals(0, report.getDocumentsRead());
+        verify(movieRepository, never()).bulkUpsert(anyList());
+    }
+
+    @Test
+    void testImportMovies_RejectsInvalidReferences() throws Exception {
+        when(movieRepository.bulkUpsert(anyList())).thenAnswer(invocation -> ((List<?>) invocation.getArgument(0)).size());
+
+        ImportReport report = movieImportService.importMovies(json("[" + movie("A") + ","
+                + "{\"title\":\"B\",\"genres\":[\"Action\",\"Horror\"],\"languageId\":\"EN\"},"
+                + "{\"title\":\"C\",\"genres\":[],\"languageId\":\"XX\"}]"));
+
+        assertEquals(3, report.getDocumentsRead());
+        assertEquals(1, report.getDocumentsWritten());
+        assertEquals(2, report.getRejectedDocuments());
+        assertEquals(List.of("#2 'B': Category not found: Horror", "#3 'C': Language not found: XX"), report.getRejections());
+        verify(categoryService, times(1)).getAllCategories();
+        verify(languageService, times(1)).getAllLanguages();
+    }
+}
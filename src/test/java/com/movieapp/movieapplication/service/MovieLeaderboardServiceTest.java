@@ -0,0 +1,158 @@
+package com.movieapp.movieapplication.service;
+
+import com.movieapp.movieapplication.model.Movie;
+import com.movieapp.movieapplication.model.RatingStats;
+import com.movieapp.movieapplication.model.SearchHit;
+import com.movieapp.movieapplication.repository.MovieRepository;
+import com.movieapp.movieapplication.repository.RatingStatsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class MovieLeaderboardServiceTest {
+
+    @Mock
+    private MovieRepository movieRepository;
+
+    @Mock
+    private RatingStatsRepository ratingStatsRepository;
+
+    private MovieLeaderboardService leaderboardService;
+
+    private Movie drama;
+    private Movie comedy;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        leaderboardService = new MovieLeaderboardService(movieRepository, ratingStatsRepository, new RatingAggregateLocks());
+        drama = movie("1", List.of("drama"), "en");
+        comedy = movie("2", List.of("comedy"), "pl");
+        // findAllById zwraca filmy w dowolnej kolejności - ranking ustala serwis
+        when(movieRepository.findAllById(anyList())).thenReturn(List.of(comedy, drama));
+    }
+
+    private Movie movie(String id, List<String> genres, String languageId) {
+        Movie movie = new Movie();
+        movie.setId(id);
+        movie.setGenres(genres);
+        movie.setLanguageId(languageId);
+        return movie;
+    }
+
+    private RatingStats stats(String movieId, long count, long sum) {
+        RatingStats stats = new RatingStats(movieId);
+        stats.setCount(count);
+        stats.setSum(sum);
+        return stats;
+    }
+
+    @Test
+    void testBuildOnStartup_SingleFiveStarDoesNotDominate() {
+        when(movieRepository.streamAllBy()).thenReturn(Stream.of(drama, comedy));
+        // Jedna ocena 5 vs. 200 ocen ze średnią 4.5
+        when(ratingStatsRepository.streamAllBy()).thenReturn(Stream.of(stats("1", 1, 5), stats("2", 200, 900)));
+
+        leaderboardService.buildOnStartup();
+        List<SearchHit<Movie>> top = leaderboardService.top(null, null, 10);
+
+        assertEquals(List.of("2", "1"), top.stream().map(hit -> hit.getItem().getId()).toList());
+        assertEquals((10 * 3.0 + 900) / 210, top.get(0).getScore(), 1e-9);
+    }
+
+    @Test
+    void testBuildOnStartup_KeepsRatingsChangedDuringBuild() {
+        when(movieRepository.streamAllBy()).thenReturn(Stream.of(drama, comedy));
+        // Agregat filmu 1 przeczytany przed nową recenzją, a zastosowany już po jej evencie
+        when(ratingStatsRepository.streamAllBy()).thenReturn(Stream.of(stats("2", 1, 3), stats("1", 1, 5))
+                .peek(stat -> {
+                    if (stat.getMovieId().equals("2")) {
+                        leaderboardService.onReviewRating(new ReviewRatingEvent("1", 4, 1));
+                    }
+                }));
+        when(ratingStatsRepository.findAllById(Set.of("1"))).thenReturn(List.of(stats("1", 2, 9)));
+
+        leaderboardService.buildOnStartup();
+        List<SearchHit<Movie>> top = leaderboardService.top(null, null, 10);
+
+        assertEquals("1", top.get(0).getItem().getId());
+        assertEquals((10 * 3.0 + 9) / 12, top.get(0).getScore(), 1e-9);
+    }
+
+    @Test
+    void testBuildOnStartup_DeletedMovieIsNotRestored() {
+        when(movieRepository.streamAllBy()).thenReturn(Stream.of(drama, comedy));
+        when(ratingStatsRepository.streamAllBy()).thenReturn(Stream.of(stats("2", 1, 3), stats("1", 1, 5))
+                .peek(stat -> {
+                    if (stat.getMovieId().equals("2")) {
+                        leaderboardService.onMovieDeleted(new MovieDeletedEvent("1"));
+                    }
+                }));
+
+        leaderboardService.buildOnStartup();
+
+        assertEquals(List.of("2"), leaderboardService.top(null, null, 10).stream().map(hit -> hit.getItem().getId()).toList());
+    }
+
+    @Test
+    void testTop_PerFacetBoards() {
+        leaderboardService.onMoviesSaved(new MoviesSavedEvent(List.of(drama, comedy)));
+        leaderboardService.onReviewRating(new ReviewRatingEvent("1", 4, 1));
+        leaderboardService.onReviewRating(new ReviewRatingEvent("2", 5, 1));
+
+        assertEquals(List.of("1"), ids(leaderboardService.top("drama", null, 10)));
+        assertEquals(List.of("2"), ids(leaderboardService.top(null, "pl", 10)));
+        assertEquals(List.of("1"), ids(leaderboardService.top("drama", "en", 10)));
+        assertTrue(leaderboardService.top("drama", "pl", 10).isEmpty());
+    }
+
+    @Test
+    void testRatingChangesReorderIncrementally() {
+        leaderboardService.onMoviesSaved(new MoviesSavedEvent(List.of(drama, comedy)));
+        leaderboardService.onReviewRating(new ReviewRatingEvent("1", 5, 1));
+        leaderboardService.onReviewRating(new ReviewRatingEvent("2", 4, 1));
+        assertEquals(List.of("1", "2"), ids(leaderboardService.top(null, null, 10)));
+
+        // Edycja oceny: odjęcie starej i dodanie nowej
+        leaderboardService.onReviewRating(new ReviewRatingEvent("1", 5, -1));
+        leaderboardService.onReviewRating(new ReviewRatingEvent("1", 1, 1));
+
+        assertEquals(List.of("2", "1"), ids(leaderboardService.top(null, null, 10)));
+    }
+
+    @Test
+    void testGenreChangeAndDeleteMoveEntries() {
+        leaderboardService.onMoviesSaved(new MoviesSavedEvent(List.of(drama)));
+        leaderboardService.onReviewRating(new ReviewRatingEvent("1", 5, 1));
+
+        leaderboardService.onMoviesSaved(new MoviesSavedEvent(List.of(movie("1", List.of("comedy"), "en"))));
+        assertTrue(leaderboardService.top("drama", null, 10).isEmpty());
+        assertEquals(List.of("1"), ids(leaderboardService.top("comedy", null, 10)));
+
+        leaderboardService.onMovieDeleted(new MovieDeletedEvent("1"));
+        assertTrue(leaderboardService.top(null, null, 10).isEmpty());
+    }
+
+    @Test
+    void testMovieWithoutRatingsIsNotRanked() {
+        leaderboardService.onMoviesSaved(new MoviesSavedEvent(List.of(drama)));
+        leaderboardService.onReviewRating(new ReviewRatingEvent("1", 3, 1));
+        leaderboardService.onReviewRating(new ReviewRatingEvent("1", 3, -1));
+
+        assertTrue(leaderboardService.top(null, null, 10).isEmpty());
+        verify(movieRepository, never()).findAll();
+    }
+
+    private static List<String> ids(List<SearchHit<Movie>> hits) {
+        return hits.stream().map(hit -> hit.getItem().getId()).toList();
+    }
+}
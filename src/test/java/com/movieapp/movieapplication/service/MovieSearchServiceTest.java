@@ -0,0 +1,119 @@
+package com.movieapp.movieapplication.service;
+
+import com.movieapp.movieapplication.model.Movie;
+import com.movieapp.movieapplication.model.SearchHit;
+import com.movieapp.movieapplication.model.SearchPage;
+import com.movieapp.movieapplication.repository.MovieRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+class MovieSearchServiceTest {
+
+    @Mock
+    private MovieRepository movieRepository;
+
+    private MovieSearchService movieSearchService;
+
+    private Movie inception;
+    private Movie interstellar;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        movieSearchService = new MovieSearchService(movieRepository);
+        inception = movie("1", "Inception", "A thief who steals secrets through dreams", "Christopher Nolan");
+        interstellar = movie("2", "Interstellar", "Explorers travel through a wormhole", "Christopher Nolan");
+    }
+
+    private Movie movie(String id, String title, String description, String director) {
+        Movie movie = new Movie();
+        movie.setId(id);
+        movie.setTitle(title);
+        movie.setDescription(description);
+        movie.setDirector(director);
+        return movie;
+    }
+
+    @Test
+    void testBuildOnStartupAndSearch() {
+        when(movieRepository.streamAllBy()).thenReturn(Stream.of(inception, interstellar));
+        when(movieRepository.findAllById(List.of("1"))).thenReturn(List.of(inception));
+
+        movieSearchService.buildOnStartup();
+        SearchPage<SearchHit<Movie>> page = movieSearchService.search("DREAMS nolan", 0, 10);
+
+        assertEquals(1, page.getTotal());
+        assertEquals("Inception", page.getItems().get(0).getItem().getTitle());
+        verify(movieRepository, never()).findAll();
+    }
+
+    @Test
+    void testBuildOnStartup_KeepsMoviesChangedDuringBuild() {
+        Movie renamed = movie("1", "Origin", "A thief who steals secrets through dreams", "Christopher Nolan");
+        // Film 1 przeczytany przed zmianą tytułu, film 2 usunięty, zanim strumień do niego doszedł
+        when(movieRepository.streamAllBy()).thenReturn(Stream.of(interstellar, inception)
+                .peek(movie -> {
+                    if (movie.getId().equals("2")) {
+                        movieSearchService.onMoviesSaved(new MoviesSavedEvent(List.of(renamed)));
+                        movieSearchService.onMovieDeleted(new MovieDeletedEvent("2"));
+                    }
+                }));
+
+        movieSearchService.buildOnStartup();
+
+        assertEquals(0, movieSearchService.search("inception", 0, 10).getTotal());
+        assertEquals(0, movieSearchService.search("interstellar", 0, 10).getTotal());
+        when(movieRepository.findAllById(List.of("1"))).thenReturn(List.of(renamed));
+        assertEquals(1, movieSearchService.search("origin", 0, 10).getTotal());
+    }
+
+    @Test
+    void testSearch_TitleMatchRanksFirst() {
+        Movie documentary = movie("3", "Wormholes", "Documentary about Interstellar travel", "Someone");
+        movieSearchService.onMoviesSaved(new MoviesSavedEvent(List.of(interstellar, documentary)));
+        when(movieRepository.findAllById(List.of("2", "3"))).thenReturn(List.of(documentary, interstellar));
+
+        SearchPage<SearchHit<Movie>> page = movieSearchService.search("interstellar", 0, 10);
+
+        assertEquals(2, page.getTotal());
+        assertEquals("2", page.getItems().get(0).getItem().getId());
+        assertEquals("3", page.getItems().get(1).getItem().getId());
+    }
+
+    @Test
+    void testSearch_HugePageNumberReturnsEmptyPage() {
+        movieSearchService.onMoviesSaved(new MoviesSavedEvent(List.of(interstellar)));
+
+        // 30 000 000 * 100 nie mieści się w int
+        SearchPage<SearchHit<Movie>> page = movieSearchService.search("interstellar", 30_000_000, 100);
+
+        assertEquals(1, page.getTotal());
+        assertTrue(page.getItems().isEmpty());
+        verify(movieRepository, never()).findAllById(anyList());
+    }
+
+    @Test
+    void testIncrementalUpdates() {
+        movieSearchService.onMoviesSaved(new MoviesSavedEvent(List.of(inception)));
+        inception.setTitle("Origin");
+        movieSearchService.onMoviesSaved(new MoviesSavedEvent(List.of(inception)));
+
+        assertEquals(0, movieSearchService.search("inception", 0, 10).getTotal());
+        verify(movieRepository, never()).findAllById(anyList());
+
+        when(movieRepository.findAllById(List.of("1"))).thenReturn(List.of(inception));
+        assertEquals(1, movieSearchService.search("origin", 0, 10).getTotal());
+
+        movieSearchService.onMovieDeleted(new MovieDeletedEvent("1"));
+        assertEquals(0, movieSearchService.search("origin", 0, 10).getTotal());
+    }
+}
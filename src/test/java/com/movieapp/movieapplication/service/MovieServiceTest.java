@@ -3,16 +3,22 @@ import com.movieapp.movieapplication.model.Category;
 import com.movieapp.movieapplication.model.Language;
 
 
+import com.movieapp.movieapplication.model.CursorPage;
 import com.movieapp.movieapplication.model.Movie;
+import com.movieapp.movieapplication.model.RatingStats;
 import com.movieapp.movieapplication.repository.MovieRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
 public class MovieServiceTest {
@@ -28,10 +34,16 @@ public class MovieServiceTest {
     @Mock
     private LanguageService languageService;
 
+    @Mock
+    private ReviewService reviewService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        movieService = new MovieService(movieRepository, categoryService, languageService, null);
+        movieService = new MovieService(movieRepository, categoryService, languageService, reviewService, eventPublisher);
     }
 
     @Test
@@ -47,17 +59,81 @@ public class MovieServiceTest {
         verify(movieRepository, times(1)).findAll();
     }
 
+    @Test
+    void testGetMoviesPage_ReturnsCursorWhenMoreResults() {
+        Movie first = new Movie();
+        first.setId("1");
+        first.setTitle("A");
+        Movie second = new Movie();
+        second.setId("2");
+        second.setTitle("B");
+        Movie third = new Movie();
+        third.setId("3");
+        third.setTitle("C");
+        when(movieRepository.findPageAfter("title", null, null, 3)).thenReturn(List.of(first, second, third));
+
+        CursorPage<Movie> page = movieService.getMoviesPage(null, 2, "title");
+
+        assertEquals(2, page.getItems().size());
+        assertEquals("B", page.getItems().get(1).getTitle());
+        assertEquals(CursorCodec.encode("title", "2", "vB"), page.getNextCursor());
+    }
+
+    @Test
+    void testGetMoviesPage_ContinuesFromCursor() {
+        Movie movie = new Movie();
+        movie.setId("5");
+        movie.setDuration(130);
+        String cursor = CursorCodec.encode("duration", "4", "v120");
+        when(movieRepository.findPageAfter("duration", 120, "4", 21)).thenReturn(List.of(movie));
+
+        CursorPage<Movie> page = movieService.getMoviesPage(cursor, null, "duration");
+
+        assertEquals(1, page.getItems().size());
+        assertNull(page.getNextCursor());
+        verify(movieRepository, times(1)).findPageAfter("duration", 120, "4", 21);
+    }
+
+    @Test
+    void testGetMoviesPage_CapsPageSize() {
+        when(movieRepository.findPageAfter("id", null, null, 101)).thenReturn(List.of());
+
+        movieService.getMoviesPage(null, 10_000, null);
+
+        verify(movieRepository, times(1)).findPageAfter("id", null, null, 101);
+    }
+
+    @Test
+    void testGetMoviesPage_RejectsCursorForOtherSort() {
+        String cursor = CursorCodec.encode("title", "2", "vB");
+
+        assertThrows(IllegalArgumentException.class, () -> movieService.getMoviesPage(cursor, 10, "duration"));
+        assertThrows(IllegalArgumentException.class, () -> movieService.getMoviesPage(null, 10, "description"));
+    }
+
+    @Test
+    void testGetMoviesPage_RejectsEmptySortValue() {
+        String cursor = CursorCodec.encode("title", "2", "");
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> movieService.getMoviesPage(cursor, 10, "title"));
+        assertEquals("Invalid cursor.", e.getMessage());
+    }
+
     @Test
     void testGetMovieById_Found() {
         Movie movie = new Movie();
         movie.setId("1");
         movie.setTitle("Test Movie");
         when(movieRepository.findById("1")).thenReturn(java.util.Optional.of(movie));
+        RatingStats stats = new RatingStats("1");
+        stats.setCount(3);
+        when(reviewService.getRatingStats("1")).thenReturn(stats);
 
         var result = movieService.getMovieById("1");
 
         assertEquals(true, result.isPresent());
         assertEquals("Test Movie", result.get().getTitle());
+        assertEquals(3, result.get().getRatingStats().getCount());
         verify(movieRepository, times(1)).findById("1");
     }
 
@@ -82,8 +158,7 @@ public class MovieServiceTest {
         // Mockowanie zwracanych wartości przez CategoryService
         Category category1 = new Category("Genre1", "Action", "Action movies");
         Category category2 = new Category("Genre2", "Drama", "Dramatic movies");
-        when(categoryService.getCategoryById("Genre1")).thenReturn(java.util.Optional.of(category1));
-        when(categoryService.getCategoryById("Genre2")).thenReturn(java.util.Optional.of(category2));
+        when(categoryService.getCategoriesByIds(Set.of("Genre1", "Genre2"))).thenReturn(List.of(category1, category2));
 
         // Mockowanie zwracanej wartości przez LanguageService
         Language mockLanguage = new Language("Language1", "English", "EN");
@@ -100,9 +175,49 @@ public class MovieServiceTest {
         assertEquals(List.of("Genre1", "Genre2"), result.getGenres());
         assertEquals("Language1", result.getLanguageId());
         verify(movieRepository, times(1)).save(movie);
-        verify(categoryService, times(1)).getCategoryById("Genre1");
-        verify(categoryService, times(1)).getCategoryById("Genre2");
+        verify(categoryService, times(1)).getCategoriesByIds(Set.of("Genre1", "Genre2"));
+        verify(categoryService, never()).getCategoryById(anyString());
         verify(languageService, times(1)).getLanguageById("Language1");
+        verify(eventPublisher, times(1)).publishEvent(any(MoviesSavedEvent.class));
+    }
+
+    @Test
+    void testAddMovie_ReportsAllMissingReferences() {
+        Movie movie = new Movie();
+        movie.setTitle("New Movie");
+        movie.setGenres(List.of("Genre1", "Missing1", "Missing2"));
+        movie.setLanguageId("Missing3");
+
+        when(categoryService.getCategoriesByIds(Set.of("Genre1", "Missing1", "Missing2")))
+                .thenReturn(List.of(new Category("Genre1", "Action", "Action movies")));
+        when(languageService.getLanguageById("Missing3")).thenReturn(java.util.Optional.empty());
+
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> movieService.addMovie(movie));
+
+        assertEquals("Category not found: Missing1, Missing2; Language not found: Missing3", exception.getMessage());
+        verify(movieRepository, never()).save(any(Movie.class));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void testUpdateMovie_ValidatesGenresInOneLookup() {
+        Movie existing = new Movie();
+        existing.setId("1");
+        Movie updated = new Movie();
+        updated.setTitle("New Title");
+        updated.setGenres(List.of("Genre1", "Genre1"));
+        updated.setLanguageId("Language1");
+
+        when(movieRepository.findById("1")).thenReturn(java.util.Optional.of(existing));
+        when(categoryService.getCategoriesByIds(Set.of("Genre1"))).thenReturn(List.of(new Category("Genre1", "Action", "Action movies")));
+        when(languageService.getLanguageById("Language1")).thenReturn(java.util.Optional.of(new Language("Language1", "English", "EN")));
+        when(movieRepository.save(any(Movie.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Movie result = movieService.updateMovie("1", updated);
+
+        assertEquals("New Title", result.getTitle());
+        assertEquals(List.of("Genre1", "Genre1"), result.getGenres());
+        verify(categoryService, times(1)).getCategoriesByIds(Set.of("Genre1"));
     }
 
 
@@ -115,6 +230,7 @@ public class MovieServiceTest {
         movieService.deleteMovie(movieId);
 
         verify(movieRepository, times(1)).deleteById(movieId);
+        verify(eventPublisher, times(1)).publishEvent(any(MovieDeletedEvent.class));
     }
 
 
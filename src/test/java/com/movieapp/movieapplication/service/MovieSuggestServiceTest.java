@@ -0,0 +1,99 @@
+package com.movieapp.movieapplication.service;
+
+import com.movieapp.movieapplication.model.Movie;
+import com.movieapp.movieapplication.model.Suggestion;
+import com.movieapp.movieapplication.repository.MovieRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class MovieSuggestServiceTest {
+
+    @Mock
+    private MovieRepository movieRepository;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private MovieSuggestService movieSuggestService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        movieSuggestService = new MovieSuggestService(movieRepository, mongoTemplate);
+    }
+
+    private Movie movie(String id, String title) {
+        Movie movie = new Movie();
+        movie.setId(id);
+        movie.setTitle(title);
+        return movie;
+    }
+
+    private List<String> titles(List<Suggestion> suggestions) {
+        return suggestions.stream().map(Suggestion::getTitle).toList();
+    }
+
+    @Test
+    void testRebuild_UsesFavoriteCountsAsPopularity() {
+        when(mongoTemplate.aggregateStream(any(Aggregation.class), eq("users"), eq(Document.class)))
+                .thenReturn(Stream.of(new Document("_id", "2").append("count", 5)));
+        when(movieRepository.streamAllBy()).thenReturn(Stream.of(movie("1", "Star Trek"), movie("2", "Star Wars")));
+
+        movieSuggestService.rebuild();
+
+        assertEquals(List.of("Star Wars", "Star Trek"), titles(movieSuggestService.suggest("star", 10)));
+        assertEquals(List.of("Star Wars"), titles(movieSuggestService.suggest("star", 1)));
+    }
+
+    @Test
+    void testRebuild_SkipsWhileAnotherRebuildRuns() {
+        when(mongoTemplate.aggregateStream(any(Aggregation.class), eq("users"), eq(Document.class)))
+                .thenAnswer(invocation -> Stream.empty());
+        // Okresowa przebudowa wywołana w trakcie przebudowy po starcie, razem z zapisem z tego czasu
+        when(movieRepository.streamAllBy()).thenReturn(Stream.of(movie("1", "Star Trek"))
+                .peek(movie -> {
+                    movieSuggestService.rebuild();
+                    movieSuggestService.onMoviesSaved(new MoviesSavedEvent(List.of(movie("2", "Star Wars"))));
+                }));
+
+        movieSuggestService.rebuild();
+
+        verify(movieRepository, times(1)).streamAllBy();
+        assertEquals(List.of("Star Trek", "Star Wars"), titles(movieSuggestService.suggest("star", 10)));
+    }
+
+    @Test
+    void testRebuild_FailureKeepsIndexUsable() {
+        movieSuggestService.onMoviesSaved(new MoviesSavedEvent(List.of(movie("1", "Alien"))));
+        when(mongoTemplate.aggregateStream(any(Aggregation.class), eq("users"), eq(Document.class)))
+                .thenThrow(new RuntimeException("timeout"));
+
+        movieSuggestService.rebuild();
+        movieSuggestService.onMoviesSaved(new MoviesSavedEvent(List.of(movie("2", "Aliens"))));
+
+        assertEquals(List.of("Alien", "Aliens"), titles(movieSuggestService.suggest("ali", 10)));
+    }
+
+    @Test
+    void testEvents_KeepIndexInSync() {
+        movieSuggestService.onMoviesSaved(new MoviesSavedEvent(List.of(movie("1", "Heat"), movie("2", "Her"))));
+        movieSuggestService.onMoviesSaved(new MoviesSavedEvent(List.of(movie("2", "Hereditary"))));
+        movieSuggestService.onMovieDeleted(new MovieDeletedEvent("1"));
+
+        assertEquals(List.of("Hereditary"), titles(movieSuggestService.suggest("he", 10)));
+        verifyNoInteractions(movieRepository);
+    }
+}
@@ -0,0 +1,106 @@
+package com.movieapp.movieapplication.service;
+
+import com.movieapp.movieapplication.model.Movie;
+import com.movieapp.movieapplication.model.SearchHit;
+import com.movieapp.movieapplication.repository.MovieRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class MovieTrendingServiceTest {
+
+    private static final long NOW = Duration.ofDays(1000).toMillis();
+
+    @Mock
+    private MovieRepository movieRepository;
+
+    private MovieTrendingService trendingService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        trendingService = new MovieTrendingService(movieRepository);
+        when(movieRepository.findAllById(anyList())).thenReturn(List.of(movie("1"), movie("2"), movie("3")));
+    }
+
+    private Movie movie(String id) {
+        Movie movie = new Movie();
+        movie.setId(id);
+        return movie;
+    }
+
+    private static List<String> ids(List<SearchHit<Movie>> hits) {
+        return hits.stream().map(hit -> hit.getItem().getId()).toList();
+    }
+
+    @Test
+    void testRanksByWeightedActivity() {
+        trendingService.record("1", MovieActivityEvent.Type.WATCH, NOW);
+        trendingService.record("1", MovieActivityEvent.Type.WATCH, NOW);
+        trendingService.record("2", MovieActivityEvent.Type.REVIEW, NOW);
+
+        trendingService.refresh(NOW);
+        List<SearchHit<Movie>> hour = trendingService.trending("hour", 10);
+
+        assertEquals(List.of("2", "1"), ids(hour));
+        assertEquals(3.0, hour.get(0).getScore());
+    }
+
+    @Test
+    void testHourWindowExpiresBeforeDayWindow() {
+        long twoHoursAgo = NOW - Duration.ofHours(2).toMillis();
+        trendingService.record("1", MovieActivityEvent.Type.FAVORITE, twoHoursAgo);
+        trendingService.record("2", MovieActivityEvent.Type.WATCH, NOW);
+
+        trendingService.refresh(NOW);
+
+        assertEquals(List.of("2"), ids(trendingService.trending("hour", 10)));
+        assertEquals(List.of("1", "2"), ids(trendingService.trending("DAY", 10)));
+    }
+
+    @Test
+    void testInactiveMoviesDropOut() {
+        trendingService.record("1", MovieActivityEvent.Type.REVIEW, NOW);
+
+        trendingService.refresh(NOW + Duration.ofDays(2).toMillis());
+
+        assertTrue(trendingService.trending("day", 10).isEmpty());
+    }
+
+    @Test
+    void testReadDoesNotTouchDatabase() {
+        trendingService.record("1", MovieActivityEvent.Type.REVIEW, NOW);
+        trendingService.refresh(NOW);
+        clearInvocations(movieRepository);
+
+        trendingService.trending("hour", 1);
+        trendingService.trending("day", 1);
+
+        verifyNoInteractions(movieRepository);
+    }
+
+    @Test
+    void testUnsupportedWindow() {
+        assertThrows(IllegalArgumentException.class, () -> trendingService.trending("week", 10));
+    }
+
+    @Test
+    void testSlidingWindowCounterReusesExpiredBuckets() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(Duration.ofMinutes(60).toMillis(), 60);
+        counter.add(NOW, 5);
+        counter.add(NOW + Duration.ofMinutes(30).toMillis(), 2);
+
+        assertEquals(7, counter.sum(NOW + Duration.ofMinutes(30).toMillis()));
+        // Po godzinie pierwszy kubełek wypada z okna, a ten sam slot dostaje nową epokę
+        counter.add(NOW + Duration.ofMinutes(60).toMillis(), 1);
+        assertEquals(3, counter.sum(NOW + Duration.ofMinutes(60).toMillis()));
+    }
+}
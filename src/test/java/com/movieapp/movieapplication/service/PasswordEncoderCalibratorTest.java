@@ -0,0 +1,62 @@
+package com.movieapp.movieapplication.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordEncoderCalibratorTest {
+
+    @Test
+    void testCreate_PrefixesHashesWithAlgorithmId() {
+        PasswordEncoder encoder = PasswordEncoderCalibrator.create(PasswordEncoderCalibrator.PBKDF2, 1);
+
+        String hash = encoder.encode("secret");
+
+        assertTrue(hash.startsWith("{pbkdf2-sha256}"));
+        assertTrue(encoder.matches("secret", hash));
+        assertFalse(encoder.matches("other", hash));
+        assertFalse(encoder.upgradeEncoding(hash));
+    }
+
+    @Test
+    void testCreate_MatchesLegacyAndOtherAlgorithmHashesAndMarksThemForUpgrade() {
+        PasswordEncoder encoder = PasswordEncoderCalibrator.create(PasswordEncoderCalibrator.PBKDF2, 1);
+        String legacy = new BCryptPasswordEncoder(4).encode("secret");
+        String bcrypt = "{bcrypt}" + legacy;
+
+        // Dawne hasze BCrypt bez prefiksu
+        assertTrue(encoder.matches("secret", legacy));
+        assertTrue(encoder.upgradeEncoding(legacy));
+        assertTrue(encoder.matches("secret", bcrypt));
+        assertTrue(encoder.upgradeEncoding(bcrypt));
+    }
+
+    @Test
+    void testCreate_ArgonHashesVerify() {
+        PasswordEncoder encoder = PasswordEncoderCalibrator.create(PasswordEncoderCalibrator.ARGON2, 1);
+
+        String hash = encoder.encode("secret");
+
+        assertTrue(hash.startsWith("{argon2}"));
+        assertTrue(encoder.matches("secret", hash));
+    }
+
+    @Test
+    void testCreate_UnknownAlgorithm() {
+        assertThrows(IllegalArgumentException.class, () -> PasswordEncoderCalibrator.create("md5", 250));
+    }
+
+    @Test
+    void testPbkdf2_LowerIterationCountNeedsUpgrade() {
+        String weak = new Pbkdf2Sha256PasswordEncoder(1000).encode("secret");
+        Pbkdf2Sha256PasswordEncoder current = new Pbkdf2Sha256PasswordEncoder(2000);
+
+        // Iteracje są w haszu, więc stary hasz nadal pasuje
+        assertTrue(current.matches("secret", weak));
+        assertTrue(current.upgradeEncoding(weak));
+        assertFalse(current.upgradeEncoding(current.encode("secret")));
+        assertFalse(current.matches("secret", "not-a-hash"));
+    }
+}
@@ -0,0 +1,93 @@
+package com.movieapp.movieapplication.service;
+
+import com.movieapp.movieapplication.model.PasswordHashingStats;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHashingServiceTest {
+
+    private PasswordHashingService hashingService;
+
+    @AfterEach
+    void tearDown() {
+        if (hashingService != null) {
+            hashingService.shutdown();
+        }
+    }
+
+    // Koder, który blokuje się do zwolnienia zatrzasku - pozwala zapełnić pulę i kolejkę
+    private static PasswordEncoder blockingEncoder(CountDownLatch started, CountDownLatch release) {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "hash:" + rawPassword;
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return encodedPassword.equals("hash:" + rawPassword);
+            }
+        };
+    }
+
+    @Test
+    void testEncodeAndMatches_RecordsMetrics() {
+        CountDownLatch release = new CountDownLatch(0);
+        hashingService = new PasswordHashingService(blockingEncoder(new CountDownLatch(1), release), 1, 1, 5000);
+
+        String hash = hashingService.encode("secret");
+
+        assertEquals("hash:secret", hash);
+        assertTrue(hashingService.matches("secret", hash));
+        assertFalse(hashingService.matches("other", hash));
+        PasswordHashingStats stats = hashingService.getStats();
+        assertEquals(3, stats.getCompleted());
+        assertEquals(0, stats.getRejected());
+        assertEquals(1, stats.getWorkers());
+    }
+
+    @Test
+    void testSaturatedPool_RejectsImmediately() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        hashingService = new PasswordHashingService(blockingEncoder(started, release), 1, 1, 5000);
+
+        // Jeden hasz w toku, drugi w kolejce - trzeci nie ma miejsca
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> hashingService.encode("a"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> hashingService.encode("b"));
+        while (hashingService.getStats().getQueueDepth() == 0) {
+            Thread.onSpinWait();
+        }
+
+        assertThrows(RejectedExecutionException.class, () -> hashingService.encode("c"));
+        release.countDown();
+        assertEquals("hash:a", running.get(5, TimeUnit.SECONDS));
+        assertEquals("hash:b", queued.get(5, TimeUnit.SECONDS));
+        assertEquals(1, hashingService.getStats().getRejected());
+    }
+
+    @Test
+    void testSlowHash_TimesOut() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        hashingService = new PasswordHashingService(blockingEncoder(new CountDownLatch(1), release), 1, 1, 50);
+
+        assertThrows(RejectedExecutionException.class, () -> hashingService.encode("slow"));
+        assertEquals(1, hashingService.getStats().getTimedOut());
+        release.countDown();
+    }
+}
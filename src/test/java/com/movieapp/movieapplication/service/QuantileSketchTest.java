@@ -0,0 +1,59 @@
+package com.movieapp.movieapplication.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuantileSketchTest {
+
+    @Test
+    void testQuantiles_WithinRankErrorAndBoundedMemory() {
+        QuantileSketch sketch = new QuantileSketch(200);
+        for (int i = 0; i < 1_000_000; i++) {
+            // Kolejność przemieszana, żeby wartości nie przychodziły posortowane
+            sketch.add((i * 7919L) % 1_000_000);
+        }
+
+        assertEquals(1_000_000, sketch.getCount());
+        assertEquals(500_000, sketch.quantile(0.5), 20_000);
+        assertEquals(900_000, sketch.quantile(0.9), 20_000);
+        assertTrue(sketch.getRetained() < 800, "retained " + sketch.getRetained());
+    }
+
+    @Test
+    void testMerge_MatchesCombinedData() {
+        QuantileSketch low = new QuantileSketch(100);
+        QuantileSketch high = new QuantileSketch(100);
+        for (int i = 0; i < 50_000; i++) {
+            low.add(i % 100);
+            high.add(100 + i % 100);
+        }
+
+        low.merge(high);
+
+        assertEquals(100_000, low.getCount());
+        assertEquals(100, low.quantile(0.5), 5);
+        assertEquals(180, low.quantile(0.9), 5);
+    }
+
+    @Test
+    void testWeightedAddAndRemovedSketch() {
+        QuantileSketch added = new QuantileSketch(50);
+        added.add(1, 1000);
+        added.add(5, 3000);
+        QuantileSketch removed = new QuantileSketch(50);
+        removed.add(5, 2500);
+
+        // Zostaje 1000 ocen 1 i 500 ocen 5
+        double[] quantiles = QuantileSketch.quantiles(added, removed, new double[]{0.5, 0.7});
+
+        assertEquals(1, quantiles[0]);
+        assertEquals(5, quantiles[1]);
+    }
+
+    @Test
+    void testEmptySketchReturnsNaN() {
+        assertTrue(Double.isNaN(new QuantileSketch(50).quantile(0.5)));
+    }
+}
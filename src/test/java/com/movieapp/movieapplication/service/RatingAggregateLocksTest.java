@@ -0,0 +1,40 @@
+package com.movieapp.movieapplication.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RatingAggregateLocksTest {
+
+    private final RatingAggregateLocks locks = new RatingAggregateLocks();
+
+    @Test
+    void testSharedLeasesDoNotBlockEachOther() throws Exception {
+        RatingAggregateLocks.Lease first = locks.shared(List.of("m1"));
+        CompletableFuture<RatingAggregateLocks.Lease> second = CompletableFuture.supplyAsync(() -> locks.shared(List.of("m1")));
+
+        second.get(5, TimeUnit.SECONDS).close();
+        first.close();
+    }
+
+    @Test
+    void testExclusiveWaitsForSharedLeaseReleasedByAnotherThread() throws Exception {
+        RatingAggregateLocks.Lease shared = locks.shared(List.of("m2"));
+        CompletableFuture<RatingAggregateLocks.Lease> exclusive = CompletableFuture.supplyAsync(() -> locks.exclusive(List.of("m1", "m2")));
+
+        assertThrows(TimeoutException.class, () -> exclusive.get(100, TimeUnit.MILLISECONDS));
+        // Recenzję z bufora zwalnia wątek zapisujący partię, a nie ten, który ją przyjął
+        CompletableFuture.runAsync(shared::close).get(5, TimeUnit.SECONDS);
+
+        RatingAggregateLocks.Lease lease = exclusive.get(5, TimeUnit.SECONDS);
+        lease.close();
+        // Ponowne zamknięcie niczego nie zwalnia drugi raz
+        lease.close();
+        locks.exclusive(List.of("m1")).close();
+    }
+}
@@ -0,0 +1,127 @@
+package com.movieapp.movieapplication.service;
+
+import com.movieapp.movieapplication.model.Movie;
+import com.movieapp.movieapplication.model.TrendBackfillJob;
+import com.movieapp.movieapplication.repository.MovieRepository;
+import com.movieapp.movieapplication.repository.RatingStatsRepository;
+import com.movieapp.movieapplication.repository.RatingTrendRepository;
+import com.movieapp.movieapplication.repository.TrendBackfillJobRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+class RatingTrendBackfillServiceTest {
+
+    @Mock
+    private MovieRepository movieRepository;
+
+    @Mock
+    private RatingTrendRepository ratingTrendRepository;
+
+    @Mock
+    private RatingStatsRepository ratingStatsRepository;
+
+    @Mock
+    private TrendBackfillJobRepository jobRepository;
+
+    private RatingTrendBackfillService backfillService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        backfillService = new RatingTrendBackfillService(movieRepository, ratingTrendRepository, ratingStatsRepository, jobRepository,
+                new RatingAggregateLocks(), 2, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        backfillService.shutdown();
+    }
+
+    private static List<Movie> movies(String... ids) {
+        return Arrays.stream(ids).map(id -> {
+            Movie movie = new Movie();
+            movie.setId(id);
+            return movie;
+        }).toList();
+    }
+
+    @Test
+    void testRun_RebuildsAllChunksAndSavesCheckpoints() {
+        when(movieRepository.findPageAfter("id", null, null, 2)).thenReturn(movies("m1", "m2"));
+        when(movieRepository.findPageAfter("id", null, "m2", 2)).thenReturn(movies("m3"));
+        when(movieRepository.findPageAfter("id", null, "m3", 2)).thenReturn(List.of());
+        when(ratingTrendRepository.rebuild(List.of("m1", "m2"))).thenReturn(10L);
+        when(ratingTrendRepository.rebuild(List.of("m3"))).thenReturn(5L);
+        TrendBackfillJob job = new TrendBackfillJob(RatingTrendBackfillService.JOB_ID);
+
+        backfillService.run(job);
+
+        assertEquals(TrendBackfillJob.Status.COMPLETED, job.getStatus());
+        assertEquals("m3", job.getLastMovieId());
+        assertEquals(3, job.getProcessedMovies());
+        assertEquals(15, job.getProcessedReviews());
+        verify(ratingStatsRepository).rebuild(List.of("m1", "m2"));
+        verify(ratingStatsRepository).rebuild(List.of("m3"));
+        // Checkpoint po każdej paczce i zapis końcowego stanu
+        verify(jobRepository, times(3)).save(job);
+    }
+
+    @Test
+    void testRun_ResumesAfterCheckpoint() {
+        when(movieRepository.findPageAfter("id", null, "m2", 2)).thenReturn(movies("m3"));
+        when(movieRepository.findPageAfter("id", null, "m3", 2)).thenReturn(List.of());
+        when(ratingTrendRepository.rebuild(List.of("m3"))).thenReturn(1L);
+        TrendBackfillJob job = new TrendBackfillJob(RatingTrendBackfillService.JOB_ID);
+        job.setLastMovieId("m2");
+        job.setProcessedMovies(2);
+
+        backfillService.run(job);
+
+        assertEquals(TrendBackfillJob.Status.COMPLETED, job.getStatus());
+        assertEquals(3, job.getProcessedMovies());
+        verify(movieRepository, never()).findPageAfter("id", null, null, 2);
+    }
+
+    @Test
+    void testRun_FailureKeepsLastContiguousCheckpoint() {
+        backfillService = new RatingTrendBackfillService(movieRepository, ratingTrendRepository, ratingStatsRepository, jobRepository,
+                new RatingAggregateLocks(), 1, 1);
+        when(movieRepository.findPageAfter("id", null, null, 1)).thenReturn(movies("m1"));
+        when(movieRepository.findPageAfter("id", null, "m1", 1)).thenReturn(movies("m2"));
+        when(movieRepository.findPageAfter("id", null, "m2", 1)).thenReturn(movies("m3"));
+        when(movieRepository.findPageAfter("id", null, "m3", 1)).thenReturn(List.of());
+        when(ratingTrendRepository.rebuild(List.of("m1"))).thenReturn(1L);
+        when(ratingTrendRepository.rebuild(List.of("m2"))).thenThrow(new IllegalStateException("connection lost"));
+        when(ratingTrendRepository.rebuild(List.of("m3"))).thenReturn(1L);
+        TrendBackfillJob job = new TrendBackfillJob(RatingTrendBackfillService.JOB_ID);
+
+        backfillService.run(job);
+
+        assertEquals(TrendBackfillJob.Status.FAILED, job.getStatus());
+        assertEquals("connection lost", job.getError());
+        assertEquals("m1", job.getLastMovieId());
+    }
+
+    @Test
+    void testStart_ResumesSavedJob() {
+        TrendBackfillJob saved = new TrendBackfillJob(RatingTrendBackfillService.JOB_ID);
+        saved.setStatus(TrendBackfillJob.Status.FAILED);
+        saved.setLastMovieId("m2");
+        when(jobRepository.findById(RatingTrendBackfillService.JOB_ID)).thenReturn(Optional.of(saved));
+
+        TrendBackfillJob job = backfillService.start(false);
+
+        assertEquals("m2", job.getLastMovieId());
+        verify(movieRepository, timeout(1000)).findPageAfter("id", null, "m2", 2);
+    }
+}
@@ -0,0 +1,61 @@
+package com.movieapp.movieapplication.service;
+
+import com.movieapp.movieapplication.model.RatingTrendBucket;
+import com.movieapp.movieapplication.repository.RatingTrendRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+class RatingTrendServiceTest {
+
+    @Mock
+    private RatingTrendRepository ratingTrendRepository;
+
+    private RatingTrendService ratingTrendService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ratingTrendService = new RatingTrendService(ratingTrendRepository);
+    }
+
+    @Test
+    void testGetTrend_WeeklyRangeAlignedToMondays() {
+        RatingTrendBucket bucket = new RatingTrendBucket("movie1", RatingTrendBucket.Granularity.WEEK, LocalDate.of(2024, 4, 29));
+        when(ratingTrendRepository.findBuckets("movie1", RatingTrendBucket.Granularity.WEEK,
+                LocalDate.of(2024, 4, 29), LocalDate.of(2024, 5, 13))).thenReturn(List.of(bucket));
+
+        // 2024-05-01 to środa, 2024-05-19 to niedziela
+        List<RatingTrendBucket> trend = ratingTrendService.getTrend("movie1", "week", LocalDate.of(2024, 5, 1), LocalDate.of(2024, 5, 19));
+
+        assertEquals(List.of(bucket), trend);
+    }
+
+    @Test
+    void testGetTrend_DefaultsToLastNinetyDays() {
+        LocalDate today = LocalDate.now();
+
+        ratingTrendService.getTrend("movie1", null, null, null);
+
+        verify(ratingTrendRepository).findBuckets("movie1", RatingTrendBucket.Granularity.DAY, today.minusDays(89), today);
+    }
+
+    @Test
+    void testGetTrend_RejectsInvalidRequests() {
+        assertThrows(IllegalArgumentException.class, () -> ratingTrendService.getTrend("movie1", "month", null, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> ratingTrendService.getTrend("movie1", "day", LocalDate.of(2024, 5, 2), LocalDate.of(2024, 5, 1)));
+        // Ponad 400 dni w jednym zapytaniu
+        assertThrows(IllegalArgumentException.class,
+                () -> ratingTrendService.getTrend("movie1", "day", LocalDate.of(2023, 1, 1), LocalDate.of(2024, 5, 1)));
+        verifyNoInteractions(ratingTrendRepository);
+    }
+}
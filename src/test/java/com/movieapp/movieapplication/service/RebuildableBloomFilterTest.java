@@ -0,0 +1,40 @@
+package com.movieapp.movieapplication.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RebuildableBloomFilterTest {
+
+    private final RebuildableBloomFilter filter = new RebuildableBloomFilter("Test");
+
+    @Test
+    void testMightContainEverythingBeforeFirstBuild() {
+        assertTrue(filter.mightContain("anything"));
+    }
+
+    @Test
+    void testRebuildLoadsKeysFromSource() {
+        filter.rebuild(1000, 0.01, keys -> List.of("a", "b").forEach(keys));
+
+        assertTrue(filter.mightContain("a"));
+        assertTrue(filter.mightContain("b"));
+        assertFalse(filter.mightContain("c"));
+    }
+
+    @Test
+    void testPutDuringRebuildIsKept() {
+        filter.rebuild(1000, 0.01, keys -> keys.accept("old"));
+
+        filter.rebuild(1000, 0.01, keys -> {
+            keys.accept("a");
+            // Zapis równoległy z przebudową - nowego klucza nie ma w źródle
+            filter.put("written-meanwhile");
+        });
+
+        assertTrue(filter.mightContain("written-meanwhile"));
+        assertFalse(filter.mightContain("old"));
+    }
+}
@@ -0,0 +1,87 @@
+package com.movieapp.movieapplication.service;
+
+import com.movieapp.movieapplication.model.Review;
+import com.movieapp.movieapplication.repository.ReviewRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReviewDuplicateGuardTest {
+
+    @Mock
+    private ReviewRepository reviewRepository;
+
+    private ReviewDuplicateGuard guard;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        guard = new ReviewDuplicateGuard(reviewRepository);
+    }
+
+    private Review key(String userId, String movieId) {
+        return new Review(null, movieId, userId, 0, null, null);
+    }
+
+    @Test
+    void testBeforeRebuild_ChecksDatabase() {
+        when(reviewRepository.existsByUserIdAndMovieId("user1", "movie1")).thenReturn(true);
+
+        assertTrue(guard.isDuplicate("user1", "movie1"));
+        verify(reviewRepository).existsByUserIdAndMovieId("user1", "movie1");
+    }
+
+    @Test
+    void testAfterRebuild_NewPairSkipsDatabase() {
+        when(reviewRepository.count()).thenReturn(1L);
+        when(reviewRepository.streamUserMovieKeys()).thenReturn(Stream.of(key("user1", "movie1")));
+        guard.rebuild();
+
+        assertFalse(guard.isDuplicate("user2", "movie1"));
+        verify(reviewRepository, never()).existsByUserIdAndMovieId(any(), any());
+    }
+
+    @Test
+    void testAfterRebuild_PossibleHitIsConfirmedInDatabase() {
+        when(reviewRepository.streamUserMovieKeys()).thenReturn(Stream.of(key("user1", "movie1")));
+        when(reviewRepository.existsByUserIdAndMovieId("user1", "movie1")).thenReturn(true);
+        guard.rebuild();
+
+        assertTrue(guard.isDuplicate("user1", "movie1"));
+        verify(reviewRepository).existsByUserIdAndMovieId("user1", "movie1");
+    }
+
+    @Test
+    void testRecordedPairIsNoLongerDefinitelyNew() {
+        when(reviewRepository.streamUserMovieKeys()).thenReturn(Stream.empty());
+        guard.rebuild();
+
+        guard.record("user1", "movie2");
+        guard.isDuplicate("user1", "movie2");
+
+        verify(reviewRepository).existsByUserIdAndMovieId("user1", "movie2");
+    }
+
+    @Test
+    void testBloomFilterFalsePositiveRate() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("key-" + i);
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("key-" + i));
+            if (filter.mightContain("other-" + i)) {
+                falsePositives++;
+            }
+        }
+        // Oczekiwane ~1%, z zapasem na losowość
+        assertTrue(falsePositives < 250, "false positives: " + falsePositives);
+    }
+}
@@ -0,0 +1,88 @@
+package com.movieapp.movieapplication.service;
+
+import com.movieapp.movieapplication.model.CursorPage;
+import com.movieapp.movieapplication.model.Review;
+import com.movieapp.movieapplication.model.ReviewSearchHit;
+import com.movieapp.movieapplication.model.SearchHit;
+import com.movieapp.movieapplication.repository.ReviewRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+class ReviewSearchServiceTest {
+
+    @Mock
+    private ReviewRepository reviewRepository;
+
+    private ReviewSearchService reviewSearchService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        reviewSearchService = new ReviewSearchService(reviewRepository);
+    }
+
+    private SearchHit<Review> hit(String id, String text, double score) {
+        return new SearchHit<>(new Review(id, "movie1", "user1", 5, text, LocalDateTime.now()), score);
+    }
+
+    @Test
+    void testSearch_PagesWithCursorAndHighlights() {
+        when(reviewRepository.searchText("twist", "movie1", 0, 3))
+                .thenReturn(List.of(hit("1", "What a twist", 2.0), hit("2", "Twist ending", 1.5), hit("3", "twist", 1.0)));
+
+        CursorPage<ReviewSearchHit> page = reviewSearchService.search("twist", "movie1", null, 2);
+
+        assertEquals(2, page.getItems().size());
+        assertEquals(List.of("What a <em>twist</em>"), page.getItems().get(0).getHighlights());
+        assertEquals(2.0, page.getItems().get(0).getScore());
+        assertTrue(page.isHasMore());
+
+        when(reviewRepository.searchText("twist", "movie1", 2, 3)).thenReturn(List.of(hit("3", "twist", 1.0)));
+
+        CursorPage<ReviewSearchHit> next = reviewSearchService.search("twist", "movie1", page.getNextCursor(), 2);
+
+        assertEquals("3", next.getItems().get(0).getItem().getId());
+        assertFalse(next.isHasMore());
+    }
+
+    @Test
+    void testSearch_BlankMovieIdSearchesGlobally() {
+        when(reviewRepository.searchText("twist", null, 0, 21)).thenReturn(List.of());
+
+        CursorPage<ReviewSearchHit> page = reviewSearchService.search("twist", " ", null, null);
+
+        assertTrue(page.getItems().isEmpty());
+        assertNull(page.getNextCursor());
+        verify(reviewRepository).searchText("twist", null, 0, 21);
+    }
+
+    @Test
+    void testSearch_RejectsEmptyQueryAndForeignCursor() {
+        assertThrows(IllegalArgumentException.class, () -> reviewSearchService.search(" ", null, null, null));
+        assertThrows(IllegalArgumentException.class, () -> reviewSearchService.search("-boring", null, null, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> reviewSearchService.search("twist", null, CursorCodec.encode("facet", "5"), null));
+        verifyNoInteractions(reviewRepository);
+    }
+
+    @Test
+    void testSearch_RejectsNegativeOffsetInCursor() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> reviewSearchService.search("twist", null, CursorCodec.encode("review-search", "-20"), null));
+
+        assertEquals("Invalid cursor.", e.getMessage());
+        verifyNoInteractions(reviewRepository);
+    }
+}
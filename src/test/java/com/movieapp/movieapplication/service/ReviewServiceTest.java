@@ -1,14 +1,23 @@
 package com.movieapp.movieapplication.service;
 
+import com.movieapp.movieapplication.model.CursorPage;
+import com.movieapp.movieapplication.model.RatingStats;
 import com.movieapp.movieapplication.model.Review;
+import com.movieapp.movieapplication.repository.RatingStatsRepository;
+import com.movieapp.movieapplication.repository.RatingTrendRepository;
 import com.movieapp.movieapplication.repository.ReviewRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -19,12 +28,25 @@ class ReviewServiceTest {
     @Mock
     private ReviewRepository reviewRepository;
 
+    @Mock
+    private RatingStatsRepository ratingStatsRepository;
+
+    @Mock
+    private RatingTrendRepository ratingTrendRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private ReviewDuplicateGuard duplicateGuard;
+
     private ReviewService reviewService;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        reviewService = new ReviewService(reviewRepository);
+        reviewService = new ReviewService(reviewRepository, ratingStatsRepository, ratingTrendRepository, eventPublisher, duplicateGuard,
+                new RatingAggregateLocks());
     }
 
     @Test
@@ -70,15 +92,32 @@ class ReviewServiceTest {
 
         assertEquals("movie1", result.getMovieId());
         verify(reviewRepository, times(1)).save(review);
+        verify(ratingStatsRepository, times(1)).applyRating("movie1", 5, 1);
+        verify(ratingTrendRepository, times(1)).applyRating("movie1", review.getReviewDate(), 5, 1);
     }
 
     @Test
     void testDeleteReview() {
         String reviewId = "1";
+        Review review = new Review(reviewId, "movie1", "user1", 3, "Okay", LocalDateTime.now());
+        when(reviewRepository.findById(reviewId)).thenReturn(Optional.of(review));
+        when(reviewRepository.findAndRemoveById(reviewId)).thenReturn(review);
 
         reviewService.deleteReview(reviewId);
 
-        verify(reviewRepository, times(1)).deleteById(reviewId);
+        verify(ratingStatsRepository, times(1)).applyRating("movie1", 3, -1);
+        verify(ratingTrendRepository, times(1)).applyRating("movie1", review.getReviewDate(), 3, -1);
+    }
+
+    @Test
+    void testDeleteReview_NotFound() {
+        when(reviewRepository.findById("1")).thenReturn(Optional.empty());
+
+        reviewService.deleteReview("1");
+
+        verify(reviewRepository, never()).findAndRemoveById(any());
+        verifyNoInteractions(ratingStatsRepository);
+        verifyNoInteractions(ratingTrendRepository);
     }
 
     @Test
@@ -87,14 +126,84 @@ class ReviewServiceTest {
         Review updatedReview = new Review("1", "movie1", "user1", 5, "Amazing movie!", LocalDateTime.now());
 
         when(reviewRepository.findById("1")).thenReturn(Optional.of(existingReview));
-        when(reviewRepository.save(any(Review.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(reviewRepository.findAndReplace(any(Review.class))).thenReturn(existingReview);
 
         Review result = reviewService.updateReview("1", updatedReview);
 
         assertEquals(5, result.getRating());
         assertEquals("Amazing movie!", result.getReviewText());
-        verify(reviewRepository, times(1)).findById("1");
-        verify(reviewRepository, times(1)).save(existingReview);
+        verify(reviewRepository, times(1)).findAndReplace(result);
+        verify(ratingStatsRepository).applyRating("movie1", 4, -1);
+        verify(ratingStatsRepository).applyRating("movie1", 5, 1);
+    }
+
+    @Test
+    void testUpdateReview_MovieChangedMovesRating() {
+        Review existingReview = new Review("1", "movie1", "user1", 4, "Good movie!", LocalDateTime.now());
+        Review updatedReview = new Review("1", "movie2", "user1", 4, "Good movie!", LocalDateTime.now());
+        when(reviewRepository.findById("1")).thenReturn(Optional.of(existingReview));
+        when(reviewRepository.findAndReplace(any(Review.class))).thenReturn(existingReview);
+
+        reviewService.updateReview("1", updatedReview);
+
+        verify(ratingStatsRepository).applyRating("movie1", 4, -1);
+        verify(ratingStatsRepository).applyRating("movie2", 4, 1);
+        verify(eventPublisher, times(2)).publishEvent(any(ReviewRatingEvent.class));
+    }
+
+    @Test
+    void testUpdateReview_TextOnlyLeavesStatsUntouched() {
+        Review existingReview = new Review("1", "movie1", "user1", 4, "Good movie!", LocalDateTime.now());
+        Review updatedReview = new Review("1", "movie1", "user1", 4, "Still good", LocalDateTime.now());
+        when(reviewRepository.findById("1")).thenReturn(Optional.of(existingReview));
+        when(reviewRepository.findAndReplace(any(Review.class))).thenReturn(existingReview);
+
+        reviewService.updateReview("1", updatedReview);
+
+        verifyNoInteractions(ratingStatsRepository);
+        verifyNoInteractions(ratingTrendRepository);
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void testUpdateReview_DateChangedMovesTrendBucket() {
+        LocalDateTime before = LocalDateTime.of(2024, 5, 1, 12, 0);
+        LocalDateTime after = LocalDateTime.of(2024, 5, 3, 12, 0);
+        Review existingReview = new Review("1", "movie1", "user1", 4, "Good movie!", before);
+        Review updatedReview = new Review("1", "movie1", "user1", 4, "Good movie!", after);
+        when(reviewRepository.findById("1")).thenReturn(Optional.of(existingReview));
+        when(reviewRepository.findAndReplace(any(Review.class))).thenReturn(existingReview);
+
+        reviewService.updateReview("1", updatedReview);
+
+        verify(ratingTrendRepository).applyRating("movie1", before, 4, -1);
+        verify(ratingTrendRepository).applyRating("movie1", after, 4, 1);
+        verifyNoInteractions(ratingStatsRepository);
+    }
+
+    @Test
+    void testGetRatingStats() {
+        RatingStats stats = new RatingStats("movie1");
+        stats.setCount(2);
+        stats.setSum(9);
+        stats.setHistogram(new HashMap<>(Map.of("4", 1L, "5", 1L)));
+        when(ratingStatsRepository.findById("movie1")).thenReturn(Optional.of(stats));
+
+        RatingStats result = reviewService.getRatingStats("movie1");
+
+        assertEquals(4.5, result.getAverage());
+        assertEquals(0L, result.getHistogram().get("1"));
+        assertEquals(1L, result.getHistogram().get("5"));
+    }
+
+    @Test
+    void testGetRatingStats_NoReviews() {
+        when(ratingStatsRepository.findById("movie1")).thenReturn(Optional.empty());
+
+        RatingStats result = reviewService.getRatingStats("movie1");
+
+        assertEquals(0, result.getCount());
+        assertEquals(0.0, result.getAverage());
     }
 
     @Test
@@ -108,7 +217,164 @@ class ReviewServiceTest {
         });
 
         assertEquals("Review not found with id: 1", exception.getMessage());
-        verify(reviewRepository, times(1)).findById("1");
+        verify(reviewRepository, never()).findAndReplace(any(Review.class));
+        verifyNoInteractions(ratingStatsRepository);
+        verifyNoInteractions(ratingTrendRepository);
+    }
+
+    @Test
+    void testGetMovieReviews_ReturnsCursorWhenMoreResults() {
+        LocalDateTime date = LocalDateTime.of(2024, 5, 1, 12, 0);
+        Review newest = new Review("2", "movie1", "user1", 5, "Great", date.plusDays(1));
+        Review older = new Review("1", "movie1", "user2", 4, "Good", date);
+        Review oldest = new Review("0", "movie1", "user3", 3, "Okay", date.minusDays(1));
+        when(reviewRepository.findByMovieIdAfter("movie1", null, null, 3)).thenReturn(List.of(newest, older, oldest));
+
+        CursorPage<Review> page = reviewService.getMovieReviews("movie1", null, 2);
+
+        assertEquals(2, page.getItems().size());
+        assertTrue(page.isHasMore());
+
+        when(reviewRepository.findByMovieIdAfter("movie1", date, "1", 3)).thenReturn(List.of(oldest));
+        CursorPage<Review> next = reviewService.getMovieReviews("movie1", page.getNextCursor(), 2);
+
+        assertEquals("0", next.getItems().get(0).getId());
+        assertNull(next.getNextCursor());
+        verify(reviewRepository, never()).findAll();
+    }
+
+    @Test
+    void testGetMovieReviews_NullDateInCursor() {
+        Review first = new Review("2", "movie1", "user1", 5, "Great", null);
+        Review second = new Review("1", "movie1", "user2", 4, "Good", null);
+        when(reviewRepository.findByMovieIdAfter("movie1", null, null, 2)).thenReturn(List.of(first, second));
+        when(reviewRepository.findByMovieIdAfter("movie1", null, "2", 2)).thenReturn(List.of(second));
+
+        CursorPage<Review> page = reviewService.getMovieReviews("movie1", null, 1);
+        CursorPage<Review> next = reviewService.getMovieReviews("movie1", page.getNextCursor(), 1);
+
+        assertEquals("1", next.getItems().get(0).getId());
+        assertFalse(next.isHasMore());
+    }
+
+    @Test
+    void testGetMovieReviews_InvalidCursor() {
+        String cursor = CursorCodec.encode("1", "vnot-a-date");
+
+        assertThrows(IllegalArgumentException.class, () -> reviewService.getMovieReviews("movie1", cursor, 10));
+    }
+
+    @Test
+    void testGetMovieReviews_EmptyDateInCursor() {
+        String cursor = CursorCodec.encode("1", "");
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> reviewService.getMovieReviews("movie1", cursor, 10));
+        assertEquals("Invalid cursor.", e.getMessage());
+    }
+
+    @Test
+    void testGetUserReviews_WithoutText() {
+        LocalDateTime date = LocalDateTime.of(2024, 5, 1, 12, 0);
+        Review latest = new Review("2", "movie2", "user1", 5, null, date);
+        Review earlier = new Review("1", "movie1", "user1", 4, null, date.minusDays(3));
+        when(reviewRepository.findByUserIdAfter("user1", null, null, 2, false)).thenReturn(List.of(latest, earlier));
+        when(reviewRepository.findByUserIdAfter("user1", date, "2", 2, false)).thenReturn(List.of(earlier));
+
+        CursorPage<Review> page = reviewService.getUserReviews("user1", null, 1, false);
+        CursorPage<Review> next = reviewService.getUserReviews("user1", page.getNextCursor(), 1, false);
+
+        assertEquals("2", page.getItems().get(0).getId());
+        assertEquals("1", next.getItems().get(0).getId());
+        assertNull(next.getNextCursor());
+        verify(reviewRepository, never()).findAll();
+    }
+
+    @Test
+    void testSaveBatch_WritesInBulkAndUpdatesAggregates() {
+        Review first = new Review("1", "movie1", "user1", 5, "Great", LocalDateTime.now());
+        Review second = new Review("2", "movie1", "user2", 4, "Good", LocalDateTime.now());
+        when(reviewRepository.insertUnordered(List.of(first, second))).thenReturn(List.of(first));
+
+        reviewService.saveBatch(new ReviewWriteBuffer.Batch(List.of(first, second)));
+
+        // Druga recenzja nie została zapisana, więc nie trafia do agregatów
+        verify(ratingStatsRepository).applyRatings(List.of(first));
+        verify(ratingTrendRepository).applyRatings(List.of(first));
+        verify(eventPublisher, times(1)).publishEvent(any(ReviewRatingEvent.class));
+        verify(reviewRepository, never()).save(any(Review.class));
+    }
+
+    @Test
+    void testSaveBatch_RetryResumesFromFailedStage() {
+        Review review = new Review("1", "movie1", "user1", 5, "Great", LocalDateTime.now());
+        ReviewWriteBuffer.Batch batch = new ReviewWriteBuffer.Batch(List.of(review));
+        when(reviewRepository.insertUnordered(List.of(review))).thenReturn(List.of(review));
+        doThrow(new IllegalStateException("timeout")).doNothing().when(ratingTrendRepository).applyRatings(List.of(review));
+
+        assertThrows(IllegalStateException.class, () -> reviewService.saveBatch(batch));
+        reviewService.saveBatch(batch);
+
+        // Ponowienie nie wstawia recenzji drugi raz i nie dubluje przyrostu statystyk
+        verify(reviewRepository, times(1)).insertUnordered(any());
+        verify(ratingStatsRepository, times(1)).applyRatings(List.of(review));
+        verify(ratingTrendRepository, times(2)).applyRatings(List.of(review));
+        verify(eventPublisher, times(1)).publishEvent(any(ReviewRatingEvent.class));
+    }
+
+    @Test
+    void testAddReview_WriteBehindRejectsSecondQueuedReview() {
+        ReflectionTestUtils.setField(reviewService, "writeBehindEnabled", true);
+        ReflectionTestUtils.setField(reviewService, "writeBehindFlushIntervalMillis", 10_000L);
+        ReflectionTestUtils.setField(reviewService, "writeBehindBatchSize", 100);
+        reviewService.startWriteBehind();
+        try {
+            Review first = new Review(null, "movie1", "user1", 5, "Great", LocalDateTime.now());
+            Review second = new Review(null, "movie1", "user1", 1, "Changed my mind", LocalDateTime.now());
+
+            assertNotNull(reviewService.addReview(first).getId());
+            // Pierwsza recenzja czeka w kolejce, więc baza i strażnik jej jeszcze nie widzą
+            assertThrows(DuplicateKeyException.class, () -> reviewService.addReview(second));
+            assertEquals(1, reviewService.getWriteBufferStats().getAccepted());
+        } finally {
+            reviewService.stopWriteBehind();
+        }
+    }
+
+    @Test
+    void testWriteBehindDisabledByDefault() {
+        assertFalse(reviewService.isWriteBehindEnabled());
+        assertFalse(reviewService.getWriteBufferStats().isEnabled());
+    }
+
+    @Test
+    void testAddReview_DuplicateRejectedBeforeSave() {
+        Review review = new Review(null, "movie1", "user1", 5, "Again", LocalDateTime.now());
+        when(duplicateGuard.isDuplicate("user1", "movie1")).thenReturn(true);
+
+        assertThrows(DuplicateKeyException.class, () -> reviewService.addReview(review));
+
         verify(reviewRepository, never()).save(any(Review.class));
+        verifyNoInteractions(ratingStatsRepository);
+    }
+
+    @Test
+    void testAddReview_UniqueIndexViolation() {
+        Review review = new Review(null, "movie1", "user1", 5, "Race", LocalDateTime.now());
+        when(reviewRepository.save(review)).thenThrow(new DuplicateKeyException("E11000 duplicate key"));
+
+        Exception exception = assertThrows(DuplicateKeyException.class, () -> reviewService.addReview(review));
+
+        assertEquals("User has already reviewed this movie.", exception.getMessage());
+        verifyNoInteractions(ratingStatsRepository);
+    }
+
+    @Test
+    void testAddReview_RecordsPairInGuard() {
+        Review review = new Review("1", "movie1", "user1", 5, "Great", LocalDateTime.now());
+        when(reviewRepository.save(review)).thenReturn(review);
+
+        reviewService.addReview(review);
+
+        verify(duplicateGuard).record("user1", "movie1");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,136 @@
+package com.movieapp.movieapplication.service;
+
+import com.movieapp.movieapplication.model.Review;
+import com.movieapp.movieapplication.model.WriteBufferStats;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReviewWriteBufferTest {
+
+    private final List<List<Review>> batches = new CopyOnWriteArrayList<>();
+    private ReviewWriteBuffer buffer;
+
+    @AfterEach
+    void tearDown() {
+        if (buffer != null) {
+            buffer.close(5000);
+        }
+    }
+
+    private Review review(String id) {
+        return new Review(id, "movie1", "user1", 5, "Great", LocalDateTime.now());
+    }
+
+    private int flushedCount() {
+        return batches.stream().mapToInt(List::size).sum();
+    }
+
+    @Test
+    void testFlushesBySize() throws InterruptedException {
+        CountDownLatch flushed = new CountDownLatch(1);
+        buffer = new ReviewWriteBuffer(100, 3, 10_000, 10, batch -> {
+            batches.add(batch.getReviews());
+            flushed.countDown();
+        });
+        buffer.start();
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(buffer.offer(review(String.valueOf(i))));
+        }
+
+        // Interwał 10 s - partię musiał wymusić rozmiar
+        assertTrue(flushed.await(5, TimeUnit.SECONDS));
+        assertEquals(3, batches.get(0).size());
+    }
+
+    @Test
+    void testFlushesByTime() throws InterruptedException {
+        CountDownLatch flushed = new CountDownLatch(1);
+        buffer = new ReviewWriteBuffer(100, 1000, 20, 10, batch -> {
+            batches.add(batch.getReviews());
+            flushed.countDown();
+        });
+        buffer.start();
+
+        buffer.offer(review("1"));
+
+        assertTrue(flushed.await(5, TimeUnit.SECONDS));
+        assertEquals(1, batches.get(0).size());
+    }
+
+    @Test
+    void testRejectsWhenFull() {
+        // Wątek zapisujący nie jest uruchomiony, więc kolejka się nie opróżnia
+        buffer = new ReviewWriteBuffer(2, 10, 10, 5, batch -> batches.add(batch.getReviews()));
+
+        assertTrue(buffer.offer(review("1")));
+        assertTrue(buffer.offer(review("2")));
+        assertFalse(buffer.offer(review("3")));
+
+        WriteBufferStats stats = buffer.getStats();
+        assertEquals(2, stats.getQueueDepth());
+        assertEquals(2, stats.getAccepted());
+        assertEquals(1, stats.getRejected());
+    }
+
+    @Test
+    void testCloseFlushesQueuedReviews() {
+        buffer = new ReviewWriteBuffer(100, 2, 10_000, 10, batch -> batches.add(batch.getReviews()));
+        buffer.start();
+        for (int i = 0; i < 5; i++) {
+            buffer.offer(review(String.valueOf(i)));
+        }
+
+        buffer.close(5000);
+
+        assertEquals(5, flushedCount());
+        assertEquals(5, buffer.getStats().getFlushed());
+        assertFalse(buffer.offer(review("late")));
+    }
+
+    @Test
+    void testFailedFlushIsCounted() {
+        buffer = new ReviewWriteBuffer(100, 10, 10, 10, batch -> {
+            throw new IllegalStateException("database down");
+        });
+        buffer.start();
+        buffer.offer(review("1"));
+
+        buffer.close(5000);
+
+        assertEquals(1, buffer.getStats().getFailed());
+        assertEquals(0, buffer.getStats().getFlushed());
+    }
+
+    @Test
+    void testRetryKeepsCompletedStages() {
+        List<String> calls = new CopyOnWriteArrayList<>();
+        AtomicInteger attempts = new AtomicInteger();
+        buffer = new ReviewWriteBuffer(100, 10, 10, 10, batch -> {
+            batch.stage("insert", () -> calls.add("insert"));
+            batch.stage("stats", () -> {
+                if (attempts.incrementAndGet() == 1) {
+                    throw new IllegalStateException("timeout");
+                }
+                calls.add("stats");
+            });
+        });
+        buffer.start();
+        buffer.offer(review("1"));
+
+        buffer.close(5000);
+
+        assertEquals(List.of("insert", "stats"), calls);
+        assertEquals(1, buffer.getStats().getFlushed());
+        assertEquals(0, buffer.getStats().getFailed());
+    }
+}
@@ -0,0 +1,96 @@
+package com.movieapp.movieapplication.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SuggestIndexTest {
+
+    private final SuggestIndex index = new SuggestIndex();
+
+    private List<String> titles(List<SuggestIndex.Entry> entries) {
+        return entries.stream().map(SuggestIndex.Entry::getTitle).toList();
+    }
+
+    @Test
+    void testSuggest_TopKByWeightFromBase() {
+        index.completeRebuild(List.of(
+                new SuggestIndex.Entry("1", "The Matrix", 50),
+                new SuggestIndex.Entry("2", "The Matrix Reloaded", 20),
+                new SuggestIndex.Entry("3", "The Mask", 70),
+                new SuggestIndex.Entry("4", "Thelma & Louise", 99),
+                new SuggestIndex.Entry("5", "Heat", 1000)));
+
+        assertEquals(List.of("Thelma & Louise", "The Mask", "The Matrix"), titles(index.suggest("the", 3)));
+        assertEquals(List.of("The Mask", "The Matrix", "The Matrix Reloaded"), titles(index.suggest("THE  MA", 5)));
+        assertEquals(List.of(), index.suggest("x", 5));
+    }
+
+    @Test
+    void testSuggest_EqualWeightsAreAlphabetical() {
+        List<SuggestIndex.Entry> entries = new ArrayList<>();
+        for (String title : List.of("Ccc", "Aaa", "Bbb", "Abc")) {
+            entries.add(new SuggestIndex.Entry(title, title, 0));
+        }
+        index.completeRebuild(entries);
+
+        assertEquals(List.of("Aaa", "Abc"), titles(index.suggest("a", 10)));
+        assertEquals(List.of(), index.suggest("   ", 10));
+    }
+
+    @Test
+    void testSuggest_MergesDeltaAndHidesStaleEntries() {
+        index.completeRebuild(List.of(
+                new SuggestIndex.Entry("1", "Amelie", 10),
+                new SuggestIndex.Entry("2", "Alien", 5)));
+
+        index.put("1", "Brave", 10);
+        index.put("3", "Aliens", 7);
+        index.remove("2");
+
+        assertEquals(List.of("Aliens"), titles(index.suggest("a", 10)));
+        assertEquals(List.of("Brave"), titles(index.suggest("b", 10)));
+    }
+
+    @Test
+    void testRebuild_KeepsWritesMadeDuringRebuild() {
+        index.beginRebuild();
+        index.put("9", "Zodiac", 1);
+        index.completeRebuild(List.of(new SuggestIndex.Entry("1", "Zoolander", 0)));
+
+        assertEquals(List.of("Zodiac", "Zoolander"), titles(index.suggest("zo", 10)));
+    }
+
+    @Test
+    void testSuggest_LargeBaseStaysCompact() {
+        List<SuggestIndex.Entry> entries = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            // ID w formacie ObjectId, tytuły ze wspólnymi początkami jak w prawdziwym katalogu
+            String id = String.format("65a1b2c3d4e5f6%010x", i);
+            entries.add(new SuggestIndex.Entry(id, "Star Wars: Episode " + i, i % 1000));
+        }
+        entries.add(new SuggestIndex.Entry("custom-id", "Star Trek", 5000));
+        index.completeRebuild(entries);
+
+        List<SuggestIndex.Entry> top = index.suggest("star wars: episode 4", 2);
+        assertEquals(List.of("Star Wars: Episode 40999", "Star Wars: Episode 41999"), titles(top));
+        assertEquals(String.format("65a1b2c3d4e5f6%010x", 40999), top.get(0).getId());
+        assertEquals("custom-id", index.suggest("star t", 1).get(0).getId());
+        // Tytuł, ID, waga i drzewo - wyraźnie poniżej dwóch pełnych kopii tytułów i ID w UTF-8
+        assertTrue(index.memoryBytes() < 100_001L * 40, "Suggest index takes " + index.memoryBytes() + " bytes");
+    }
+
+    @Test
+    void testSuggest_NonAsciiPrefix() {
+        index.completeRebuild(List.of(
+                new SuggestIndex.Entry("1", "Żółty szalik", 0),
+                new SuggestIndex.Entry("2", "Zorro", 0)));
+
+        assertEquals(List.of("Żółty szalik", "Zorro"), titles(index.suggest("zo", 10)));
+        assertEquals(List.of("Żółty szalik"), titles(index.suggest("żół", 10)));
+    }
+}
@@ -0,0 +1,46 @@
+package com.movieapp.movieapplication.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TextHighlighterTest {
+
+    @Test
+    void testParseQuery_PhrasesWordsAndExclusions() {
+        List<List<String>> phrases = TextHighlighter.parseQuery("\"Plot Twist\" ending -boring -\"too long\"");
+
+        assertEquals(List.of(List.of("plot", "twist"), List.of("ending")), phrases);
+    }
+
+    @Test
+    void testHighlight_WrapsMatchesAndEscapesHtml() {
+        List<String> fragments = TextHighlighter.highlight("A <b>great</b> plot twist, truly Łódź-level!",
+                TextHighlighter.parseQuery("\"plot twist\" lodz"), 3, 160);
+
+        assertEquals(List.of("A &lt;b&gt;great&lt;/b&gt; <em>plot twist</em>, truly <em>Łódź</em>-level!"), fragments);
+    }
+
+    @Test
+    void testHighlight_BuildsFragmentsAroundDistantMatches() {
+        String text = "twist " + "filler ".repeat(100) + "another twist at the end";
+
+        List<String> fragments = TextHighlighter.highlight(text, TextHighlighter.parseQuery("twist"), 3, 40);
+
+        assertEquals(2, fragments.size());
+        assertTrue(fragments.get(0).startsWith("<em>twist</em>"));
+        assertTrue(fragments.get(0).endsWith("…"));
+        assertTrue(fragments.get(1).startsWith("…"));
+        assertTrue(fragments.get(1).contains("another <em>twist</em> at the end"));
+    }
+
+    @Test
+    void testHighlight_FallsBackToBeginningWithoutMatch() {
+        List<String> fragments = TextHighlighter.highlight("Nothing relevant here", TextHighlighter.parseQuery("twist"), 3, 7);
+
+        assertEquals(List.of("Nothing…"), fragments);
+    }
+}
@@ -0,0 +1,99 @@
+package com.movieapp.movieapplication.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TextIndexTest {
+
+    private final TextIndex index = new TextIndex();
+
+    private void put(String key, String text) {
+        Map<String, Float> terms = new HashMap<>();
+        TextTokenizer.tokenize(text).forEach(token -> terms.merge(token, 1f, Float::sum));
+        index.put(key, terms);
+    }
+
+    @Test
+    void testSearch_RequiresAllTermsAndRanksByBm25() {
+        put("1", "space adventure with a much longer description");
+        put("2", "space adventure");
+        put("3", "space drama");
+        put("4", "romantic comedy");
+
+        TextIndex.Result result = index.search(List.of("space", "adventure"), 0, 10);
+
+        assertEquals(2, result.getTotal());
+        assertEquals("2", result.getHits().get(0).getKey());
+        assertEquals("1", result.getHits().get(1).getKey());
+    }
+
+    @Test
+    void testSearch_Paging() {
+        for (int i = 0; i < 5; i++) {
+            put(String.valueOf(i), "matrix " + "word ".repeat(i));
+        }
+
+        TextIndex.Result secondPage = index.search(List.of("matrix"), 2, 2);
+
+        assertEquals(5, secondPage.getTotal());
+        assertEquals(List.of("2", "3"), secondPage.getHits().stream().map(TextIndex.Hit::getKey).toList());
+    }
+
+    @Test
+    void testSearch_PagingWithTiedScores() {
+        // Te same teksty - wszystkie wyniki remisują, więc o kolejności decyduje klucz
+        for (String key : List.of("e", "b", "d", "a", "c")) {
+            put(key, "matrix movie");
+        }
+
+        List<String> pages = new ArrayList<>();
+        for (int offset = 0; offset < 5; offset += 2) {
+            index.search(List.of("matrix"), offset, 2).getHits().forEach(hit -> pages.add(hit.getKey()));
+        }
+
+        assertEquals(List.of("a", "b", "c", "d", "e"), pages);
+    }
+
+    @Test
+    void testPutAndRemove_ReplaceDocument() {
+        put("1", "old title");
+        put("1", "new title");
+        put("2", "other");
+
+        assertEquals(0, index.search(List.of("old"), 0, 10).getTotal());
+        assertEquals(1, index.search(List.of("new"), 0, 10).getTotal());
+
+        index.remove("1");
+
+        assertEquals(0, index.search(List.of("title"), 0, 10).getTotal());
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void testCompaction_KeepsLiveDocuments() {
+        for (int i = 0; i < 3000; i++) {
+            put(String.valueOf(i), "movie number" + i);
+        }
+        for (int i = 0; i < 2500; i++) {
+            index.remove(String.valueOf(i));
+        }
+
+        TextIndex.Result result = index.search(List.of("movie"), 0, 1000);
+
+        assertEquals(500, result.getTotal());
+        assertTrue(result.getHits().stream().allMatch(hit -> Integer.parseInt(hit.getKey()) >= 2500));
+        assertEquals(1, index.search(List.of("number2999"), 0, 10).getTotal());
+    }
+
+    @Test
+    void testTokenizer_NormalizesCaseAndDiacritics() {
+        assertEquals(List.of("zolta", "lodz", "2001"), TextTokenizer.tokenize("Żółta ŁÓDŹ - 2001!"));
+    }
+}
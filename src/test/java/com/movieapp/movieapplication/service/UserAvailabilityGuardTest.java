@@ -0,0 +1,59 @@
+package com.movieapp.movieapplication.service;
+
+import com.movieapp.movieapplication.model.User;
+import com.movieapp.movieapplication.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class UserAvailabilityGuardTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private UserAvailabilityGuard guard;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        guard = new UserAvailabilityGuard(userRepository);
+    }
+
+    @Test
+    void testBeforeRebuild_ChecksDatabase() {
+        when(userRepository.existsByUsername("alice")).thenReturn(true);
+
+        assertTrue(guard.isUsernameTaken("alice"));
+        verify(userRepository).existsByUsername("alice");
+    }
+
+    @Test
+    void testAfterRebuild_FreeValueSkipsDatabase() {
+        when(userRepository.streamUsernamesAndEmails()).thenReturn(Stream.of(new User("alice", "alice@example.com", null, null)));
+        guard.rebuild();
+
+        assertFalse(guard.isUsernameTaken("bob"));
+        assertFalse(guard.isEmailTaken("bob@example.com"));
+        // Nazwa i e-mail mają osobne klucze - e-mail nie blokuje takiej samej nazwy
+        assertFalse(guard.isUsernameTaken("alice@example.com"));
+        verify(userRepository, never()).existsByUsername(any());
+        verify(userRepository, never()).existsByEmail(any());
+    }
+
+    @Test
+    void testRecordedValue_IsConfirmedInDatabase() {
+        when(userRepository.streamUsernamesAndEmails()).thenReturn(Stream.empty());
+        guard.rebuild();
+        guard.record("carol", "carol@example.com");
+        when(userRepository.existsByEmail("carol@example.com")).thenReturn(true);
+
+        assertTrue(guard.isEmailTaken("carol@example.com"));
+        verify(userRepository).existsByEmail("carol@example.com");
+    }
+}
@@ -1,16 +1,26 @@
 package com.movieapp.movieapplication.service;
 
+import com.movieapp.movieapplication.model.CursorPage;
+import com.movieapp.movieapplication.model.Movie;
 import com.movieapp.movieapplication.model.User;
+import com.movieapp.movieapplication.model.UserAvailability;
+import com.movieapp.movieapplication.model.UserMovieListChange;
+import com.movieapp.movieapplication.model.WatchHistoryEntry;
 import com.movieapp.movieapplication.repository.MovieRepository;
 import com.movieapp.movieapplication.repository.UserRepository;
+import com.movieapp.movieapplication.repository.UserRepositoryCustom;
+import com.movieapp.movieapplication.repository.WatchHistoryRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -24,17 +34,26 @@ public class UserServiceTest {
     private MovieRepository movieRepository;
 
     @Mock
-    private BCryptPasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordEncoder;
 
     @Mock
     private EmailService emailService;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private WatchHistoryRepository watchHistoryRepository;
+
+    @Mock
+    private UserAvailabilityGuard availabilityGuard;
+
     private UserService userService;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        userService = new UserService(userRepository, passwordEncoder, emailService, movieRepository);
+        userService = new UserService(userRepository, passwordEncoder, emailService, movieRepository, eventPublisher, watchHistoryRepository, availabilityGuard);
     }
 
     @Test
@@ -43,10 +62,9 @@ public class UserServiceTest {
         String email = "test@example.com";
         String password = "password";
 
-        when(userRepository.findByEmail(email)).thenReturn(Optional.empty());
-        when(userRepository.findByUsername(username)).thenReturn(Optional.empty());
+        when(userRepository.hasUniqueIndexes(UserService.EMAIL_INDEX, UserService.USERNAME_INDEX)).thenReturn(true);
         when(passwordEncoder.encode(password)).thenReturn("encodedPassword");
-        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(userRepository.insert(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         User user = userService.registerUser(username, email, password);
 
@@ -55,24 +73,71 @@ public class UserServiceTest {
         assertEquals("encodedPassword", user.getPasswordHash());
         assertEquals("ROLE_USER", user.getRole());
 
-        verify(userRepository, times(1)).findByEmail(email);
-        verify(userRepository, times(1)).findByUsername(username);
+        // Przy istniejących indeksach unikalnych jeden zapis, bez wcześniejszych zapytań o zajętość
+        verify(userRepository, never()).existsByEmail(any());
+        verify(userRepository, never()).existsByUsername(any());
         verify(passwordEncoder, times(1)).encode(password);
-        verify(userRepository, times(1)).save(any(User.class));
+        verify(userRepository, times(1)).insert(any(User.class));
+        verify(availabilityGuard).record(username, email);
     }
 
     @Test
     void testRegisterUser_EmailAlreadyInUse() {
         String email = "test@example.com";
-        when(userRepository.findByEmail(email)).thenReturn(Optional.of(new User()));
+        when(userRepository.insert(any(User.class))).thenThrow(new DuplicateKeyException(
+                "E11000 duplicate key error collection: MovieApp.users index: email_unique dup key: { email: \"test@example.com\" }"));
 
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
             userService.registerUser("username", email, "password");
         });
 
         assertEquals("Email is already in use.", exception.getMessage());
-        verify(userRepository, times(1)).findByEmail(email);
-        verify(userRepository, never()).save(any(User.class));
+        verify(availabilityGuard, never()).record(any(), any());
+    }
+
+    @Test
+    void testRegisterUser_UsernameAlreadyInUse() {
+        when(userRepository.insert(any(User.class))).thenThrow(new DuplicateKeyException(
+                "E11000 duplicate key error collection: MovieApp.users index: username_unique dup key: { username: \"username\" }"));
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> userService.registerUser("username", "test@example.com", "password"));
+
+        assertEquals("Username is already in use.", exception.getMessage());
+    }
+
+    @Test
+    void testRegisterUser_WithoutUniqueIndexesChecksBeforeInsert() {
+        when(userRepository.hasUniqueIndexes(UserService.EMAIL_INDEX, UserService.USERNAME_INDEX)).thenReturn(false, true);
+        when(userRepository.existsByUsername("taken")).thenReturn(true);
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> userService.registerUser("taken", "test@example.com", "password"));
+
+        assertEquals("Username is already in use.", exception.getMessage());
+        verify(userRepository, never()).insert(any(User.class));
+
+        // Po potwierdzeniu indeksów sprawdzenie przed insertem znika
+        when(userRepository.insert(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        userService.registerUser("other", "other@example.com", "password");
+        userService.registerUser("third", "third@example.com", "password");
+        verify(userRepository, times(1)).existsByEmail("test@example.com");
+        verify(userRepository, never()).existsByEmail("other@example.com");
+        verify(userRepository, times(2)).hasUniqueIndexes(UserService.EMAIL_INDEX, UserService.USERNAME_INDEX);
+    }
+
+    @Test
+    void testCheckAvailability() {
+        when(availabilityGuard.isUsernameTaken("taken")).thenReturn(true);
+        when(availabilityGuard.isEmailTaken("free@example.com")).thenReturn(false);
+
+        UserAvailability both = userService.checkAvailability("taken", "free@example.com");
+        UserAvailability emailOnly = userService.checkAvailability(null, "free@example.com");
+
+        assertFalse(both.getUsernameAvailable());
+        assertTrue(both.getEmailAvailable());
+        assertNull(emailOnly.getUsernameAvailable());
+        assertThrows(IllegalArgumentException.class, () -> userService.checkAvailability(" ", null));
     }
 
     @Test
@@ -91,6 +156,38 @@ public class UserServiceTest {
         assertEquals(user, loggedInUser);
         verify(userRepository, times(1)).findByEmail(email);
         verify(passwordEncoder, times(1)).matches(password, "encodedPassword");
+        verify(userRepository, never()).replacePasswordHash(any(), any(), any());
+    }
+
+    @Test
+    void testLoginUser_RehashesOutdatedHash() {
+        User user = new User("testuser", "test@example.com", "$2a$10$legacy", "ROLE_USER");
+        user.setId("u1");
+        when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(user));
+        when(passwordEncoder.matches("password", "$2a$10$legacy")).thenReturn(true);
+        when(passwordEncoder.upgradeEncoding("$2a$10$legacy")).thenReturn(true);
+        when(passwordEncoder.encode("password")).thenReturn("{bcrypt}$2a$12$current");
+        when(userRepository.replacePasswordHash("u1", "$2a$10$legacy", "{bcrypt}$2a$12$current")).thenReturn(true);
+
+        User loggedIn = userService.loginUser("test@example.com", "password");
+
+        assertEquals("{bcrypt}$2a$12$current", loggedIn.getPasswordHash());
+        verify(userRepository).replacePasswordHash("u1", "$2a$10$legacy", "{bcrypt}$2a$12$current");
+    }
+
+    @Test
+    void testLoginUser_RehashFailureDoesNotFailLogin() {
+        User user = new User("testuser", "test@example.com", "$2a$10$legacy", "ROLE_USER");
+        user.setId("u1");
+        when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(user));
+        when(passwordEncoder.matches("password", "$2a$10$legacy")).thenReturn(true);
+        when(passwordEncoder.upgradeEncoding("$2a$10$legacy")).thenReturn(true);
+        when(passwordEncoder.encode("password")).thenThrow(new RejectedExecutionException("Password hashing is overloaded."));
+
+        User loggedIn = userService.loginUser("test@example.com", "password");
+
+        assertEquals("$2a$10$legacy", loggedIn.getPasswordHash());
+        verify(userRepository, never()).replacePasswordHash(any(), any(), any());
     }
 
     @Test
@@ -147,12 +244,11 @@ public class UserServiceTest {
     @Test
     void testUpdateUser_Success() {
         String userId = "1";
-        User existingUser = new User("username", "test@example.com", "encodedPassword", "ROLE_USER");
         User updatedUser = new User("newUsername", "new@example.com", "newPassword", "ROLE_ADMIN");
 
-        when(userRepository.findById(userId)).thenReturn(Optional.of(existingUser));
         when(passwordEncoder.encode("newPassword")).thenReturn("newEncodedPassword");
-        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(userRepository.updateProfile(userId, "newUsername", "new@example.com", "ROLE_ADMIN", "newEncodedPassword"))
+                .thenReturn(new User("newUsername", "new@example.com", "newEncodedPassword", "ROLE_ADMIN"));
 
         User result = userService.updateUser(userId, updatedUser);
 
@@ -161,9 +257,18 @@ public class UserServiceTest {
         assertEquals("newEncodedPassword", result.getPasswordHash());
         assertEquals("ROLE_ADMIN", result.getRole());
 
-        verify(userRepository, times(1)).findById(userId);
         verify(passwordEncoder, times(1)).encode("newPassword");
-        verify(userRepository, times(1)).save(any(User.class));
+        // $set pól profilu zamiast zapisu całego dokumentu
+        verify(userRepository, never()).save(any(User.class));
+    }
+
+    @Test
+    void testUpdateUser_NotFound() {
+        when(userRepository.updateProfile(eq("1"), any(), any(), any(), isNull())).thenReturn(null);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> userService.updateUser("1", new User("name", "a@example.com", null, "ROLE_USER")));
+        verifyNoInteractions(passwordEncoder);
     }
 
     @Test
@@ -175,6 +280,7 @@ public class UserServiceTest {
 
         verify(userRepository, times(1)).existsById(userId);
         verify(userRepository, times(1)).deleteById(userId);
+        verify(watchHistoryRepository, times(1)).deleteByUserId(userId);
     }
 
     @Test
@@ -190,4 +296,100 @@ public class UserServiceTest {
         verify(userRepository, times(1)).existsById(userId);
         verify(userRepository, never()).deleteById(anyString());
     }
+
+    @Test
+    void testAddFavoriteMovie_PublishesActivityOnlyWhenNew() {
+        Movie movie = new Movie();
+        movie.setId("m1");
+        movie.setTitle("Test Movie");
+        when(userRepository.findEmailById("u1")).thenReturn(Optional.of("test@example.com"));
+        when(movieRepository.findById("m1")).thenReturn(Optional.of(movie));
+        when(userRepository.addToList("u1", "favoriteMovies", "m1"))
+                .thenReturn(UserRepositoryCustom.ListUpdate.CHANGED, UserRepositoryCustom.ListUpdate.UNCHANGED);
+
+        UserMovieListChange first = userService.addFavoriteMovie("u1", "m1");
+        UserMovieListChange second = userService.addFavoriteMovie("u1", "m1");
+
+        assertTrue(first.isChanged());
+        assertFalse(second.isChanged());
+        assertEquals("favoriteMovies", first.getList());
+        verify(eventPublisher, times(1)).publishEvent(any(MovieActivityEvent.class));
+        // Bez odczytu i zapisu całego dokumentu użytkownika
+        verify(userRepository, never()).findById(any());
+        verify(userRepository, never()).save(any());
+    }
+
+    @Test
+    void testAddWatchedMovie_PublishesActivityForEveryWatch() {
+        Movie movie = new Movie();
+        movie.setId("m1");
+        when(userRepository.findEmailById("u1")).thenReturn(Optional.of("test@example.com"));
+        when(movieRepository.findById("m1")).thenReturn(Optional.of(movie));
+        when(watchHistoryRepository.recordWatch(eq("u1"), eq("m1"), any(LocalDateTime.class))).thenReturn(true, false);
+
+        assertTrue(userService.addWatchedMovie("u1", "m1").isChanged());
+        assertFalse(userService.addWatchedMovie("u1", "m1").isChanged());
+
+        verify(watchHistoryRepository, times(2)).recordWatch(eq("u1"), eq("m1"), any(LocalDateTime.class));
+        verify(eventPublisher, times(2)).publishEvent(any(MovieActivityEvent.class));
+        // Dokument użytkownika nie jest już zmieniany
+        verify(userRepository, never()).addToList(any(), any(), any());
+    }
+
+    @Test
+    void testGetWatchHistory_PagesWithCursor() {
+        WatchHistoryEntry newest = new WatchHistoryEntry("u1", "m2", LocalDateTime.of(2024, 5, 2, 10, 0));
+        WatchHistoryEntry older = new WatchHistoryEntry("u1", "m1", LocalDateTime.of(2024, 5, 1, 10, 0));
+        WatchHistoryEntry migrated = new WatchHistoryEntry("u1", "m0", null);
+        when(watchHistoryRepository.findByUserIdAfter("u1", null, null, 3)).thenReturn(List.of(newest, older, migrated));
+
+        CursorPage<WatchHistoryEntry> first = userService.getWatchHistory("u1", null, 2);
+
+        assertEquals(List.of(newest, older), first.getItems());
+        assertNotNull(first.getNextCursor());
+
+        when(watchHistoryRepository.findByUserIdAfter("u1", older.getWatchedAt(), older.getId(), 3)).thenReturn(List.of(migrated));
+        CursorPage<WatchHistoryEntry> second = userService.getWatchHistory("u1", first.getNextCursor(), 2);
+
+        assertEquals(List.of(migrated), second.getItems());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void testGetWatchHistory_EmptyDateInCursor() {
+        String cursor = CursorCodec.encode("", "entry1");
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> userService.getWatchHistory("u1", cursor, 2));
+        assertEquals("Invalid cursor.", e.getMessage());
+        verifyNoInteractions(watchHistoryRepository);
+    }
+
+    @Test
+    void testAddFavoriteMovie_UserNotFound() {
+        when(userRepository.findEmailById("u1")).thenReturn(Optional.empty());
+
+        assertThrows(IllegalArgumentException.class, () -> userService.addFavoriteMovie("u1", "m1"));
+        verify(userRepository, never()).addToList(any(), any(), any());
+    }
+
+    @Test
+    void testRemoveWatchedMovie() {
+        when(watchHistoryRepository.removeWatch("u1", "m1")).thenReturn(true);
+        when(watchHistoryRepository.removeWatch("u2", "m1")).thenReturn(false);
+        when(userRepository.existsById("u2")).thenReturn(false);
+
+        assertTrue(userService.removeWatchedMovie("u1", "m1").isChanged());
+        assertThrows(IllegalArgumentException.class, () -> userService.removeWatchedMovie("u2", "m1"));
+        verifyNoInteractions(movieRepository);
+    }
+
+    @Test
+    void testRemoveWatchedMovie_PullsFromListOfUserNotYetMigrated() {
+        when(userRepository.pullEmbeddedWatched("u1", "m1")).thenReturn(true);
+        when(watchHistoryRepository.removeWatch("u1", "m1")).thenReturn(false);
+
+        assertTrue(userService.removeWatchedMovie("u1", "m1").isChanged());
+        verify(userRepository).pullEmbeddedWatched("u1", "m1");
+        verify(userRepository, never()).existsById("u1");
+    }
 }
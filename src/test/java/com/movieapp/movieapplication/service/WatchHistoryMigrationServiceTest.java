@@ -0,0 +1,108 @@
+package com.movieapp.movieapplication.service;
+
+import com.movieapp.movieapplication.model.WatchHistoryMigration;
+import com.movieapp.movieapplication.repository.UserRepository;
+import com.movieapp.movieapplication.repository.WatchHistoryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+class WatchHistoryMigrationServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private WatchHistoryRepository watchHistoryRepository;
+
+    private WatchHistoryMigrationService migrationService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        migrationService = new WatchHistoryMigrationService(userRepository, watchHistoryRepository, 2, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        migrationService.shutdown();
+    }
+
+    private static Map<String, List<String>> batch(String... userIds) {
+        Map<String, List<String>> batch = new LinkedHashMap<>();
+        for (String userId : userIds) {
+            batch.put(userId, List.of("m1", "m2"));
+        }
+        return batch;
+    }
+
+    @Test
+    void testRun_MigratesAllBatches() {
+        Map<String, List<String>> first = batch("u1", "u2");
+        Map<String, List<String>> second = batch("u3");
+        when(userRepository.findEmbeddedWatchedAfter(null, 2)).thenReturn(first);
+        when(userRepository.findEmbeddedWatchedAfter("u2", 2)).thenReturn(second);
+        when(userRepository.findEmbeddedWatchedAfter("u3", 2)).thenReturn(Map.of());
+        when(watchHistoryRepository.importWatched(first)).thenReturn(4L);
+        when(watchHistoryRepository.importWatched(second)).thenReturn(1L);
+        when(userRepository.findEmbeddedWatched(first.keySet())).thenReturn(first);
+        when(userRepository.findEmbeddedWatched(second.keySet())).thenReturn(second);
+        WatchHistoryMigration migration = new WatchHistoryMigration();
+
+        migrationService.run(migration);
+
+        assertEquals(WatchHistoryMigration.Status.COMPLETED, migration.getStatus());
+        assertEquals(3, migration.getMigratedUsers());
+        assertEquals(5, migration.getMigratedEntries());
+        // Lista znika z dokumentu dopiero po zapisaniu wpisów historii
+        InOrder inOrder = inOrder(watchHistoryRepository, userRepository);
+        inOrder.verify(watchHistoryRepository).importWatched(first);
+        inOrder.verify(userRepository).unsetEmbeddedWatched(Set.of("u1", "u2"));
+        verify(watchHistoryRepository, never()).removeImported(any());
+    }
+
+    @Test
+    void testRun_MovieRemovedAfterBatchWasReadIsNotImported() {
+        Map<String, List<String>> first = batch("u1");
+        when(userRepository.findEmbeddedWatchedAfter(null, 2)).thenReturn(first);
+        when(userRepository.findEmbeddedWatchedAfter("u1", 2)).thenReturn(Map.of());
+        // Użytkownik usunął m2 po odczycie paczki - $pull zdjął go już z osadzonej listy
+        when(userRepository.findEmbeddedWatched(first.keySet())).thenReturn(Map.of("u1", List.of("m1")));
+        WatchHistoryMigration migration = new WatchHistoryMigration();
+
+        migrationService.run(migration);
+
+        assertEquals(WatchHistoryMigration.Status.COMPLETED, migration.getStatus());
+        InOrder inOrder = inOrder(watchHistoryRepository, userRepository);
+        inOrder.verify(watchHistoryRepository).importWatched(first);
+        inOrder.verify(watchHistoryRepository).removeImported(Map.of("u1", List.of("m2")));
+        inOrder.verify(userRepository).unsetEmbeddedWatched(Set.of("u1"));
+    }
+
+    @Test
+    void testRun_FailedImportKeepsEmbeddedList() {
+        Map<String, List<String>> first = batch("u1");
+        when(userRepository.findEmbeddedWatchedAfter(null, 2)).thenReturn(first);
+        when(userRepository.findEmbeddedWatchedAfter("u1", 2)).thenReturn(Map.of());
+        when(watchHistoryRepository.importWatched(first)).thenThrow(new RuntimeException("write failed"));
+        WatchHistoryMigration migration = new WatchHistoryMigration();
+
+        migrationService.run(migration);
+
+        assertEquals(WatchHistoryMigration.Status.FAILED, migration.getStatus());
+        assertEquals("write failed", migration.getError());
+        assertEquals(0, migration.getMigratedUsers());
+        verify(userRepository, never()).unsetEmbeddedWatched(any());
+    }
+}